@@ -29,14 +29,29 @@ android {
         sourceCompatibility = JavaVersion.VERSION_1_8
         targetCompatibility = JavaVersion.VERSION_1_8
     }
+    testOptions {
+        unitTests {
+            // Robolectric tests inflate the real layouts and drawables.
+            isIncludeAndroidResources = true
+
+            // The performance tests only check wall times when asked to, with
+            // -PcheckWallTimes, since they vary too much on shared build machines.
+            all {
+                it.systemProperty("checkWallTimes", project.hasProperty("checkWallTimes"))
+            }
+        }
+    }
 }
 
 dependencies {
 
+    implementation(project(":engine"))
     implementation("androidx.appcompat:appcompat:1.6.1")
     implementation("com.google.android.material:material:1.10.0")
     implementation("androidx.constraintlayout:constraintlayout:2.1.4")
     testImplementation("junit:junit:4.13.2")
+    testImplementation("org.robolectric:robolectric:4.10.3")
+    testImplementation("androidx.test:core:1.5.0")
     androidTestImplementation("androidx.test.ext:junit:1.1.5")
     androidTestImplementation("androidx.test.espresso:espresso-core:3.5.1")
 }
\ No newline at end of file
@@ -1,15 +1,23 @@
 package net.kenneydiaz.tyler.frogsandtoads;
 
 import android.content.Context;
+import android.content.res.AssetFileDescriptor;
 import android.content.res.Resources;
 import android.media.MediaPlayer;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.os.Trace;
 import android.util.Log;
+import android.util.SparseArray;
+import android.util.SparseBooleanArray;
 
-import java.util.ArrayList;
+import java.io.IOException;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
-import java.util.Objects;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * A class which allows for the easy and dynamic playing of audio files as well as the
@@ -28,6 +36,29 @@ import java.util.Objects;
  * un-muting of "music" (which is just how indefinitely looping audio is referred to)
  * and sound effects (which is just how one-time audio is referred to).
  *
+ * Media players are now pooled. Each slot of the pool holds onto its MediaPlayer after
+ * the audio it was playing finishes, and reuses it for the next piece of audio through
+ * reset() and setDataSource() rather than creating a new one with MediaPlayer.create().
+ * Players are prepared with prepareAsync(), so the UI thread never waits on a codec, and
+ * they only start playing once the media framework reports that they are prepared. Even
+ * before that, opening the resource and handing it to the player with setDataSource()
+ * read from storage and call into the media server, so they are done on a background
+ * loader thread, which owns the player until it is done with it. The
+ * slots in use are tracked in a bitmask instead of a map of boxed identifiers, and the
+ * result of validating a resource ID is cached so the resource table is only consulted
+ * once per resource. The pooled players are only truly released (and their native
+ * resources given back) when the whole manager is released or suspended.
+ *
+ * The manager also measures its own cost: the time between play() and each piece of
+ * audio actually starting, how often the player limit is reached, how many players are
+ * alive, and how long suspending and resuming take. These can be read at any time as an
+ * AudioMetrics snapshot, or observed as they happen through a MetricsListener.
+ *
+ * Creating a media player and looking a resource up both cost the UI thread several
+ * milliseconds the first time, which matters most while the app is starting. preload()
+ * therefore does both on the loader thread ahead of time, then hands the players and
+ * the validated resource IDs over to the pool on the UI thread.
+ *
  * Known Bugs:
  *
  * - None
@@ -36,6 +67,44 @@ import java.util.Objects;
  */
 public class AudioManager {
 
+    /**
+     * A listener which is notified as the audio manager records its metrics. All
+     * callbacks are made on the thread the audio manager is used from.
+     */
+    public interface MetricsListener {
+
+        /**
+         * Called when a piece of audio actually starts playing.
+         *
+         * @param resourceID the resource which started.
+         * @param latencyNanos the time between play() and the audio starting.
+         */
+        void onPlaybackStarted(int resourceID, long latencyNanos);
+
+        /**
+         * Called when a piece of audio could not be played because every media player
+         * was already in use.
+         *
+         * @param resourceID the resource which could not be played.
+         * @param timesReached the number of times the limit has been reached so far.
+         */
+        void onPlayerLimitReached(int resourceID, int timesReached);
+
+        /**
+         * Called once suspend() has released every media player.
+         *
+         * @param durationNanos the time suspend() took.
+         */
+        void onSuspended(long durationNanos);
+
+        /**
+         * Called once resume() has restarted all suspended music.
+         *
+         * @param durationNanos the time resume() took.
+         */
+        void onResumed(long durationNanos);
+    }
+
     // The variable which will reference the context this audio manager is tied to.
     private final Context context;
 
@@ -44,18 +113,72 @@ public class AudioManager {
     private boolean muteMusic;
     private boolean muteSFX;
 
-    // A hash map used to store and manage all active media players.
-    private final Map<Integer, MediaPlayer> activePlayers = new HashMap<>();
-
-    // A hash map used to maintain the relation between active media players and the
-    // resource ID of the media they are playing. This is used for more efficient
-    // suspension and resuming of the AudioManager.
-    private final Map<Integer, Integer> musicResources = new HashMap<>();
+    // The pool of media players. A slot's player is created the first time the slot is
+    // used, and is then reset and reused for every piece of audio played in that slot
+    // until the audio manager is released.
+    private final MediaPlayer[] players;
+
+    // Bitmasks over the slots of the pool. Bit i of usedSlots is set while slot i is
+    // playing (or preparing to play) something. Bit i of loopingSlots is set when that
+    // something is indefinitely looping audio. Bit i of preparedSlots is set once the
+    // player in slot i has finished preparing. Bit i of loadingSlots is set while the
+    // loader thread is giving the player in slot i its data source, during which the
+    // slot is not handed out again, even if it has been released, and its player is
+    // neither reset nor released.
+    private long usedSlots;
+    private long loopingSlots;
+    private long preparedSlots;
+    private long loadingSlots;
+
+    // The resource ID each slot is playing, and the playback position each slot should
+    // seek to once it is prepared (used when resuming suspended music).
+    private final int[] slotResources;
+    private final int[] pendingSeekPositions;
+
+    // A cache of resource ID validation results, so that the resource table only has to
+    // be searched once per resource ID.
+    private final SparseBooleanArray validatedResources = new SparseBooleanArray();
 
     // A hash map used to store the resource IDs and the current playback time of all
     // looping audio that was playing when the suspend() method was called.
     private final Map<Integer, Integer> suspendedMusic = new HashMap<>();
 
+    // The time at which play() was called for each slot, used to measure how long the
+    // audio takes to actually start.
+    private final long[] playRequestedAtNanos;
+
+    // The metrics recorded so far, and the optional listener notified as they are.
+    private final SparseArray<AudioMetrics.ResourceMetrics> resourceMetrics =
+            new SparseArray<>();
+    private int limitReachedCount;
+    private int suspendCount;
+    private long lastSuspendNanos;
+    private long totalSuspendNanos;
+    private int resumeCount;
+    private long lastResumeNanos;
+    private long totalResumeNanos;
+    private MetricsListener metricsListener;
+
+    // The least time allowed between the starts of two sound effects, in nanoseconds,
+    // and the time the last sound effect actually started playing (sound effects which
+    // were dropped, or never got a player, do not count).
+    private long minimumSoundEffectIntervalNanos;
+    private long lastSoundEffectNanos;
+
+    // The number of times release() has emptied the pool. Players preloaded before the
+    // pool was last emptied are not wanted any more.
+    private int releaseCount;
+
+    // The handler used to hand preloaded players and resources back to the UI thread.
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // The thread resources are opened and players are loaded on, away from the UI
+    // thread. It stops once it has been idle for LOADER_KEEP_ALIVE_SECONDS, and is
+    // started again by the next piece of work.
+    private final ThreadPoolExecutor loader = new ThreadPoolExecutor(1, 1,
+            LOADER_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+            (runnable) -> new Thread(runnable, "AudioLoader"));
+
     // The maximum number of concurrent media players.
     private final int maxActiveMediaPlayers;
 
@@ -66,6 +189,12 @@ public class AudioManager {
     // The default number of maximum concurrent media players.
     private final static int DEFAULT_MAX_ACTIVE_MEDIA_PLAYERS = 10;
 
+    // The largest pool the slot bitmasks can describe.
+    private final static int MAX_POOL_SIZE = Long.SIZE;
+
+    // How long the loader thread waits for more work before it stops.
+    private final static long LOADER_KEEP_ALIVE_SECONDS = 10;
+
     // The tag used to identify logs of this class.
     private final static String LOG_TAG = "AudioManager";
 
@@ -101,14 +230,65 @@ public class AudioManager {
      */
     public AudioManager(Context context, int maxActiveMediaPlayers, boolean muteMusic,
                         boolean muteSFX) {
-        this.maxActiveMediaPlayers = maxActiveMediaPlayers;
+
+        // The pool can hold no more players than there are bits in the slot bitmasks.
+        this.maxActiveMediaPlayers =
+                Math.max(0, Math.min(maxActiveMediaPlayers, MAX_POOL_SIZE));
         this.muteMusic = muteMusic;
         this.muteSFX = muteSFX;
         this.context = context;
+        this.players = new MediaPlayer[this.maxActiveMediaPlayers];
+        this.slotResources = new int[this.maxActiveMediaPlayers];
+        this.pendingSeekPositions = new int[this.maxActiveMediaPlayers];
+        this.playRequestedAtNanos = new long[this.maxActiveMediaPlayers];
+        this.loader.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Sets the listener which is notified as metrics are recorded.
+     *
+     * @param metricsListener the listener to notify, or null to stop notifying.
+     */
+    public void setMetricsListener(MetricsListener metricsListener) {
+        this.metricsListener = metricsListener;
+    }
+
+    /**
+     * Sets the least time allowed between the starts of two sound effects. A sound
+     * effect asked for any sooner after the last one is dropped rather than played, so
+     * moves made faster than their sounds can finish (as when the solution is being
+     * played out quickly) do not use up every slot of the pool. Music is never dropped.
+     *
+     * @param millis the least time between sound effects, or 0 to play every one.
+     */
+    public void setMinimumSoundEffectInterval(long millis) {
+        this.minimumSoundEffectIntervalNanos = Math.max(0, millis) * 1_000_000;
+    }
+
+    /**
+     * Takes a snapshot of every metric recorded by this instance of audio manager.
+     *
+     * @return a snapshot which is not affected by any later playback.
+     */
+    public AudioMetrics getMetrics() {
+        Map<Integer, AudioMetrics.ResourceMetrics> resources = new HashMap<>();
+        for (int i = 0; i < resourceMetrics.size(); i++) {
+            resources.put(resourceMetrics.keyAt(i), resourceMetrics.valueAt(i));
+        }
+
+        int livePlayers = 0;
+        for (MediaPlayer player : players) {
+            if (player != null) livePlayers++;
+        }
+
+        return new AudioMetrics(resources, limitReachedCount, livePlayers,
+                Long.bitCount(usedSlots), suspendCount, lastSuspendNanos,
+                totalSuspendNanos, resumeCount, lastResumeNanos, totalResumeNanos);
     }
 
     /**
      * Sets the state of the mute option for all music in this instance of audio manager.
+     * Music which is still being prepared will respect the new option once it is ready.
      *
      * @param muteMusic the boolean which controls whether all music in this instance
      *                  of audio manager is muted.
@@ -117,15 +297,18 @@ public class AudioManager {
 
         this.muteMusic = muteMusic;
 
-        activePlayers.forEach((key, player) -> {
-            if (player.isLooping()) {
-                if (muteMusic) {
-                    player.pause();
-                } else {
-                    player.start();
-                }
+        // Only prepared players can be paused or started. Unmuted music is measured as
+        // starting again, from the moment it was unmuted.
+        for (long slots = loopingSlots & preparedSlots; slots != 0; slots &= slots - 1) {
+            int slot = Long.numberOfTrailingZeros(slots);
+            MediaPlayer player = players[slot];
+            if (muteMusic) {
+                if (player.isPlaying()) player.pause();
+            } else if (!player.isPlaying()) {
+                playRequestedAtNanos[slot] = SystemClock.elapsedRealtimeNanos();
+                startPlayer(slot);
             }
-        });
+        }
 
     }
 
@@ -140,16 +323,12 @@ public class AudioManager {
     public void muteSoundEffects(boolean muteSFX) {
         this.muteSFX = muteSFX;
 
-        // For each sound effect in the sound effect hash map, stop the associated
-        // media player if sound effects are now muted.
+        // For each sound effect slot, stop the associated media player if sound effects
+        // are now muted.
         if (muteSFX) {
-            List<Integer> playersToRelease = new ArrayList<>();
-            activePlayers.forEach((key, player) -> {
-                if (!player.isLooping()) {
-                    playersToRelease.add(key);
-                }
-            });
-            playersToRelease.forEach(this::release);
+            for (long slots = usedSlots & ~loopingSlots; slots != 0; slots &= slots - 1) {
+                release(Long.numberOfTrailingZeros(slots));
+            }
         }
     }
 
@@ -184,93 +363,393 @@ public class AudioManager {
         return play(resourceID, false);
     }
 
+    /**
+     * Claims a free slot of the pool and begins asynchronously loading and preparing the
+     * given resource in it. The audio starts playing once the player is prepared, unless
+     * it has been muted in the meantime. Muted sound effects are not prepared at all.
+     *
+     * @param resourceID the raw resource ID of the audio to play.
+     * @param loopAudioIndefinitely true if the audio is music which should loop until
+     *                              released; false for a one-time sound effect.
+     * @return the identifier of the slot playing the audio, or -1 if the resource is
+     *         invalid, sound effects are muted, a sound effect followed the last one
+     *         too closely, or every slot is already in use. A resource which can not be
+     *         opened is only found out about on the loader thread, after which its slot
+     *         is released.
+     */
     public int play(int resourceID, boolean loopAudioIndefinitely) {
 
-        // If the provided resource ID is valid.
-        if (isValidResourceId(resourceID)) {
+        // If the provided resource ID is not valid, there is nothing to play.
+        if (!isValidResourceId(resourceID)) {
+            Log.e(LOG_TAG, "Resource ID " + resourceID + " not found!");
+            return ERROR_INDICATOR;
+        }
 
-            // Get an available identifier.
-            int identifier = getUnusedUnsignedIdentifier();
+        // Muted sound effects would only be released the moment they were prepared, so
+        // do not claim a player for them at all.
+        if (!loopAudioIndefinitely && muteSFX) {
+            return ERROR_INDICATOR;
+        }
 
-            // If sound effects are not muted and the returned identifier does not
-            // indicate that we've hit the limit of available media players.
-            if (identifier != ERROR_INDICATOR) {
+        AudioMetrics.ResourceMetrics metrics = metricsFor(resourceID);
+        metrics.playRequests++;
 
-                // Create a media player for this piece of media.
-                MediaPlayer player = MediaPlayer.create(context, resourceID);
-                player.setOnCompletionListener((listener) -> release(identifier));
-                player.setOnErrorListener((object, what, extra) -> {
-                    Log.e(LOG_TAG, "Unknown error occurred when trying to play audio!");
-
-                    // A boolean is expected to indicate whether the error was handled.
-                    // Since this is false, the on Completion listener will be called
-                    // to wrap up. If this was true, the onCompletion listener would
-                    // not be called.
-                    return false;
-                });
-                activePlayers.put(identifier, player);
-                player.start();
-                if (loopAudioIndefinitely) {
-                    musicResources.put(identifier, resourceID);
-                    player.setLooping(true);
-                    if (muteMusic) player.pause();
-                } else if (muteSFX) {
-                    release(identifier);
-                }
-                return identifier;
-            } else {
-                Log.w(LOG_TAG ,"MediaPlayer limit reached!");
+        // Drop sound effects which follow the last one to start too closely.
+        if (!loopAudioIndefinitely && minimumSoundEffectIntervalNanos > 0 &&
+                lastSoundEffectNanos != 0 && SystemClock.elapsedRealtimeNanos() -
+                lastSoundEffectNanos < minimumSoundEffectIntervalNanos) {
+            metrics.rateLimitedCount++;
+            return ERROR_INDICATOR;
+        }
+
+        // Get an available identifier. If it indicates that we've hit the limit of
+        // available media players, give up.
+        int identifier = getUnusedUnsignedIdentifier();
+        if (identifier == ERROR_INDICATOR) {
+            limitReachedCount++;
+            metrics.limitReachedCount++;
+            Log.w(LOG_TAG ,"MediaPlayer limit reached! (" + limitReachedCount +
+                    " times, resource ID " + resourceID + ")");
+            if (metricsListener != null) {
+                metricsListener.onPlayerLimitReached(resourceID, limitReachedCount);
             }
-        } else {
-            Log.e(LOG_TAG, "Resource ID " + resourceID + " not found!");
+            return ERROR_INDICATOR;
         }
-        return ERROR_INDICATOR;
+
+        // Reuse this slot's media player, or create one if the slot has never been used.
+        MediaPlayer player = obtainPlayer(identifier);
+
+        long slotBit = 1L << identifier;
+        usedSlots |= slotBit;
+        loadingSlots |= slotBit;
+        slotResources[identifier] = resourceID;
+        playRequestedAtNanos[identifier] = SystemClock.elapsedRealtimeNanos();
+        if (loopAudioIndefinitely) loopingSlots |= slotBit;
+
+        // Open the resource and hand it to the player on the loader thread, then carry
+        // on preparing it back on this one.
+        Resources resources = context.getResources();
+        loader.execute(() -> {
+            boolean loaded = setDataSource(player, resources, resourceID);
+            mainHandler.post(() -> onDataSourceSet(identifier, player, loaded));
+        });
+        return identifier;
     }
 
+    /**
+     * Creates media players for the first free slots of the pool, and validates and
+     * opens the given resources, on a background thread, so that the first calls to
+     * play() do not have to. Once done, the players join the pool on the UI thread (if
+     * the pool has not been released meanwhile) and the listener is run there.
+     *
+     * @param playerCount the number of players to create.
+     * @param resourceIDs the raw resource IDs which are about to be played.
+     * @param onPreloaded run on the UI thread once preloading is done, or null.
+     */
+    public void preload(int playerCount, int[] resourceIDs, Runnable onPreloaded) {
+        int releaseCountAtStart = releaseCount;
+        Resources resources = context.getResources();
+        loader.execute(() -> {
+            Trace.beginSection("AudioManager.preload");
+            long startedAt = SystemClock.elapsedRealtimeNanos();
+
+            // Looking a resource up and opening it brings its entry of the resource
+            // table and the start of its file into memory.
+            boolean[] valid = new boolean[resourceIDs.length];
+            for (int i = 0; i < resourceIDs.length; i++) {
+                try (AssetFileDescriptor descriptor =
+                             resources.openRawResourceFd(resourceIDs[i])) {
+                    resources.getResourceName(resourceIDs[i]);
+                    valid[i] = descriptor != null;
+                } catch (IOException | Resources.NotFoundException exception) {
+                    valid[i] = false;
+                }
+            }
 
-    public void suspend() {
-        activePlayers.forEach((key, player) -> {
-            if (player.isLooping()) {
-                suspendedMusic.put(musicResources.get(key), player.getCurrentPosition());
+            // Players created on a thread without a looper report their events on the
+            // UI thread's, like the ones the pool creates itself.
+            MediaPlayer[] created = new MediaPlayer[Math.max(0, playerCount)];
+            for (int i = 0; i < created.length; i++) {
+                created[i] = new MediaPlayer();
             }
+            Log.d(LOG_TAG, "Preloaded " + created.length + " players and " +
+                    resourceIDs.length + " resources in " +
+                    (SystemClock.elapsedRealtimeNanos() - startedAt) / 1_000_000 + "ms");
+            Trace.endSection();
+
+            mainHandler.post(() -> {
+                for (int i = 0; i < resourceIDs.length; i++) {
+                    validatedResources.put(resourceIDs[i], valid[i]);
+                }
+                adoptPlayers(created, releaseCount == releaseCountAtStart);
+                if (onPreloaded != null) onPreloaded.run();
+            });
         });
+    }
+
+    /**
+     * Records the resource ID and playback position of all music, then releases every
+     * media player so their resources can be used by other applications.
+     */
+    public void suspend() {
+        long startedAt = SystemClock.elapsedRealtimeNanos();
+        for (long slots = loopingSlots; slots != 0; slots &= slots - 1) {
+            int slot = Long.numberOfTrailingZeros(slots);
+
+            // Music which never finished preparing resumes from wherever it was asked to.
+            int pausedAt = ((preparedSlots & (1L << slot)) != 0) ?
+                    players[slot].getCurrentPosition() : pendingSeekPositions[slot];
+            suspendedMusic.put(slotResources[slot], pausedAt);
+        }
         release();
+
+        lastSuspendNanos = SystemClock.elapsedRealtimeNanos() - startedAt;
+        totalSuspendNanos += lastSuspendNanos;
+        suspendCount++;
+        if (metricsListener != null) metricsListener.onSuspended(lastSuspendNanos);
     }
 
+    /**
+     * Restarts all music recorded by suspend() from where it was suspended.
+     */
     public void resume() {
+        long startedAt = SystemClock.elapsedRealtimeNanos();
         suspendedMusic.forEach((resourceId, pausedAt) -> {
-            try {
-                if (isValidResourceId(resourceId)) {
-                    Objects.requireNonNull(activePlayers.get(play(resourceId, true)))
-                            .seekTo(pausedAt);
-                } else {
-                    throw new NullPointerException();
-                }
-            } catch (NullPointerException exception) {
+            int identifier = play(resourceId, true);
+            if (identifier != ERROR_INDICATOR) {
+
+                // The position can only be sought once the player is prepared.
+                pendingSeekPositions[identifier] = pausedAt;
+            } else {
                 Log.e(LOG_TAG, "Could not find resource ID " + resourceId + " when " +
                         "resuming player!");
             }
         });
         suspendedMusic.clear();
+
+        lastResumeNanos = SystemClock.elapsedRealtimeNanos() - startedAt;
+        totalResumeNanos += lastResumeNanos;
+        resumeCount++;
+        if (metricsListener != null) metricsListener.onResumed(lastResumeNanos);
     }
 
+    /**
+     * Stops all audio and releases every media player in the pool, giving their native
+     * resources back to the system. The pool is rebuilt lazily by later calls to play().
+     */
     public void release() {
         for (int i = 0; i < maxActiveMediaPlayers; i++) {
             release(i);
+
+            // A player still being loaded is released once the loader is done with it.
+            if (players[i] != null && (loadingSlots & (1L << i)) == 0) {
+                players[i].release();
+            }
+            players[i] = null;
         }
+        releaseCount++;
     }
 
+    /**
+     * Stops the audio in the given slot and returns the slot to the pool. The slot's
+     * media player is reset rather than released, so that it can be reused.
+     *
+     * @param soundIdentifier the identifier returned by play().
+     */
     public void release(int soundIdentifier) {
-        if (activePlayers.containsKey(soundIdentifier)) {
-            MediaPlayer player = activePlayers.get(soundIdentifier);
-            if (player != null) {
-                if (player.isLooping()) musicResources.remove(soundIdentifier);
+        if (soundIdentifier < 0 || soundIdentifier >= maxActiveMediaPlayers) {
+            return;
+        }
+
+        long slotBit = 1L << soundIdentifier;
+        if ((usedSlots & slotBit) != 0) {
+            MediaPlayer player = players[soundIdentifier];
+            if (player != null && (loadingSlots & slotBit) == 0) {
                 player.reset();
+            }
+            usedSlots &= ~slotBit;
+            loopingSlots &= ~slotBit;
+            preparedSlots &= ~slotBit;
+            pendingSeekPositions[soundIdentifier] = 0;
+        }
+
+    }
+
+    /**
+     * Returns the media player of the given slot, creating it and its listeners if the
+     * slot has never been used. A freshly created or reset player is in the idle state
+     * and ready for a data source.
+     *
+     * @param slot the slot of the pool whose player is wanted.
+     * @return the media player which belongs to the slot.
+     */
+    private MediaPlayer obtainPlayer(int slot) {
+        MediaPlayer player = players[slot];
+        if (player == null) {
+            player = new MediaPlayer();
+            attachPlayer(slot, player);
+        }
+        return player;
+    }
+
+    /**
+     * Gives the preloaded players to the empty slots of the pool, lowest first, or
+     * releases them if they are no longer wanted or there is no room for them.
+     *
+     * @param created the players preload() created.
+     * @param wanted false if the pool has been released since they were created.
+     */
+    private void adoptPlayers(MediaPlayer[] created, boolean wanted) {
+        int slot = 0;
+        for (MediaPlayer player : created) {
+            while (slot < maxActiveMediaPlayers && players[slot] != null) slot++;
+            if (wanted && slot < maxActiveMediaPlayers) {
+                attachPlayer(slot, player);
+            } else {
                 player.release();
             }
-            activePlayers.remove(soundIdentifier);
         }
+    }
+
+    /**
+     * Makes a fresh media player the player of the given slot, with its listeners.
+     *
+     * @param slot the slot of the pool, which has no player.
+     * @param player the player, in the idle state.
+     */
+    private void attachPlayer(int slot, MediaPlayer player) {
+        player.setOnPreparedListener((preparedPlayer) -> onPlayerPrepared(slot));
+        player.setOnCompletionListener((listener) -> release(slot));
+        player.setOnErrorListener((object, what, extra) -> {
+            Log.e(LOG_TAG, "Unknown error occurred when trying to play audio!");
+
+            // A boolean is expected to indicate whether the error was handled.
+            // Since this is false, the on Completion listener will be called
+            // to wrap up. If this was true, the onCompletion listener would
+            // not be called.
+            return false;
+        });
+        players[slot] = player;
+    }
+
+    /**
+     * Opens a resource and makes it the data source of a player, on the loader thread.
+     *
+     * @param player the player, in the idle state, which no other thread is using.
+     * @param resources the resources to open the resource from.
+     * @param resourceID the raw resource ID of the audio.
+     * @return true if the player has its data source. False if the resource could not
+     *         be opened or loaded.
+     */
+    private static boolean setDataSource(MediaPlayer player, Resources resources,
+                                         int resourceID) {
+        try (AssetFileDescriptor descriptor = resources.openRawResourceFd(resourceID)) {
+            player.setDataSource(descriptor.getFileDescriptor(),
+                    descriptor.getStartOffset(), descriptor.getLength());
+            return true;
+        } catch (IOException | Resources.NotFoundException |
+                 IllegalStateException exception) {
+            return false;
+        }
+    }
+
+    /**
+     * Begins preparing the player of a slot once the loader thread has given it its
+     * data source, or gives the player back to the pool if the slot has been released
+     * in the meantime or the resource could not be loaded.
+     *
+     * @param slot the slot the player was loaded for.
+     * @param player the player which was loaded.
+     * @param loaded true if the player has its data source.
+     */
+    private void onDataSourceSet(int slot, MediaPlayer player, boolean loaded) {
+        long slotBit = 1L << slot;
+        loadingSlots &= ~slotBit;
+
+        // The whole pool may have been released while the player was loading.
+        if (players[slot] != player) {
+            player.release();
+            return;
+        }
+        if (!loaded) {
+            Log.e(LOG_TAG, "Could not load resource ID " + slotResources[slot] + "!");
+        }
+        if (!loaded || (usedSlots & slotBit) == 0) {
+            player.reset();
+            release(slot);
+            return;
+        }
+
+        // The media framework prepares the player on its own thread and calls back
+        // through the player's on prepared listener once it is ready to start.
+        player.setLooping((loopingSlots & slotBit) != 0);
+        player.prepareAsync();
+    }
+
+    /**
+     * Starts the audio of a slot once its player has been prepared, applying any
+     * pending seek and respecting the mute options as they are now, rather than as they
+     * were when play() was called.
+     *
+     * @param slot the slot whose player has finished preparing.
+     */
+    private void onPlayerPrepared(int slot) {
+        long slotBit = 1L << slot;
+
+        // The slot may have been released while its player was being prepared.
+        if ((usedSlots & slotBit) == 0) {
+            return;
+        }
+
+        preparedSlots |= slotBit;
+        MediaPlayer player = players[slot];
+        if (pendingSeekPositions[slot] > 0) {
+            player.seekTo(pendingSeekPositions[slot]);
+            pendingSeekPositions[slot] = 0;
+        }
+
+        if ((loopingSlots & slotBit) != 0) {
+            if (!muteMusic) startPlayer(slot);
+        } else if (muteSFX) {
+            release(slot);
+        } else {
+            startPlayer(slot);
+        }
+    }
+
+    /**
+     * Starts the prepared player of a slot and records how long it took to start since
+     * play() was called.
+     *
+     * @param slot the slot whose player should start.
+     */
+    private void startPlayer(int slot) {
+        players[slot].start();
+
+        long now = SystemClock.elapsedRealtimeNanos();
+        if ((loopingSlots & (1L << slot)) == 0) {
+            lastSoundEffectNanos = now;
+        }
+        long latencyNanos = now - playRequestedAtNanos[slot];
+        metricsFor(slotResources[slot]).recordStart(latencyNanos);
+        if (metricsListener != null) {
+            metricsListener.onPlaybackStarted(slotResources[slot], latencyNanos);
+        }
+    }
 
+    /**
+     * Finds the metrics of a resource, creating them the first time it is played.
+     *
+     * @param resourceID the resource whose metrics are wanted.
+     * @return the metrics which belong to the resource.
+     */
+    private AudioMetrics.ResourceMetrics metricsFor(int resourceID) {
+        AudioMetrics.ResourceMetrics metrics = resourceMetrics.get(resourceID);
+        if (metrics == null) {
+            metrics = new AudioMetrics.ResourceMetrics(resourceID);
+            resourceMetrics.put(resourceID, metrics);
+        }
+        return metrics;
     }
 
     private boolean isValidResourceId(int resourceID) {
@@ -283,21 +762,28 @@ public class AudioManager {
             return false;
         }
 
+        // Only consult the resource table the first time a resource ID is seen.
+        int cachedIndex = validatedResources.indexOfKey(resourceID);
+        if (cachedIndex >= 0) {
+            return validatedResources.valueAt(cachedIndex);
+        }
+
+        boolean valid = true;
         try {
             context.getResources().getResourceName(resourceID);
         } catch (Resources.NotFoundException exception) {
-            return false;
+            valid = false;
         }
+        validatedResources.put(resourceID, valid);
 
-        return true;
+        return valid;
     }
 
     private int getUnusedUnsignedIdentifier() {
-        for (int i = 0; i < maxActiveMediaPlayers; i++) {
-            if (!activePlayers.containsKey(i)) {
-                return i;
-            }
-        }
-        return ERROR_INDICATOR;
+
+        // The lowest clear bit of the used slot bitmask is the first free slot, leaving
+        // out slots whose players are still being loaded.
+        int identifier = Long.numberOfTrailingZeros(~(usedSlots | loadingSlots));
+        return (identifier < maxActiveMediaPlayers) ? identifier : ERROR_INDICATOR;
     }
 }
@@ -0,0 +1,231 @@
+package net.kenneydiaz.tyler.frogsandtoads;
+
+import androidx.annotation.NonNull;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * An immutable snapshot of the cost of the audio played through an AudioManager. It
+ * holds the latency between play() being called and the audio actually starting for
+ * every resource played, how often the limit of concurrent media players was reached,
+ * how many media players are alive, and how long suspending and resuming took.
+ *
+ * Snapshots are taken with AudioManager.getMetrics(), so that the numbers can be logged
+ * or compared on a device without holding onto the audio manager's internal state.
+ *
+ * @author Tyler Kenney
+ */
+public class AudioMetrics {
+
+    /**
+     * The playback statistics of a single audio resource.
+     */
+    public static class ResourceMetrics {
+
+        // The resource these statistics belong to.
+        private final int resourceID;
+
+        // Counters which are updated by the audio manager as the resource is played.
+        int playRequests;
+        int playbackStarts;
+        int limitReachedCount;
+        int rateLimitedCount;
+        long totalStartLatencyNanos;
+        long maxStartLatencyNanos;
+
+        ResourceMetrics(int resourceID) {
+            this.resourceID = resourceID;
+        }
+
+        ResourceMetrics(ResourceMetrics other) {
+            this.resourceID = other.resourceID;
+            this.playRequests = other.playRequests;
+            this.playbackStarts = other.playbackStarts;
+            this.limitReachedCount = other.limitReachedCount;
+            this.rateLimitedCount = other.rateLimitedCount;
+            this.totalStartLatencyNanos = other.totalStartLatencyNanos;
+            this.maxStartLatencyNanos = other.maxStartLatencyNanos;
+        }
+
+        /**
+         * Records that the resource started playing after the given latency.
+         *
+         * @param latencyNanos the time between play() and the audio starting.
+         */
+        void recordStart(long latencyNanos) {
+            playbackStarts++;
+            totalStartLatencyNanos += latencyNanos;
+            maxStartLatencyNanos = Math.max(maxStartLatencyNanos, latencyNanos);
+        }
+
+        public int getResourceID() {
+            return resourceID;
+        }
+
+        /**
+         * @return the number of times play() was called for this resource.
+         */
+        public int getPlayRequests() {
+            return playRequests;
+        }
+
+        /**
+         * @return the number of times this resource actually started playing.
+         */
+        public int getPlaybackStarts() {
+            return playbackStarts;
+        }
+
+        /**
+         * @return the number of times this resource could not be played because every
+         *         media player was already in use.
+         */
+        public int getLimitReachedCount() {
+            return limitReachedCount;
+        }
+
+        /**
+         * @return the number of times this resource was not played because another
+         *         sound effect had started too recently.
+         */
+        public int getRateLimitedCount() {
+            return rateLimitedCount;
+        }
+
+        /**
+         * @return the mean time between play() and the audio starting, in nanoseconds,
+         *         or 0 if the resource never started.
+         */
+        public long getAverageStartLatencyNanos() {
+            return (playbackStarts > 0) ? totalStartLatencyNanos / playbackStarts : 0;
+        }
+
+        /**
+         * @return the longest time between play() and the audio starting, in
+         *         nanoseconds.
+         */
+        public long getMaxStartLatencyNanos() {
+            return maxStartLatencyNanos;
+        }
+    }
+
+    // The statistics of every resource that has been played, keyed by resource ID.
+    private final Map<Integer, ResourceMetrics> resources;
+
+    // Pool wide statistics.
+    private final int limitReachedCount;
+    private final int livePlayers;
+    private final int activePlayers;
+
+    // Suspend and resume statistics.
+    private final int suspendCount;
+    private final long lastSuspendNanos;
+    private final long totalSuspendNanos;
+    private final int resumeCount;
+    private final long lastResumeNanos;
+    private final long totalResumeNanos;
+
+    AudioMetrics(Map<Integer, ResourceMetrics> resources, int limitReachedCount,
+                 int livePlayers, int activePlayers, int suspendCount,
+                 long lastSuspendNanos, long totalSuspendNanos, int resumeCount,
+                 long lastResumeNanos, long totalResumeNanos) {
+
+        // Copy every resource's counters so later playback does not alter the snapshot.
+        Map<Integer, ResourceMetrics> copies = new HashMap<>();
+        resources.forEach((resourceID, metrics) ->
+                copies.put(resourceID, new ResourceMetrics(metrics)));
+        this.resources = Collections.unmodifiableMap(copies);
+
+        this.limitReachedCount = limitReachedCount;
+        this.livePlayers = livePlayers;
+        this.activePlayers = activePlayers;
+        this.suspendCount = suspendCount;
+        this.lastSuspendNanos = lastSuspendNanos;
+        this.totalSuspendNanos = totalSuspendNanos;
+        this.resumeCount = resumeCount;
+        this.lastResumeNanos = lastResumeNanos;
+        this.totalResumeNanos = totalResumeNanos;
+    }
+
+    /**
+     * @return the statistics of every resource played so far, keyed by resource ID.
+     */
+    public Map<Integer, ResourceMetrics> getResourceMetrics() {
+        return resources;
+    }
+
+    /**
+     * @return the number of times any audio could not be played because every media
+     *         player was already in use.
+     */
+    public int getLimitReachedCount() {
+        return limitReachedCount;
+    }
+
+    /**
+     * @return the number of media players which currently exist in the pool, whether
+     *         they are playing or waiting to be reused.
+     */
+    public int getLivePlayers() {
+        return livePlayers;
+    }
+
+    /**
+     * @return the number of media players which are currently playing or preparing.
+     */
+    public int getActivePlayers() {
+        return activePlayers;
+    }
+
+    public int getSuspendCount() {
+        return suspendCount;
+    }
+
+    public long getLastSuspendNanos() {
+        return lastSuspendNanos;
+    }
+
+    public long getTotalSuspendNanos() {
+        return totalSuspendNanos;
+    }
+
+    public int getResumeCount() {
+        return resumeCount;
+    }
+
+    public long getLastResumeNanos() {
+        return lastResumeNanos;
+    }
+
+    public long getTotalResumeNanos() {
+        return totalResumeNanos;
+    }
+
+    /**
+     * Summarizes the snapshot on a single line, which is convenient for logging.
+     *
+     * @return a formatted summary of the pool wide statistics and every resource's
+     *         start latency.
+     */
+    @NonNull
+    @Override
+    public String toString() {
+        StringBuilder outputString = new StringBuilder(String.format(Locale.US,
+                "players=%d/%d limitReached=%d suspend=%d(last %.2fms) " +
+                        "resume=%d(last %.2fms)",
+                activePlayers, livePlayers, limitReachedCount,
+                suspendCount, lastSuspendNanos / 1e6,
+                resumeCount, lastResumeNanos / 1e6));
+        resources.forEach((resourceID, metrics) -> outputString.append(String.format(
+                Locale.US, " [%d: played=%d/%d avg=%.2fms max=%.2fms limit=%d " +
+                        "rateLimited=%d]",
+                resourceID, metrics.getPlaybackStarts(), metrics.getPlayRequests(),
+                metrics.getAverageStartLatencyNanos() / 1e6,
+                metrics.getMaxStartLatencyNanos() / 1e6,
+                metrics.getLimitReachedCount(), metrics.getRateLimitedCount())));
+        return outputString.toString();
+    }
+}
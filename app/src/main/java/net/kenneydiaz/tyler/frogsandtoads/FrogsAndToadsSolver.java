@@ -1,11 +0,0 @@
-package net.kenneydiaz.tyler.frogsandtoads;
-
-public class FrogsAndToadsSolver {
-
-    private int[][] gameState;
-
-    public FrogsAndToadsSolver(int[][] gameState) {
-        this.gameState = gameState.clone();
-    }
-
-}
@@ -0,0 +1,339 @@
+package net.kenneydiaz.tyler.frogsandtoads;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Speculatively solves the positions a player might reach next, so that hints are
+ * already waiting by the time they are asked for. Every time the board changes, the
+ * engine is told the new position. On a background thread it then works out, with a
+ * FrogsAndToadsSolver, whether that position can still be won, how far it is from the
+ * winning position, and which move is best. It then does the same for every position
+ * one move away, and finally for every position two moves away.
+ *
+ * The answers (verdicts) are kept in a bounded least recently used cache, keyed by
+ * packed position, which the UI thread reads from to rate each legal move as the best
+ * move, a move which still allows a win, or a move which loses the game. Whenever new
+ * verdicts are ready the listener is notified on the UI thread.
+ *
+ * Verdicts can also be kept in a SolutionCache on storage, so that they outlive the
+ * process. Each position is looked up there before it is solved, and every verdict
+ * solved is stored there, so hints for positions seen in earlier games cost a file
+ * lookup rather than a search. The cache is only loaded from storage, on the worker
+ * thread, when the first hint is worked out.
+ *
+ * Early in a game on larger boards a position can take a long time to solve. Each
+ * position is therefore only given a limited budget at a time, and moves without a
+ * verdict yet are simply rated as unknown. The work done stays in the solver's
+ * transposition table, so positions near the end of a game are answered almost
+ * immediately.
+ *
+ * The same worker thread also finds whole paths to the winning position for the
+ * solution to be played out, so that the search never holds up the UI thread.
+ *
+ * @author Tyler Kenney
+ */
+public class HintEngine {
+
+    /**
+     * A listener which is notified on the UI thread when new verdicts are ready.
+     */
+    public interface Listener {
+        void onHintsUpdated();
+    }
+
+    /**
+     * A listener which is given, on the UI thread, the path findPath() found.
+     */
+    public interface PathListener {
+        void onPathFound(long position, SolverResult result);
+    }
+
+    // The ratings rateMove() can give a legal move.
+    public static final int HINT_UNKNOWN = 0;
+    public static final int HINT_BEST = 1;
+    public static final int HINT_SOLVABLE = 2;
+    public static final int HINT_DEAD = 3;
+
+    // The most verdicts kept in the cache.
+    private static final int MAX_VERDICTS = 512;
+
+    // The most positions the solver may visit before checking whether the position it
+    // is solving is still wanted, the most times it may do so for a single verdict, and
+    // the most memory it may hold, beyond which it forgets old positions.
+    private static final long POSITIONS_PER_ROUND = 250_000;
+    private static final int MAX_ROUNDS_PER_VERDICT = 4;
+    private static final long SOLVER_MEMORY_BUDGET = 32L << 20;
+
+    // The most positions each of findPath()'s fallback searches may visit. It runs on
+    // the worker thread, so it can afford more than a single verdict.
+    private static final long PATH_SEARCH_BUDGET =
+            POSITIONS_PER_ROUND * MAX_ROUNDS_PER_VERDICT;
+
+    // The stack size of the worker thread. The solver searches depth first, one stack
+    // frame per move.
+    private static final long WORKER_STACK_SIZE = 1 << 20;
+
+    /**
+     * What the solver worked out about a single position.
+     */
+    private static class Verdict {
+        final int distance;
+        final int bestMove;
+
+        Verdict(int distance, int bestMove) {
+            this.distance = distance;
+            this.bestMove = bestMove;
+        }
+    }
+
+    // The dimensions of the board, and the solver, which is only ever used on the
+    // worker thread.
+    private final int rows;
+    private final int columns;
+    private final FrogsAndToadsSolver solver;
+
+    // The verdicts kept on storage, or null if there are none, which is only ever used
+    // on the worker thread (apart from reading its statistics).
+    private final SolutionCache cache;
+
+    // The verdicts worked out so far, least recently used first.
+    private final Map<Long, Verdict> verdicts = Collections.synchronizedMap(
+            new LinkedHashMap<Long, Verdict>(MAX_VERDICTS, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, Verdict> eldest) {
+                    return size() > MAX_VERDICTS;
+                }
+            });
+
+    // The single worker thread, and the handler used to notify the listener on the UI
+    // thread.
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(
+            (runnable) -> new Thread(null, runnable, "HintEngine", WORKER_STACK_SIZE));
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Listener listener;
+
+    // The position most recently handed to speculate(). Speculation on any other
+    // position is abandoned as soon as it notices it is out of date.
+    private final AtomicLong latestPosition = new AtomicLong(PackedPosition.NONE);
+
+    /**
+     * Creates a hint engine for boards of the given size.
+     *
+     * @param rows the number of rows of the board.
+     * @param columns the number of columns of the board.
+     * @param listener notified on the UI thread when new verdicts are ready.
+     */
+    public HintEngine(int rows, int columns, Listener listener) {
+        this(rows, columns, null, listener);
+    }
+
+    /**
+     * Creates a hint engine for boards of the given size, which keeps its verdicts in
+     * the given cache as well as in memory.
+     *
+     * @param rows the number of rows of the board.
+     * @param columns the number of columns of the board.
+     * @param cache the cache to look verdicts up in and store them in, or null for none.
+     *              It is closed along with the engine.
+     * @param listener notified on the UI thread when new verdicts are ready.
+     */
+    public HintEngine(int rows, int columns, SolutionCache cache, Listener listener) {
+        this.rows = rows;
+        this.columns = columns;
+        this.solver = new FrogsAndToadsSolver(rows, columns);
+        this.solver.setMemoryBudget(SOLVER_MEMORY_BUDGET);
+        this.cache = cache;
+        this.listener = listener;
+    }
+
+    /**
+     * Checks if this engine is able to give hints on its board at all.
+     *
+     * @return true if the board is small enough to be solved. False otherwise.
+     */
+    public boolean supported() {
+        return solver.canSolve();
+    }
+
+    /**
+     * Begins working out verdicts for the given position and the positions one and two
+     * moves away from it, abandoning whatever was being worked out before.
+     *
+     * @param position the packed position currently on the board.
+     */
+    public void speculate(long position) {
+        if (!supported() || position == PackedPosition.NONE ||
+                latestPosition.getAndSet(position) == position) {
+            return;
+        }
+
+        executor.execute(() -> {
+
+            // Solve the position itself first, then everything one move away, then
+            // everything two moves away, so the nearest answers are ready first.
+            int[] moves = new int[PackedPosition.MAX_MOVES];
+            int[] replies = new int[PackedPosition.MAX_MOVES];
+            if (!solve(position, position)) return;
+            notifyListener();
+
+            int count = PackedPosition.legalMoves(position, rows, columns, moves);
+            for (int i = 0; i < count; i++) {
+                if (!solve(position, PackedPosition.move(position, moves[i]))) return;
+            }
+            notifyListener();
+
+            for (int i = 0; i < count; i++) {
+                long next = PackedPosition.move(position, moves[i]);
+                int replyCount = PackedPosition.legalMoves(next, rows, columns, replies);
+                for (int j = 0; j < replyCount; j++) {
+                    if (!solve(position, PackedPosition.move(next, replies[j]))) return;
+                }
+            }
+            notifyListener();
+        });
+    }
+
+    /**
+     * Finds a path from the given position to the winning position on the worker
+     * thread, abandoning whatever was being speculated on. The search reuses every
+     * verdict the solver has already worked out, and falls back to a path which may not
+     * be optimal if it cannot find an optimal one within budget (see
+     * FrogsAndToadsSolver.findPath()).
+     *
+     * @param position the packed position currently on the board.
+     * @param listener given the position and the path found on the UI thread. The path
+     *                 is empty if the position is already won, or if no path was found:
+     *                 when the result is optimal, that means there is none at all.
+     */
+    public void findPath(long position, PathListener listener) {
+
+        // Speculation starts over once the board changes, so it is not needed until
+        // then.
+        latestPosition.set(PackedPosition.NONE);
+        executor.execute(() -> {
+            SolverResult result = solver.findPath(position, PATH_SEARCH_BUDGET);
+            mainHandler.post(() -> listener.onPathFound(position, result));
+        });
+    }
+
+    /**
+     * Rates a legal move of the given position by how good it is.
+     *
+     * @param position the packed position currently on the board.
+     * @param move the packed legal move to rate.
+     * @return HINT_BEST if the move begins an optimal path to the winning position,
+     *         HINT_SOLVABLE if the game can still be won after it, HINT_DEAD if the game
+     *         can no longer be won after it, or HINT_UNKNOWN if that has not been
+     *         worked out yet.
+     */
+    public int rateMove(long position, int move) {
+        if (!supported() || position == PackedPosition.NONE) {
+            return HINT_UNKNOWN;
+        }
+
+        Verdict current = verdicts.get(position);
+        Verdict next = verdicts.get(PackedPosition.move(position, move));
+        if (current == null || next == null) {
+            return HINT_UNKNOWN;
+        } else if (next.distance == FrogsAndToadsSolver.UNSOLVABLE) {
+            return HINT_DEAD;
+        } else if (next.distance == current.distance - 1) {
+            return HINT_BEST;
+        } else {
+            return HINT_SOLVABLE;
+        }
+    }
+
+    /**
+     * Finds the best move of the given position, if it has been worked out.
+     *
+     * @param position the packed position currently on the board.
+     * @return the packed best move, or FrogsAndToadsSolver.NO_MOVE if there is none or
+     *         it has not been worked out yet.
+     */
+    public int bestMove(long position) {
+        Verdict verdict = verdicts.get(position);
+        return (verdict != null) ? verdict.bestMove : FrogsAndToadsSolver.NO_MOVE;
+    }
+
+    /**
+     * @return the cache verdicts are kept in on storage, whose statistics say how often
+     *         it saved a search, or null if there is none.
+     */
+    public SolutionCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Stops the worker thread, once it has closed the cache. The engine cannot be used
+     * afterwards.
+     */
+    public void shutdown() {
+
+        // Abandon whatever is being worked out, so the cache is closed promptly.
+        latestPosition.set(PackedPosition.NONE);
+        if (cache != null) {
+            executor.execute(cache::close);
+        }
+        executor.shutdown();
+    }
+
+    /**
+     * Works out and caches the verdict of a single position, on the worker thread.
+     *
+     * @param root the position speculation started from.
+     * @param position the packed position to solve.
+     * @return true if speculation should carry on. False if it has been superseded by a
+     *         newer position or ran out of budget.
+     */
+    private boolean solve(long root, long position) {
+        if (verdicts.containsKey(position)) {
+            return true;
+        }
+        if (latestPosition.get() != root) {
+            return false;
+        }
+
+        // A verdict stored by an earlier game saves solving the position again.
+        int[] stored = (cache != null) ? cache.get(rows, columns, position) : null;
+        if (stored != null && stored.length == 2) {
+            verdicts.put(position, new Verdict(stored[0], stored[1]));
+            return true;
+        }
+
+        // Each round carries on from where the last one ran out of budget.
+        for (int round = 0; round < MAX_ROUNDS_PER_VERDICT; round++) {
+            if (latestPosition.get() != root) {
+                return false;
+            }
+            int distance = solver.distanceToGoal(position, POSITIONS_PER_ROUND);
+            if (distance == FrogsAndToadsSolver.UNKNOWN) {
+                continue;
+            }
+
+            // The positions it needs may have been forgotten to stay within the memory
+            // budget, so finding the best move is given a budget of its own too.
+            int bestMove = solver.bestMove(position, POSITIONS_PER_ROUND);
+            if (bestMove != FrogsAndToadsSolver.UNKNOWN) {
+                verdicts.put(position, new Verdict(distance, bestMove));
+                if (cache != null) {
+                    cache.put(rows, columns, position, new int[] {distance, bestMove});
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void notifyListener() {
+        mainHandler.post(listener::onHintsUpdated);
+    }
+}
@@ -0,0 +1,157 @@
+package net.kenneydiaz.tyler.frogsandtoads;
+
+import android.animation.Animator;
+import android.animation.AnimatorListenerAdapter;
+import android.animation.ObjectAnimator;
+import android.util.Property;
+import android.view.View;
+import android.view.animation.AccelerateDecelerateInterpolator;
+
+/**
+ * Builds and runs the jump animations of the frogs and toads on the game board. There
+ * are eight jumps in total: a move of one or two cells up, down, left, or right. Each is
+ * built exactly once for a given cell size as a property animator whose distance is
+ * measured from the cells themselves, rather than being inflated from XML on every
+ * move, and is then retargeted at whichever piece is moving.
+ *
+ * The piece being animated is drawn on a hardware layer for the duration of its jump.
+ * Only one jump runs at a time. If another jump is started while one is still running,
+ * the running jump is immediately finished first, so a player tapping faster than the
+ * animations never waits on them and never has two repaints queued up.
+ *
+ * @author Tyler Kenney
+ */
+public class JumpAnimations {
+
+    // The indices of the animators of each direction. Jumps over another piece are
+    // stored DIRECTIONS places after the corresponding single cell moves.
+    private static final int UP = 0;
+    private static final int DOWN = 1;
+    private static final int LEFT = 2;
+    private static final int RIGHT = 3;
+    private static final int DIRECTIONS = 4;
+
+    // How long vertical and horizontal jumps last, in milliseconds.
+    private static final long VERTICAL_DURATION = 250;
+    private static final long HORIZONTAL_DURATION = 500;
+
+    // The eight prebuilt animators, the cell size they were built for, and the one which
+    // is currently running (if any).
+    private final ObjectAnimator[] animators = new ObjectAnimator[2 * DIRECTIONS];
+    private final int cellWidth;
+    private final int cellHeight;
+    private ObjectAnimator runningAnimator;
+
+    /**
+     * Builds all eight jump animators for cells of the given size.
+     *
+     * @param cellWidth the width of one cell of the game board, in pixels.
+     * @param cellHeight the height of one cell of the game board, in pixels.
+     * @param onJumpEnd run whenever a jump ends, whether it ran its course or was
+     *                  finished early.
+     */
+    public JumpAnimations(int cellWidth, int cellHeight, Runnable onJumpEnd) {
+        this.cellWidth = cellWidth;
+        this.cellHeight = cellHeight;
+
+        // Once a jump ends, drop the piece's hardware layer and put it back in its cell
+        // before letting the board be redrawn.
+        AnimatorListenerAdapter listener = new AnimatorListenerAdapter() {
+            @Override
+            public void onAnimationEnd(Animator animation) {
+                View view = (View) ((ObjectAnimator) animation).getTarget();
+                if (view != null) {
+                    view.setTranslationX(0);
+                    view.setTranslationY(0);
+                    view.setLayerType(View.LAYER_TYPE_NONE, null);
+                }
+                if (runningAnimator == animation) runningAnimator = null;
+                onJumpEnd.run();
+            }
+        };
+
+        for (int cells = 1; cells <= 2; cells++) {
+            int offset = (cells - 1) * DIRECTIONS;
+            animators[offset + UP] = buildAnimator(View.TRANSLATION_Y,
+                    -cells * cellHeight, VERTICAL_DURATION, listener);
+            animators[offset + DOWN] = buildAnimator(View.TRANSLATION_Y,
+                    cells * cellHeight, VERTICAL_DURATION, listener);
+            animators[offset + LEFT] = buildAnimator(View.TRANSLATION_X,
+                    -cells * cellWidth, HORIZONTAL_DURATION, listener);
+            animators[offset + RIGHT] = buildAnimator(View.TRANSLATION_X,
+                    cells * cellWidth, HORIZONTAL_DURATION, listener);
+        }
+    }
+
+    /**
+     * Checks if these animations were built for cells the size of the given view.
+     *
+     * @param cell a cell of the game board.
+     * @return true if the animations move pieces exactly one cell of this size per cell
+     *         jumped. False otherwise.
+     */
+    public boolean fits(View cell) {
+        return cell.getWidth() == cellWidth && cell.getHeight() == cellHeight;
+    }
+
+    /**
+     * Animates the given piece jumping to an adjacent cell, or over an adjacent cell.
+     * Any jump which is still running is finished first.
+     *
+     * @param view the piece to animate.
+     * @param rowDelta the number of rows the piece moves (negative is up).
+     * @param columnDelta the number of columns the piece moves (negative is left).
+     */
+    public void start(View view, int rowDelta, int columnDelta) {
+        finish();
+
+        int direction;
+        if (rowDelta < 0) {
+            direction = UP;
+        } else if (rowDelta > 0) {
+            direction = DOWN;
+        } else if (columnDelta < 0) {
+            direction = LEFT;
+        } else {
+            direction = RIGHT;
+        }
+        int cells = Math.max(Math.abs(rowDelta), Math.abs(columnDelta));
+        ObjectAnimator animator = animators[(cells > 1 ? DIRECTIONS : 0) + direction];
+
+        view.setLayerType(View.LAYER_TYPE_HARDWARE, null);
+        animator.setTarget(view);
+        runningAnimator = animator;
+        animator.start();
+    }
+
+    /**
+     * Immediately finishes the running jump, if there is one, as if it had run its
+     * course.
+     */
+    public void finish() {
+        if (runningAnimator != null) {
+            runningAnimator.end();
+        }
+    }
+
+    /**
+     * Builds one animator which translates its target along a single axis.
+     *
+     * @param property the translation property to animate.
+     * @param distance how far to translate, in pixels.
+     * @param duration how long the translation lasts, in milliseconds.
+     * @param listener the listener which tidies up once the translation ends.
+     * @return the animator, with no target yet.
+     */
+    private static ObjectAnimator buildAnimator(Property<View, Float> property,
+                                                float distance, long duration,
+                                                Animator.AnimatorListener listener) {
+        ObjectAnimator animator = new ObjectAnimator();
+        animator.setProperty(property);
+        animator.setFloatValues(0, distance);
+        animator.setDuration(duration);
+        animator.setInterpolator(new AccelerateDecelerateInterpolator());
+        animator.addListener(listener);
+        return animator;
+    }
+}
@@ -1,9 +1,12 @@
 package net.kenneydiaz.tyler.frogsandtoads;
 
 import android.os.Bundle;
+import android.os.Process;
+import android.os.SystemClock;
+import android.os.Trace;
+import android.util.Log;
+import android.view.Choreographer;
 import android.view.View;
-import android.view.animation.Animation;
-import android.view.animation.AnimationUtils;
 import android.widget.Button;
 import android.widget.ImageButton;
 import android.widget.ImageView;
@@ -12,11 +15,17 @@ import android.widget.TableLayout;
 import android.widget.TableRow;
 import android.widget.TextView;
 
+import androidx.annotation.VisibleForTesting;
 import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 
 import com.google.android.material.snackbar.Snackbar;
 
+import java.io.File;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.PrimitiveIterator;
+
 /**
  * Displays a mobile application GUI for a player to play a simple instance of the game
  * Frogs and Toads. This instance of the front-end boasts a number of features and
@@ -27,9 +36,18 @@ import com.google.android.material.snackbar.Snackbar;
  * preserved even when the app is paused or stopped, and all sound is muted upon
  * exiting the application. This instance of the game makes use of a custom
  * AudioManager which also more intelligently handles audio related resources. Moves can
- * also be undone with another button on the interface. It contains the option to
- * launch the game one move away from the winning configuration by tapping on the game
- * title six times.
+ * also be undone with another button on the interface. Valid moves can be highlighted,
+ * colored by a background hint engine according to whether they are the best move,
+ * still allow a win, or lose the game. The solution from the position on the board can
+ * be played out for the player, at a speed chosen by long pressing the same button. It
+ * contains the option to launch the game one move away from the winning configuration
+ * by tapping on the game title six times.
+ *
+ * Only what the first frame shows is done while the activity is created: the layout and
+ * the board. Everything else waits until the first frame has been drawn. The hint engine
+ * is started then, and the media players and sounds are preloaded on a background
+ * thread before the music starts. Each phase of starting up is traced (see
+ * android.os.Trace) and its time logged, along with the time to the first frame.
  *
  * To play Frogs & Toads:
  *
@@ -66,6 +84,12 @@ public class MainActivity extends AppCompatActivity {
     private final static int ROWS_WANTED = 5;
     private final static int COLUMNS_WANTED = 5;
 
+    // Extras of the intent which starts the activity, asking for other dimensions than
+    // the above, such as when tests play on several board sizes.
+    public final static String EXTRA_ROWS = "net.kenneydiaz.tyler.frogsandtoads.ROWS";
+    public final static String EXTRA_COLUMNS =
+            "net.kenneydiaz.tyler.frogsandtoads.COLUMNS";
+
     // If the above target dimensions are found disagreeable by the game engine, these
     // are the values which will store the actual number of rows and columns that the game
     // engine has defined. This is not an optimal system, but it follows with what we
@@ -76,10 +100,57 @@ public class MainActivity extends AppCompatActivity {
     // A variable to reference the audio manager for this instance of the game.
     private AudioManager audioManager;
 
+    // The engine which works out hints for the valid moves overlay in the background.
+    private HintEngine hintEngine;
+
     // The variables which will reference the instance of the game engine and the
     // current front-end game board.
     private ImageButton[][] buttons;
-    private FrogsAndToads game = new FrogsAndToads(ROWS_WANTED, COLUMNS_WANTED);
+    private JumpAnimations jumpAnimations;
+    private FrogsAndToads game;
+
+    // Taps on the board which have not been applied to the game yet, as cell numbers
+    // (counted row by row) in a ring buffer, oldest first. Taps are queued as they come
+    // and applied together, in order, at the next frame, which then repaints the board
+    // just once however many taps it applied.
+    private static final int MAX_PENDING_TAPS = 16;
+    private final int[] pendingTaps = new int[MAX_PENDING_TAPS];
+    private int firstPendingTap = 0;
+    private int pendingTapCount = 0;
+    private final Choreographer.FrameCallback frameCallback =
+            (frameTimeNanos) -> applyQueuedTaps();
+    private boolean frameRequested = false;
+    private boolean boardOutOfDate = false;
+    private final MoveResult tapResult = new MoveResult();
+
+    // The legal moves the valid moves overlay is drawn for, found once per redraw.
+    private final int[] hintMoves = new int[PackedPosition.MAX_MOVES];
+
+    // The move whose jump is being animated, which is drawn as it was before the move
+    // until the jump ends: the cells the piece jumps from and to, and the piece. The
+    // cells are -1 while no jump is running.
+    private int animatedFromCell = -1;
+    private int animatedToCell = -1;
+    private int animatedPiece = MoveResult.NOTHING;
+
+    // The solution being played out for the player, or null while they play themselves,
+    // and the speed it is played at, as an index into Autoplay.SPEEDS. Its moves are
+    // made at the start of each frame, like taps, but at the faster speeds only the
+    // position each frame's last move leaves is drawn, without animating the jump.
+    private Autoplay autoplay;
+    private int autoplaySpeed = 0;
+
+    // Whether the hint engine is finding a solution to play out, and a count of the
+    // searches started or given up on, so that a search which has been given up on (or
+    // which a newer search has replaced) is ignored when it finishes.
+    private boolean findingAutoplayPath = false;
+    private int autoplaySearches = 0;
+
+    // The longest a frame may spend making autoplay's moves, so that frames keep being
+    // drawn however fast it plays, and the least time between its sound effects, so
+    // that moves made faster than their sounds finish do not use up every player.
+    private static final long AUTOPLAY_FRAME_BUDGET_NANOS = 8_000_000;
+    private static final long AUTOPLAY_SOUND_EFFECT_INTERVAL = 100;
 
     // The variables which keep track of progress towards and the goal for generating a
     // debug game.
@@ -89,6 +160,33 @@ public class MainActivity extends AppCompatActivity {
     private int currentMoves = 0;
     private boolean showValidMoves = false;
 
+    // Whether the game on the board can no longer be won, so the player is only warned
+    // about it once, the moment it happens.
+    private boolean gameDeadlocked = false;
+
+    // The tag used to identify logs of this class.
+    private final static String LOG_TAG = "MainActivity";
+
+    // The directory, within the app's files, where solver verdicts are kept.
+    private final static String SOLUTION_CACHE_DIRECTORY = "solutions";
+
+    // The media players created, and the sounds looked up, on a background thread once
+    // the first frame has been drawn: one player for the music and one for the first
+    // jump, and the sounds which play first.
+    private final static int PRELOADED_PLAYERS = 2;
+    private final static int[] PRELOADED_SOUNDS =
+            {R.raw.music, R.raw.frog_jump, R.raw.toad_jump, R.raw.invalid};
+
+    // When onCreate() started, which startup times are measured from, and whether the
+    // activity is in the foreground.
+    private long createdAtNanos;
+    private boolean resumed = false;
+
+    // When the first frame was drawn, from System.nanoTime() (which, unlike
+    // SystemClock, tests running on the JVM do not fake), or -1 until it has been.
+    @VisibleForTesting
+    long firstFrameDrawnAtNanos = -1;
+
     /**
      * This application is not a music streaming service. Hence, when the app is
      * paused or stopped, all sounds and music are muted and their resources released
@@ -99,6 +197,7 @@ public class MainActivity extends AppCompatActivity {
     @Override
     protected void onResume() {
         super.onResume();
+        resumed = true;
 
         // Regenerate the audio manager if one is not present. This should never happen
         // but this is here to be extra safe.
@@ -114,9 +213,17 @@ public class MainActivity extends AppCompatActivity {
     @Override
     protected void onPause() {
         super.onPause();
+        resumed = false;
 
-        // Stop and release all audio resources in the audio manager.
-        if (audioManager != null) audioManager.suspend();
+        // Stop and release all audio resources in the audio manager, then log what the
+        // audio has cost so far so it can be compared across devices and builds.
+        if (audioManager != null) {
+            audioManager.suspend();
+            Log.d(LOG_TAG, "Audio metrics: " + audioManager.getMetrics());
+        }
+        if (hintEngine != null && hintEngine.getCache() != null) {
+            Log.d(LOG_TAG, "Solution cache: " + hintEngine.getCache());
+        }
     }
 
     /**
@@ -132,6 +239,18 @@ public class MainActivity extends AppCompatActivity {
         if (audioManager != null) audioManager.suspend();
     }
 
+    /**
+     * Stops the hint engine's background thread along with the activity, and forgets
+     * any taps still waiting for the next frame.
+     */
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+
+        if (hintEngine != null) hintEngine.shutdown();
+        Choreographer.getInstance().removeFrameCallback(frameCallback);
+    }
+
     /**
      * Runs the boiler plate code for application creation. Also verifies the rows and
      * columns in terms of the game engine. Initializes background color of the new
@@ -140,7 +259,8 @@ public class MainActivity extends AppCompatActivity {
      * toggle button, the sound effects toggle button, the undo button, the new game
      * button, and the game title. Then, fills the front-end game board with the
      * appropriate elements to simulate clickable frogs and toads and an empty space.
-     * Finally draws the game board and we are ready to go!
+     * Finally draws the game board and we are ready to go! The hint engine and the
+     * music are only started once the first frame has been drawn.
      *
      * @param savedInstanceState a saved instance state if one is used. It is not here.
      */
@@ -148,8 +268,17 @@ public class MainActivity extends AppCompatActivity {
     protected void onCreate(Bundle savedInstanceState) {
 
         // Boiler Plate
+        createdAtNanos = SystemClock.elapsedRealtimeNanos();
+        Trace.beginSection("MainActivity.onCreate");
         super.onCreate(savedInstanceState);
+        Trace.beginSection("inflate");
         setContentView(R.layout.activity_main);
+        Trace.endSection();
+        long phaseStart = logStartupPhase("inflate", createdAtNanos);
+
+        // Create the game engine on the board the intent asked for, if it did.
+        game = new FrogsAndToads(getIntent().getIntExtra(EXTRA_ROWS, ROWS_WANTED),
+                getIntent().getIntExtra(EXTRA_COLUMNS, COLUMNS_WANTED));
 
         // This is to make sure that invalid defaults set here do not mess up the rest
         // of the game because they are invalid defaults to the engine. To prevent it,
@@ -166,10 +295,13 @@ public class MainActivity extends AppCompatActivity {
                 getResources().getColor(R.color.black, getTheme()));
         findViewById(R.id.show_valid_moves_button).setBackgroundColor(
                 getResources().getColor(R.color.black, getTheme()));
+        findViewById(R.id.autoplay_button).setBackgroundColor(
+                getResources().getColor(R.color.black, getTheme()));
 
         ((Button) findViewById(R.id.show_valid_moves_button)).setText(String.format(
                 getResources().getString(R.string.show_valid_moves_button_text),
                 ((showValidMoves) ? "HIDE" : "SHOW")));
+        drawAutoplayButton();
 
         // Initializes the front-end game board, which will just be a GUI mirror of the
         // game engines board.
@@ -177,9 +309,9 @@ public class MainActivity extends AppCompatActivity {
 
         // Initialize an instance of the audio manager. I played around a lot with the
         // sound here, and the number of functions I was creating got a little large to
-        // cram all into here.
+        // cram all into here. It holds no media players yet, so it costs next to
+        // nothing; the music is started once the first frame has been drawn.
         audioManager = new AudioManager(this);
-        audioManager.play(R.raw.music, true);
 
         /* SET DEFAULT AUDIO CONTROL BUTTON IMAGES */
 
@@ -196,12 +328,13 @@ public class MainActivity extends AppCompatActivity {
                 audioManager.soundEffectsMuted() ?
                         R.drawable.sfx_muted : R.drawable.sfx_unmuted);
 
-        int numMenuButtons = 5;
+        int numMenuButtons = 6;
         int menuButtonWidth = (int) getEvenWidth(numMenuButtons, 100);
         int menuButtonHeight = (int) getEvenWidth(numMenuButtons, 100);
         Button showValidMovesButton =
                 ((Button) findViewById(R.id.show_valid_moves_button));
         Button resetButton = ((Button) findViewById(R.id.reset_button));
+        Button autoplayButton = ((Button) findViewById(R.id.autoplay_button));
         ImageButton soundEffectsToggleButton =
                 ((ImageButton) findViewById(R.id.sfx_toggle_button));
         ImageButton musicToggleButton =
@@ -214,6 +347,7 @@ public class MainActivity extends AppCompatActivity {
 
         showValidMovesButton.setLayoutParams(menuButtonLayoutParams);
         resetButton.setLayoutParams(menuButtonLayoutParams);
+        autoplayButton.setLayoutParams(menuButtonLayoutParams);
         soundEffectsToggleButton.setLayoutParams(menuButtonLayoutParams);
         musicToggleButton.setLayoutParams(menuButtonLayoutParams);
         undoButton.setLayoutParams(menuButtonLayoutParams);
@@ -232,6 +366,27 @@ public class MainActivity extends AppCompatActivity {
                     );
         });
 
+        // The autoplay button plays the solution out from the position on the board, or
+        // stops it (or the search for it). A long press changes the speed it is played
+        // at.
+        autoplayButton.setOnClickListener((i) -> {
+            if (autoplay == null && !findingAutoplayPath) {
+                startAutoplay();
+            } else {
+                stopAutoplay();
+            }
+        });
+        autoplayButton.setOnLongClickListener((i) -> {
+            autoplaySpeed = (autoplaySpeed + 1) % Autoplay.SPEEDS.length;
+            if (autoplay != null) {
+                autoplay.setMovesPerSecond(Autoplay.SPEEDS[autoplaySpeed]);
+            }
+            Snackbar.make(findViewById(R.id.table_layout), String.format(
+                    getResources().getString(R.string.autoplay_speed_text),
+                    describeAutoplaySpeed()), Snackbar.LENGTH_LONG).show();
+            return true;
+        });
+
         // This is a little secret listener. If you click on the title of the game,
         // this activates.
         findViewById(R.id.game_title).setOnClickListener((i) -> {
@@ -243,6 +398,7 @@ public class MainActivity extends AppCompatActivity {
             if (debug_click_count >= debug_activation_count) {
 
                 // Start a debug game and draw the board.
+                discardPendingTaps();
                 game = new FrogsAndToads(engineRows, engineColumns, true);
                 currentMoves = 0;
                 drawBoard();
@@ -308,6 +464,7 @@ public class MainActivity extends AppCompatActivity {
 
             // If an undo can be performed...
             if (game.hasPreviousMove()) {
+                discardPendingTaps();
                 game.undo();
                 currentMoves--;
                 drawBoard();
@@ -324,6 +481,31 @@ public class MainActivity extends AppCompatActivity {
             }
         });
 
+        phaseStart = logStartupPhase("menu", phaseStart);
+        Trace.beginSection("buildBoard");
+        buildBoard();
+        Trace.endSection();
+        phaseStart = logStartupPhase("buildBoard", phaseStart);
+
+        // All done! Update the GUI with new front-end mirror of the game engine board.
+        Trace.beginSection("drawBoard");
+        drawBoard();
+        Trace.endSection();
+        logStartupPhase("drawBoard", phaseStart);
+
+        // The first frame callback runs just before the first frame is drawn, and what
+        // it posts runs just after.
+        Choreographer.getInstance().postFrameCallback((frameTimeNanos) ->
+                findViewById(R.id.table_layout).post(this::onFirstFrameDrawn));
+        Trace.endSection();
+    }
+
+    /**
+     * Fills the table layout with one image button per cell of the game board, each of
+     * which makes a move when tapped.
+     */
+    private void buildBoard() {
+
         // Identify the existing table layout and specify the layout parameters for all of
         // our table rows.
         TableLayout tableLayout = findViewById(R.id.table_layout);
@@ -331,6 +513,11 @@ public class MainActivity extends AppCompatActivity {
                 TableRow.LayoutParams.MATCH_PARENT, TableRow.LayoutParams.MATCH_PARENT
         );
 
+        // Every cell is the same size, so only work it out once.
+        int cellWidth = (int) getEvenWidth(game.countColumns(), 80);
+        int cellHeight = (int) getEvenHeight(game.countColumns(), 80);
+        int transparent = getResources().getColor(R.color.transparent, getTheme());
+
         // For every row on the game board...
         for (int i = 0; i < engineRows; i++) {
 
@@ -350,18 +537,15 @@ public class MainActivity extends AppCompatActivity {
                 buttons[i][j].setTag(new int[]{i, j});
 
                 // Confine the button to the defined button size.
-                buttons[i][j].setMaxWidth((int) getEvenWidth(game.countColumns(), 80));
-                buttons[i][j].setMaxHeight((int) getEvenHeight(game.countColumns(), 80));
-                buttons[i][j].setMinimumWidth((int) getEvenWidth(game.countColumns(),
-                        80));
-                buttons[i][j].setMinimumHeight((int) getEvenHeight(game.countColumns(),
-                        80));
+                buttons[i][j].setMaxWidth(cellWidth);
+                buttons[i][j].setMaxHeight(cellHeight);
+                buttons[i][j].setMinimumWidth(cellWidth);
+                buttons[i][j].setMinimumHeight(cellHeight);
 
                 // Some scaling and styling attributes.
                 buttons[i][j].setAdjustViewBounds(true);
                 buttons[i][j].setScaleType(ImageView.ScaleType.FIT_CENTER);
-                buttons[i][j].setBackgroundColor(getResources()
-                        .getColor(R.color.transparent, getTheme()));
+                buttons[i][j].setBackgroundColor(transparent);
 
                 // On clicking the button, run this class' makeMove() method.
                 buttons[i][j].setOnClickListener(this::makeMove);
@@ -374,79 +558,416 @@ public class MainActivity extends AppCompatActivity {
             tableLayout.addView(tableRow);
         }
 
-        // All done! Update the GUI with new front-end mirror of the game engine board.
-        drawBoard();
     }
 
     /**
-     * Uses the game engine to attempt to move one of the frogs, and mirrors the result
-     * in the front-end GUI. Specifically: this method first checks if the player has
-     * already won or lost. If they have, and are attempting to move again, ask them to
-     * undo moves or start a new game.
+     * Logs how long the first frame took to appear, then starts everything it did not
+     * need: the hint engine, and the audio, whose players and sounds are preloaded on a
+     * background thread before the music starts.
+     */
+    private void onFirstFrameDrawn() {
+        firstFrameDrawnAtNanos = System.nanoTime();
+        long now = SystemClock.elapsedRealtimeNanos();
+        Log.d(LOG_TAG, String.format(Locale.US, "Startup: first frame drawn %.2fms " +
+                        "after onCreate(), %dms after the process started",
+                (now - createdAtNanos) / 1e6,
+                SystemClock.elapsedRealtime() - Process.getStartElapsedRealtime()));
+        reportFullyDrawn();
+        if (isDestroyed()) {
+            return;
+        }
+
+        Trace.beginSection("MainActivity.startHintEngine");
+        startHintEngine();
+        Trace.endSection();
+        logStartupPhase("startHintEngine", now);
+        audioManager.preload(PRELOADED_PLAYERS, PRELOADED_SOUNDS, this::startMusic);
+    }
+
+    /**
+     * Starts the hint engine, keeping its verdicts in app storage so they outlive this
+     * process, on whatever is on the board by now. Whenever it has new hints, refresh
+     * the valid moves overlay (only the overlay, so that a running jump animation is not
+     * disturbed).
+     */
+    private void startHintEngine() {
+        SolutionCache solutionCache = new SolutionCache(
+                new File(getFilesDir(), SOLUTION_CACHE_DIRECTORY));
+        hintEngine = new HintEngine(engineRows, engineColumns, solutionCache, () -> {
+            if (showValidMoves) drawHints();
+        });
+        hintEngine.speculate(game.pack());
+        if (showValidMoves) drawHints();
+    }
+
+    /**
+     * Starts the music once the audio has been preloaded. If the player has already
+     * left the app, the music waits, suspended, until they come back.
+     */
+    private void startMusic() {
+        if (isDestroyed()) {
+            return;
+        }
+        audioManager.play(R.raw.music, true);
+        if (!resumed) audioManager.suspend();
+        logStartupPhase("music (since onCreate())", createdAtNanos);
+    }
+
+    /**
+     * Logs how long a phase of starting up took.
+     *
+     * @param phase the name of the phase.
+     * @param startedAt when the phase started, from SystemClock.elapsedRealtimeNanos().
+     * @return when the phase ended, which is when the next one starts.
+     */
+    private long logStartupPhase(String phase, long startedAt) {
+        long now = SystemClock.elapsedRealtimeNanos();
+        Log.d(LOG_TAG, String.format(Locale.US, "Startup: %s took %.2fms", phase,
+                (now - startedAt) / 1e6));
+        return now;
+    }
+
+    /**
+     * Queues a tap on one of the frogs or toads, to be applied at the next frame along
+     * with any other taps made before it. Taps made while a jump is still animating are
+     * therefore never lost, and are never judged against a board which has not been
+     * drawn yet: each is applied, in order, to the game as every tap before it left it.
      *
      * @param view the view in which the moving element is present.
      */
     private void makeMove(View view) {
 
-        // Check if the player won or lost the game. If they did, asks them to undo a
-        // move or start a new game.
-        boolean playerWon = game.over();
-        if (playerWon || !game.canMove()) {
-            audioManager.play(R.raw.invalid);
-            Snackbar.make(findViewById(R.id.table_layout), R.string.waiting_on_reset_text,
-                    Snackbar.LENGTH_LONG).show();
+        // Tapping the board while the solution is being played out takes back control,
+        // without making a move.
+        if (autoplay != null) {
+            stopAutoplay();
             return;
         }
 
-        // Get the row and column selected for the move.
+        // A player so far ahead of the frames that the queue is full is tapping faster
+        // than anyone could follow, so the extra taps are dropped.
+        if (pendingTapCount == MAX_PENDING_TAPS) {
+            return;
+        }
         int[] eventTag = (int[]) view.getTag();
-        int row = eventTag[0];
-        int column = eventTag[1];
+        pendingTaps[(firstPendingTap + pendingTapCount++) % MAX_PENDING_TAPS] =
+                eventTag[0] * engineColumns + eventTag[1];
+        requestFrame();
+    }
 
-        boolean movementIsLegal = false;
+    /**
+     * Applies every queued tap, in order, along with any moves of the solution being
+     * played out which are due, then repaints the board once, and animates the last
+     * move made (any moves made before it in the same frame are simply drawn where they
+     * landed). When the solution is played faster than one move per jump, nothing is
+     * animated, and the frame makes as many of its moves as are due, or as fit in
+     * AUTOPLAY_FRAME_BUDGET_NANOS. Runs at the start of a frame.
+     */
+    @VisibleForTesting
+    void applyQueuedTaps() {
+        long frameStart = System.nanoTime();
+        int autoplayMoves = (autoplay != null) ?
+                autoplay.movesDue(frameStart, animatedFromCell >= 0) : 0;
+        boolean animate = autoplay == null ||
+                autoplay.getMovesPerSecond() == Autoplay.ONE_MOVE_PER_JUMP;
+
+        // Finish any jump still running first, so that it is drawn where it landed. The
+        // frame stays marked as requested meanwhile, so finishing the jump does not ask
+        // for another.
+        frameRequested = true;
+        if ((pendingTapCount > 0 || autoplayMoves > 0) && jumpAnimations != null) {
+            jumpAnimations.finish();
+        }
+
+        int movedCell = -1;
+        while (pendingTapCount > 0) {
+            int cell = pendingTaps[firstPendingTap];
+            firstPendingTap = (firstPendingTap + 1) % MAX_PENDING_TAPS;
+            pendingTapCount--;
+            if (applyMove(cell)) {
+                movedCell = cell;
+            }
+        }
 
-        // For all possible legal moves, if the provided coordinates match even one,
-        // mark the move as legal.
-        for (int[] legalMove : game.getLegalMoves()) {
-            if (legalMove[0] == row && legalMove[1] == column) {
-                movementIsLegal = true;
-                break;
+        // Autoplay stops itself once the game is over, and stops if the solution ever
+        // disagrees with the game.
+        for (int i = 0; i < autoplayMoves && autoplay != null && autoplay.hasNext() &&
+                System.nanoTime() - frameStart < AUTOPLAY_FRAME_BUDGET_NANOS; i++) {
+            int cell = autoplay.nextMove();
+            if (applyMove(cell)) {
+                movedCell = cell;
+            } else {
+                stopAutoplay();
             }
         }
+        if (autoplay != null && !autoplay.hasNext()) {
+            stopAutoplay();
+        }
+        frameRequested = false;
+
+        if (!animate) {
+            animatedFromCell = -1;
+            animatedToCell = -1;
+        }
+        if (movedCell >= 0 || boardOutOfDate) {
+            drawBoard();
+        }
+        if (movedCell >= 0 && animate) {
+            animateElement(buttons[movedCell / engineColumns][movedCell % engineColumns]);
+        }
+
+        // Keep playing the solution. At one move per jump the next move waits for this
+        // one's jump to end, which asks for a frame itself.
+        if (autoplay != null && animatedFromCell < 0) {
+            requestFrame();
+        }
+    }
+
+    /**
+     * Applies a single move, by tap or by autoplay, and remembers it as the move to
+     * animate if it was made.
+     *
+     * @param cell the cell moved from, numbered row by row.
+     * @return true if a move was made.
+     */
+    private boolean applyMove(int cell) {
+        if (!applyTap(cell / engineColumns, cell % engineColumns)) {
+            return false;
+        }
+        animatedFromCell = cell;
+        animatedToCell = tapResult.getToRow() * engineColumns + tapResult.getToColumn();
+        animatedPiece = tapResult.getPiece();
+        return true;
+    }
 
-        // If the movement is not in the list of legal movements, indicate an invalid
-        // move with a noise and a message to the user.
-        if (!movementIsLegal) {
+    /**
+     * Uses the game engine to attempt to move one of the frogs, and mirrors the result
+     * in the front-end GUI, apart from the board itself, which is repainted once all
+     * the taps of a frame have been applied. Specifically: this method first checks if
+     * the player has already won or lost. If they have, and are attempting to move
+     * again, ask them to undo moves or start a new game.
+     *
+     * The engine is asked just once, through tryMove(), which validates and makes the
+     * move and describes everything the GUI needs to react to it: which piece moved,
+     * where to, whether the game has now been won or stalled, and whether it can still
+     * be won at all.
+     *
+     * @param row the row of the tapped cell.
+     * @param column the column of the tapped cell.
+     * @return true if a move was made, which tapResult then describes.
+     */
+    private boolean applyTap(int row, int column) {
+        MoveResult result = game.tryMove(row, column, tapResult);
+
+        // Check if the player won or lost the game. If they did, asks them to undo a
+        // move or start a new game.
+        if (result.getOutcome() == MoveResult.GAME_FINISHED) {
+            audioManager.play(R.raw.invalid);
+            Snackbar.make(findViewById(R.id.table_layout), R.string.waiting_on_reset_text,
+                    Snackbar.LENGTH_LONG).show();
+            return false;
+        }
+
+        // If the movement is not legal, indicate an invalid move with a noise and a
+        // message to the user.
+        if (result.getOutcome() == MoveResult.ILLEGAL) {
             audioManager.play(R.raw.invalid);
             Snackbar.make(
                     findViewById(R.id.table_layout),
                     String.format(getResources().getString(R.string.illegal_move_text),
-                            (game.toadAt(row, column) ?
+                            (result.getPiece() == MoveResult.TOAD ?
                                     getResources().getString(R.string.toad_text) :
                                     getResources().getString(R.string.frog_text))),
                     Snackbar.LENGTH_LONG
             ).show();
-            return;
+            return false;
         }
 
-        // If the move was valid, play the correct jump noise.
-        audioManager.play(game.frogAt(row, column) ?
+        // The move was made, so play the correct jump noise. The hint engine starts on
+        // the new position once the board is repainted.
+        audioManager.play(result.getPiece() == MoveResult.FROG ?
                 R.raw.frog_jump : R.raw.toad_jump);
 
-        // Run the animation for the selected frog or toad.
-        animateElement(view, new int[]{row, column});
-
-        // Make the move in the game engine. Assume it was valid.
-        game.move(row, column);
-
         currentMoves++;
 
         // If the player won or lost, display the game over alert.
-        playerWon = game.over();
+        if (result.getStatus() != MoveResult.PLAYING) {
+            showGameOverAlert(result.getStatus() == MoveResult.WON);
+        } else if (!gameDeadlocked && result.isDeadlocked()) {
+
+            // Warn the player as soon as the game can no longer be won, rather than
+            // letting them play on until they run out of moves.
+            Snackbar.make(findViewById(R.id.table_layout), R.string.deadlock_warning_text,
+                    Snackbar.LENGTH_LONG).show();
+        }
+        gameDeadlocked = result.isDeadlocked();
+        return true;
+    }
+
+    /**
+     * Asks for applyQueuedTaps() to run at the next frame, unless it already will.
+     */
+    private void requestFrame() {
+        if (!frameRequested) {
+            frameRequested = true;
+            Choreographer.getInstance().postFrameCallback(frameCallback);
+        }
+    }
+
+    /**
+     * Forgets every queued tap, stops playing the solution, and finishes any running
+     * jump, before the game on the board is replaced or changed other than by a tap.
+     */
+    private void discardPendingTaps() {
+        pendingTapCount = 0;
+        stopAutoplay();
+        if (jumpAnimations != null) {
+            jumpAnimations.finish();
+        }
+    }
+
+    /**
+     * Starts finding a solution from the position on the board, to be played out at the
+     * chosen speed once it is found. The search runs on the hint engine's worker thread,
+     * since on larger boards it can take far longer than a frame. A position which can
+     * no longer be won is refused straight away.
+     */
+    private void startAutoplay() {
+        discardPendingTaps();
+        if (game.isDeadlocked()) {
+            showAutoplayFailure(R.string.autoplay_no_solution_text);
+            return;
+        }
+
+        // Boards too large to search only have the constructive solution, which only
+        // exists from the start position.
+        long position = game.pack();
+        if (hintEngine == null || !hintEngine.supported() ||
+                position == PackedPosition.NONE) {
+            if (game.isStartPosition()) {
+                playAutoplayPath(new ConstructiveSolution(engineRows, engineColumns));
+            } else {
+                showAutoplayFailure(R.string.autoplay_not_found_text);
+            }
+            return;
+        }
+
+        int search = ++autoplaySearches;
+        findingAutoplayPath = true;
+        drawAutoplayButton();
+        hintEngine.findPath(position, (searched, result) ->
+                onAutoplayPathFound(search, searched, result));
+    }
+
+    /**
+     * Plays out the path the hint engine found, unless the search has been given up on
+     * or the board has changed since it started. An empty path from a search which was
+     * exhaustive means there is no solution at all, whereas an empty path from the best
+     * effort search only means none was found within budget, in which case the
+     * constructive solution is used if the board is in its start position.
+     *
+     * @param search the count of autoplaySearches the search was started with.
+     * @param position the packed position the path was found from.
+     * @param result the path found.
+     */
+    private void onAutoplayPathFound(int search, long position, SolverResult result) {
+        if (isDestroyed() || search != autoplaySearches) {
+            return;
+        }
+        findingAutoplayPath = false;
+        if (game.pack() != position) {
+            drawAutoplayButton();
+            return;
+        }
+
+        int[] path = result.getPath();
+        if (path.length > 0) {
+            playAutoplayPath(Arrays.stream(path).iterator());
+        } else if (game.isStartPosition()) {
+            playAutoplayPath(new ConstructiveSolution(engineRows, engineColumns));
+        } else {
+            drawAutoplayButton();
+            showAutoplayFailure(result.isOptimal() ? R.string.autoplay_no_solution_text :
+                    R.string.autoplay_not_found_text);
+        }
+    }
+
+    /**
+     * Starts playing out the given path from the position on the board, at the chosen
+     * speed.
+     *
+     * @param path the moves of the path, as cells numbered row by row.
+     */
+    private void playAutoplayPath(PrimitiveIterator.OfInt path) {
+        autoplay = new Autoplay(path, Autoplay.SPEEDS[autoplaySpeed]);
+        audioManager.setMinimumSoundEffectInterval(AUTOPLAY_SOUND_EFFECT_INTERVAL);
+        drawAutoplayButton();
+        requestFrame();
+    }
+
+    /**
+     * Tells the player why no solution is being played.
+     *
+     * @param message the string resource saying why.
+     */
+    private void showAutoplayFailure(int message) {
+        audioManager.play(R.raw.invalid);
+        Snackbar.make(findViewById(R.id.table_layout), message, Snackbar.LENGTH_LONG)
+                .show();
+    }
+
+    /**
+     * Stops playing out the solution, if it is being played, leaving the board as its
+     * last move left it. A search for the solution still running carries on, but what
+     * it finds is ignored.
+     */
+    private void stopAutoplay() {
+        if (findingAutoplayPath) {
+            findingAutoplayPath = false;
+            autoplaySearches++;
+            drawAutoplayButton();
+        }
+        if (autoplay == null) {
+            return;
+        }
+        autoplay = null;
+        audioManager.setMinimumSoundEffectInterval(0);
+        drawAutoplayButton();
+    }
+
+    /**
+     * Labels the autoplay button with what tapping it will do.
+     */
+    private void drawAutoplayButton() {
+        ((Button) findViewById(R.id.autoplay_button)).setText(String.format(
+                getResources().getString(R.string.autoplay_button_text),
+                ((findingAutoplayPath) ? "FINDING" :
+                        (autoplay == null) ? "PLAY" : "STOP")));
+    }
 
-        if (playerWon || !game.canMove()) {
-            showGameOverAlert(playerWon);
+    /**
+     * @return the chosen autoplay speed, in words.
+     */
+    private String describeAutoplaySpeed() {
+        int movesPerSecond = Autoplay.SPEEDS[autoplaySpeed];
+        if (movesPerSecond == Autoplay.ONE_MOVE_PER_JUMP) {
+            return getResources().getString(R.string.autoplay_speed_jump);
+        } else if (movesPerSecond == Autoplay.AS_FAST_AS_POSSIBLE) {
+            return getResources().getString(R.string.autoplay_speed_unlimited);
         }
+        return String.format(getResources().getString(R.string.autoplay_speed_rate),
+                movesPerSecond);
+    }
+
+    /**
+     * Once a jump ends, whether it ran its course or was finished early, its piece is
+     * drawn where it landed at the next frame.
+     */
+    private void onJumpEnd() {
+        animatedFromCell = -1;
+        animatedToCell = -1;
+        boardOutOfDate = true;
+        requestFrame();
     }
 
     /**
@@ -454,7 +975,9 @@ public class MainActivity extends AppCompatActivity {
      * according to the game engine. Iterates through every button, checks what it is
      * in the game engine, and updates its image and alt text.
      */
-    private void drawBoard() {
+    @VisibleForTesting
+    void drawBoard() {
+        boardOutOfDate = false;
         if (currentMoves < 0) currentMoves = 0;
         ((TextView) findViewById(R.id.move_count)).setText(
             String.format(
@@ -462,27 +985,95 @@ public class MainActivity extends AppCompatActivity {
         );
         for (int i = 0; i < engineRows; i++) {
             for (int j = 0; j < engineColumns; j++) {
-                if (showValidMoves && game.moveIsValid(i, j)) {
-                    buttons[i][j].setBackgroundColor(getResources().getColor(R.color.dark_green,
-                            getTheme()));
-                } else {
-                    buttons[i][j].setBackgroundColor(getResources().getColor(R.color.transparent, getTheme()));
+                drawCell(i, j, game.toadAt(i, j) ? MoveResult.TOAD :
+                        game.frogAt(i, j) ? MoveResult.FROG : MoveResult.NOTHING);
+            }
+        }
+
+        // The piece which is jumping stays in the cell it is jumping from until it
+        // lands.
+        if (animatedFromCell >= 0) {
+            drawCell(animatedFromCell / engineColumns, animatedFromCell % engineColumns,
+                    animatedPiece);
+            drawCell(animatedToCell / engineColumns, animatedToCell % engineColumns,
+                    MoveResult.NOTHING);
+        }
+        drawHints();
+
+        // Undoing moves or starting a new game may have made the game winnable again.
+        // After a move the engine already knows, so this only looks at the whole board
+        // after an undo or a new game.
+        gameDeadlocked = game.isDeadlocked();
+
+        // Make sure the hint engine is working on whatever is now on the board, once
+        // it has been started.
+        if (hintEngine != null) hintEngine.speculate(game.pack());
+    }
+
+    /**
+     * Updates the image and alt text of a single button.
+     *
+     * @param i the row of the button.
+     * @param j the column of the button.
+     * @param piece MoveResult.TOAD, FROG, or NOTHING, for what to draw in the cell.
+     */
+    private void drawCell(int i, int j, int piece) {
+        if (piece == MoveResult.TOAD) {
+            buttons[i][j].setZ(2);
+            buttons[i][j].setImageResource(R.drawable.toad);
+            buttons[i][j].setContentDescription(
+                    getResources().getString(R.string.toad_text).toUpperCase());
+
+        } else if (piece == MoveResult.FROG) {
+            buttons[i][j].setZ(2);
+            buttons[i][j].setImageResource(R.drawable.frog);
+            buttons[i][j].setContentDescription(
+                    getResources().getString(R.string.frog_text).toUpperCase());
+
+        } else {
+            buttons[i][j].setZ(1);
+            buttons[i][j].setImageResource(R.drawable.empty);
+            buttons[i][j].setContentDescription(
+                    getResources().getString(R.string.empty_alt));
+        }
+    }
+
+    /**
+     * Updates the background of every button to reflect the valid moves overlay. When
+     * the overlay is shown, each valid move is colored by the hint engine's rating of
+     * it: green for the best move, yellow for a move which still allows a win, red for a
+     * move which loses the game, and gray while the rating is still being worked out.
+     */
+    private void drawHints() {
+        long position = game.pack();
+        int legalMoveCount = showValidMoves ? game.legalMoves(hintMoves) : 0;
+        for (int i = 0; i < engineRows; i++) {
+            for (int j = 0; j < engineColumns; j++) {
+                int color = R.color.transparent;
+                boolean legal = false;
+                for (int k = 0; k < legalMoveCount; k++) {
+                    legal |= hintMoves[k] == i * engineColumns + j;
                 }
-                if (game.toadAt(i, j)) {
-                    buttons[i][j].setZ(2);
-                    buttons[i][j].setImageResource(R.drawable.toad);
-                    buttons[i][j].setContentDescription(getResources().getString(R.string.toad_text).toUpperCase());
-
-                } else if (game.frogAt(i, j)) {
-                    buttons[i][j].setZ(2);
-                    buttons[i][j].setImageResource(R.drawable.frog);
-                    buttons[i][j].setContentDescription(getResources().getString(R.string.frog_text).toUpperCase());
-
-                } else {
-                    buttons[i][j].setZ(1);
-                    buttons[i][j].setImageResource(R.drawable.empty);
-                    buttons[i][j].setContentDescription(getResources().getString(R.string.empty_alt));
+                if (legal) {
+                    int rating = (hintEngine != null) ?
+                            hintEngine.rateMove(position, i * engineColumns + j) :
+                            HintEngine.HINT_UNKNOWN;
+                    switch (rating) {
+                        case HintEngine.HINT_BEST:
+                            color = R.color.dark_green;
+                            break;
+                        case HintEngine.HINT_SOLVABLE:
+                            color = R.color.dark_yellow;
+                            break;
+                        case HintEngine.HINT_DEAD:
+                            color = R.color.dark_red;
+                            break;
+                        default:
+                            color = R.color.dark_gray;
+                            break;
+                    }
                 }
+                buttons[i][j].setBackgroundColor(getResources().getColor(color, getTheme()));
             }
         }
     }
@@ -497,7 +1088,8 @@ public class MainActivity extends AppCompatActivity {
      *                            asked to confirm their desire to create a new game or
      *                            not.
      */
-    private void resetGameBoard(boolean requireConfirmation) {
+    @VisibleForTesting
+    void resetGameBoard(boolean requireConfirmation) {
 
         // If we should ask the user to confirm the creation of a new game, display an
         // alert and ask them. If they indicate no, do nothing. If they indicate yes,
@@ -507,6 +1099,7 @@ public class MainActivity extends AppCompatActivity {
             AlertDialog.Builder builder = new AlertDialog.Builder(this);
             builder.setTitle(R.string.game_over_title).setMessage(R.string.confirm_reset_text);
             builder.setPositiveButton(R.string.confirm_reset_affirm, (dialogInterface, i) -> {
+                discardPendingTaps();
                 currentMoves = 0;
                 game = new FrogsAndToads(engineRows, engineColumns);
                 drawBoard();
@@ -518,6 +1111,7 @@ public class MainActivity extends AppCompatActivity {
             // If we do not need to ask for confirmation, simply replace the current
             // instance of the game engine with a new one and draw the board so the GUI
             // reflects the new board.
+            discardPendingTaps();
             currentMoves = 0;
             game = new FrogsAndToads(engineRows, engineColumns);
             drawBoard();
@@ -534,6 +1128,10 @@ public class MainActivity extends AppCompatActivity {
      */
     private void showGameOverAlert(boolean isWon) {
 
+        // The game is over, so stop playing the solution, which also makes sure the
+        // sound below is not dropped for following a jump too closely.
+        stopAutoplay();
+
         // Play the audio which accompanies the loss or victory.
         int playerID = audioManager.play((isWon) ? R.raw.win : R.raw.lose);
 
@@ -568,74 +1166,26 @@ public class MainActivity extends AppCompatActivity {
     }
 
     /**
-     * Determines which direction and how significant the jump being made by the
-     * element is. Once this is determined, the animation is run on the element at the
-     * provided move location.
+     * Runs the jump animation of the move being animated on the element which made it,
+     * in the direction and over the distance it moved. The jump animations are only
+     * built again if the size of the cells on the game board has changed since they
+     * were last built.
      *
      * @param view the view in which the moving element is present.
-     * @param moveLocation an integer array whose first element is the row of the
-     *                     selected move and second element is the y of the selected move.
      */
-    private void animateElement(View view, int[] moveLocation) {
-
-        // Identifies the move row and column and the animation that needs to be run.
-        int row = moveLocation[0];
-        int column = moveLocation[1];
-        int animationID;
-        if (game.emptyAt(row - 1, column)) {
-            animationID = R.anim.jump_up_one_tile;
-        } else if (game.emptyAt(row, column - 1)) {
-            animationID = R.anim.jump_left_one_tile;
-        } else if (game.emptyAt(row, column + 1)) {
-            animationID = R.anim.jump_right_one_tile;
-        } else if (game.emptyAt(row + 1, column)) {
-            animationID = R.anim.jump_down_one_tile;
-        } else if (game.emptyAt(row - 2, column)) {
-            animationID = R.anim.jump_up_three_tiles;
-        } else if (game.emptyAt(row, column - 2)) {
-            animationID = R.anim.jump_left_three_tiles;
-        } else if (game.emptyAt(row, column + 2)) {
-            animationID = R.anim.jump_right_three_tiles;
-        } else if (game.emptyAt(row + 2, column)) {
-            animationID = R.anim.jump_down_three_tiles;
-        } else {
-            animationID = R.anim.jump_up_one_tile;
+    private void animateElement(View view) {
+        int rowDelta = animatedToCell / engineColumns - animatedFromCell / engineColumns;
+        int columnDelta =
+                animatedToCell % engineColumns - animatedFromCell % engineColumns;
+
+        // Build the jump animations for this board's cells if they have not been built
+        // yet, then run the jump. The board is repainted at the next frame once the
+        // jump ends.
+        if (jumpAnimations == null || !jumpAnimations.fits(view)) {
+            jumpAnimations = new JumpAnimations(view.getWidth(), view.getHeight(),
+                    this::onJumpEnd);
         }
-
-        // Load the animation.
-        Animation animation = AnimationUtils.loadAnimation(this, animationID);
-
-        // Set the animation listener to remove the view after the animation ends
-        animation.setAnimationListener(new Animation.AnimationListener() {
-
-            /**
-             * Runs on the start of the animation. This is never run in this code.
-             * @param animation the animation being started.
-             */
-            @Override
-            public void onAnimationStart(Animation animation) {
-            }
-
-            /**
-             * Updates the GUI board on the end of the animation.
-             * @param animation the animation that is ending.
-             */
-            @Override
-            public void onAnimationEnd(Animation animation) {
-                drawBoard();
-            }
-
-            /**
-             * Runs when the animation is set to repeat. It never is in this code.
-             * @param animation the animation being repeated.
-             */
-            @Override
-            public void onAnimationRepeat(Animation animation) {
-            }
-        });
-
-        // Start the animation.
-        view.startAnimation(animation);
+        jumpAnimations.start(view, rowDelta, columnDelta);
     }
 
-}
\ No newline at end of file
+}
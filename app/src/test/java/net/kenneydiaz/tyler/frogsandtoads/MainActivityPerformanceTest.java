@@ -0,0 +1,357 @@
+package net.kenneydiaz.tyler.frogsandtoads;
+
+import android.content.Intent;
+import android.os.Looper;
+import android.view.View;
+import android.widget.TableLayout;
+import android.widget.TableRow;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.android.controller.ActivityController;
+import org.robolectric.shadows.ShadowMediaPlayer;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.Assert.*;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * Plays scripted games through MainActivity on the JVM, with Robolectric, on several
+ * board sizes, and fails if tapping a piece, redrawing the board, starting a new game,
+ * or undoing a move has become slower, or allocates more, than it used to. Starting the
+ * activity is measured the same way, both up to the point it is visible and up to the
+ * moment its first frame has been drawn.
+ * A tap is timed from the click until the frame which applies it has repainted the
+ * board (see MainActivity.applyQueuedTaps()). Taps made faster than the frames are
+ * also checked to all be applied, in order, to the board the player sees.
+ *
+ * Each operation is timed and its allocations (in bytes, as counted by the JVM for the
+ * test's thread) measured over many repetitions, and the median of each is compared
+ * with the baseline for that operation and board in ui-performance-baselines.properties.
+ * Allocations are allowed ALLOCATION_TOLERANCE times their baseline plus
+ * ALLOCATION_SLACK_BYTES. They hardly vary from one machine to the next, so they are
+ * always checked. Wall times do vary, especially on shared build machines, so they are
+ * only checked (against TIME_TOLERANCE times their baseline) when the build is run with
+ * -PcheckWallTimes.
+ *
+ * Every run writes what it measured to build/ui-performance/measured.properties, in the
+ * same form as the baselines, so after a deliberate change the baselines are updated by
+ * copying the lines over. Until an operation has a baseline, the test checks everything
+ * else and is then skipped, naming every operation still missing one, so that a gap in
+ * the baselines is neither mistaken for a pass nor turned into a failing build.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class MainActivityPerformanceTest {
+
+    // The boards games are played on.
+    private static final int[][] BOARD_SIZES = {{3, 3}, {5, 5}, {7, 7}};
+
+    // The number of whole games played before measuring, so the JIT has warmed up, and
+    // the number played while measuring.
+    private static final int WARM_UP_GAMES = 5;
+    private static final int MEASURED_GAMES = 20;
+
+    // How far beyond its baseline a measurement may be before the test fails.
+    private static final double TIME_TOLERANCE = 2.0;
+    private static final double ALLOCATION_TOLERANCE = 1.25;
+    private static final long ALLOCATION_SLACK_BYTES = 1024;
+
+    // Whether wall times are checked as well as allocations, which the build sets.
+    private static final boolean CHECK_WALL_TIMES = Boolean.getBoolean("checkWallTimes");
+
+    private static final String BASELINES = "ui-performance-baselines.properties";
+    private static final File MEASURED =
+            new File("build/ui-performance/measured.properties");
+
+    /**
+     * The repeated measurements of a single operation on a single board.
+     */
+    private static class Measurement {
+        final String name;
+        final List<Long> nanos = new ArrayList<>();
+        final List<Long> bytes = new ArrayList<>();
+
+        Measurement(String operation, int rows, int columns) {
+            name = operation + "." + rows + "x" + columns;
+        }
+
+        void time(Runnable operation) {
+            long allocatedBefore = allocatedBytes();
+            long start = System.nanoTime();
+            operation.run();
+            add(System.nanoTime() - start, allocatedBytes() - allocatedBefore);
+        }
+
+        void add(long elapsedNanos, long allocatedBytes) {
+            nanos.add(elapsedNanos);
+            bytes.add(allocatedBytes);
+        }
+
+        void clear() {
+            nanos.clear();
+            bytes.clear();
+        }
+
+        long medianMicros() {
+            return median(nanos) / 1000;
+        }
+
+        long medianBytes() {
+            return median(bytes);
+        }
+    }
+
+    // What every test of the class has measured, which is written out after each.
+    private static final Properties measured = new Properties();
+    private final List<String> failures = new ArrayList<>();
+    private final List<String> missingBaselines = new ArrayList<>();
+    private Properties baselines;
+
+    @Before
+    public void setUp() throws IOException {
+
+        // The shadow media players do not know the app's sounds, so describe every
+        // sound as a short clip which is ready at once.
+        ShadowMediaPlayer.setMediaInfoProvider(
+                dataSource -> new ShadowMediaPlayer.MediaInfo(500, 0));
+
+        baselines = new Properties();
+        try (InputStream in =
+                     getClass().getClassLoader().getResourceAsStream(BASELINES)) {
+            if (in != null) {
+                baselines.load(in);
+            }
+        }
+    }
+
+    @After
+    public void writeMeasurements() throws IOException {
+        File directory = MEASURED.getParentFile();
+        assertTrue(directory.isDirectory() || directory.mkdirs());
+        try (OutputStream out = new FileOutputStream(MEASURED)) {
+            measured.store(out, "Measured by MainActivityPerformanceTest; copy into " +
+                    BASELINES + " to accept");
+        }
+    }
+
+    @Test
+    public void scriptedGamesStayWithinBaselines() {
+        for (int[] size : BOARD_SIZES) {
+            playScriptedGames(size[0], size[1]);
+        }
+        assertWithinBaselines();
+    }
+
+    @Test
+    public void startupStaysWithinBaselines() {
+        for (int[] size : BOARD_SIZES) {
+            Intent intent = new Intent(ApplicationProvider.getApplicationContext(),
+                    MainActivity.class)
+                    .putExtra(MainActivity.EXTRA_ROWS, size[0])
+                    .putExtra(MainActivity.EXTRA_COLUMNS, size[1]);
+
+            // Startup is timed up to the activity becoming visible, and again up to the
+            // moment its first frame has been drawn (which MainActivity notes as it
+            // happens, before it starts the work it deferred until then).
+            Measurement startup = new Measurement("startup", size[0], size[1]);
+            Measurement firstFrame = new Measurement("firstFrame", size[0], size[1]);
+            for (int run = 0; run < WARM_UP_GAMES + MEASURED_GAMES; run++) {
+                if (run == WARM_UP_GAMES) {
+                    startup.clear();
+                    firstFrame.clear();
+                }
+                ActivityController<MainActivity> controller =
+                        Robolectric.buildActivity(MainActivity.class, intent);
+                long allocatedBefore = allocatedBytes();
+                long start = System.nanoTime();
+                startup.time(() -> controller.create().start().resume().visible());
+                MainActivity activity = controller.get();
+                for (int frame = 0; frame < 100 && activity.firstFrameDrawnAtNanos < 0;
+                     frame++) {
+                    shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(16));
+                }
+                assertTrue("The first frame was never drawn",
+                        activity.firstFrameDrawnAtNanos >= 0);
+                firstFrame.add(activity.firstFrameDrawnAtNanos - start,
+                        allocatedBytes() - allocatedBefore);
+                controller.pause().stop().destroy();
+            }
+            check(startup);
+            check(firstFrame);
+        }
+        assertWithinBaselines();
+    }
+
+    @Test
+    public void tapsFasterThanTheFramesAreAllApplied() {
+        int rows = 5;
+        int columns = 5;
+        Intent intent = new Intent(ApplicationProvider.getApplicationContext(),
+                MainActivity.class)
+                .putExtra(MainActivity.EXTRA_ROWS, rows)
+                .putExtra(MainActivity.EXTRA_COLUMNS, columns);
+        ActivityController<MainActivity> controller =
+                Robolectric.buildActivity(MainActivity.class, intent).setup();
+        TableLayout table = controller.get().findViewById(R.id.table_layout);
+
+        // Tap the first dozen moves of the solution without letting a single frame or
+        // animation run in between, then let them all catch up.
+        FrogsAndToads expected = new FrogsAndToads(rows, columns);
+        ConstructiveSolution path = new ConstructiveSolution(rows, columns);
+        for (int tap = 0; tap < 12 && path.hasNext(); tap++) {
+            int cell = path.nextInt();
+            expected.move(cell / columns, cell % columns);
+            ((TableRow) table.getChildAt(cell / columns)).getChildAt(cell % columns)
+                    .performClick();
+        }
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofSeconds(1));
+
+        String toad = controller.get().getString(R.string.toad_text).toUpperCase();
+        String frog = controller.get().getString(R.string.frog_text).toUpperCase();
+        String empty = controller.get().getString(R.string.empty_alt);
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < columns; j++) {
+                View button = ((TableRow) table.getChildAt(i)).getChildAt(j);
+                String drawn = expected.toadAt(i, j) ? toad :
+                        expected.frogAt(i, j) ? frog : empty;
+                assertEquals("(" + i + ", " + j + ")", drawn,
+                        button.getContentDescription());
+            }
+        }
+        controller.pause().stop().destroy();
+    }
+
+    /**
+     * Plays every move of the constructive solution of a board, one tap at a time, then
+     * undoes every move, then starts a new game, again and again, measuring each step.
+     */
+    private void playScriptedGames(int rows, int columns) {
+        Intent intent = new Intent(ApplicationProvider.getApplicationContext(),
+                MainActivity.class)
+                .putExtra(MainActivity.EXTRA_ROWS, rows)
+                .putExtra(MainActivity.EXTRA_COLUMNS, columns);
+        ActivityController<MainActivity> controller =
+                Robolectric.buildActivity(MainActivity.class, intent).setup();
+        MainActivity activity = controller.get();
+        TableLayout table = activity.findViewById(R.id.table_layout);
+        View undoButton = activity.findViewById(R.id.undo_button);
+        assertEquals(rows, table.getChildCount());
+
+        Measurement makeMove = new Measurement("makeMove", rows, columns);
+        Measurement drawBoard = new Measurement("drawBoard", rows, columns);
+        Measurement undo = new Measurement("undo", rows, columns);
+        Measurement resetGameBoard = new Measurement("resetGameBoard", rows, columns);
+        List<Measurement> all = Arrays.asList(makeMove, drawBoard, undo, resetGameBoard);
+
+        for (int game = 0; game < WARM_UP_GAMES + MEASURED_GAMES; game++) {
+            if (game == WARM_UP_GAMES) {
+                for (Measurement measurement : all) {
+                    measurement.clear();
+                }
+            }
+
+            int moves = 0;
+            ConstructiveSolution path = new ConstructiveSolution(rows, columns);
+            while (path.hasNext()) {
+                int cell = path.nextInt();
+                View button = ((TableRow) table.getChildAt(cell / columns))
+                        .getChildAt(cell % columns);
+                makeMove.time(() -> {
+                    button.performClick();
+                    activity.applyQueuedTaps();
+                });
+                moves++;
+
+                // Let the jump animation finish, which redraws the board, then time a
+                // redraw on its own.
+                shadowOf(Looper.getMainLooper()).idleFor(Duration.ofSeconds(1));
+                drawBoard.time(activity::drawBoard);
+            }
+
+            for (int i = 0; i < moves; i++) {
+                undo.time(undoButton::performClick);
+            }
+            shadowOf(Looper.getMainLooper()).idle();
+            resetGameBoard.time(() -> activity.resetGameBoard(false));
+            shadowOf(Looper.getMainLooper()).idle();
+        }
+
+        for (Measurement measurement : all) {
+            check(measurement);
+        }
+        controller.pause().stop().destroy();
+    }
+
+    /**
+     * Fails if any measurement exceeded its baseline, and otherwise skips the test if
+     * any measurement had no baseline to be compared with.
+     */
+    private void assertWithinBaselines() {
+        assertTrue(String.join("\n", failures), failures.isEmpty());
+        Assume.assumeTrue("No baseline yet for " + String.join(", ", missingBaselines) +
+                "; copy their lines from " + MEASURED + " into " + BASELINES,
+                missingBaselines.isEmpty());
+    }
+
+    /**
+     * Records a measurement and compares it with its baseline, if there is one.
+     */
+    private void check(Measurement measurement) {
+        long micros = measurement.medianMicros();
+        long bytes = measurement.medianBytes();
+        measured.setProperty(measurement.name + ".micros", Long.toString(micros));
+        measured.setProperty(measurement.name + ".bytes", Long.toString(bytes));
+
+        String baselineMicros = baselines.getProperty(measurement.name + ".micros");
+        String baselineBytes = baselines.getProperty(measurement.name + ".bytes");
+        if (baselineMicros == null || baselineBytes == null) {
+            missingBaselines.add(measurement.name);
+            return;
+        }
+        if (CHECK_WALL_TIMES &&
+                micros > TIME_TOLERANCE * Long.parseLong(baselineMicros)) {
+            failures.add(measurement.name + " took " + micros + "us, baseline " +
+                    baselineMicros + "us");
+        }
+        if (bytes > ALLOCATION_TOLERANCE *
+                Long.parseLong(baselineBytes) + ALLOCATION_SLACK_BYTES) {
+            failures.add(measurement.name + " allocated " + bytes + " bytes, baseline " +
+                    baselineBytes + " bytes");
+        }
+    }
+
+    /**
+     * @return the bytes the JVM has allocated on this thread so far.
+     */
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static long median(List<Long> values) {
+        if (values.isEmpty()) {
+            return 0;
+        }
+        Long[] sorted = values.toArray(new Long[0]);
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+}
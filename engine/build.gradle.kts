@@ -0,0 +1,38 @@
+plugins {
+    id("java-library")
+}
+
+// The game engine and solver, with nothing Android about them, so that they can be
+// tested, benchmarked, and hosted on any JVM as well as used by the app.
+java {
+    sourceCompatibility = JavaVersion.VERSION_1_8
+    targetCompatibility = JavaVersion.VERSION_1_8
+}
+
+dependencies {
+
+    compileOnly("androidx.annotation:annotation:1.7.0")
+    testImplementation("junit:junit:4.13.2")
+}
+
+// Tests which time the engine are slow and their numbers vary from one machine to the
+// next, so the test task leaves them out; run them with ./gradlew :engine:benchmark.
+val benchmarkCategory = "net.kenneydiaz.tyler.frogsandtoads.Benchmark"
+
+tasks.test {
+    useJUnit {
+        excludeCategories(benchmarkCategory)
+    }
+}
+
+tasks.register<Test>("benchmark") {
+    description = "Runs the engine benchmarks and prints their timings."
+    group = "verification"
+    testClassesDirs = sourceSets.test.get().output.classesDirs
+    classpath = sourceSets.test.get().runtimeClasspath
+    useJUnit {
+        includeCategories(benchmarkCategory)
+    }
+    testLogging.showStandardStreams = true
+    outputs.upToDateWhen { false }
+}
@@ -0,0 +1,113 @@
+package net.kenneydiaz.tyler.frogsandtoads;
+
+import java.util.PrimitiveIterator;
+
+/**
+ * Plays a solution, such as the path FrogsAndToads.getOptimalPath() gives, at a chosen
+ * speed, by working out how many of its moves each frame drawn by a front end should
+ * make. At the slowest speed each move waits for the jump of the one before it to
+ * finish animating. At the fastest, every frame makes as many moves as it has time for,
+ * and only the position the last of them leaves is drawn, so even the longest solution
+ * of a large board plays out in seconds.
+ *
+ * Speeds in between are a number of moves per second, paced by the time of each frame
+ * rather than by counting frames, so they hold whatever the frame rate. Moves owed for
+ * a long gap between frames (the app having been in the background, say) are only made
+ * up to a limit, rather than all at once.
+ *
+ * @author Tyler Kenney
+ */
+public class Autoplay {
+
+    // The speeds which are not a number of moves per second.
+    public static final int ONE_MOVE_PER_JUMP = 0;
+    public static final int AS_FAST_AS_POSSIBLE = Integer.MAX_VALUE;
+
+    // The speeds a player can choose between, slowest first.
+    public static final int[] SPEEDS = {ONE_MOVE_PER_JUMP, 4, 16, 64, 256,
+            AS_FAST_AS_POSSIBLE};
+
+    // The most seconds' worth of moves which may be owed at once.
+    private static final double MAX_OWED_SECONDS = 0.1;
+
+    private final PrimitiveIterator.OfInt path;
+    private int movesPerSecond;
+
+    // The time of the last frame moves were worked out for, and the fraction of a move
+    // owed since, or -1 before the first frame.
+    private long lastFrameNanos = -1;
+    private double owedMoves;
+
+    /**
+     * Starts playing a solution.
+     *
+     * @param path the moves of the solution, as cells numbered row by row.
+     * @param movesPerSecond one of SPEEDS, or any positive number of moves per second.
+     */
+    public Autoplay(PrimitiveIterator.OfInt path, int movesPerSecond) {
+        this.path = path;
+        this.movesPerSecond = movesPerSecond;
+    }
+
+    public int getMovesPerSecond() {
+        return movesPerSecond;
+    }
+
+    /**
+     * Changes the speed the rest of the solution is played at, starting from the next
+     * frame.
+     *
+     * @param movesPerSecond one of SPEEDS, or any positive number of moves per second.
+     */
+    public void setMovesPerSecond(int movesPerSecond) {
+        this.movesPerSecond = movesPerSecond;
+        lastFrameNanos = -1;
+        owedMoves = 0;
+    }
+
+    /**
+     * @return true if the solution has moves left to make.
+     */
+    public boolean hasNext() {
+        return path.hasNext();
+    }
+
+    /**
+     * @return the cell of the next move of the solution, numbered row by row.
+     */
+    public int nextMove() {
+        return path.nextInt();
+    }
+
+    /**
+     * Works out how many moves a frame should make.
+     *
+     * @param frameTimeNanos the time of the frame, as given by System.nanoTime().
+     * @param jumpRunning true if the jump of the last move made is still animating.
+     * @return the number of moves to make, which is Integer.MAX_VALUE if the frame should
+     *         make as many as it has time for.
+     */
+    public int movesDue(long frameTimeNanos, boolean jumpRunning) {
+        if (!path.hasNext()) {
+            return 0;
+        } else if (movesPerSecond == ONE_MOVE_PER_JUMP) {
+            return jumpRunning ? 0 : 1;
+        } else if (movesPerSecond == AS_FAST_AS_POSSIBLE) {
+            return Integer.MAX_VALUE;
+        }
+
+        // The first frame makes a move straight away. Every later frame makes the moves
+        // which have come due since the frame before.
+        if (lastFrameNanos < 0) {
+            owedMoves = 1;
+        } else {
+            owedMoves += (frameTimeNanos - lastFrameNanos) * (movesPerSecond / 1e9);
+            owedMoves = Math.min(owedMoves,
+                    Math.max(1, movesPerSecond * MAX_OWED_SECONDS));
+        }
+        lastFrameNanos = frameTimeNanos;
+        int due = (int) owedMoves;
+        owedMoves -= due;
+        return due;
+    }
+}
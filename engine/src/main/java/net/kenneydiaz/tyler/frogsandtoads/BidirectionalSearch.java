@@ -0,0 +1,306 @@
+package net.kenneydiaz.tyler.frogsandtoads;
+
+import java.util.Arrays;
+
+/**
+ * Finds optimal paths by breadth first search, either from one end only or from both
+ * ends at once. Unlike FrogsAndToadsSolver, which remembers every position it searches
+ * so that later questions are answered immediately, these searches answer a single
+ * question and then forget everything.
+ *
+ * A one-sided search expands positions from the one being solved, one move further
+ * each time, until it reaches the winning position. A bidirectional search also expands
+ * positions backwards from the winning position (see PackedPosition.legalUnmoves()),
+ * always expanding whichever side has the smaller frontier, until the two sides meet.
+ * Each side then only has to search about half as deep, and since the number of
+ * positions grows so quickly with depth, far fewer positions need to be held in memory.
+ *
+ * Each side remembers the positions it has seen in a TranspositionTable, along with how
+ * deep it found them and how it got there, so the path can be rebuilt from the position
+ * where the two sides met. Positions from which the game can no longer be won are never
+ * expanded forwards (see DeadlockDetector), and positions which can not be reached from
+ * the position being solved are never expanded backwards.
+ *
+ * A search can be given a memory budget. Breadth first search can not forget anything
+ * it has seen without losing track of paths, so a search which would need more than its
+ * budget gives up instead (see ranOutOfMemory()), leaving the caller to try something
+ * cheaper.
+ *
+ * @author Tyler Kenney
+ */
+public class BidirectionalSearch {
+
+    // Values are stored in the tables as (depth << DEPTH_SHIFT) | cell, where cell is
+    // the cell the search needs to get back to the position it came from, or ROOT_CELL
+    // for the position each side started from.
+    private static final int DEPTH_SHIFT = 8;
+    private static final int CELL_MASK = (1 << DEPTH_SHIFT) - 1;
+    private static final int ROOT_CELL = CELL_MASK;
+
+    // The dimensions of the board, and its winning position.
+    private final int rows;
+    private final int columns;
+    private final long goal;
+    private final DeadlockDetector deadlocks;
+
+    // The positions each side has seen, and the positions each side has just reached.
+    private TranspositionTable forwardSeen;
+    private TranspositionTable backwardSeen;
+    private long[] forwardFrontier;
+    private long[] backwardFrontier;
+    private int forwardSize;
+    private int backwardSize;
+
+    // The most bytes a search may hold at once. Each table may take up a third of it,
+    // leaving the rest for the frontiers.
+    private long memoryBudget = Long.MAX_VALUE;
+
+    // The most positions and bytes held at once by the last search, and whether it gave
+    // up for lack of memory.
+    private long peakPositions;
+    private long peakBytes;
+    private boolean outOfMemory;
+
+    /**
+     * Creates a search for boards of the given size, which must be small enough to be
+     * packed.
+     *
+     * @param rows the number of rows of the board.
+     * @param columns the number of columns of the board.
+     */
+    public BidirectionalSearch(int rows, int columns) {
+        this.rows = rows;
+        this.columns = columns;
+        this.goal = PackedPosition.goal(rows, columns);
+        this.deadlocks = new DeadlockDetector(rows, columns);
+    }
+
+    /**
+     * Finds an optimal path from the given position to the winning position, searching
+     * from both ends.
+     *
+     * @param position the packed position to solve.
+     * @return the packed moves of an optimal path, in order. Empty if the position is
+     *         already won or the game can no longer be won from it.
+     */
+    public int[] solve(long position) {
+        return search(position, true);
+    }
+
+    /**
+     * Finds an optimal path from the given position to the winning position, searching
+     * from the given position only.
+     *
+     * @param position the packed position to solve.
+     * @return the packed moves of an optimal path, in order. Empty if the position is
+     *         already won or the game can no longer be won from it.
+     */
+    public int[] solveOneSided(long position) {
+        return search(position, false);
+    }
+
+    /**
+     * Limits the memory each search may use from now on.
+     *
+     * @param bytes the most bytes a search may hold at once.
+     */
+    public void setMemoryBudget(long bytes) {
+        memoryBudget = bytes;
+    }
+
+    /**
+     * @return true if the last search gave up because it would have needed more memory
+     *         than its budget allowed. Its path is empty in that case.
+     */
+    public boolean ranOutOfMemory() {
+        return outOfMemory;
+    }
+
+    /**
+     * @return the most positions the last search held in memory at once.
+     */
+    public long peakPositions() {
+        return peakPositions;
+    }
+
+    /**
+     * @return roughly the most bytes the last search held in memory at once.
+     */
+    public long peakBytes() {
+        return peakBytes;
+    }
+
+    private int[] search(long root, boolean bidirectional) {
+        forwardSeen = new TranspositionTable();
+        backwardSeen = new TranspositionTable();
+        forwardFrontier = new long[64];
+        backwardFrontier = new long[64];
+        forwardSize = 0;
+        backwardSize = 0;
+        peakPositions = 0;
+        peakBytes = 0;
+        outOfMemory = false;
+        forwardSeen.setMaxBytes(memoryBudget / 3);
+        backwardSeen.setMaxBytes(memoryBudget / 3);
+        if (root == goal || deadlocks.isDead(root)) {
+            return new int[0];
+        }
+
+        forwardSeen.put(root, ROOT_CELL);
+        forwardFrontier[forwardSize++] = root;
+        if (bidirectional) {
+            backwardSeen.put(goal, ROOT_CELL);
+            backwardFrontier[backwardSize++] = goal;
+        }
+
+        // Expand a whole layer at a time. The first layer in which the two sides meet
+        // holds the best meeting position, since any shorter path would have met sooner.
+        long meeting = PackedPosition.NONE;
+        while (meeting == PackedPosition.NONE && forwardSize > 0 &&
+                (!bidirectional || backwardSize > 0)) {
+            if (!bidirectional || forwardSize <= backwardSize) {
+                meeting = expandForward(root, bidirectional);
+            } else {
+                meeting = expandBackward(root);
+            }
+            recordPeak();
+            if (outOfMemory || peakBytes > memoryBudget) {
+                outOfMemory = true;
+                return new int[0];
+            }
+        }
+        return (meeting == PackedPosition.NONE) ? new int[0] : rebuildPath(root, meeting);
+    }
+
+    /**
+     * Expands every position of the forward frontier by one move.
+     *
+     * @return the best position where the two sides met, or PackedPosition.NONE.
+     */
+    private long expandForward(long root, boolean bidirectional) {
+        long[] next = new long[Math.max(64, forwardSize)];
+        int nextSize = 0;
+        int[] moves = new int[PackedPosition.MAX_MOVES];
+        long meeting = PackedPosition.NONE;
+        int best = Integer.MAX_VALUE;
+
+        for (int i = 0; i < forwardSize; i++) {
+            long position = forwardFrontier[i];
+            int depth = (forwardSeen.get(position) >>> DEPTH_SHIFT) + 1;
+            int count = PackedPosition.legalMoves(position, rows, columns, moves);
+            for (int j = 0; j < count; j++) {
+                if (deadlocks.moveCausesDeadlock(position, moves[j])) {
+                    continue;
+                }
+                long successor = PackedPosition.move(position, moves[j]);
+                if (forwardSeen.get(successor) != TranspositionTable.MISSING) {
+                    continue;
+                } else if (forwardSeen.isFull()) {
+                    outOfMemory = true;
+                    return PackedPosition.NONE;
+                }
+
+                // Remember the cell the piece moved into, which is where it has to move
+                // back from.
+                forwardSeen.put(successor, (depth << DEPTH_SHIFT) |
+                        PackedPosition.emptyCell(position));
+                if (nextSize == next.length) {
+                    next = Arrays.copyOf(next, next.length * 2);
+                }
+                next[nextSize++] = successor;
+
+                int other = bidirectional ? backwardSeen.get(successor) :
+                        (successor == goal ? 0 : TranspositionTable.MISSING);
+                if (other != TranspositionTable.MISSING &&
+                        depth + (other >>> DEPTH_SHIFT) < best) {
+                    best = depth + (other >>> DEPTH_SHIFT);
+                    meeting = successor;
+                }
+            }
+        }
+        forwardFrontier = next;
+        forwardSize = nextSize;
+        return meeting;
+    }
+
+    /**
+     * Expands every position of the backward frontier by one unmove.
+     *
+     * @return the best position where the two sides met, or PackedPosition.NONE.
+     */
+    private long expandBackward(long root) {
+        long[] next = new long[Math.max(64, backwardSize)];
+        int nextSize = 0;
+        int[] unmoves = new int[PackedPosition.MAX_MOVES];
+        long meeting = PackedPosition.NONE;
+        int best = Integer.MAX_VALUE;
+
+        for (int i = 0; i < backwardSize; i++) {
+            long position = backwardFrontier[i];
+            int depth = (backwardSeen.get(position) >>> DEPTH_SHIFT) + 1;
+            int count = PackedPosition.legalUnmoves(position, rows, columns, unmoves);
+            for (int j = 0; j < count; j++) {
+                long predecessor = PackedPosition.unmove(position, unmoves[j]);
+                if (backwardSeen.get(predecessor) != TranspositionTable.MISSING ||
+                        deadlocks.cannotReach(root, predecessor)) {
+                    continue;
+                } else if (backwardSeen.isFull()) {
+                    outOfMemory = true;
+                    return PackedPosition.NONE;
+                }
+
+                // Remember the move which leads forward to the position it came from:
+                // moving the piece back into the cell it left.
+                backwardSeen.put(predecessor, (depth << DEPTH_SHIFT) |
+                        PackedPosition.emptyCell(position));
+                if (nextSize == next.length) {
+                    next = Arrays.copyOf(next, next.length * 2);
+                }
+                next[nextSize++] = predecessor;
+
+                int other = forwardSeen.get(predecessor);
+                if (other != TranspositionTable.MISSING &&
+                        depth + (other >>> DEPTH_SHIFT) < best) {
+                    best = depth + (other >>> DEPTH_SHIFT);
+                    meeting = predecessor;
+                }
+            }
+        }
+        backwardFrontier = next;
+        backwardSize = nextSize;
+        return meeting;
+    }
+
+    /**
+     * Rebuilds the path through the position where the two sides met, following the
+     * forward side back to the root and the backward side on to the goal.
+     */
+    private int[] rebuildPath(long root, long meeting) {
+        int forwardDepth = forwardSeen.get(meeting) >>> DEPTH_SHIFT;
+        int backwardValue = backwardSeen.get(meeting);
+        int backwardDepth = (backwardValue == TranspositionTable.MISSING) ?
+                0 : backwardValue >>> DEPTH_SHIFT;
+        int[] path = new int[forwardDepth + backwardDepth];
+
+        long position = meeting;
+        for (int i = forwardDepth - 1; i >= 0; i--) {
+            path[i] = PackedPosition.emptyCell(position);
+            position = PackedPosition.unmove(position,
+                    forwardSeen.get(position) & CELL_MASK);
+        }
+        position = meeting;
+        for (int i = forwardDepth; i < path.length; i++) {
+            path[i] = backwardSeen.get(position) & CELL_MASK;
+            position = PackedPosition.move(position, path[i]);
+        }
+        return path;
+    }
+
+    private void recordPeak() {
+        long positions = forwardSeen.size() + backwardSeen.size();
+        long bytes = forwardSeen.sizeInBytes() + backwardSeen.sizeInBytes() +
+                (long) Long.BYTES * (forwardFrontier.length + backwardFrontier.length);
+        peakPositions = Math.max(peakPositions, positions);
+        peakBytes = Math.max(peakBytes, bytes);
+    }
+}
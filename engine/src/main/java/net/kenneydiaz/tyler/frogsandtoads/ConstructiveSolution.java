@@ -0,0 +1,177 @@
+package net.kenneydiaz.tyler.frogsandtoads;
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Generates a winning sequence of moves for a board of any odd size, straight from the
+ * starting position, without searching. The moves are streamed one at a time as packed
+ * moves (see PackedPosition), so even a solution for an enormous board starts flowing
+ * immediately, takes constant time per move, and never holds more than a few integers
+ * per column in memory.
+ *
+ * The solution is built out of the solution to the one dimensional version of the
+ * puzzle, where n frogs and n toads sit on either side of a single empty cell in a line.
+ * That puzzle is always solved in n(n + 2) moves by 2n + 1 phases, which alternate
+ * between moving frogs and moving toads. The phases move 1, 2, ..., n, n, n, ..., 2, 1
+ * pieces. The phases which grow are a series of jumps followed by a single slide, the
+ * phases which shrink are a single slide followed by a series of jumps, and the middle
+ * phase is nothing but jumps.
+ *
+ * On the full board, the middle row is solved as a one dimensional puzzle. Whenever the
+ * empty cell arrives in a column for the first time, that column is exactly a one
+ * dimensional puzzle too (frogs above, toads below), so it is solved completely, which
+ * leaves the empty cell right back where it was, before the middle row carries on. Every
+ * column is visited by the time the middle row is solved, so this wins the game in
+ * m(m + 2) + columns * k(k + 2) moves, where m is half the number of columns and k half
+ * the number of rows.
+ *
+ * The solution is always valid, but it is not optimal: on a 5x5 board it takes 48
+ * moves, where the optimum found by FrogsAndToadsSolver is 47, and how far it is from
+ * the optimum on boards too large to search is not known. It is, however, the only
+ * practical solution for those boards.
+ *
+ * @author Tyler Kenney
+ */
+public class ConstructiveSolution implements PrimitiveIterator.OfInt {
+
+    /**
+     * The solution to a one dimensional puzzle, generated one move at a time. Cells of
+     * the line are numbered from the frogs' end, so the empty cell starts at cell n.
+     */
+    private static final class LineSolution {
+
+        private final int pieces;
+        private int remaining;
+        private int phase;
+        private int step;
+        private int emptyCell;
+
+        LineSolution(int pieces) {
+            this.pieces = pieces;
+            reset();
+        }
+
+        void reset() {
+            remaining = pieces * (pieces + 2);
+            phase = 0;
+            step = 0;
+            emptyCell = pieces;
+        }
+
+        boolean hasNext() {
+            return remaining > 0;
+        }
+
+        /**
+         * @return the cell of the line whose piece moves next. That cell becomes the
+         *         new empty cell.
+         */
+        int next() {
+            int phaseLength;
+            boolean jump;
+            if (phase < pieces) {
+                phaseLength = phase + 1;
+                jump = step < phase;
+            } else if (phase == pieces) {
+                phaseLength = pieces;
+                jump = true;
+            } else {
+                phaseLength = 2 * pieces - phase + 1;
+                jump = step > 0;
+            }
+
+            // Frogs move in the even phases and come from the start of the line. Toads
+            // move in the odd phases and come from its end.
+            int distance = jump ? 2 : 1;
+            int from = (phase % 2 == 0) ? emptyCell - distance : emptyCell + distance;
+            emptyCell = from;
+            remaining--;
+            if (++step == phaseLength) {
+                step = 0;
+                phase++;
+            }
+            return from;
+        }
+    }
+
+    // The dimensions of the board.
+    private final int rows;
+    private final int columns;
+
+    // The solution of the middle row, and the solution of the column currently being
+    // solved (reused for each column).
+    private final LineSolution rowSolution;
+    private final LineSolution columnSolution;
+    private int activeColumn;
+
+    // Which columns the empty cell has already visited, and so have been solved.
+    private final boolean[] visitedColumns;
+
+    // The number of moves which have not been generated yet.
+    private long remaining;
+
+    /**
+     * Creates a generator of a winning sequence of moves from the starting position of
+     * a board of the given size.
+     *
+     * @param rows the (odd) number of rows of the board.
+     * @param columns the (odd) number of columns of the board.
+     */
+    public ConstructiveSolution(int rows, int columns) {
+        this.rows = rows;
+        this.columns = columns;
+        this.rowSolution = new LineSolution(columns / 2);
+        this.columnSolution = new LineSolution(rows / 2);
+        this.visitedColumns = new boolean[columns];
+        this.remaining = length(rows, columns);
+        this.activeColumn = -1;
+    }
+
+    /**
+     * Calculates how many moves the constructive solution of a board takes.
+     *
+     * @param rows the (odd) number of rows of the board.
+     * @param columns the (odd) number of columns of the board.
+     * @return the number of moves in the solution.
+     */
+    public static long length(int rows, int columns) {
+        long halfColumns = columns / 2;
+        long halfRows = rows / 2;
+        return halfColumns * (halfColumns + 2) + columns * halfRows * (halfRows + 2);
+    }
+
+    @Override
+    public boolean hasNext() {
+        return remaining > 0;
+    }
+
+    /**
+     * @return the next packed move of the solution.
+     */
+    @Override
+    public int nextInt() {
+        if (remaining <= 0) {
+            throw new NoSuchElementException();
+        }
+        remaining--;
+
+        // Finish the column being solved before moving along the middle row.
+        if (activeColumn >= 0 && columnSolution.hasNext()) {
+            return columnSolution.next() * columns + activeColumn;
+        }
+
+        // If the empty cell has just arrived in a new column, start solving it.
+        int emptyColumn = rowSolution.emptyCell;
+        if (!visitedColumns[emptyColumn]) {
+            visitedColumns[emptyColumn] = true;
+            activeColumn = emptyColumn;
+            columnSolution.reset();
+            if (columnSolution.hasNext()) {
+                return columnSolution.next() * columns + activeColumn;
+            }
+        }
+
+        return (rows / 2) * columns + rowSolution.next();
+    }
+}
@@ -0,0 +1,445 @@
+package net.kenneydiaz.tyler.frogsandtoads;
+
+import java.util.Arrays;
+
+/**
+ * Detects positions of the game of Frogs and Toads which can no longer be won, usually
+ * long before the game actually runs out of legal moves.
+ *
+ * Frogs only ever move down or right, so a frog which is inside a region reaching down
+ * to the bottom edge and right to the right edge (a "down-right region") can never leave
+ * it again. If a down-right region ever holds more frogs than it holds in the winning
+ * position, the game is lost. Likewise, toads can never leave an up-left region, so an
+ * up-left region holding more toads than it does in the winning position means the game
+ * is lost. Every way of jamming pieces against the edges of the board (for example, too
+ * many frogs piled into the bottom rows for the toads there to ever get past) shows up
+ * as one of these regions being overfull.
+ *
+ * For boards small enough to be packed (see PackedPosition) the detector precomputes a
+ * catalog of every rectangular region which could ever be overfull, as a bitmask of its
+ * cells and the most pieces it may hold. Since the only piece a move changes is the one
+ * which moves, and it can only newly enter regions containing its destination but not
+ * its source, the catalog is also indexed by destination cell and kind of move. Checking
+ * a move then only has to count the pieces in the handful of regions it could have
+ * overfilled.
+ *
+ * Boards too large to be packed can be checked from scratch with isDead(FrogsAndToads),
+ * or kept track of move by move with RegionCounts, which holds the count of every
+ * region and only updates the regions each move changes.
+ *
+ * @author Tyler Kenney
+ */
+public class DeadlockDetector {
+
+    // The kinds of move, used to index the catalog: a slide or a jump, vertically or
+    // horizontally.
+    private static final int VERTICAL_SLIDE = 0;
+    private static final int VERTICAL_JUMP = 1;
+    private static final int HORIZONTAL_SLIDE = 2;
+    private static final int HORIZONTAL_JUMP = 3;
+    private static final int MOVE_KINDS = 4;
+
+    // The dimensions of the board.
+    private final int rows;
+    private final int columns;
+
+    // Every down-right region which could hold too many frogs, and every up-left region
+    // which could hold too many toads, with the most pieces each may hold.
+    private final long[] frogRegions;
+    private final int[] frogLimits;
+    private final long[] toadRegions;
+    private final int[] toadLimits;
+
+    // The regions a frog or toad could overfill by moving to a given cell with a given
+    // kind of move, indexed by destination * MOVE_KINDS + kind.
+    private final int[][] frogChecks;
+    private final int[][] toadChecks;
+
+    // A mask of every cell of the board.
+    private final long allCells;
+
+    /**
+     * Builds the catalog of regions for boards of the given size. If the board is too
+     * large to be packed, only isDead(FrogsAndToads) may be used.
+     *
+     * @param rows the number of rows of the board.
+     * @param columns the number of columns of the board.
+     */
+    public DeadlockDetector(int rows, int columns) {
+        this.rows = rows;
+        this.columns = columns;
+
+        if (!PackedPosition.fits(rows, columns)) {
+            frogRegions = toadRegions = new long[0];
+            frogLimits = toadLimits = new int[0];
+            frogChecks = toadChecks = new int[0][];
+            allCells = 0;
+            return;
+        }
+
+        int cells = rows * columns;
+        allCells = (cells == Long.SIZE) ? -1 : (1L << cells) - 1;
+
+        // Region (a, b) is every cell at or below row a and at or right of column b for
+        // frogs, and every cell at or above row a and at or left of column b for toads.
+        frogRegions = new long[cells];
+        frogLimits = new int[cells];
+        toadRegions = new long[cells];
+        toadLimits = new int[cells];
+        for (int a = 0; a < rows; a++) {
+            for (int b = 0; b < columns; b++) {
+                long frogRegion = 0;
+                long toadRegion = 0;
+                for (int i = 0; i < rows; i++) {
+                    for (int j = 0; j < columns; j++) {
+                        if (i >= a && j >= b) frogRegion |= 1L << (i * columns + j);
+                        if (i <= a && j <= b) toadRegion |= 1L << (i * columns + j);
+                    }
+                }
+                frogRegions[a * columns + b] = frogRegion;
+                frogLimits[a * columns + b] = goalFrogs(rows, columns, a, b);
+                toadRegions[a * columns + b] = toadRegion;
+                toadLimits[a * columns + b] = goalToads(rows, columns, a, b);
+            }
+        }
+
+        // Index the regions each move could overfill.
+        frogChecks = new int[cells * MOVE_KINDS][];
+        toadChecks = new int[cells * MOVE_KINDS][];
+        for (int destination = 0; destination < cells; destination++) {
+            int row = destination / columns;
+            int column = destination % columns;
+            for (int kind = 0; kind < MOVE_KINDS; kind++) {
+                int distance = (kind == VERTICAL_JUMP || kind == HORIZONTAL_JUMP) ? 2 : 1;
+                boolean vertical = kind == VERTICAL_SLIDE || kind == VERTICAL_JUMP;
+
+                // Frogs arrive from above or from the left, toads from below or from the
+                // right.
+                frogChecks[destination * MOVE_KINDS + kind] = vertical ?
+                        frogRegionsEntered(row - distance, column, row, column) :
+                        frogRegionsEntered(row, column - distance, row, column);
+                toadChecks[destination * MOVE_KINDS + kind] = vertical ?
+                        toadRegionsEntered(row + distance, column, row, column) :
+                        toadRegionsEntered(row, column + distance, row, column);
+            }
+        }
+    }
+
+    /**
+     * Checks every region of a packed position for too many frogs or toads.
+     *
+     * @param position the packed position to check.
+     * @return true if the game can no longer be won from the position. False if it may
+     *         still be winnable.
+     */
+    public boolean isDead(long position) {
+        long toads = PackedPosition.toads(position);
+        long frogs = allCells & ~toads & ~(1L << PackedPosition.emptyCell(position));
+        for (int i = 0; i < frogRegions.length; i++) {
+            if (Long.bitCount(frogs & frogRegions[i]) > frogLimits[i] ||
+                    Long.bitCount(toads & toadRegions[i]) > toadLimits[i]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if one packed position can certainly not be reached from another, because
+     * some down-right region holds fewer frogs, or some up-left region fewer toads, in
+     * the second position than in the first. Backward searches use this to skip
+     * positions the game they are solving could never have passed through.
+     *
+     * @param from the packed position the game would be played from.
+     * @param to the packed position the game would have to reach.
+     * @return true if to can not be reached from from. False if it may be reachable.
+     */
+    public boolean cannotReach(long from, long to) {
+        long fromToads = PackedPosition.toads(from);
+        long fromFrogs = allCells & ~fromToads & ~(1L << PackedPosition.emptyCell(from));
+        long toToads = PackedPosition.toads(to);
+        long toFrogs = allCells & ~toToads & ~(1L << PackedPosition.emptyCell(to));
+        for (int i = 0; i < frogRegions.length; i++) {
+            if (Long.bitCount(toFrogs & frogRegions[i]) <
+                    Long.bitCount(fromFrogs & frogRegions[i]) ||
+                    Long.bitCount(toToads & toadRegions[i]) <
+                            Long.bitCount(fromToads & toadRegions[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if making the given legal move loses a game which could still be won. Only
+     * the regions the moving piece enters are checked, so the position before the move
+     * is assumed not to be dead already.
+     *
+     * @param position the packed position before the move.
+     * @param move the packed legal move to check.
+     * @return true if the game can no longer be won after the move. False if it may
+     *         still be winnable.
+     */
+    public boolean moveCausesDeadlock(long position, int move) {
+        int destination = PackedPosition.emptyCell(position);
+        boolean vertical = (move % columns) == (destination % columns);
+        int distance = Math.abs(vertical ?
+                (destination - move) / columns : destination - move);
+        int kind = vertical ?
+                ((distance == 2) ? VERTICAL_JUMP : VERTICAL_SLIDE) :
+                ((distance == 2) ? HORIZONTAL_JUMP : HORIZONTAL_SLIDE);
+        int index = destination * MOVE_KINDS + kind;
+
+        long after = PackedPosition.move(position, move);
+        if (PackedPosition.toadAt(after, destination)) {
+            long toads = PackedPosition.toads(after);
+            for (int region : toadChecks[index]) {
+                if (Long.bitCount(toads & toadRegions[region]) > toadLimits[region]) {
+                    return true;
+                }
+            }
+        } else {
+            long frogs = allCells & ~PackedPosition.toads(after) & ~(1L << move);
+            for (int region : frogChecks[index]) {
+                if (Long.bitCount(frogs & frogRegions[region]) > frogLimits[region]) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks every region of a game's board for too many frogs or toads. This works on
+     * boards of any size, in time proportional to the number of cells.
+     *
+     * @param game the game to check.
+     * @return true if the game can no longer be won. False if it may still be winnable.
+     */
+    public static boolean isDead(FrogsAndToads game) {
+        int rows = game.countRows();
+        int columns = game.countColumns();
+
+        // Count the frogs in every down-right region, from the bottom right corner up.
+        int[] frogsBelow = new int[columns];
+        for (int a = rows - 1; a >= 0; a--) {
+            int frogsInRow = 0;
+            for (int b = columns - 1; b >= 0; b--) {
+                if (game.frogAt(a, b)) frogsInRow++;
+                frogsBelow[b] += frogsInRow;
+                if (frogsBelow[b] > goalFrogs(rows, columns, a, b)) {
+                    return true;
+                }
+            }
+        }
+
+        // Count the toads in every up-left region, from the top left corner down.
+        int[] toadsAbove = new int[columns];
+        for (int a = 0; a < rows; a++) {
+            int toadsInRow = 0;
+            for (int b = 0; b < columns; b++) {
+                if (game.toadAt(a, b)) toadsInRow++;
+                toadsAbove[b] += toadsInRow;
+                if (toadsAbove[b] > goalToads(rows, columns, a, b)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The number of frogs in every down-right region and toads in every up-left region
+     * of a board of any size, along with how many regions are overfull. Counting them
+     * takes time proportional to the number of cells, but after that a piece moving
+     * from one cell to another only changes the regions holding one of the two cells
+     * but not the other, of which there are no more than two rows' or columns' worth, so
+     * each move takes time proportional to the width or height of the board, and
+     * whether the game has been lost is known at any time.
+     */
+    static final class RegionCounts {
+
+        private final int rows;
+        private final int columns;
+
+        // The pieces in the region at (a, b), indexed by a * columns + b, and the
+        // number of regions holding more than they do in the winning position.
+        private final int[] frogs;
+        private final int[] toads;
+        private int overfull;
+
+        /**
+         * Counts every region of a game's board.
+         *
+         * @param game the game whose board should be counted.
+         */
+        RegionCounts(FrogsAndToads game) {
+            rows = game.countRows();
+            columns = game.countColumns();
+            frogs = new int[rows * columns];
+            toads = new int[rows * columns];
+
+            // The same sums as isDead(FrogsAndToads), kept for every region.
+            for (int a = rows - 1; a >= 0; a--) {
+                int frogsInRow = 0;
+                for (int b = columns - 1; b >= 0; b--) {
+                    if (game.frogAt(a, b)) frogsInRow++;
+                    frogs[a * columns + b] = frogsInRow +
+                            ((a + 1 < rows) ? frogs[(a + 1) * columns + b] : 0);
+                    if (frogs[a * columns + b] > goalFrogs(rows, columns, a, b)) {
+                        overfull++;
+                    }
+                }
+            }
+            for (int a = 0; a < rows; a++) {
+                int toadsInRow = 0;
+                for (int b = 0; b < columns; b++) {
+                    if (game.toadAt(a, b)) toadsInRow++;
+                    toads[a * columns + b] = toadsInRow +
+                            ((a > 0) ? toads[(a - 1) * columns + b] : 0);
+                    if (toads[a * columns + b] > goalToads(rows, columns, a, b)) {
+                        overfull++;
+                    }
+                }
+            }
+        }
+
+        /**
+         * @return true if the game can no longer be won. False if it may still be
+         *         winnable.
+         */
+        boolean isDead() {
+            return overfull > 0;
+        }
+
+        /**
+         * Updates the counts for a piece which has moved, or been moved back, along a
+         * row or a column.
+         *
+         * @param frog true if the piece is a frog, false if it is a toad.
+         */
+        void move(boolean frog, int fromRow, int fromColumn, int toRow, int toColumn) {
+            if (frog) {
+
+                // A down-right region (a, b) holds cell (i, j) if a <= i and b <= j.
+                if (fromColumn == toColumn) {
+                    int sign = (toRow > fromRow) ? 1 : -1;
+                    for (int a = Math.min(fromRow, toRow) + 1;
+                         a <= Math.max(fromRow, toRow); a++) {
+                        for (int b = 0; b <= toColumn; b++) {
+                            addFrogs(a, b, sign);
+                        }
+                    }
+                } else {
+                    int sign = (toColumn > fromColumn) ? 1 : -1;
+                    for (int a = 0; a <= toRow; a++) {
+                        for (int b = Math.min(fromColumn, toColumn) + 1;
+                             b <= Math.max(fromColumn, toColumn); b++) {
+                            addFrogs(a, b, sign);
+                        }
+                    }
+                }
+            } else {
+
+                // An up-left region (a, b) holds cell (i, j) if a >= i and b >= j.
+                if (fromColumn == toColumn) {
+                    int sign = (toRow < fromRow) ? 1 : -1;
+                    for (int a = Math.min(fromRow, toRow);
+                         a < Math.max(fromRow, toRow); a++) {
+                        for (int b = toColumn; b < columns; b++) {
+                            addToads(a, b, sign);
+                        }
+                    }
+                } else {
+                    int sign = (toColumn < fromColumn) ? 1 : -1;
+                    for (int a = toRow; a < rows; a++) {
+                        for (int b = Math.min(fromColumn, toColumn);
+                             b < Math.max(fromColumn, toColumn); b++) {
+                            addToads(a, b, sign);
+                        }
+                    }
+                }
+            }
+        }
+
+        private void addFrogs(int a, int b, int delta) {
+            int limit = goalFrogs(rows, columns, a, b);
+            int region = a * columns + b;
+            boolean wasOverfull = frogs[region] > limit;
+            frogs[region] += delta;
+            overfull += ((frogs[region] > limit) ? 1 : 0) - (wasOverfull ? 1 : 0);
+        }
+
+        private void addToads(int a, int b, int delta) {
+            int limit = goalToads(rows, columns, a, b);
+            int region = a * columns + b;
+            boolean wasOverfull = toads[region] > limit;
+            toads[region] += delta;
+            overfull += ((toads[region] > limit) ? 1 : 0) - (wasOverfull ? 1 : 0);
+        }
+    }
+
+    /**
+     * Counts the frogs of the winning position in the down-right region at (a, b): the
+     * rows below the middle row, plus the cells of the middle row right of the middle.
+     */
+    private static int goalFrogs(int rows, int columns, int a, int b) {
+        int middleRow = rows / 2;
+        int middleColumn = columns / 2;
+        int fullRows = rows - Math.max(a, middleRow + 1);
+        int middleCells = (a <= middleRow) ? columns - Math.max(b, middleColumn + 1) : 0;
+        return Math.max(0, fullRows) * (columns - b) + Math.max(0, middleCells);
+    }
+
+    /**
+     * Counts the toads of the winning position in the up-left region at (a, b): the rows
+     * above the middle row, plus the cells of the middle row left of the middle.
+     */
+    private static int goalToads(int rows, int columns, int a, int b) {
+        int middleRow = rows / 2;
+        int middleColumn = columns / 2;
+        int fullRows = Math.min(a, middleRow - 1) + 1;
+        int middleCells = (a >= middleRow) ? Math.min(b, middleColumn - 1) + 1 : 0;
+        return Math.max(0, fullRows) * (b + 1) + Math.max(0, middleCells);
+    }
+
+    /**
+     * Lists the down-right regions which contain the destination cell of a frog's move
+     * but not its source cell, and which could hold too many frogs at all.
+     */
+    private int[] frogRegionsEntered(int fromRow, int fromColumn, int toRow, int toColumn) {
+        int[] entered = new int[rows * columns];
+        int count = 0;
+        for (int a = 0; a <= toRow; a++) {
+            for (int b = 0; b <= toColumn; b++) {
+                int region = a * columns + b;
+                boolean containedSource = a <= fromRow && b <= fromColumn;
+                if (!containedSource &&
+                        frogLimits[region] < Long.bitCount(frogRegions[region])) {
+                    entered[count++] = region;
+                }
+            }
+        }
+        return Arrays.copyOf(entered, count);
+    }
+
+    /**
+     * Lists the up-left regions which contain the destination cell of a toad's move but
+     * not its source cell, and which could hold too many toads at all.
+     */
+    private int[] toadRegionsEntered(int fromRow, int fromColumn, int toRow, int toColumn) {
+        int[] entered = new int[rows * columns];
+        int count = 0;
+        for (int a = toRow; a < rows; a++) {
+            for (int b = toColumn; b < columns; b++) {
+                int region = a * columns + b;
+                boolean containedSource = a >= fromRow && b >= fromColumn;
+                if (!containedSource &&
+                        toadLimits[region] < Long.bitCount(toadRegions[region])) {
+                    entered[count++] = region;
+                }
+            }
+        }
+        return Arrays.copyOf(entered, count);
+    }
+}
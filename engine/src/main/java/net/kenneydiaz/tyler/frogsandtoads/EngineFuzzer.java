@@ -0,0 +1,433 @@
+package net.kenneydiaz.tyler.frogsandtoads;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Pins a faster engine to the reference one. The fuzzer plays the same random sequences
+ * of moves and undos on a FrogsAndToads game and on a game of the candidate engine, in
+ * lockstep, and after every step compares everything a player could ask either of
+ * them: the legal moves, over(), canMove(), hasPreviousMove(), and what sits in every
+ * cell. Any difference, or an exception thrown by either engine, is a failure.
+ *
+ * A failing sequence is shrunk before it is reported, by repeatedly throwing away
+ * steps and simplifying the rest for as long as it still fails, and by trying it on
+ * smaller boards. What is left is usually only a handful of steps long.
+ *
+ * Each sequence is also played on each engine on its own, with the same calls but
+ * nothing compared, and timed, so every run reports how much faster the candidate is.
+ *
+ * Steps are ints, so that shrinking can never make a sequence invalid: UNDO undoes,
+ * an even step 2k makes the kth legal move (modulo the number of legal moves), and an
+ * odd step 2k + 1 tries to move the piece in the kth cell (modulo the number of cells),
+ * which is usually not a legal move, and must then be ignored by both engines.
+ *
+ * @author Tyler Kenney
+ */
+public class EngineFuzzer {
+
+    /**
+     * Creates games of the engine under test.
+     */
+    public interface Factory {
+        GameEngine create(int rows, int columns);
+    }
+
+    // The step which undoes the last move.
+    public static final int UNDO = -1;
+
+    // The board shapes fuzzed by default, smallest first so that a failure is shrunk
+    // onto the smallest board it happens on. Every one of them can be packed.
+    public static final int[][] SHAPES = {
+            {1, 1}, {1, 3}, {3, 1}, {1, 5}, {5, 1}, {3, 3}, {1, 7}, {7, 1}, {3, 5},
+            {5, 3}, {3, 7}, {7, 3}, {5, 5}, {5, 7}, {7, 5}, {3, 9}, {9, 3}, {7, 7},
+    };
+
+    // The chance, out of 16, that a random step is an undo, and that it is an attempt
+    // at a move which is probably illegal.
+    private static final int UNDO_CHANCE = 3;
+    private static final int CELL_CHANCE = 2;
+
+    // The most sequences tried while shrinking a failure, in case it never settles.
+    private static final int MAX_SHRINK_ATTEMPTS = 100_000;
+
+    /**
+     * The outcome of a fuzzing run.
+     */
+    public static class Report {
+
+        long sequences;
+        long steps;
+        long referenceNanos;
+        long candidateNanos;
+
+        // The shrunk failure, if there was one.
+        int failureRows;
+        int failureColumns;
+        int[] failureSteps;
+        String failure;
+
+        public long getSequences() {
+            return sequences;
+        }
+
+        public long getSteps() {
+            return steps;
+        }
+
+        /**
+         * @return how many times faster the candidate played the same steps than the
+         *         reference, when each played them on its own.
+         */
+        public double getSpeedup() {
+            return (candidateNanos > 0) ? (double) referenceNanos / candidateNanos : 0;
+        }
+
+        /**
+         * @return true if the engines never disagreed.
+         */
+        public boolean passed() {
+            return failure == null;
+        }
+
+        /**
+         * @return what differed at the last step of the shrunk failure, or null if the
+         *         engines never disagreed.
+         */
+        public String getFailure() {
+            return failure;
+        }
+
+        /**
+         * @return the steps of the shrunk failure, or null if there was none.
+         */
+        public int[] getFailureSteps() {
+            return (failureSteps == null) ? null : failureSteps.clone();
+        }
+
+        public int getFailureRows() {
+            return failureRows;
+        }
+
+        public int getFailureColumns() {
+            return failureColumns;
+        }
+
+        @Override
+        public String toString() {
+            String summary = sequences + " sequences, " + steps + " steps, candidate " +
+                    String.format("%.1f", getSpeedup()) + "x faster";
+            if (failure == null) {
+                return summary;
+            }
+            return summary + "\nFAILED on " + failureRows + "x" + failureColumns +
+                    " after steps " + Arrays.toString(failureSteps) + ": " + failure;
+        }
+    }
+
+    private final Factory candidate;
+    private int[][] shapes = SHAPES;
+
+    /**
+     * @param candidate creates games of the engine to check against FrogsAndToads.
+     */
+    public EngineFuzzer(Factory candidate) {
+        this.candidate = candidate;
+    }
+
+    /**
+     * Sets the board shapes to fuzz on, each given as {rows, columns}, smallest first.
+     */
+    public void setShapes(int[][] shapes) {
+        this.shapes = shapes.clone();
+    }
+
+    /**
+     * Plays random sequences on random board shapes until one fails or all of them have
+     * been played.
+     *
+     * @param sequences the number of sequences to play.
+     * @param length the number of steps in each sequence.
+     * @param seed the seed of the random sequences, so that any run can be repeated.
+     * @return the report, with the shrunk failure if there was one.
+     */
+    public Report fuzz(int sequences, int length, long seed) {
+        Random random = new Random(seed);
+        Report report = new Report();
+        int[] steps = new int[length];
+        for (int n = 0; n < sequences; n++) {
+            int[] shape = shapes[random.nextInt(shapes.length)];
+            for (int i = 0; i < length; i++) {
+                int roll = random.nextInt(16);
+                int k = random.nextInt(1 << 10);
+                steps[i] = (roll < UNDO_CHANCE) ? UNDO :
+                        (roll < UNDO_CHANCE + CELL_CHANCE) ? 2 * k + 1 : 2 * k;
+            }
+
+            report.referenceNanos += time(new FrogsAndToads(shape[0], shape[1]), steps);
+            report.candidateNanos += time(candidate.create(shape[0], shape[1]), steps);
+            report.sequences++;
+            report.steps += length;
+
+            String failure = compare(shape[0], shape[1], steps);
+            if (failure != null) {
+                shrink(shape[0], shape[1], steps.clone(), report);
+                break;
+            }
+        }
+        return report;
+    }
+
+    /**
+     * Plays a sequence on both engines in lockstep.
+     *
+     * @param rows the number of rows of the board.
+     * @param columns the number of columns of the board.
+     * @param steps the steps to play.
+     * @return what differed at the first step the engines disagreed after, or null if
+     *         they never did.
+     */
+    public String compare(int rows, int columns, int[] steps) {
+        GameEngine reference;
+        GameEngine other;
+        try {
+            reference = new FrogsAndToads(rows, columns);
+        } catch (RuntimeException e) {
+            return "reference could not be created: " + e;
+        }
+        try {
+            other = candidate.create(rows, columns);
+        } catch (RuntimeException e) {
+            return "candidate could not be created: " + e;
+        }
+
+        String difference = difference(reference, other);
+        for (int i = 0; i < steps.length && difference == null; i++) {
+            int[] move;
+            try {
+                move = resolve(reference, steps[i]);
+                apply(reference, move);
+            } catch (RuntimeException e) {
+                return "reference threw " + e + " at step " + i;
+            }
+            try {
+                apply(other, move);
+            } catch (RuntimeException e) {
+                return "candidate threw " + e + " at step " + i;
+            }
+            difference = difference(reference, other);
+            if (difference != null) {
+                difference += " at step " + i;
+            }
+        }
+        return difference;
+    }
+
+    /**
+     * Finds the first thing a player could tell apart between the two games.
+     *
+     * @return what differs, or null if nothing does.
+     */
+    private static String difference(GameEngine reference, GameEngine other) {
+        try {
+            int rows = reference.countRows();
+            int columns = reference.countColumns();
+            if (other.countRows() != rows || other.countColumns() != columns) {
+                return "board is " + other.countRows() + "x" + other.countColumns() +
+                        ", expected " + rows + "x" + columns;
+            }
+
+            String expectedMoves = toString(reference.getLegalMoves());
+            String actualMoves = toString(other.getLegalMoves());
+            if (!expectedMoves.equals(actualMoves)) {
+                return "legal moves are " + actualMoves + ", expected " + expectedMoves;
+            }
+            if (reference.over() != other.over()) {
+                return "over() is " + other.over();
+            }
+            if (reference.canMove() != other.canMove()) {
+                return "canMove() is " + other.canMove();
+            }
+            if (reference.hasPreviousMove() != other.hasPreviousMove()) {
+                return "hasPreviousMove() is " + other.hasPreviousMove();
+            }
+
+            // Look one cell past every edge too, where there must be nothing.
+            for (int i = -1; i <= rows; i++) {
+                for (int j = -1; j <= columns; j++) {
+                    if (reference.emptyAt(i, j) != other.emptyAt(i, j) ||
+                            reference.frogAt(i, j) != other.frogAt(i, j) ||
+                            reference.toadAt(i, j) != other.toadAt(i, j)) {
+                        return "cell (" + i + ", " + j + ") differs";
+                    }
+                }
+            }
+            return null;
+        } catch (RuntimeException e) {
+            return "threw " + e + " while comparing";
+        }
+    }
+
+    /**
+     * Shrinks a failing sequence as far as it will go, and records it in the report.
+     */
+    private void shrink(int rows, int columns, int[] steps, Report report) {
+        int attempts = 0;
+
+        // Try the whole sequence on smaller boards first.
+        for (int[] shape : shapes) {
+            if (shape[0] * shape[1] >= rows * columns) {
+                break;
+            }
+            attempts++;
+            if (compare(shape[0], shape[1], steps) != null) {
+                rows = shape[0];
+                columns = shape[1];
+                break;
+            }
+        }
+
+        // Cut the sequence off just after the step it fails at.
+        for (int length = 0; length <= steps.length; length++) {
+            attempts++;
+            if (compare(rows, columns, Arrays.copyOf(steps, length)) != null) {
+                steps = Arrays.copyOf(steps, length);
+                break;
+            }
+        }
+
+        // Throw away ever smaller chunks of steps, and then make the steps that are left
+        // as simple as they can be, until nothing more changes.
+        boolean shrunk = true;
+        while (shrunk && attempts < MAX_SHRINK_ATTEMPTS) {
+            shrunk = false;
+            for (int chunk = Math.max(1, steps.length / 2); chunk >= 1; chunk /= 2) {
+                for (int start = 0; start + chunk <= steps.length; ) {
+                    int[] shorter = new int[steps.length - chunk];
+                    System.arraycopy(steps, 0, shorter, 0, start);
+                    System.arraycopy(steps, start + chunk, shorter, start,
+                            steps.length - start - chunk);
+                    attempts++;
+                    if (compare(rows, columns, shorter) != null) {
+                        steps = shorter;
+                        shrunk = true;
+                    } else {
+                        start++;
+                    }
+                }
+            }
+            for (int i = 0; i < steps.length; i++) {
+                for (int simpler : simplerSteps(steps[i])) {
+                    int original = steps[i];
+                    steps[i] = simpler;
+                    attempts++;
+                    if (compare(rows, columns, steps) != null) {
+                        shrunk = true;
+                        break;
+                    }
+                    steps[i] = original;
+                }
+            }
+        }
+
+        report.failureRows = rows;
+        report.failureColumns = columns;
+        report.failureSteps = steps;
+        report.failure = compare(rows, columns, steps);
+    }
+
+    /**
+     * @return the steps simpler than the given one, simplest first.
+     */
+    private static int[] simplerSteps(int step) {
+        if (step <= 1) {
+            return new int[0];
+        }
+
+        // Every small step of the same kind, which between them cover every legal move,
+        // and then half of the step.
+        List<Integer> simpler = new ArrayList<>();
+        int parity = step % 2;
+        int k = step / 2;
+        int smallest = Math.min(k, PackedPosition.MAX_MOVES);
+        for (int smaller = 0; smaller < smallest; smaller++) {
+            simpler.add(2 * smaller + parity);
+        }
+        if (k / 2 >= PackedPosition.MAX_MOVES) {
+            simpler.add(2 * (k / 2) + parity);
+        }
+        int[] steps = new int[simpler.size()];
+        for (int i = 0; i < steps.length; i++) {
+            steps[i] = simpler.get(i);
+        }
+        return steps;
+    }
+
+    /**
+     * Plays a sequence on a single engine, making the same calls compare() would, and
+     * times it.
+     *
+     * @return the time taken, in nanoseconds.
+     */
+    private static long time(GameEngine game, int[] steps) {
+        int rows = game.countRows();
+        int columns = game.countColumns();
+        int seen = 0;
+        long start = System.nanoTime();
+        try {
+            for (int step : steps) {
+                apply(game, resolve(game, step));
+                seen += game.getLegalMoves().size();
+                seen += (game.over() ? 1 : 0) + (game.canMove() ? 1 : 0);
+                for (int i = 0; i < rows; i++) {
+                    for (int j = 0; j < columns; j++) {
+                        seen += game.frogAt(i, j) ? 1 : game.toadAt(i, j) ? 2 : 0;
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            // The failure is reported by compare().
+        }
+        long elapsed = System.nanoTime() - start;
+
+        // Use what was seen, so that none of the calls can be optimized away.
+        return (seen == Integer.MIN_VALUE) ? elapsed + 1 : elapsed;
+    }
+
+    /**
+     * Works out what a step means for a game: null to undo, or the cell to move.
+     */
+    private static int[] resolve(GameEngine game, int step) {
+        if (step == UNDO) {
+            return null;
+        }
+        if (step % 2 == 1) {
+            int cell = (step / 2) % (game.countRows() * game.countColumns());
+            return new int[] {cell / game.countColumns(), cell % game.countColumns()};
+        }
+        List<int[]> moves = game.getLegalMoves();
+        if (moves.isEmpty()) {
+            return new int[] {0, 0};
+        }
+        return moves.get((step / 2) % moves.size());
+    }
+
+    private static void apply(GameEngine game, int[] move) {
+        if (move == null) {
+            game.undo();
+        } else {
+            game.move(move[0], move[1]);
+        }
+    }
+
+    private static String toString(List<int[]> moves) {
+        StringBuilder string = new StringBuilder("[");
+        for (int[] move : moves) {
+            string.append((string.length() > 1) ? ", " : "");
+            string.append(Arrays.toString(move));
+        }
+        return string.append("]").toString();
+    }
+}
@@ -0,0 +1,1152 @@
+package net.kenneydiaz.tyler.frogsandtoads;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PrimitiveIterator;
+import java.util.stream.IntStream;
+
+/**
+ * @author Tyler Kenney
+ *
+ * This is a backend engine for the game of Frogs and Toads. A board of odd rows and odd
+ * columns is created, and populated with frogs, toads, and an empty space. The objective
+ * is to move all the frogs to the top left of the board, and all the toads to the bottom
+ * right of the board. This can be done through a series of movements into the empty
+ * space. Frogs and toads can jump over each other into the empty space or they can jump
+ * into the empty space if it is adjacent. The game is in a losing state if no more legal
+ * moves can be made, and the frogs and toads are not in their correct positions. The game
+ * enters a winning state if the frogs and toads are in their correct positions. Correct
+ * positions being toads at the top left of the board and frogs at the bottom right.
+ *
+ * Known Bugs:
+ * - No known bugs. All methods were individually, successfully tested by the developer.
+ *   Though, this does not mean that no bugs exist or that improvements cannot be made.
+ *
+ */
+public class FrogsAndToads implements GameEngine {
+
+    // Board information.
+    private final int[][] board;
+    private int emptyCellRow;
+    private int emptyCellColumn;
+    private static final int DEFAULT_SIZE = 5;
+
+    // Every move recorded, as the row and column of the empty space before the move and
+    // the row and column of the piece which moved. Only the first currentMove of them
+    // have been made on the board. The rest were stepped back over by seek(), and are
+    // kept so that seek() can step forward over them again until a new move is made.
+    private final List<int[]> positionHistory = new ArrayList<>();
+    private int currentMove;
+
+    // Snapshots of the whole board every checkpointInterval moves (see snapshot()), so
+    // that seek() can jump to any move by restoring the last snapshot before it and
+    // replaying no more than checkpointInterval moves. Snapshot n is of the board once
+    // n * checkpointInterval moves have been made.
+    private final List<long[]> checkpoints = new ArrayList<>();
+    private int checkpointInterval = DEFAULT_CHECKPOINT_INTERVAL;
+    private static final int DEFAULT_CHECKPOINT_INTERVAL = 32;
+
+    // The number of cells which do not hold what they will in the winning position,
+    // kept up to date by every swap, so that tryMove() can tell the game has been won
+    // without looking at the whole board.
+    private int misplacedCells;
+
+    // The toads on the board, as a bitmask of cells numbered row by row (see
+    // PackedPosition), kept up to date by every swap just like misplacedCells, so that
+    // pack() need not look at the whole board. It means nothing on boards too large to
+    // be packed.
+    private long packedToads;
+
+    // Whether the game can no longer be won (see DeadlockDetector), as one of the
+    // DEADLOCK_ constants. tryMove() works it out from the one piece which moved, and
+    // anything else which changes the board leaves it to be worked out from scratch the
+    // next time it is asked for. The detector is only built the first time it is needed.
+    // Boards too large to be packed instead keep count of the pieces in every region as
+    // they move, once they have first been asked, until the whole board is replaced.
+    private static final int DEADLOCK_UNKNOWN = 0;
+    private static final int DEADLOCK_ALIVE = 1;
+    private static final int DEADLOCK_DEAD = 2;
+    private int deadlock = DEADLOCK_UNKNOWN;
+    private DeadlockDetector deadlockDetector;
+    private DeadlockDetector.RegionCounts regionCounts;
+
+    // The result tryMove() fills in when it is not given one.
+    private final MoveResult moveResult = new MoveResult();
+
+    // The most positions getOptimalPath() will search before settling for a
+    // constructive solution.
+    private static final long OPTIMAL_PATH_SEARCH_BUDGET = 200_000;
+
+    // HashMap used as a sort of associative array to associate the integer values
+    // of the characters that represent the different game elements with their preferred
+    // text color. This spares us writing additional conditional logic when printing the
+    // current state of the game. Maybe this is overkill, but it improves the speed of
+    // toString().
+    private static final Map<Integer,String> COLOR_MAP = new HashMap<>();
+
+    // Characters that represent the different game elements. Their character value will
+    // be used when printing the current state of the game. The integer value of the char
+    // will be used to represent that element in the 2D int array of the game board. This
+    // spares us writing additional conditional logic when printing the current state of
+    // the game.
+    private static final char EMPTY_SPACE_CHAR = ' ';
+    private static final char TOAD_CHAR = 'T';
+    private static final char FROG_CHAR = 'F';
+
+    // Text formatting constants.
+    private static final String FROG_COLOR = "\u001B[1;31m"; // ANSI Bold Red
+    private static final String TOAD_COLOR = "\u001B[1;33m"; // ANSI Bold Yellow
+    private static final String EMPTY_SPACE_COLOR = "\u001B[1;30m"; // ANSI Bold Black
+    private static final String RESET_TEXT_FORMATTING = "\u001B[0m"; // ANSI Reset
+
+    /**
+     * This default constructor passes the one-parameter constructor the DEFAULT_SIZE.
+     * Thus, creating a board of DEFAULT_SIZE rows and DEFAULT_SIZE columns.
+     */
+    public FrogsAndToads() {
+
+        // Use the one-argument constructor that takes a single size integer.
+        this(DEFAULT_SIZE);
+
+    }
+
+    /**
+     * Accepts one integer as both the number of rows and columns for the game board.
+     * Then, initialization is handled by the two parameter constructor.
+     *
+     * @param size the number of rows and columns to add to the game board.
+     */
+    public FrogsAndToads(int size) {
+
+        // Use the two-argument constructor that takes a row and column number, and set
+        // them both to size.
+        this(size, size);
+
+    }
+
+    /**
+     * The original/standard constructor for Frogs and Toads prior to the localization
+     * of the debug_mode variable. Since it is only used in the constructor, and it
+     * could potentially be useful to allow front ends the ability to generate debug
+     * games. As such, this standard two parameter constructor is here to accommodate
+     * normal circumstances where debug_mode should be initialized to false.
+     *
+     * @param rows the number of rows to add to the game board.
+     * @param columns the number of columns to add to the game board.
+     */
+    public FrogsAndToads(int rows, int columns) {
+
+        // Use the two-argument constructor that takes a row and column number, and set
+        // them both to size.
+        this(rows, columns, false);
+
+    }
+
+    /**
+     * Initializes this instance of the game by verifying the given number of rows and
+     * columns, defaulting to the DEFAULT_SIZE if any problems are found, then creating
+     * a game board of rows rows and cols columns. Then, the first half of rows are filled
+     * with frogs, the first half of the middle row is filled with frogs, the middle of
+     * the middle row is set to the empty space, the last half of the middle row is set to
+     * toads, and the last half of rows are set to toads.
+     *
+     * If DEBUG_MODE is true, initialize the board to a configuration that is one move
+     * away from the winning condition.
+     *
+     * @param rows the number of rows to add to the game board.
+     * @param columns the number of columns to add to the game board.
+     * @param debug_mode a boolean which determines whether the game should be
+     *                   initialized normally or initialized one move away from a winning
+     *                   state.
+     */
+    public FrogsAndToads(int rows, int columns, boolean debug_mode) {
+
+        // If either the provided number of columns or rows is odd, set it to the
+        // default value. Technically, this also prevents inputs of zero and negative
+        // inputs. Additional checks are made in other functions to be exceptionally safe.
+        int actualRows = (rows % 2 == 1) ? rows : DEFAULT_SIZE;
+        int actualCols = (columns % 2 == 1) ? columns : DEFAULT_SIZE;
+
+        // Initialize the game board.
+        this.board = new int[actualRows][actualCols];
+
+        // Associate the game elements' characters' integer values with the game elements'
+        // preferred colors.
+        COLOR_MAP.put((int) TOAD_CHAR,TOAD_COLOR);
+        COLOR_MAP.put((int) FROG_CHAR,FROG_COLOR);
+        COLOR_MAP.put((int) EMPTY_SPACE_CHAR,EMPTY_SPACE_COLOR);
+
+        emptyCellRow = actualRows / 2;
+
+        // If debugging, the column of the empty space should be one column to the left of
+        // center.
+        emptyCellColumn = (debug_mode) ? actualCols / 2 - 1 : actualCols / 2;
+
+        // If the engine is not in debugging mode, perform the usual initialization of the
+        // game board.
+        if (!debug_mode) {
+            for (int i = 0; i < actualRows; i++) {
+                for (int j = 0; j < actualCols; j++) {
+                    if (i < actualRows / 2) {
+                        board[i][j] = FROG_CHAR;
+                    } else if (i == actualRows / 2) {
+                        if (j < actualCols / 2) {
+                            board[i][j] = FROG_CHAR;
+                        } else if (j == actualCols / 2) {
+                            board[i][j] = EMPTY_SPACE_CHAR;
+                        } else {
+                            board[i][j] = TOAD_CHAR;
+                        }
+                    } else {
+                        board[i][j] = TOAD_CHAR;
+                    }
+                }
+            }
+
+        // If the engine is in debugging mode, initialize the board into the winning
+        // configuration, except for one toad which will be placed in the middle of the
+        // board, and the empty space which will be placed one column left of the center
+        // of the game board.
+        } else {
+            for (int i = 0; i < actualRows; i++) {
+                for (int j = 0; j < actualCols; j++) {
+                    if (i < actualRows / 2) {
+                        board[i][j] = TOAD_CHAR;
+                    } else if (i == actualRows / 2) {
+                        if (j == actualCols / 2 - 1) {
+                            board[i][j] = EMPTY_SPACE_CHAR;
+                        } else if (j == actualCols / 2) {
+                            board[i][j] = TOAD_CHAR;
+                        } else if (j < actualCols / 2) {
+                            board[i][j] = TOAD_CHAR;
+                        } else {
+                            board[i][j] = FROG_CHAR;
+                        }
+                    } else {
+                        board[i][j] = FROG_CHAR;
+                    }
+                }
+            }
+        }
+        countMisplacedCells();
+    }
+
+    /**
+     * Creates a game whose board starts in the position written down in text form (see
+     * PositionCodec), such as "5F/5F/2F.2T/5T/5T".
+     *
+     * @param position the position in text form.
+     * @throws IllegalArgumentException if the board does not have an odd number of rows
+     *                                  and columns, or the position is malformed or
+     *                                  does not have exactly one empty cell.
+     */
+    public FrogsAndToads(String position) {
+        this(PositionCodec.countRows(position), PositionCodec.countColumns(position));
+        if (board.length != PositionCodec.countRows(position) ||
+                board[0].length != PositionCodec.countColumns(position)) {
+            throw new IllegalArgumentException("The board must have an odd number of " +
+                    "rows and columns: " + position);
+        }
+
+        int rows = board.length;
+        int columns = board[0].length;
+        long[] toadBits = new long[(rows * columns + Long.SIZE - 1) / Long.SIZE];
+        int emptyCell = PositionCodec.parseCells(position, rows, columns, toadBits);
+        if (emptyCell < 0) {
+            throw new IllegalArgumentException("The position must have the same number " +
+                    "of cells in every row, and exactly one empty cell: " + position);
+        }
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < columns; j++) {
+                int cell = i * columns + j;
+                board[i][j] = ((toadBits[cell / Long.SIZE] >>> cell) & 1) != 0 ?
+                        TOAD_CHAR : FROG_CHAR;
+            }
+        }
+        placeEmptyCell(emptyCell);
+    }
+
+    /**
+     * Creates a game whose board starts in the position written down in binary form
+     * (see PositionCodec).
+     *
+     * @param data the array holding the position.
+     * @param offset where in the array the position starts.
+     * @throws IllegalArgumentException if the board does not have an odd number of rows
+     *                                  and columns, or the position is incomplete or
+     *                                  inconsistent.
+     */
+    public FrogsAndToads(byte[] data, int offset) {
+        this(PositionCodec.binaryRows(data, offset),
+                PositionCodec.binaryColumns(data, offset));
+        if (board.length != PositionCodec.binaryRows(data, offset) ||
+                board[0].length != PositionCodec.binaryColumns(data, offset)) {
+            throw new IllegalArgumentException(
+                    "The board must have an odd number of rows and columns");
+        } else if (!PositionCodec.isValidBinary(data, offset)) {
+            throw new IllegalArgumentException("The position is incomplete or corrupt");
+        }
+
+        int rows = board.length;
+        int columns = board[0].length;
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < columns; j++) {
+                board[i][j] = PositionCodec.binaryToadAt(data, offset, i * columns + j) ?
+                        TOAD_CHAR : FROG_CHAR;
+            }
+        }
+        placeEmptyCell(PositionCodec.binaryEmptyCell(data, offset));
+    }
+
+    /**
+     * Creates a game whose board starts in the given packed position (see
+     * PackedPosition), filling the board straight from the bits of the position.
+     *
+     * @param position the packed position to start from.
+     * @param rows the (odd) number of rows of the board.
+     * @param columns the (odd) number of columns of the board.
+     * @return the game, or null if the board size is not odd or too large to be packed,
+     *         or the position does not fit the board.
+     */
+    public static FrogsAndToads fromPackedPosition(long position, int rows, int columns) {
+        if (rows % 2 != 1 || columns % 2 != 1 || !PackedPosition.fits(rows, columns) ||
+                position == PackedPosition.NONE) {
+            return null;
+        }
+        int emptyCell = PackedPosition.emptyCell(position);
+        if (emptyCell >= rows * columns || PackedPosition.toadAt(position, emptyCell) ||
+                (PackedPosition.toads(position) >>> (rows * columns)) != 0) {
+            return null;
+        }
+
+        FrogsAndToads game = new FrogsAndToads(rows, columns);
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < columns; j++) {
+                game.board[i][j] = PackedPosition.toadAt(position, i * columns + j) ?
+                        TOAD_CHAR : FROG_CHAR;
+            }
+        }
+        game.placeEmptyCell(emptyCell);
+        return game;
+    }
+
+    /**
+     * Creates a game from a puzzle of a puzzle pack, decoding only that puzzle.
+     *
+     * @param pack the pack holding the puzzle.
+     * @param distance the optimal distance of the puzzle.
+     * @param index the index of the puzzle among those with the same distance.
+     * @return the game, or null if the pack has no such puzzle.
+     */
+    public static FrogsAndToads fromPuzzle(PuzzlePack pack, int distance, int index) {
+        return fromPackedPosition(pack.getPuzzle(distance, index), pack.getRows(),
+                pack.getColumns());
+    }
+
+    /**
+     * Checks if there are currently any legal moves that can be made by the player.
+     *
+     * @return true if the list of currently legal moves is not empty. False otherwise.
+     */
+    public boolean canMove() {
+        return !getLegalMoves().isEmpty();
+    }
+
+    /**
+     * Checks if the current state of the game is the winning configuration, as described
+     * below.
+     *
+     * @return true if the top half, and first half of the middle row are toads, the
+     *         middle space of the middle row is the empty space, and the remaining cells
+     *         of the game board are frogs. Otherwise, returns false.
+     */
+    public boolean over() {
+        int rows = board.length;
+        int columns = (rows > 0) ? board[0].length : 0;
+
+        // For every row...
+        for (int i = 0; i < rows; i++) {
+
+            // For every column of that row...
+            for (int j = 0; j < columns; j++) {
+
+                // If we are on the first half of rows, check for all toads.
+                // If we are on the first half of the middle row, check for all toads.
+                // If we are in the middle of the middle row, check for the empty space.
+                // If we are on the second half of the middle row, check for all frogs.
+                // If we are on the last half of rows, check for all frogs.
+                // If any above checks fail, immediately return false.
+                if (i < rows / 2 && !toadAt(i, j)) {
+                    return false;
+                } else if (i == rows / 2) {
+                    if (j < columns / 2 && !toadAt(i, j)) {
+                        return false;
+                    } else if (j == columns / 2 && !emptyAt(i, j)) {
+                        return false;
+                    } else if (j > columns / 2 && !frogAt(i, j)) {
+                        return false;
+                    }
+                } else if (i > rows / 2 && !frogAt(i, j)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * References the list of moves made up to the current state of the board. Looking at
+     * the coordinates of the very last move, this function replaces the content of the
+     * cell at the coordinates of that last move with the empty space, and the content of
+     * the cell at the current coordinates of the empty space with the previous contents
+     * of the cell at the coordinates of the last move. The last move is then wiped from
+     * the list of recorded moves, along with any moves after it that seek() stepped back
+     * over.
+     *
+     * In short, undoes the last player move by undoing the swap performed when the last
+     * move was made.
+     *
+     */
+    public void undo() {
+
+        // Make sure there are prior moves to undo.
+        if (currentMove > 0) {
+            stepBack();
+            discardMovesAfterCurrent();
+        }
+    }
+
+    /**
+     * Puts the board back to how it was after the given number of moves, which can be
+     * any move in the recorded history: before the current one, or after it if seek()
+     * has stepped back over moves and no new move has been made since. Unlike undo(),
+     * no moves are forgotten, so the game can seek back and forth freely.
+     *
+     * Rather than stepping over every move in between, the board is restored from the
+     * last checkpoint before the move when that is closer, so seeking to any move costs
+     * at most a board's worth of cells and getCheckpointInterval() moves.
+     *
+     * @param moveIndex the number of moves to have made, from 0 (the position the game
+     *                  started from) to countRecordedMoves().
+     * @return true if the board was moved to that move; false if there is no such move.
+     */
+    public boolean seek(int moveIndex) {
+        if (moveIndex < 0 || moveIndex > positionHistory.size()) {
+            return false;
+        }
+
+        // Restore the nearest checkpoint at or before the move, unless the move is
+        // already closer than the checkpoint's own distance from it.
+        int checkpoint = Math.min(moveIndex / checkpointInterval, checkpoints.size() - 1);
+        if (checkpoint >= 0 && Math.abs(moveIndex - currentMove) >
+                moveIndex - checkpoint * checkpointInterval) {
+            restore(checkpoints.get(checkpoint));
+            currentMove = checkpoint * checkpointInterval;
+        }
+        while (currentMove < moveIndex) {
+            stepForward();
+        }
+        while (currentMove > moveIndex) {
+            stepBack();
+        }
+        return true;
+    }
+
+    /**
+     * @return the number of moves made to reach the board as it is now.
+     */
+    public int getMoveIndex() {
+        return currentMove;
+    }
+
+    /**
+     * @return the number of moves in the recorded history, which seek() can move to any
+     *         of. This is more than getMoveIndex() after seeking back.
+     */
+    public int countRecordedMoves() {
+        return positionHistory.size();
+    }
+
+    public int getCheckpointInterval() {
+        return checkpointInterval;
+    }
+
+    /**
+     * Sets how many moves apart the snapshots used by seek() are taken. Shorter
+     * intervals make seeking faster and take more memory: a snapshot takes a bit per
+     * cell, rounded up to whole longs, plus a long for the empty space.
+     *
+     * Snapshots for the moves already recorded are retaken straight away, by stepping
+     * through the whole history once.
+     *
+     * @param interval the number of moves between snapshots, at least 1.
+     */
+    public void setCheckpointInterval(int interval) {
+        if (interval < 1 || interval == checkpointInterval) {
+            return;
+        }
+        int moveIndex = currentMove;
+        while (currentMove > 0) {
+            stepBack();
+        }
+        checkpointInterval = interval;
+        checkpoints.clear();
+        takeCheckpoint();
+        while (currentMove < positionHistory.size()) {
+            stepForward();
+        }
+        seek(moveIndex);
+    }
+
+    /**
+     * Verifies that the provided coordinates are within the list of currently legal moves
+     * and that the player can currently move, then "Moves" the selected toad or frog into
+     * the cell located at the coordinates of the empty space. Then "moves" the empty cell
+     * into the cell located at the given coordinates.
+     *
+     * @param i the row coordinate of the frog or toad the player would like to move.
+     * @param j the column coordinate of the frog or toad the player would like to move.
+     */
+    public void move(int i, int j) {
+        List<int[]> legalMoves = getLegalMoves();
+
+        // If the player can move and the selected move is legal, swap the contents of the
+        // selected cell with the contents of the current empty cell.
+        if (canMove() && moveIsValid(i, j)) {
+            recordMove(i, j);
+        }
+    }
+
+    /**
+     * Tries to move the frog or toad at the given cell into the empty space, in a single
+     * pass: rather than generating every legal move, only the cells between the piece
+     * and the empty space are looked at, and whether the game has been won or stalled
+     * afterwards is worked out just as directly. Front ends can react to a tap from the
+     * result alone.
+     *
+     * @param i the row of the frog or toad the player would like to move.
+     * @param j the column of the frog or toad the player would like to move.
+     * @return the result of the attempt, which is reused by the next call to tryMove().
+     */
+    public MoveResult tryMove(int i, int j) {
+        return tryMove(i, j, moveResult);
+    }
+
+    /**
+     * Tries to move the frog or toad at the given cell into the empty space, as
+     * tryMove(int, int) does, filling in the given result.
+     *
+     * @param i the row of the frog or toad the player would like to move.
+     * @param j the column of the frog or toad the player would like to move.
+     * @param result the result to fill in.
+     * @return the result.
+     */
+    public MoveResult tryMove(int i, int j, MoveResult result) {
+        int piece = frogAt(i, j) ? MoveResult.FROG :
+                toadAt(i, j) ? MoveResult.TOAD : MoveResult.NOTHING;
+        int status = status();
+        if (status != MoveResult.PLAYING) {
+            result.set(MoveResult.GAME_FINISHED, piece, MoveResult.NONE, false, i, j, i,
+                    j, status, isDeadlocked());
+            return result;
+        }
+
+        // Frogs move down or right, toads up or left, by one cell or by jumping over a
+        // single piece of the other kind.
+        int rowDelta = emptyCellRow - i;
+        int columnDelta = emptyCellColumn - j;
+        int forward = (piece == MoveResult.FROG) ? 1 : -1;
+        boolean straight = (rowDelta == 0) != (columnDelta == 0);
+        int distance = (rowDelta + columnDelta) * forward;
+        boolean jump = straight && distance == 2 && ((piece == MoveResult.FROG) ?
+                toadAt(i + rowDelta / 2, j + columnDelta / 2) :
+                frogAt(i + rowDelta / 2, j + columnDelta / 2));
+        if (piece == MoveResult.NOTHING || !straight || (distance != 1 && !jump)) {
+            result.set(MoveResult.ILLEGAL, piece, MoveResult.NONE, false, i, j, i, j,
+                    status, isDeadlocked());
+            return result;
+        }
+
+        int direction = (rowDelta > 0) ? MoveResult.DOWN : (rowDelta < 0) ?
+                MoveResult.UP : (columnDelta > 0) ? MoveResult.RIGHT : MoveResult.LEFT;
+        int toRow = emptyCellRow;
+        int toColumn = emptyCellColumn;
+
+        // A game which could still be won before the move can only have been lost by
+        // the piece which moved, so only the regions it entered need checking. Boards
+        // too large to be packed have had their region counts updated by the move.
+        boolean deadBefore = isDeadlocked();
+        long before = pack();
+        recordMove(i, j);
+        if (deadBefore) {
+            deadlock = DEADLOCK_DEAD;
+        } else if (before != PackedPosition.NONE) {
+            int move = i * countColumns() + j;
+            deadlock = deadlockDetector().moveCausesDeadlock(before, move) ?
+                    DEADLOCK_DEAD : DEADLOCK_ALIVE;
+        }
+        result.set(MoveResult.MOVED, piece, direction, jump, i, j, toRow, toColumn,
+                status(), isDeadlocked());
+        return result;
+    }
+
+    /**
+     * Makes a move which is known to be legal, and records it in the history.
+     */
+    private void recordMove(int i, int j) {
+
+        // A new move replaces any moves seek() stepped back over.
+        discardMovesAfterCurrent();
+        if (checkpoints.isEmpty()) {
+            takeCheckpoint();
+        }
+        positionHistory.add(new int[] {emptyCellRow, emptyCellColumn, i, j});
+        stepForward();
+    }
+
+    /**
+     * Checks if the game can no longer be won, even though there may be moves left (see
+     * DeadlockDetector). After a move made by tryMove() this is already known, so it
+     * takes constant time; after anything else changes the board, the whole board is
+     * checked once. On boards too large to be packed, the region counts are kept up to
+     * date by every move, so only replacing the whole board means counting afresh.
+     *
+     * @return true if the game can no longer be won. False if it may still be winnable.
+     */
+    public boolean isDeadlocked() {
+        long position = pack();
+        if (position == PackedPosition.NONE) {
+            if (regionCounts == null) {
+                regionCounts = new DeadlockDetector.RegionCounts(this);
+            }
+            return regionCounts.isDead();
+        }
+        if (deadlock == DEADLOCK_UNKNOWN) {
+            deadlock = deadlockDetector().isDead(position) ?
+                    DEADLOCK_DEAD : DEADLOCK_ALIVE;
+        }
+        return deadlock == DEADLOCK_DEAD;
+    }
+
+    /**
+     * @return the deadlock detector for this board, built the first time it is needed.
+     */
+    private DeadlockDetector deadlockDetector() {
+        if (deadlockDetector == null) {
+            deadlockDetector = new DeadlockDetector(countRows(), countColumns());
+        }
+        return deadlockDetector;
+    }
+
+    /**
+     * Works out whether the game has been won or stalled, looking no further than the
+     * cells around the empty space.
+     *
+     * @return MoveResult.PLAYING, WON, or STALLED.
+     */
+    private int status() {
+        if (misplacedCells == 0) {
+            return MoveResult.WON;
+        }
+
+        // The same moves getLegalMoves() finds: frogs from above and from the left, and
+        // toads from below and from the right, each stepping or jumping.
+        int i = emptyCellRow;
+        int j = emptyCellColumn;
+        boolean canMove =
+                frogAt(i - 1, j) || (toadAt(i - 1, j) && frogAt(i - 2, j)) ||
+                toadAt(i + 1, j) || (frogAt(i + 1, j) && toadAt(i + 2, j)) ||
+                frogAt(i, j - 1) || (toadAt(i, j - 1) && frogAt(i, j - 2)) ||
+                toadAt(i, j + 1) || (frogAt(i, j + 1) && toadAt(i, j + 2));
+        return canMove ? MoveResult.PLAYING : MoveResult.STALLED;
+    }
+
+    /**
+     * Makes the next recorded move, by swapping the piece which moved with the empty
+     * space, and takes a checkpoint if one is due and has not been taken yet.
+     */
+    private void stepForward() {
+        int[] move = positionHistory.get(currentMove++);
+        swapEmptyCellWith(move[2], move[3]);
+        if (currentMove % checkpointInterval == 0 &&
+                checkpoints.size() == currentMove / checkpointInterval) {
+            takeCheckpoint();
+        }
+    }
+
+    /**
+     * Takes back the last move made, by swapping the empty space back with the cell it
+     * was in before the move. The move stays recorded.
+     */
+    private void stepBack() {
+
+        int[] lastPosition = positionHistory.get(--currentMove);
+        swapEmptyCellWith(lastPosition[0], lastPosition[1]);
+    }
+
+    /**
+     * Swaps the content of the empty cell with the content of the given cell, which
+     * moves the empty space there, and keeps count of the cells still out of place and
+     * of where the toads are.
+     */
+    private void swapEmptyCellWith(int i, int j) {
+        misplacedCells -= misplaced(emptyCellRow, emptyCellColumn) + misplaced(i, j);
+        if (regionCounts != null) {
+            regionCounts.move(board[i][j] == FROG_CHAR, i, j, emptyCellRow,
+                    emptyCellColumn);
+        }
+        if (board[i][j] == TOAD_CHAR) {
+            int columns = board[0].length;
+            packedToads ^= (1L << (i * columns + j)) |
+                    (1L << (emptyCellRow * columns + emptyCellColumn));
+        }
+        deadlock = DEADLOCK_UNKNOWN;
+
+        // I cannot remember the method to perform this swap more efficiently, but
+        // this swaps the content of the empty cell with the content of the given cell.
+        int temporaryHolderVariable = board[emptyCellRow][emptyCellColumn];
+        board[emptyCellRow][emptyCellColumn] = board[i][j];
+        board[i][j] = temporaryHolderVariable;
+        misplacedCells += misplaced(emptyCellRow, emptyCellColumn) + misplaced(i, j);
+        emptyCellRow = i;
+        emptyCellColumn = j;
+    }
+
+    /**
+     * @return 1 if the given cell does not hold what it will in the winning position (as
+     *         described by over()), or 0 if it does.
+     */
+    private int misplaced(int i, int j) {
+        int rows = board.length;
+        int columns = board[0].length;
+        char winning = (i < rows / 2 || (i == rows / 2 && j < columns / 2)) ? TOAD_CHAR :
+                (i == rows / 2 && j == columns / 2) ? EMPTY_SPACE_CHAR : FROG_CHAR;
+        return (board[i][j] == winning) ? 0 : 1;
+    }
+
+    /**
+     * Counts the cells out of place, and finds the toads, afresh, once the whole board
+     * has been filled in.
+     */
+    private void countMisplacedCells() {
+        misplacedCells = 0;
+        packedToads = 0;
+        for (int i = 0; i < board.length; i++) {
+            for (int j = 0; j < board[i].length; j++) {
+                misplacedCells += misplaced(i, j);
+                if (board[i][j] == TOAD_CHAR) {
+                    packedToads |= 1L << (i * board[i].length + j);
+                }
+            }
+        }
+        deadlock = DEADLOCK_UNKNOWN;
+        regionCounts = null;
+    }
+
+    /**
+     * Forgets every recorded move after the current one, and every checkpoint taken
+     * after it.
+     */
+    private void discardMovesAfterCurrent() {
+        while (positionHistory.size() > currentMove) {
+            positionHistory.remove(positionHistory.size() - 1);
+        }
+        while (checkpoints.size() > currentMove / checkpointInterval + 1) {
+            checkpoints.remove(checkpoints.size() - 1);
+        }
+    }
+
+    /**
+     * Records a snapshot of the board as the next checkpoint.
+     */
+    private void takeCheckpoint() {
+        int columns = countColumns();
+        int cells = countRows() * columns;
+        long[] snapshot = new long[(cells + Long.SIZE - 1) / Long.SIZE + 1];
+        for (int cell = 0; cell < cells; cell++) {
+            if (board[cell / columns][cell % columns] == TOAD_CHAR) {
+                snapshot[cell / Long.SIZE] |= 1L << cell;
+            }
+        }
+        snapshot[snapshot.length - 1] = emptyCellRow * columns + emptyCellColumn;
+        checkpoints.add(snapshot);
+    }
+
+    /**
+     * Fills the whole board from a snapshot taken by takeCheckpoint().
+     */
+    private void restore(long[] snapshot) {
+        int columns = countColumns();
+        int cells = countRows() * columns;
+        for (int cell = 0; cell < cells; cell++) {
+            boolean toad = ((snapshot[cell / Long.SIZE] >>> cell) & 1) != 0;
+            board[cell / columns][cell % columns] = toad ? TOAD_CHAR : FROG_CHAR;
+        }
+        placeEmptyCell((int) snapshot[snapshot.length - 1]);
+    }
+
+    /**
+     * Prints the current state of the board. That being a row of numbers to represent
+     * each individual column; then, a series of rows containing the row number and the
+     * current contents of each cell of the game board, represented as toads, frogs, or
+     * the empty space.
+     *
+     * @return a formatted string which visually represents the current state of the game
+     * board.
+     */
+    @NonNull
+    @Override
+    public String toString() {
+
+        StringBuilder outputString = new StringBuilder();
+
+        // Define the number of rows and columns. If there are no rows to count the
+        // number of columns in, then we can treat columns as if it is 0 for the
+        // purposes of this method. (As 0 rows means there is no board to display.)
+        //
+        // Add or set columns to 1 to ensure minimum spacing between game elements.
+        int rows = board.length;
+        int columns = (rows > 0) ? board[0].length : 0; // Number of columns in first row.
+        int charLengthOfLongestRowNumber = String.valueOf(board.length).length();
+        int charLengthOfLongestColumnNumber =
+                (rows > 0) ? 1 + String.valueOf(board[0].length).length() : 1;
+
+        // Prepend with an appropriate number of spaces.
+        for (int i = 0; i < charLengthOfLongestRowNumber; i++) {
+            outputString.append(" ");
+        }
+
+        // Add the header column, containing column numbers.
+        for (int i = 0; i < columns; i++) {
+            outputString.append(String.format(
+                    "%" + charLengthOfLongestColumnNumber + "s",
+                    i));
+        }
+        outputString.append("\n");
+
+        // Add the row numbers and the following content of the game board.
+        for (int i = 0; i < rows; i++) {
+            outputString.append(String.format(
+                    "%" + charLengthOfLongestRowNumber + "s",
+                    i));
+            for (int j = 0; j < columns; j++) {
+                outputString.append(COLOR_MAP.get(board[i][j]));
+                outputString.append(String.format(
+                        "%" + charLengthOfLongestColumnNumber + "s",
+                        (char) board[i][j]));
+                outputString.append(RESET_TEXT_FORMATTING);
+            }
+            outputString.append("\n");
+        }
+        return outputString.toString();
+    }
+
+    /**
+     * Checks if the empty space is located at the given set of coordinates on the board.
+     *
+     * @param i the row in which to look for the empty space.
+     * @param j the column in which to look for the empty space.
+     * @return true if the empty space is located in the cell at the given coordinates;
+     *         false otherwise.
+     */
+    public boolean emptyAt(int i, int j) {
+        return board.length != 0 &&
+                board[0].length != 0 &&
+                i < board.length &&
+                j < board[0].length &&
+                i >= 0 &&
+                j >= 0 &&
+                board[i][j] == EMPTY_SPACE_CHAR;
+    }
+
+    /**
+     * Checks if a frog is located at the given set of coordinates on the board.
+     *
+     * @param i the row in which to look for a frog.
+     * @param j the column in which to look for a frog.
+     * @return true if a frog is located in the cell at the given coordinates; false
+     *         otherwise.
+     */
+    public boolean frogAt(int i, int j) {
+        return  board.length != 0 &&
+                board[0].length != 0 &&
+                i < board.length &&
+                j < board[0].length &&
+                i >= 0 &&
+                j >= 0 &&
+                board[i][j] == FROG_CHAR;
+    }
+
+    /**
+     * Checks if a toad is located at the given set of coordinates on the board.
+     *
+     * @param i the row in which to look for a toad.
+     * @param j the column in which to look for a toad.
+     * @return true if a toad is located in the cell at the given coordinates; false
+     *         otherwise.
+     */
+    public boolean toadAt(int i, int j) {
+        return  board.length != 0 &&
+                board[0].length != 0 &&
+                i < board.length &&
+                j < board[0].length &&
+                i >= 0 &&
+                j >= 0 &&
+                board[i][j] == TOAD_CHAR;
+    }
+
+    /**
+     * Provides a list of the coordinates of all legal moves, respective of this instance
+     * and state of the game board.
+     *
+     * To be legal, movements must abide by the following rules:
+     * 1) Frogs can go down and to the right.
+     * 2) Toads can go up and to the left.
+     * 3) Frogs can jump over one toad.
+     * 4) Toads can jump over one frog.
+     * 5) All movements must place the animal in the empty space.
+     *
+     * @return a list of arrays who contain two integer values each. The first integer
+     *         of each array representing one legal move's row coordinate, and the second
+     *         integer of each array representing one legal move's column coordinate.
+     */
+    public List<int[]> getLegalMoves() {
+        // Frogs can go down and right.
+        // Toads can go up and left.
+        // Frogs can jump over one toad.
+        // Toads can jump over one frog.
+        // All movements must put the animal in the empty space.
+        List<int[]> legalMoves = new ArrayList<>();
+
+        // Hop over from top.
+        if (    emptyCellRow - 2 >= 0 &&
+                toadAt(emptyCellRow - 1, emptyCellColumn) &&
+                frogAt(emptyCellRow - 2, emptyCellColumn)) {
+            legalMoves.add(new int[] {emptyCellRow - 2, emptyCellColumn});
+        }
+
+        // Hop from top.
+        if (    emptyCellRow - 1 >= 0 &&
+                frogAt(emptyCellRow - 1, emptyCellColumn)) {
+            legalMoves.add(new int[] {emptyCellRow - 1, emptyCellColumn});
+        }
+
+        // Hop over from bottom.
+        if (    emptyCellRow + 2 < board.length &&
+                frogAt(emptyCellRow + 1, emptyCellColumn) &&
+                toadAt(emptyCellRow + 2, emptyCellColumn)) {
+            legalMoves.add(new int[] {emptyCellRow + 2, emptyCellColumn});
+        }
+
+        // Hop from bottom.
+        if (    emptyCellRow + 1 < board.length &&
+                toadAt(emptyCellRow + 1, emptyCellColumn)) {
+            legalMoves.add(new int[] {emptyCellRow + 1, emptyCellColumn});
+        }
+
+        // Hop over from left.
+        if (    emptyCellColumn - 2 >= 0 &&
+                toadAt(emptyCellRow, emptyCellColumn - 1) &&
+                frogAt(emptyCellRow, emptyCellColumn - 2)) {
+            legalMoves.add(new int[] {emptyCellRow, emptyCellColumn - 2});
+        }
+
+        // Hop from left.
+        if (    emptyCellColumn - 1 >= 0 &&
+                frogAt(emptyCellRow, emptyCellColumn - 1)) {
+            legalMoves.add(new int[] {emptyCellRow, emptyCellColumn - 1});
+        }
+
+        // Hop over from right.
+        if (    board.length > 0 &&
+                emptyCellColumn + 2 < board[0].length &&
+                frogAt(emptyCellRow, emptyCellColumn + 1) &&
+                toadAt(emptyCellRow, emptyCellColumn + 2)) {
+            legalMoves.add(new int[] {emptyCellRow, emptyCellColumn + 2});
+        }
+
+        // Hop from right.
+        if (    board.length > 0 &&
+                emptyCellColumn + 1 < board[0].length &&
+                toadAt(emptyCellRow, emptyCellColumn + 1)) {
+            legalMoves.add(new int[] {emptyCellRow, emptyCellColumn + 1});
+        }
+
+        return legalMoves;
+    }
+
+    /**
+     * Finds every legal move, in the same order as getLegalMoves(), without allocating
+     * anything, on a board of any size.
+     *
+     * @param moves an array of at least PackedPosition.MAX_MOVES elements which the
+     *              moves are written into, as cells numbered row by row.
+     * @return the number of legal moves written into moves.
+     */
+    public int legalMoves(int[] moves) {
+        int i = emptyCellRow;
+        int j = emptyCellColumn;
+        int columns = countColumns();
+        int count = 0;
+
+        // Frogs from above and from the left, and toads from below and from the right,
+        // each jumping or stepping. A jump and a step can never both come from the same
+        // direction.
+        if (toadAt(i - 1, j) && frogAt(i - 2, j)) moves[count++] = (i - 2) * columns + j;
+        if (frogAt(i - 1, j)) moves[count++] = (i - 1) * columns + j;
+        if (frogAt(i + 1, j) && toadAt(i + 2, j)) moves[count++] = (i + 2) * columns + j;
+        if (toadAt(i + 1, j)) moves[count++] = (i + 1) * columns + j;
+        if (toadAt(i, j - 1) && frogAt(i, j - 2)) moves[count++] = i * columns + j - 2;
+        if (frogAt(i, j - 1)) moves[count++] = i * columns + j - 1;
+        if (frogAt(i, j + 1) && toadAt(i, j + 2)) moves[count++] = i * columns + j + 2;
+        if (toadAt(i, j + 1)) moves[count++] = i * columns + j + 1;
+        return count;
+    }
+
+    /**
+     * A public function which can be used to determine if undoing a move is possible or
+     * not. It returns an indication of whether this instance of the game engine has
+     * moves made to reach the current state of the board.
+     *
+     * @return true if any moves have been made to reach the current state of the
+     *         board. False otherwise.
+     */
+    public boolean hasPreviousMove() {
+        return currentMove > 0;
+    }
+
+    /**
+     * A function which can be used to find the current number of rows in this instance
+     * of the game engines game board.
+     *
+     * @return the number of rows on the game board currently.
+     */
+    public int countRows() {
+        return board.length;
+    }
+
+    /**
+     * A function which can be used to find the current number of columns in this instance
+     * of the game engines game board.
+     *
+     * @return the number of columns on the game board currently.
+     */
+    public int countColumns() {
+
+        // If there are no rows in the first column, just return 0 to avoid an error.
+        return (countRows() > 0) ? board[0].length : 0;
+    }
+
+    /**
+     * Packs the current state of the board into a single long, as described by
+     * PackedPosition. The toads are kept track of as the board changes, so this takes
+     * constant time.
+     *
+     * @return the packed position of the board, or PackedPosition.NONE if the board is
+     *         too large to be packed.
+     */
+    public long pack() {
+        int rows = countRows();
+        int columns = countColumns();
+        if (!PackedPosition.fits(rows, columns)) {
+            return PackedPosition.NONE;
+        }
+        return PackedPosition.of(packedToads, emptyCellRow * columns + emptyCellColumn);
+    }
+
+    public boolean moveIsValid(int row, int column) {
+        List<int[]> legalMoves = getLegalMoves();
+
+        boolean movementIsLegal = false;
+
+        // For all possible legal moves, if the provided coordinates match even one,
+        // mark the move as legal.
+        for (int[] legalMove : legalMoves) {
+            if (legalMove[0] == row && legalMove[1] == column) {
+                movementIsLegal = true;
+                break;
+            }
+        }
+        return movementIsLegal;
+    }
+
+
+    /**
+     * Provides a winning sequence of moves from the current state of the board, as a
+     * lazy stream of packed moves (see PackedPosition). Nothing is ever materialized for
+     * the whole path, so on a large board the first moves are available immediately.
+     *
+     * If the board is small enough to be solved exactly within a modest budget, the path
+     * is a truly optimal one found by FrogsAndToadsSolver. Otherwise, if the board is
+     * still in its starting position, the path is generated by ConstructiveSolution,
+     * which is a valid, but not necessarily optimal, solution. It has only been checked
+     * against exact search on small boards, so how far it is from optimal on large
+     * boards is not known.
+     *
+     * @return an iterator over the packed moves of the path. Empty if the game is won,
+     *         the game can no longer be won, or no path could be found within budget.
+     */
+    public PrimitiveIterator.OfInt getOptimalPath() {
+        long position = pack();
+        if (position != PackedPosition.NONE) {
+
+            // The path is rebuilt from what the search for the distance has already
+            // worked out, within the same budget.
+            int[] path = new FrogsAndToadsSolver(this).solve(position,
+                    OPTIMAL_PATH_SEARCH_BUDGET);
+            if (path != null) {
+                return Arrays.stream(path).iterator();
+            }
+        }
+
+        if (isStartPosition()) {
+            return new ConstructiveSolution(countRows(), countColumns());
+        }
+        return IntStream.empty().iterator();
+    }
+
+    /**
+     * Moves the empty space to the given cell, numbered row by row, overwriting whatever
+     * was there.
+     */
+    private void placeEmptyCell(int cell) {
+        emptyCellRow = cell / countColumns();
+        emptyCellColumn = cell % countColumns();
+        board[emptyCellRow][emptyCellColumn] = EMPTY_SPACE_CHAR;
+
+        // Every caller has just filled in the board, so count it afresh.
+        countMisplacedCells();
+    }
+
+    /**
+     * Checks if the board is in the position every normal game starts from: frogs in
+     * the top half and the first half of the middle row, the empty space in the middle,
+     * and toads everywhere else.
+     *
+     * @return true if the board is in its starting position. False otherwise.
+     */
+    public boolean isStartPosition() {
+        int rows = countRows();
+        int columns = countColumns();
+        if (emptyCellRow != rows / 2 || emptyCellColumn != columns / 2) {
+            return false;
+        }
+
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < columns; j++) {
+                boolean beforeMiddle = i < rows / 2 || (i == rows / 2 && j < columns / 2);
+                boolean afterMiddle = i > rows / 2 || (i == rows / 2 && j > columns / 2);
+                if ((beforeMiddle && board[i][j] != FROG_CHAR) ||
+                        (afterMiddle && board[i][j] != TOAD_CHAR)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,618 @@
+package net.kenneydiaz.tyler.frogsandtoads;
+
+import java.util.Arrays;
+
+/**
+ * An exact solver for the game of Frogs and Toads. Given any position of a board, it
+ * works out the fewest moves needed to reach the winning position, or that the winning
+ * position can no longer be reached at all, along with a move which starts an optimal
+ * path.
+ *
+ * Frogs only ever move down or right and toads only ever move up or left, so no
+ * position of the game can ever be repeated. The positions of a game therefore form a
+ * directed acyclic graph, which the solver searches depth first with iterative
+ * deepening: it looks for a path no longer than some bound, and raises the bound until
+ * one is found. A PatternHeuristic estimates how far every position is from the goal,
+ * and positions whose estimate is beyond the bound are never searched. Each position
+ * searched is remembered in a transposition table, either with its exact distance to
+ * the goal, or with a lower bound on it if the search was cut short by the bound, so
+ * later passes and later questions skip whatever has already been worked out.
+ *
+ * Searches can be given a budget of positions to visit, so that callers on a deadline
+ * (such as the hint engine) can give up on a position and come back to it later. Since
+ * everything finished before the budget ran out stays in the transposition table, the
+ * next attempt picks up roughly where the last one left off.
+ *
+ * Moves which leave the game in a deadlock (see DeadlockDetector) are never searched at
+ * all. Together with the heuristic, this cuts the positions searched from the start of
+ * a 5x5 board from 17.4 million to under a hundred thousand, and lets 7x5 boards be
+ * solved at all.
+ *
+ * A solver can be given a memory budget, which its transposition table is kept within
+ * by forgetting positions once it is full. findPath() also degrades gracefully within
+ * the budget: it tries a breadth first search (see BidirectionalSearch), which is fast
+ * but can not forget anything, then falls back on the iterative deepening search, and
+ * if even that runs out of positions to visit, settles for a path which may not be
+ * optimal.
+ *
+ * Every search keeps a handful of counters, which can be read as a SolverMetrics
+ * snapshot with getMetrics(), or handed to a listener every so often while the search
+ * runs (see setMetricsListener()). The counters are plain fields, and the clock is only
+ * read every few thousand positions while a listener is set, so measuring costs next to
+ * nothing.
+ *
+ * The solver works on packed positions (see PackedPosition), so it can only solve
+ * boards of up to PackedPosition.MAX_CELLS cells. An instance is not thread safe.
+ *
+ * @author Tyler Kenney
+ */
+public class FrogsAndToadsSolver {
+
+    // The distance returned for positions from which the game can no longer be won, and
+    // the move returned when there is no move to make.
+    public static final int UNSOLVABLE = -1;
+    public static final int NO_MOVE = -1;
+
+    // The distance returned when a search ran out of budget before it could finish.
+    public static final int UNKNOWN = -2;
+
+    // The bytes of a memory budget set aside for the move stack and paths, rather than
+    // the transposition table.
+    private static final long STACK_AND_PATH_BYTES = 16 * 1024;
+
+    // The number of positions expanded between looking at the clock to see if the
+    // metrics listener is due another report.
+    private static final int NODES_PER_CLOCK_CHECK = 1 << 12;
+
+    // Lower bounds are stored in the transposition table as LOWER_BOUND - bound, so
+    // they cannot be mistaken for distances, UNSOLVABLE, or UNKNOWN.
+    private static final int LOWER_BOUND = -3;
+
+    // The dimensions of the board being solved, and its winning position.
+    private final int rows;
+    private final int columns;
+    private final long goal;
+
+    // Spots positions which can no longer be won without searching them, and estimates
+    // how far the rest are from the goal. The heuristic is only built once it is first
+    // needed, since building it takes a moment.
+    private final DeadlockDetector deadlocks;
+    private final boolean useHeuristic;
+    private PatternHeuristic heuristic;
+
+    // The distance to the goal of every position which has been fully searched, or a
+    // lower bound on it.
+    private final TranspositionTable distances = new TranspositionTable();
+
+    // The most bytes the solver may hold at once.
+    private long memoryBudget = Long.MAX_VALUE;
+
+    // The legal moves of every depth of the current search, PackedPosition.MAX_MOVES
+    // elements per depth, the heuristic's estimates of those moves, laid out the same
+    // way, by which a best effort search orders them, and the moves made so far by a
+    // best effort search.
+    private int[] moveStack = new int[PackedPosition.MAX_MOVES * 64];
+    private int[] estimateStack = new int[PackedPosition.MAX_MOVES * 64];
+    private int[] pathStack = new int[64];
+
+    // The number of positions the current search may still visit, and whether it has
+    // run out.
+    private long remainingBudget;
+    private boolean outOfBudget;
+
+    // Counters describing the current or most recent search (see getMetrics()).
+    private long searchStartNanos;
+    private long elapsedNanos;
+    private long nodesExpanded;
+    private long successorsSearched;
+    private long tableProbes;
+    private long tableHits;
+    private final long[] pruned = new long[SolverMetrics.PRUNE_REASONS];
+    private int reportedDepth;
+    private int currentBound;
+
+    // The listener told about the counters every reportIntervalNanos, if any. Without a
+    // listener, nodesUntilReport never runs out.
+    private SolverMetrics.Listener metricsListener;
+    private long reportIntervalNanos;
+    private long nextReportNanos;
+    private long nodesUntilReport = Long.MAX_VALUE;
+
+    /**
+     * Creates a solver for boards of the given size.
+     *
+     * @param rows the number of rows of the board.
+     * @param columns the number of columns of the board.
+     */
+    public FrogsAndToadsSolver(int rows, int columns) {
+        this(rows, columns, true);
+    }
+
+    /**
+     * Creates a solver for boards of the given size, optionally without a heuristic, in
+     * which case every position reachable from the one being solved is searched.
+     *
+     * @param rows the number of rows of the board.
+     * @param columns the number of columns of the board.
+     * @param useHeuristic whether positions should be skipped using a PatternHeuristic.
+     */
+    FrogsAndToadsSolver(int rows, int columns, boolean useHeuristic) {
+        this.useHeuristic = useHeuristic;
+        this.rows = rows;
+        this.columns = columns;
+        this.goal = PackedPosition.fits(rows, columns) ?
+                PackedPosition.goal(rows, columns) : PackedPosition.NONE;
+        this.deadlocks = new DeadlockDetector(rows, columns);
+    }
+
+    /**
+     * Creates a solver for boards the same size as the given game's board.
+     *
+     * @param game the game whose board size should be solved.
+     */
+    public FrogsAndToadsSolver(FrogsAndToads game) {
+        this(game.countRows(), game.countColumns());
+    }
+
+    /**
+     * Checks if this solver is able to solve boards of its size at all.
+     *
+     * @return true if the board is small enough to be packed. False otherwise.
+     */
+    public boolean canSolve() {
+        return goal != PackedPosition.NONE;
+    }
+
+    /**
+     * Finds the fewest moves needed to win the game from the given position.
+     *
+     * @param position the packed position to solve.
+     * @return the length of an optimal path to the winning position, or UNSOLVABLE if
+     *         the game can no longer be won from the position.
+     */
+    public int distanceToGoal(long position) {
+        return distanceToGoal(position, Long.MAX_VALUE);
+    }
+
+    /**
+     * Finds the fewest moves needed to win the game from the given position, giving up
+     * once the given number of new positions have been visited.
+     *
+     * @param position the packed position to solve.
+     * @param maxPositions the most positions the search may visit.
+     * @return the length of an optimal path to the winning position, UNSOLVABLE if the
+     *         game can no longer be won from the position, or UNKNOWN if the search ran
+     *         out of budget.
+     */
+    public int distanceToGoal(long position, long maxPositions) {
+        if (!canSolve() || position == PackedPosition.NONE ||
+                deadlocks.isDead(position)) {
+            return UNSOLVABLE;
+        }
+        if (useHeuristic && heuristic == null) {
+            heuristic = PatternHeuristic.forBoard(rows, columns);
+        }
+        remainingBudget = maxPositions;
+        outOfBudget = false;
+        resetMetrics();
+
+        // Raise the bound to the lower bound each failed pass proves, until a pass finds
+        // the exact distance. Without a heuristic, a single unbounded pass is enough.
+        int bound = useHeuristic ? 0 : Integer.MAX_VALUE;
+        int distance;
+        while (true) {
+            currentBound = bound;
+            distance = search(position, 0, bound);
+            if (outOfBudget) {
+                distance = UNKNOWN;
+                break;
+            } else if (distance >= UNSOLVABLE) {
+                break;
+            }
+            bound = LOWER_BOUND - distance;
+        }
+
+        elapsedNanos = System.nanoTime() - searchStartNanos;
+        reportedDepth = 0;
+        if (metricsListener != null) {
+            metricsListener.onSearchProgress(getMetrics());
+        }
+        return distance;
+    }
+
+    /**
+     * Finds a move which begins an optimal path from the given position to the winning
+     * position.
+     *
+     * @param position the packed position to solve.
+     * @return the packed move, or NO_MOVE if the position is already won or the game can
+     *         no longer be won from it.
+     */
+    public int bestMove(long position) {
+        return bestMove(position, Long.MAX_VALUE);
+    }
+
+    /**
+     * Finds a move which begins an optimal path from the given position to the winning
+     * position, giving up once the given number of new positions have been visited.
+     *
+     * @param position the packed position to solve.
+     * @param maxPositions the most positions the search may visit.
+     * @return the packed move, NO_MOVE if the position is already won or the game can
+     *         no longer be won from it, or UNKNOWN if the search ran out of budget.
+     */
+    public int bestMove(long position, long maxPositions) {
+        int distance = distanceToGoal(position, maxPositions);
+        if (distance == UNKNOWN) {
+            return UNKNOWN;
+        } else if (distance <= 0) {
+            return NO_MOVE;
+        }
+
+        // The successors are searched one level deep, so they do not overwrite these
+        // moves at the bottom of the move stack.
+        int count = PackedPosition.legalMoves(position, rows, columns, moveStack);
+        for (int i = 0; i < count; i++) {
+            int move = moveStack[i];
+            if (!deadlocks.moveCausesDeadlock(position, move) &&
+                    search(PackedPosition.move(position, move), 1, distance - 1) ==
+                            distance - 1) {
+                return move;
+            }
+
+            // With a memory budget, the successors may have been forgotten since the
+            // distance was worked out, and searching them again can run out of budget.
+            if (outOfBudget) {
+                return UNKNOWN;
+            }
+        }
+        return NO_MOVE;
+    }
+
+    /**
+     * Finds an optimal path from the given position to the winning position.
+     *
+     * @param position the packed position to solve.
+     * @return the packed moves of an optimal path, in order. Empty if the position is
+     *         already won or the game can no longer be won from it.
+     */
+    public int[] solve(long position) {
+        return solve(position, Long.MAX_VALUE);
+    }
+
+    /**
+     * Finds an optimal path from the given position to the winning position, giving up
+     * once the given number of new positions have been visited, all told, between
+     * working out the distance and rebuilding the path move by move.
+     *
+     * @param position the packed position to solve.
+     * @param maxPositions the most positions the search may visit.
+     * @return the packed moves of an optimal path, in order, which is empty if the
+     *         position is already won or the game can no longer be won from it, or null
+     *         if the search ran out of budget.
+     */
+    int[] solve(long position, long maxPositions) {
+        int distance = distanceToGoal(position, maxPositions);
+        if (distance == UNKNOWN) {
+            return null;
+        }
+
+        // Each move is found with whatever budget the searches before it left over.
+        // Without a memory budget every position it needs is still in the table, so
+        // this costs next to nothing.
+        int[] path = new int[Math.max(0, distance)];
+        for (int i = 0; i < path.length; i++) {
+            path[i] = bestMove(position, remainingBudget);
+            if (path[i] == UNKNOWN) {
+                return null;
+            }
+            position = PackedPosition.move(position, path[i]);
+        }
+        return path;
+    }
+
+    /**
+     * Finds a path from the given position to the winning position, staying within the
+     * solver's memory budget. A breadth first search is tried first if it fits, then the
+     * iterative deepening search (forgetting positions as needed to stay within the
+     * budget), and if that runs out of positions to visit, either while finding the
+     * distance or while rebuilding the path, a depth first search which simply takes the
+     * first path it finds.
+     *
+     * @param position the packed position to solve.
+     * @param maxPositions the most positions each fallback search may visit.
+     * @return the path found, how it was found, and the most memory it took.
+     */
+    public SolverResult findPath(long position, long maxPositions) {
+        if (!canSolve() || position == PackedPosition.NONE) {
+            return new SolverResult(new int[0], SolverResult.MODE_BEST_EFFORT, 0);
+        }
+
+        // Breadth first search has to share the budget with what the transposition
+        // table already holds.
+        BidirectionalSearch breadthFirst = new BidirectionalSearch(rows, columns);
+        breadthFirst.setMemoryBudget(Math.max(0, memoryBudget - bytesInUse()));
+        int[] path = breadthFirst.solve(position);
+        long peakBytes = breadthFirst.peakBytes() + bytesInUse();
+        if (!breadthFirst.ranOutOfMemory()) {
+            return new SolverResult(path, SolverResult.MODE_BREADTH_FIRST, peakBytes);
+        }
+
+        path = solve(position, maxPositions);
+        if (path != null) {
+            peakBytes = Math.max(peakBytes,
+                    bytesInUse() + (long) Integer.BYTES * path.length);
+            return new SolverResult(path, SolverResult.MODE_ITERATIVE_DEEPENING, peakBytes);
+        }
+
+        path = bestEffortPath(position, maxPositions);
+        peakBytes = Math.max(peakBytes, bytesInUse() +
+                (long) Integer.BYTES * (pathStack.length + path.length));
+        return new SolverResult(path, SolverResult.MODE_BEST_EFFORT, peakBytes);
+    }
+
+    /**
+     * Limits the memory the solver may hold at once from now on, forgetting positions
+     * right away if it already holds more.
+     *
+     * @param bytes the most bytes the solver may hold at once.
+     */
+    public void setMemoryBudget(long bytes) {
+        memoryBudget = bytes;
+        distances.setMaxBytes(Math.max(0, bytes - STACK_AND_PATH_BYTES));
+    }
+
+    /**
+     * Takes a snapshot of the counters of the current or most recent search. While a
+     * search is running, the snapshot is as of the last report to the metrics listener.
+     *
+     * @return the snapshot.
+     */
+    public SolverMetrics getMetrics() {
+        return new SolverMetrics(elapsedNanos, nodesExpanded, successorsSearched,
+                reportedDepth, currentBound, tableProbes, tableHits, distances.size(),
+                distances.evictions(), pruned);
+    }
+
+    /**
+     * Sets a listener to be told about the progress of every search from now on, about
+     * once per the given interval and once more when the search finishes. The listener
+     * is called on whichever thread is searching.
+     *
+     * @param listener the listener, or null to stop reporting.
+     * @param intervalMillis the time between reports, in milliseconds.
+     */
+    public void setMetricsListener(SolverMetrics.Listener listener, long intervalMillis) {
+        metricsListener = listener;
+        reportIntervalNanos = intervalMillis * 1_000_000;
+        nodesUntilReport = (listener == null) ? Long.MAX_VALUE : NODES_PER_CLOCK_CHECK;
+    }
+
+    /**
+     * @return the number of positions whose distance to the goal this solver has
+     *         worked out and remembered so far.
+     */
+    public int positionsSolved() {
+        return distances.size();
+    }
+
+    /**
+     * Forgets every position this solver has worked out, releasing the memory they took.
+     */
+    public void clear() {
+        distances.clear();
+    }
+
+    /**
+     * Searches the given position and every position reachable from it within the given
+     * number of moves, depth first, remembering what it finds out about each.
+     *
+     * @param position the packed position to search.
+     * @param depth how many moves deep the search currently is.
+     * @param bound the most moves a path from the position may take.
+     * @return the distance to the goal of the position if it is within the bound,
+     *         UNSOLVABLE, UNKNOWN if the search ran out of budget, or LOWER_BOUND minus
+     *         a lower bound on the distance if it is beyond the bound.
+     */
+    private int search(long position, int depth, int bound) {
+        if (position == goal) {
+            return 0;
+        }
+        tableProbes++;
+        int known = distances.get(position);
+        int estimate = 0;
+        if (known != TranspositionTable.MISSING) {
+            tableHits++;
+            if (known >= UNSOLVABLE) {
+                return known;
+            }
+            estimate = LOWER_BOUND - known;
+            if (estimate > bound) {
+                pruned[SolverMetrics.PRUNED_TABLE]++;
+                return known;
+            }
+        }
+        if (--remainingBudget < 0) {
+            outOfBudget = true;
+            return UNKNOWN;
+        }
+
+        // Positions which are too far from the goal are not worth remembering, since the
+        // heuristic says so again just as quickly.
+        if (heuristic != null) {
+            int guess = heuristic.estimate(position);
+            if (guess == PatternHeuristic.UNSOLVABLE) {
+                pruned[SolverMetrics.PRUNED_UNWINNABLE]++;
+                distances.put(position, UNSOLVABLE);
+                return UNSOLVABLE;
+            } else if (guess > bound) {
+                pruned[SolverMetrics.PRUNED_HEURISTIC]++;
+                return LOWER_BOUND - Math.max(estimate, guess);
+            }
+        }
+
+        int offset = depth * PackedPosition.MAX_MOVES;
+        if (offset + PackedPosition.MAX_MOVES > moveStack.length) {
+            moveStack = Arrays.copyOf(moveStack, moveStack.length * 2);
+        }
+        int count = PackedPosition.legalMoves(position, rows, columns, moveStack, offset);
+        nodesExpanded++;
+        if (--nodesUntilReport == 0) {
+            reportProgress(depth);
+        }
+
+        // The distance of this position is one more than its closest successor's. If no
+        // successor is within the bound, the closest lower bound is one less than the
+        // lower bound of this position.
+        int distance = UNSOLVABLE;
+        for (int i = 0; i < count; i++) {
+            int move = moveStack[offset + i];
+            if (deadlocks.moveCausesDeadlock(position, move)) {
+                pruned[SolverMetrics.PRUNED_DEADLOCK]++;
+                continue;
+            }
+            successorsSearched++;
+            int successor = search(PackedPosition.move(position, move), depth + 1,
+                    bound - 1);
+
+            // An unfinished search says nothing about this position, so do not
+            // remember anything about it.
+            if (outOfBudget) {
+                return UNKNOWN;
+            }
+            if (successor == UNSOLVABLE) {
+                continue;
+            }
+            int through = ((successor >= 0) ? successor : LOWER_BOUND - successor) + 1;
+            if (distance == UNSOLVABLE || through < distance) {
+                distance = through;
+            }
+        }
+        if (distance > bound) {
+            distance = LOWER_BOUND - distance;
+        }
+        distances.put(position, distance);
+        return distance;
+    }
+
+    /**
+     * Finds some path from the given position to the winning position, depth first,
+     * trying the moves the heuristic likes best first and taking the first path found.
+     * Nothing is remembered, so this takes almost no memory, but the path found may be
+     * longer than necessary.
+     *
+     * @param position the packed position to solve.
+     * @param maxPositions the most positions the search may visit.
+     * @return the packed moves of the path, in order. Empty if no path was found.
+     */
+    private int[] bestEffortPath(long position, long maxPositions) {
+
+        // The constructive solution needs no searching at all.
+        if (position == PackedPosition.start(rows, columns)) {
+            ConstructiveSolution solution = new ConstructiveSolution(rows, columns);
+            int[] path = new int[(int) ConstructiveSolution.length(rows, columns)];
+            for (int i = 0; i < path.length; i++) {
+                path[i] = solution.nextInt();
+            }
+            return path;
+        }
+
+        remainingBudget = maxPositions;
+        int length = descend(position, 0);
+        return (length > 0) ? Arrays.copyOf(pathStack, length) : new int[0];
+    }
+
+    /**
+     * Searches for any path to the goal, depth first, recording its moves in pathStack.
+     *
+     * @return the length of the path found, or UNSOLVABLE if there is none or the search
+     *         ran out of budget.
+     */
+    private int descend(long position, int depth) {
+        if (position == goal) {
+            return depth;
+        }
+        if (--remainingBudget < 0) {
+            return UNSOLVABLE;
+        }
+
+        int offset = depth * PackedPosition.MAX_MOVES;
+        if (offset + PackedPosition.MAX_MOVES > moveStack.length) {
+            moveStack = Arrays.copyOf(moveStack, moveStack.length * 2);
+        }
+        if (offset + PackedPosition.MAX_MOVES > estimateStack.length) {
+            estimateStack = Arrays.copyOf(estimateStack, moveStack.length);
+        }
+        if (depth >= pathStack.length) {
+            pathStack = Arrays.copyOf(pathStack, pathStack.length * 2);
+        }
+        int count = PackedPosition.legalMoves(position, rows, columns, moveStack, offset);
+
+        // Sort the moves so the ones the heuristic rates closest to the goal come first,
+        // leaving out any which lose the game. The estimates of this depth are kept in
+        // its own part of estimateStack, so nothing is allocated per position.
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            int move = moveStack[offset + i];
+            if (deadlocks.moveCausesDeadlock(position, move)) {
+                continue;
+            }
+            int estimate = (heuristic == null) ? 0 :
+                    heuristic.estimate(PackedPosition.move(position, move));
+            if (estimate == PatternHeuristic.UNSOLVABLE) {
+                continue;
+            }
+            int j = kept++;
+            for (; j > 0 && estimateStack[offset + j - 1] > estimate; j--) {
+                estimateStack[offset + j] = estimateStack[offset + j - 1];
+                moveStack[offset + j] = moveStack[offset + j - 1];
+            }
+            estimateStack[offset + j] = estimate;
+            moveStack[offset + j] = move;
+        }
+
+        for (int i = 0; i < kept; i++) {
+            int move = moveStack[offset + i];
+            pathStack[depth] = move;
+            int length = descend(PackedPosition.move(position, move), depth + 1);
+            if (length != UNSOLVABLE) {
+                return length;
+            }
+        }
+        return UNSOLVABLE;
+    }
+
+    private void resetMetrics() {
+        searchStartNanos = System.nanoTime();
+        nextReportNanos = searchStartNanos + reportIntervalNanos;
+        elapsedNanos = 0;
+        nodesExpanded = 0;
+        successorsSearched = 0;
+        tableProbes = 0;
+        tableHits = 0;
+        Arrays.fill(pruned, 0);
+    }
+
+    /**
+     * Tells the metrics listener how the search is going, if it is due another report.
+     */
+    private void reportProgress(int depth) {
+        nodesUntilReport = NODES_PER_CLOCK_CHECK;
+        long now = System.nanoTime();
+        if (now >= nextReportNanos) {
+            nextReportNanos = now + reportIntervalNanos;
+            elapsedNanos = now - searchStartNanos;
+            reportedDepth = depth;
+            metricsListener.onSearchProgress(getMetrics());
+        }
+    }
+
+    /**
+     * @return the bytes held by the transposition table, move stack, and estimate
+     *         stack.
+     */
+    private long bytesInUse() {
+        return distances.sizeInBytes() +
+                (long) Integer.BYTES * (moveStack.length + estimateStack.length);
+    }
+}
@@ -0,0 +1,376 @@
+package net.kenneydiaz.tyler.frogsandtoads;
+
+import java.util.Arrays;
+
+/**
+ * Many games of Frogs and Toads on boards of the same size, stepped together. This is
+ * for simulations, such as playing out thousands of random games to generate training
+ * data, where a FrogsAndToads object per game would spend most of its time allocating
+ * move lists and chasing pointers between arrays.
+ *
+ * Rather than an object per game, a batch keeps each field of every game in a flat
+ * array of primitives, indexed by the number of the game: the packed position of each
+ * game (see PackedPosition), its legal moves, its status, and the number of moves made
+ * in it. Each call to step() or stepRandom() makes one move in every game still being
+ * played, and then updates the legal moves of every game in one pass over the arrays.
+ *
+ * The legal moves of a game are kept as a mask of directions, with bit d set if a piece
+ * can move into the empty cell from direction d (FROM_ABOVE, FROM_BELOW, FROM_LEFT, or
+ * FROM_RIGHT). Each direction has at most one legal move, since a frog or toad may only
+ * jump when it cannot step. The bits are in the same order as the moves returned by
+ * PackedPosition.legalMoves(), so the kth set bit of a game's mask is its kth legal
+ * move.
+ *
+ * @author Tyler Kenney
+ */
+public class GameBatch {
+
+    // The status of each game.
+    public static final int PLAYING = 0;
+    public static final int WON = 1;
+    public static final int STALLED = 2;
+
+    // The directions a piece can move into the empty cell from. Frogs move down and to
+    // the right, so they come from above and from the left, and toads the other way.
+    public static final int FROM_ABOVE = 0;
+    public static final int FROM_BELOW = 1;
+    public static final int FROM_LEFT = 2;
+    public static final int FROM_RIGHT = 3;
+    public static final int DIRECTIONS = 4;
+
+    // The sentinel given in place of a direction or cell when there is no move.
+    public static final int NO_MOVE = -1;
+
+    // The dimensions of every board in the batch.
+    private final int rows;
+    private final int columns;
+
+    // The mask of every cell on the board, and the winning position.
+    private final long boardMask;
+    private final long goal;
+
+    // For each empty cell and direction, at index cell * DIRECTIONS + direction: the
+    // cell a piece steps from, the cell a piece jumps from, and the mask of both. A
+    // cell which is off the board is NO_MOVE, and is left out of the mask.
+    private final int[] stepCells;
+    private final int[] jumpCells;
+    private final long[] reachMasks;
+
+    // The state of each game, indexed by the number of the game.
+    private final long[] positions;
+    private final byte[] legalMasks;
+    private final byte[] statuses;
+    private final int[] movesMade;
+
+    // The state of the random number generator of each game, so that every game plays
+    // out the same way no matter how many others are in the batch.
+    private final long[] randomStates;
+
+    /**
+     * Creates a batch of games, each at the starting position.
+     *
+     * @param games the number of games in the batch.
+     * @param rows the (odd) number of rows of every board.
+     * @param columns the (odd) number of columns of every board.
+     * @throws IllegalArgumentException if there are no games, or the board is too large
+     *                                  to be packed.
+     */
+    public GameBatch(int games, int rows, int columns) {
+        if (games <= 0 || !PackedPosition.fits(rows, columns)) {
+            throw new IllegalArgumentException("Cannot batch " + games + " games of " +
+                    rows + "x" + columns);
+        }
+        this.rows = rows;
+        this.columns = columns;
+        int cells = rows * columns;
+        boardMask = (1L << cells) - 1;
+        goal = PackedPosition.goal(rows, columns);
+
+        stepCells = new int[cells * DIRECTIONS];
+        jumpCells = new int[cells * DIRECTIONS];
+        reachMasks = new long[cells * DIRECTIONS];
+        int[] rowSteps = {-1, 1, 0, 0};
+        int[] columnSteps = {0, 0, -1, 1};
+        for (int cell = 0; cell < cells; cell++) {
+            int row = cell / columns;
+            int column = cell % columns;
+            for (int direction = 0; direction < DIRECTIONS; direction++) {
+                int index = cell * DIRECTIONS + direction;
+                stepCells[index] = cellAt(row + rowSteps[direction],
+                        column + columnSteps[direction]);
+                jumpCells[index] = cellAt(row + 2 * rowSteps[direction],
+                        column + 2 * columnSteps[direction]);
+                if (stepCells[index] != NO_MOVE) {
+                    reachMasks[index] |= 1L << stepCells[index];
+                }
+                if (jumpCells[index] != NO_MOVE) {
+                    reachMasks[index] |= 1L << jumpCells[index];
+                }
+            }
+        }
+
+        positions = new long[games];
+        legalMasks = new byte[games];
+        statuses = new byte[games];
+        movesMade = new int[games];
+        randomStates = new long[games];
+        reset(PackedPosition.start(rows, columns));
+        seed(0);
+    }
+
+    /**
+     * Puts every game back at the same position.
+     *
+     * @param position the packed position to put every game at.
+     */
+    public void reset(long position) {
+        Arrays.fill(positions, position);
+        Arrays.fill(movesMade, 0);
+        updateLegalMoves();
+    }
+
+    /**
+     * Puts a single game at a position. The legal moves of the game are updated straight
+     * away.
+     *
+     * @param game the number of the game.
+     * @param position the packed position to put it at.
+     */
+    public void reset(int game, long position) {
+        positions[game] = position;
+        movesMade[game] = 0;
+        updateLegalMoves(game);
+    }
+
+    /**
+     * Seeds the random number generator of every game, each differently, so that the
+     * same seed always gives the same random games.
+     *
+     * @param seed the seed.
+     */
+    public void seed(long seed) {
+        for (int game = 0; game < randomStates.length; game++) {
+            long state = seed + (game + 1) * 0x9E3779B97F4A7C15L;
+            state = (state ^ (state >>> 33)) * 0xFF51AFD7ED558CCDL;
+            state = (state ^ (state >>> 33)) * 0xC4CEB9FE1A85EC53L;
+            state ^= state >>> 33;
+
+            // Xorshift never leaves the all-zero state, so it must never start there.
+            randomStates[game] = (state == 0) ? 1 : state;
+        }
+    }
+
+    /**
+     * Makes one move in every game still being played, in the direction chosen for it.
+     * A game whose direction is NO_MOVE, or not one of its legal moves, is left as it
+     * is.
+     *
+     * @param directions the direction to move in, for each game.
+     * @return the number of games a move was made in.
+     */
+    public int step(byte[] directions) {
+        int moved = 0;
+        for (int game = 0; game < positions.length; game++) {
+            int direction = directions[game];
+            if (direction >= 0 && direction < DIRECTIONS &&
+                    (legalMasks[game] & (1 << direction)) != 0) {
+                positions[game] = moveFrom(positions[game], direction);
+                movesMade[game]++;
+                moved++;
+            }
+        }
+        updateLegalMoves();
+        return moved;
+    }
+
+    /**
+     * Makes one move in every game still being played, chosen at random from its legal
+     * moves by the game's own random number generator.
+     *
+     * @return the number of games a move was made in.
+     */
+    public int stepRandom() {
+        int moved = 0;
+        for (int game = 0; game < positions.length; game++) {
+            int mask = legalMasks[game];
+            if (mask == 0) {
+                continue;
+            }
+
+            // Pick the kth legal move, by clearing the lowest set bit of the mask k
+            // times.
+            long state = randomStates[game];
+            state ^= state << 13;
+            state ^= state >>> 7;
+            state ^= state << 17;
+            randomStates[game] = state;
+            int k = (int) ((state >>> 1) % Integer.bitCount(mask));
+            for (int i = 0; i < k; i++) {
+                mask &= mask - 1;
+            }
+            positions[game] = moveFrom(positions[game],
+                    Integer.numberOfTrailingZeros(mask));
+            movesMade[game]++;
+            moved++;
+        }
+        updateLegalMoves();
+        return moved;
+    }
+
+    /**
+     * Plays every game out to the end with random moves.
+     *
+     * @param maxSteps the most steps to take, in case the games go on too long.
+     * @return the number of moves made across every game.
+     */
+    public long playOutRandom(int maxSteps) {
+        long moves = 0;
+        for (int i = 0; i < maxSteps; i++) {
+            int moved = stepRandom();
+            if (moved == 0) {
+                break;
+            }
+            moves += moved;
+        }
+        return moves;
+    }
+
+    /**
+     * Works out the legal moves and status of every game, in one pass over the arrays.
+     * The loop has no branches other than its own, so that the JIT can keep it tight.
+     */
+    public void updateLegalMoves() {
+        for (int game = 0; game < positions.length; game++) {
+            updateLegalMoves(game);
+        }
+    }
+
+    private void updateLegalMoves(int game) {
+        long position = positions[game];
+        int empty = PackedPosition.emptyCell(position);
+        long toads = PackedPosition.toads(position);
+        long frogs = ~toads & boardMask & ~(1L << empty);
+        int index = empty * DIRECTIONS;
+
+        // A frog can move in if there is one it can step or jump from, since it only
+        // jumps when the cell between holds a toad, and the other way around.
+        int mask = nonZero(frogs & reachMasks[index + FROM_ABOVE]) |
+                nonZero(toads & reachMasks[index + FROM_BELOW]) << FROM_BELOW |
+                nonZero(frogs & reachMasks[index + FROM_LEFT]) << FROM_LEFT |
+                nonZero(toads & reachMasks[index + FROM_RIGHT]) << FROM_RIGHT;
+        legalMasks[game] = (byte) mask;
+        statuses[game] = (byte) ((mask != 0) ? PLAYING :
+                (position == goal) ? WON : STALLED);
+    }
+
+    /**
+     * @param game the number of a game.
+     * @param direction the direction a piece could move into the empty cell from.
+     * @return the cell of the piece which moves from that direction (the packed move),
+     *         or NO_MOVE if there is no legal move from it.
+     */
+    public int moveCell(int game, int direction) {
+        if ((legalMasks[game] & (1 << direction)) == 0) {
+            return NO_MOVE;
+        }
+        long position = positions[game];
+        int index = PackedPosition.emptyCell(position) * DIRECTIONS + direction;
+        return movesIn(position, direction, stepCells[index]) ? stepCells[index] :
+                jumpCells[index];
+    }
+
+    public int countGames() {
+        return positions.length;
+    }
+
+    /**
+     * @return the number of games which still have a legal move.
+     */
+    public int countPlaying() {
+        int playing = 0;
+        for (byte status : statuses) {
+            playing += (status == PLAYING) ? 1 : 0;
+        }
+        return playing;
+    }
+
+    /**
+     * @return the number of games which have been won.
+     */
+    public int countWon() {
+        int won = 0;
+        for (byte status : statuses) {
+            won += (status == WON) ? 1 : 0;
+        }
+        return won;
+    }
+
+    public long getPosition(int game) {
+        return positions[game];
+    }
+
+    /**
+     * @param game the number of a game.
+     * @return PLAYING, WON, or STALLED.
+     */
+    public int getStatus(int game) {
+        return statuses[game];
+    }
+
+    /**
+     * @param game the number of a game.
+     * @return the mask of directions the game has a legal move from.
+     */
+    public int getLegalMask(int game) {
+        return legalMasks[game];
+    }
+
+    public int countMovesMade(int game) {
+        return movesMade[game];
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    /**
+     * Makes the legal move from the given direction, which is assumed to exist.
+     */
+    private long moveFrom(long position, int direction) {
+        int empty = PackedPosition.emptyCell(position);
+        int index = empty * DIRECTIONS + direction;
+        int step = stepCells[index];
+        int cell = movesIn(position, direction, step) ? step : jumpCells[index];
+
+        // Only a toad changes the toad bits, by swapping places with the empty cell.
+        long toads = PackedPosition.toads(position);
+        long toad = (toads >>> cell) & 1;
+        toads = (toads & ~(toad << cell)) | (toad << empty);
+        return PackedPosition.of(toads, cell);
+    }
+
+    /**
+     * Checks if the piece in the given cell, next to the empty cell, is the kind which
+     * moves in from the given direction.
+     */
+    private static boolean movesIn(long position, int direction, int cell) {
+        boolean toadsMoveIn = direction == FROM_BELOW || direction == FROM_RIGHT;
+        return toadsMoveIn == PackedPosition.toadAt(position, cell);
+    }
+
+    /**
+     * @return 1 if the value is not zero, or 0 if it is, without branching.
+     */
+    private static int nonZero(long value) {
+        return (int) ((value | -value) >>> 63);
+    }
+
+    private int cellAt(int row, int column) {
+        return (row < 0 || row >= rows || column < 0 || column >= columns) ? NO_MOVE :
+                row * columns + column;
+    }
+}
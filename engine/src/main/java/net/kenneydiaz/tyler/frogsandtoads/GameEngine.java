@@ -0,0 +1,59 @@
+package net.kenneydiaz.tyler.frogsandtoads;
+
+import java.util.List;
+
+/**
+ * The rules of Frogs and Toads as seen by a player: the board, the legal moves, and
+ * moving and undoing. FrogsAndToads is the reference implementation, and every faster
+ * engine written since (such as PackedGame) must behave exactly like it, which
+ * EngineFuzzer checks.
+ *
+ * Coordinates are a row and a column, counted from the top left of the board. Asking
+ * about a cell which is off the board is never an error: there is simply nothing there.
+ *
+ * @author Tyler Kenney
+ */
+public interface GameEngine {
+
+    int countRows();
+
+    int countColumns();
+
+    /**
+     * Moves the frog or toad at the given cell into the empty space, if that is a legal
+     * move. Otherwise, nothing happens.
+     */
+    void move(int i, int j);
+
+    /**
+     * Takes back the last move, if there is one. Otherwise, nothing happens.
+     */
+    void undo();
+
+    boolean hasPreviousMove();
+
+    /**
+     * @return the row and column of the piece of every legal move, as arrays of two
+     *         integers, in the order FrogsAndToads.getLegalMoves() gives them.
+     */
+    List<int[]> getLegalMoves();
+
+    boolean canMove();
+
+    /**
+     * @return true if the game has been won.
+     */
+    boolean over();
+
+    boolean emptyAt(int i, int j);
+
+    boolean frogAt(int i, int j);
+
+    boolean toadAt(int i, int j);
+
+    /**
+     * @return the packed position of the board (see PackedPosition), or
+     *         PackedPosition.NONE if the board is too large to be packed.
+     */
+    long pack();
+}
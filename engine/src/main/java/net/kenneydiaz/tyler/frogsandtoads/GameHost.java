@@ -0,0 +1,182 @@
+package net.kenneydiaz.tyler.frogsandtoads;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps many games in memory at once, each in its own session, and plays moves in them
+ * for any number of threads at once. This is the in-process side of a headless game
+ * server (see GameServer), and can just as well be driven directly, for example by a
+ * load test.
+ *
+ * Moves within a session are serialized, so two moves sent to the same game at once are
+ * made one after the other, while moves in different sessions run in parallel. Rather
+ * than a lock per session, sessions share a fixed set of striped locks, picked by the
+ * session's number, so thousands of sessions cost no more locks than a few.
+ *
+ * Each session plays on a PackedGame when its board can be packed, which takes a few
+ * dozen bytes per game, and on a FrogsAndToads game otherwise. The time every move took,
+ * including any time spent waiting for its session's lock, is recorded so that the
+ * host can report its median and 99th percentile move latency under load.
+ *
+ * @author Tyler Kenney
+ */
+public class GameHost {
+
+    // What can come of a move or an undo.
+    public static final int MOVED = 0;
+    public static final int ILLEGAL = 1;
+
+    // The sentinel returned by anything asked of a session which is not open.
+    public static final int NO_SUCH_SESSION = -1;
+
+    // What a session's game can be doing.
+    public static final int PLAYING = 0;
+    public static final int WON = 1;
+    public static final int STALLED = 2;
+
+    // The sentinel returned in place of a session number when none could be opened.
+    public static final long NO_SESSION = -1;
+
+    // The number of locks sessions are striped across (a power of two).
+    private static final int STRIPES = 64;
+
+    // The largest board a session may play on, so no client can exhaust the memory.
+    public static final int MAX_DIMENSION = 101;
+
+    private final ConcurrentHashMap<Long, GameEngine> sessions =
+            new ConcurrentHashMap<>();
+    private final Object[] locks = new Object[STRIPES];
+    private final AtomicLong nextSession = new AtomicLong();
+    private final LatencyRecorder moveLatency = new LatencyRecorder();
+
+    public GameHost() {
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    /**
+     * Opens a session with a new game at the starting position.
+     *
+     * @param rows the (odd) number of rows of the board.
+     * @param columns the (odd) number of columns of the board.
+     * @return the number of the new session, or NO_SESSION if the board is not a
+     *         positive odd size no larger than MAX_DIMENSION.
+     */
+    public long open(int rows, int columns) {
+        if (rows <= 0 || columns <= 0 || rows % 2 == 0 || columns % 2 == 0 ||
+                rows > MAX_DIMENSION || columns > MAX_DIMENSION) {
+            return NO_SESSION;
+        }
+        GameEngine game = PackedPosition.fits(rows, columns) ?
+                new PackedGame(rows, columns) : new FrogsAndToads(rows, columns);
+        long session = nextSession.getAndIncrement();
+        sessions.put(session, game);
+        return session;
+    }
+
+    /**
+     * Closes a session, forgetting its game.
+     *
+     * @param session the number of the session.
+     * @return true if there was such a session.
+     */
+    public boolean close(long session) {
+        return sessions.remove(session) != null;
+    }
+
+    /**
+     * Moves the frog or toad at the given cell of a session's game into the empty space.
+     *
+     * @param session the number of the session.
+     * @param row the row of the piece to move.
+     * @param column the column of the piece to move.
+     * @return MOVED, ILLEGAL if the move is not legal, or NO_SUCH_SESSION.
+     */
+    public int move(long session, int row, int column) {
+        long start = System.nanoTime();
+        int result = NO_SUCH_SESSION;
+        GameEngine game = sessions.get(session);
+        if (game != null) {
+            synchronized (lockOf(session)) {
+
+                // A legal move always leaves the empty space where the piece was.
+                boolean wasEmpty = game.emptyAt(row, column);
+                game.move(row, column);
+                boolean moved = !wasEmpty && game.emptyAt(row, column);
+                result = moved ? MOVED : ILLEGAL;
+            }
+        }
+        moveLatency.record(System.nanoTime() - start);
+        return result;
+    }
+
+    /**
+     * Takes back the last move of a session's game.
+     *
+     * @param session the number of the session.
+     * @return MOVED, ILLEGAL if no move has been made, or NO_SUCH_SESSION.
+     */
+    public int undo(long session) {
+        GameEngine game = sessions.get(session);
+        if (game == null) {
+            return NO_SUCH_SESSION;
+        }
+        synchronized (lockOf(session)) {
+            if (!game.hasPreviousMove()) {
+                return ILLEGAL;
+            }
+            game.undo();
+            return MOVED;
+        }
+    }
+
+    /**
+     * @param session the number of the session.
+     * @return PLAYING, WON, or STALLED, or NO_SUCH_SESSION.
+     */
+    public int getStatus(long session) {
+        GameEngine game = sessions.get(session);
+        if (game == null) {
+            return NO_SUCH_SESSION;
+        }
+        synchronized (lockOf(session)) {
+            return game.over() ? WON : game.canMove() ? PLAYING : STALLED;
+        }
+    }
+
+    /**
+     * @param session the number of the session.
+     * @return the position of the session's game in text form (see PositionCodec), or
+     *         null if there is no such session.
+     */
+    public String show(long session) {
+        GameEngine game = sessions.get(session);
+        if (game == null) {
+            return null;
+        }
+        synchronized (lockOf(session)) {
+            return PositionCodec.format(game);
+        }
+    }
+
+    /**
+     * @return the number of sessions open.
+     */
+    public int countSessions() {
+        return sessions.size();
+    }
+
+    /**
+     * @return the latencies of every move made so far, from the moment move() was called
+     *         until it returned.
+     */
+    public LatencyRecorder getMoveLatency() {
+        return moveLatency;
+    }
+
+    private Object lockOf(long session) {
+        return locks[(int) (session ^ (session >>> 32)) & (STRIPES - 1)];
+    }
+}
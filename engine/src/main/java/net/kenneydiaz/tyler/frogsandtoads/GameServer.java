@@ -0,0 +1,188 @@
+package net.kenneydiaz.tyler.frogsandtoads;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Serves the games of a GameHost over a socket on the local machine, so that games can
+ * be played, simulated, or load tested from outside the JVM. Each client connection is
+ * served by its own thread, and any number of clients may play in any sessions at once.
+ *
+ * The protocol is plain text, one command per line and one reply per command:
+ *
+ *   OPEN rows columns        OK session
+ *   MOVE session row column  OK, or ILLEGAL
+ *   UNDO session             OK, or ILLEGAL
+ *   STATUS session           PLAYING, WON, or STALLED
+ *   SHOW session             OK position, in text form (see PositionCodec)
+ *   CLOSE session            OK
+ *   STATS                    OK sessions=n moves=n p50us=n p99us=n
+ *
+ * A command which cannot be carried out is answered with ERR and the reason.
+ *
+ * @author Tyler Kenney
+ */
+public class GameServer implements AutoCloseable {
+
+    // The port served on when none is given to main().
+    public static final int DEFAULT_PORT = 7171;
+
+    private final GameHost host;
+    private final ServerSocket serverSocket;
+    private final ExecutorService clients = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "GameServer client");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Starts serving a host's games on the loopback address.
+     *
+     * @param host the host whose games to serve.
+     * @param port the port to listen on, or 0 for any free port.
+     * @throws IOException if the port could not be listened on.
+     */
+    public GameServer(GameHost host, int port) throws IOException {
+        this.host = host;
+        serverSocket = new ServerSocket(port, 0, InetAddress.getLoopbackAddress());
+        clients.execute(this::accept);
+    }
+
+    /**
+     * @return the port being listened on.
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Stops listening and disconnects every client. Sessions stay open in the host.
+     */
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        clients.shutdownNow();
+    }
+
+    /**
+     * Accepts clients until the server is closed.
+     */
+    private void accept() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                clients.execute(() -> serve(socket));
+            } catch (IOException e) {
+                // Closing the server socket ends up here, which ends the loop.
+            }
+        }
+    }
+
+    /**
+     * Answers a single client's commands until it disconnects.
+     */
+    private void serve(Socket socket) {
+        try (Socket client = socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(
+                     client.getInputStream(), StandardCharsets.UTF_8));
+             Writer out = new BufferedWriter(new OutputStreamWriter(
+                     client.getOutputStream(), StandardCharsets.UTF_8))) {
+            for (String line; (line = in.readLine()) != null; ) {
+                out.write(execute(line));
+                out.write('\n');
+
+                // Only wait to send replies while more commands are already waiting,
+                // so pipelined commands are answered together.
+                if (!in.ready()) {
+                    out.flush();
+                }
+            }
+        } catch (IOException e) {
+            // The client went away.
+        }
+    }
+
+    /**
+     * Carries out a single command.
+     *
+     * @param line the command.
+     * @return the reply, without a line break.
+     */
+    String execute(String line) {
+        String[] words = line.trim().split("\\s+");
+        try {
+            switch (words[0].toUpperCase(Locale.ROOT)) {
+                case "OPEN": {
+                    long session = host.open(Integer.parseInt(words[1]),
+                            Integer.parseInt(words[2]));
+                    return (session == GameHost.NO_SESSION) ? "ERR bad board size" :
+                            "OK " + session;
+                }
+                case "MOVE":
+                    return reply(host.move(Long.parseLong(words[1]),
+                            Integer.parseInt(words[2]), Integer.parseInt(words[3])));
+                case "UNDO":
+                    return reply(host.undo(Long.parseLong(words[1])));
+                case "STATUS": {
+                    int status = host.getStatus(Long.parseLong(words[1]));
+                    return (status == GameHost.PLAYING) ? "PLAYING" :
+                            (status == GameHost.WON) ? "WON" :
+                            (status == GameHost.STALLED) ? "STALLED" :
+                            "ERR no such session";
+                }
+                case "SHOW": {
+                    String position = host.show(Long.parseLong(words[1]));
+                    return (position == null) ? "ERR no such session" : "OK " + position;
+                }
+                case "CLOSE":
+                    return host.close(Long.parseLong(words[1])) ? "OK" :
+                            "ERR no such session";
+                case "STATS": {
+                    LatencyRecorder latency = host.getMoveLatency();
+                    return "OK sessions=" + host.countSessions() + " moves=" +
+                            latency.count() + " p50us=" +
+                            latency.getPercentileNanos(50) / 1000 + " p99us=" +
+                            latency.getPercentileNanos(99) / 1000;
+                }
+                default:
+                    return "ERR unknown command";
+            }
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            return "ERR malformed command";
+        }
+    }
+
+    private static String reply(int result) {
+        return (result == GameHost.MOVED) ? "OK" :
+                (result == GameHost.ILLEGAL) ? "ILLEGAL" : "ERR no such session";
+    }
+
+    /**
+     * Serves a new host's games until the process is stopped.
+     *
+     * @param args optionally, the port to listen on.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int port = (args.length > 0) ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        GameHost host = new GameHost();
+        GameServer server = new GameServer(host, port);
+        System.out.println("Serving games on localhost:" + server.getPort());
+        while (true) {
+            Thread.sleep(10_000);
+            System.out.println(host.countSessions() + " sessions, moves: " +
+                    host.getMoveLatency());
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package net.kenneydiaz.tyler.frogsandtoads;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Records how long many operations took, from any number of threads at once, cheaply
+ * enough to record every one of them, and reports percentiles of them such as the
+ * median (p50) and the 99th percentile (p99).
+ *
+ * Latencies are counted in buckets rather than kept. Each power of two of nanoseconds
+ * is split into SUB_BUCKETS buckets of equal width, so every bucket is within 1 /
+ * SUB_BUCKETS (about 3%) of the latencies in it, from a nanosecond up to several
+ * minutes, in a fixed couple of thousand counters. Recording a latency is a single
+ * atomic increment.
+ *
+ * @author Tyler Kenney
+ */
+public class LatencyRecorder {
+
+    // The number of buckets each power of two is split into (a power of two itself),
+    // and the number of powers of two covered.
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int POWERS = 40;
+
+    private final AtomicLongArray counts = new AtomicLongArray(POWERS * SUB_BUCKETS);
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records a single latency.
+     *
+     * @param nanos how long the operation took, in nanoseconds.
+     */
+    public void record(long nanos) {
+        nanos = Math.max(0, nanos);
+        counts.incrementAndGet(bucketOf(nanos));
+        total.incrementAndGet();
+        long previous;
+        while (nanos > (previous = max.get()) && !max.compareAndSet(previous, nanos)) {
+            // Someone else recorded a new maximum first, so try again against theirs.
+        }
+    }
+
+    /**
+     * @return the number of latencies recorded.
+     */
+    public long count() {
+        return total.get();
+    }
+
+    /**
+     * @return the longest latency recorded, in nanoseconds, exactly.
+     */
+    public long getMaxNanos() {
+        return max.get();
+    }
+
+    /**
+     * Finds a percentile of the latencies recorded so far.
+     *
+     * @param percentile the percentile, from 0 to 100, such as 50 for the median.
+     * @return the highest latency of the bucket the percentile falls in, in
+     *         nanoseconds, or 0 if nothing has been recorded.
+     */
+    public long getPercentileNanos(double percentile) {
+        long recorded = total.get();
+        if (recorded == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(recorded * Math.min(100, Math.max(0, percentile)) /
+                100);
+        long seen = 0;
+        for (int bucket = 0; bucket < counts.length(); bucket++) {
+            seen += counts.get(bucket);
+            if (seen >= Math.max(1, rank)) {
+                return Math.min(highestIn(bucket), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * Forgets every latency recorded so far.
+     */
+    public void reset() {
+        for (int bucket = 0; bucket < counts.length(); bucket++) {
+            counts.set(bucket, 0);
+        }
+        total.set(0);
+        max.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d recorded, p50 %.1fus, p99 %.1fus, max %.1fus", count(),
+                getPercentileNanos(50) / 1e3, getPercentileNanos(99) / 1e3,
+                getMaxNanos() / 1e3);
+    }
+
+    /**
+     * Latencies below SUB_BUCKETS nanoseconds each get a bucket of their own. Above
+     * that, the highest set bit picks the power of two and the SUB_BUCKET_BITS bits
+     * below it pick the bucket within it.
+     */
+    private static int bucketOf(long nanos) {
+        if (nanos < SUB_BUCKETS) {
+            return (int) nanos;
+        }
+        int power = 63 - Long.numberOfLeadingZeros(nanos) - SUB_BUCKET_BITS + 1;
+        int sub = (int) (nanos >>> (power - 1)) & (SUB_BUCKETS - 1);
+        return Math.min(power * SUB_BUCKETS + sub, POWERS * SUB_BUCKETS - 1);
+    }
+
+    private static long highestIn(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int power = bucket / SUB_BUCKETS;
+        int sub = bucket % SUB_BUCKETS;
+        return ((long) (SUB_BUCKETS + sub + 1) << (power - 1)) - 1;
+    }
+}
@@ -0,0 +1,148 @@
+package net.kenneydiaz.tyler.frogsandtoads;
+
+/**
+ * Everything about a single attempt to move a piece, as found by
+ * FrogsAndToads.tryMove(): whether the move was made, which piece it was, where it went
+ * and how, and what state the game was left in. This is all a front end needs to react
+ * to a tap, without asking the game anything more.
+ *
+ * A result is filled in place by each attempt, so one result can be reused for every
+ * move of a game without allocating anything.
+ *
+ * @author Tyler Kenney
+ */
+public class MoveResult {
+
+    // What came of the attempt.
+    public static final int MOVED = 0;
+    public static final int ILLEGAL = 1;
+    public static final int GAME_FINISHED = 2;
+
+    // What was in the cell the player chose.
+    public static final int NOTHING = 0;
+    public static final int FROG = 1;
+    public static final int TOAD = 2;
+
+    // The direction the piece moved in. Frogs move down and right, toads up and left.
+    public static final int NONE = -1;
+    public static final int UP = 0;
+    public static final int DOWN = 1;
+    public static final int LEFT = 2;
+    public static final int RIGHT = 3;
+
+    // The state of the game after the attempt.
+    public static final int PLAYING = 0;
+    public static final int WON = 1;
+    public static final int STALLED = 2;
+
+    int outcome;
+    int piece;
+    int direction;
+    boolean jump;
+    int fromRow;
+    int fromColumn;
+    int toRow;
+    int toColumn;
+    int status;
+    boolean deadlocked;
+
+    /**
+     * @return MOVED, ILLEGAL if the chosen piece cannot move, or GAME_FINISHED if the
+     *         game had already been won or stalled, in which case nothing can move.
+     */
+    public int getOutcome() {
+        return outcome;
+    }
+
+    public boolean moved() {
+        return outcome == MOVED;
+    }
+
+    /**
+     * @return FROG or TOAD, for the piece in the chosen cell, or NOTHING if the cell is
+     *         the empty space or off the board.
+     */
+    public int getPiece() {
+        return piece;
+    }
+
+    /**
+     * @return UP, DOWN, LEFT, or RIGHT, or NONE if nothing moved.
+     */
+    public int getDirection() {
+        return direction;
+    }
+
+    /**
+     * @return true if the piece jumped over another, rather than stepping.
+     */
+    public boolean isJump() {
+        return jump;
+    }
+
+    /**
+     * @return the row the piece moved from, which is now the empty space.
+     */
+    public int getFromRow() {
+        return fromRow;
+    }
+
+    public int getFromColumn() {
+        return fromColumn;
+    }
+
+    /**
+     * @return the row the piece moved to, which was the empty space. The cells between
+     *         the two are unchanged. If nothing moved, this is the row chosen.
+     */
+    public int getToRow() {
+        return toRow;
+    }
+
+    public int getToColumn() {
+        return toColumn;
+    }
+
+    /**
+     * @return PLAYING, WON, or STALLED, after the move (or the failed attempt).
+     */
+    public int getStatus() {
+        return status;
+    }
+
+    /**
+     * @return true if the game can no longer be won after the move (or the failed
+     *         attempt), even though there may be moves left (see DeadlockDetector).
+     */
+    public boolean isDeadlocked() {
+        return deadlocked;
+    }
+
+    @Override
+    public String toString() {
+        String[] outcomes = {"moved", "illegal", "game finished"};
+        String[] pieces = {"nothing", "frog", "toad"};
+        String[] statuses = {"playing", "won", "stalled"};
+        return outcomes[outcome] + " " + pieces[piece] + " (" + fromRow + ", " +
+                fromColumn + ") to (" + toRow + ", " + toColumn + ")" +
+                (jump ? " by jumping" : "") + ", " + statuses[status] +
+                (deadlocked ? ", deadlocked" : "");
+    }
+
+    /**
+     * Fills the result in, in one go.
+     */
+    void set(int outcome, int piece, int direction, boolean jump, int fromRow,
+             int fromColumn, int toRow, int toColumn, int status, boolean deadlocked) {
+        this.outcome = outcome;
+        this.piece = piece;
+        this.direction = direction;
+        this.jump = jump;
+        this.fromRow = fromRow;
+        this.fromColumn = fromColumn;
+        this.toRow = toRow;
+        this.toColumn = toColumn;
+        this.status = status;
+        this.deadlocked = deadlocked;
+    }
+}
@@ -0,0 +1,146 @@
+package net.kenneydiaz.tyler.frogsandtoads;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A game of Frogs and Toads whose board is a single packed position (see
+ * PackedPosition), rather than a grid of cells. Moving or undoing only replaces a long,
+ * and the history of moves is an array of the positions before each of them, so nothing
+ * is allocated during play other than the lists getLegalMoves() must return.
+ *
+ * Only boards which fit in a packed position can be played this way.
+ *
+ * @author Tyler Kenney
+ */
+public class PackedGame implements GameEngine {
+
+    // The dimensions of the board, and the winning position.
+    private final int rows;
+    private final int columns;
+    private final long goal;
+
+    // The current position, and the position before each move made so far.
+    private long position;
+    private long[] history = new long[16];
+    private int movesMade;
+
+    // The legal moves of the current position, found by PackedPosition.legalMoves().
+    private final int[] moves = new int[PackedPosition.MAX_MOVES];
+
+    /**
+     * Creates a game at the starting position.
+     *
+     * @param rows the (odd) number of rows of the board.
+     * @param columns the (odd) number of columns of the board.
+     * @throws IllegalArgumentException if the board is too large to be packed.
+     */
+    public PackedGame(int rows, int columns) {
+        this(PackedPosition.start(rows, columns), rows, columns);
+    }
+
+    /**
+     * Creates a game at the given position.
+     *
+     * @param position the packed position to start from.
+     * @param rows the (odd) number of rows of the board.
+     * @param columns the (odd) number of columns of the board.
+     * @throws IllegalArgumentException if the board is too large to be packed.
+     */
+    public PackedGame(long position, int rows, int columns) {
+        if (!PackedPosition.fits(rows, columns)) {
+            throw new IllegalArgumentException("Cannot pack a " + rows + "x" + columns +
+                    " board");
+        }
+        this.rows = rows;
+        this.columns = columns;
+        this.position = position;
+        goal = PackedPosition.goal(rows, columns);
+    }
+
+    @Override
+    public int countRows() {
+        return rows;
+    }
+
+    @Override
+    public int countColumns() {
+        return columns;
+    }
+
+    @Override
+    public void move(int i, int j) {
+        if (!onBoard(i, j)) {
+            return;
+        }
+        int cell = i * columns + j;
+        int count = PackedPosition.legalMoves(position, rows, columns, moves);
+        for (int k = 0; k < count; k++) {
+            if (moves[k] == cell) {
+                if (movesMade == history.length) {
+                    history = Arrays.copyOf(history, history.length * 2);
+                }
+                history[movesMade++] = position;
+                position = PackedPosition.move(position, cell);
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void undo() {
+        if (movesMade > 0) {
+            position = history[--movesMade];
+        }
+    }
+
+    @Override
+    public boolean hasPreviousMove() {
+        return movesMade > 0;
+    }
+
+    @Override
+    public List<int[]> getLegalMoves() {
+        int count = PackedPosition.legalMoves(position, rows, columns, moves);
+        List<int[]> legalMoves = new ArrayList<>(count);
+        for (int k = 0; k < count; k++) {
+            legalMoves.add(new int[] {moves[k] / columns, moves[k] % columns});
+        }
+        return legalMoves;
+    }
+
+    @Override
+    public boolean canMove() {
+        return PackedPosition.legalMoves(position, rows, columns, moves) > 0;
+    }
+
+    @Override
+    public boolean over() {
+        return position == goal;
+    }
+
+    @Override
+    public boolean emptyAt(int i, int j) {
+        return onBoard(i, j) && PackedPosition.emptyCell(position) == i * columns + j;
+    }
+
+    @Override
+    public boolean frogAt(int i, int j) {
+        return onBoard(i, j) && PackedPosition.frogAt(position, i * columns + j);
+    }
+
+    @Override
+    public boolean toadAt(int i, int j) {
+        return onBoard(i, j) && PackedPosition.toadAt(position, i * columns + j);
+    }
+
+    @Override
+    public long pack() {
+        return position;
+    }
+
+    private boolean onBoard(int i, int j) {
+        return i >= 0 && i < rows && j >= 0 && j < columns;
+    }
+}
@@ -0,0 +1,294 @@
+package net.kenneydiaz.tyler.frogsandtoads;
+
+/**
+ * Static helpers for working with positions of the game of Frogs and Toads packed into a
+ * single long. Packed positions are what the solver and everything built on top of it
+ * work with, since a long can be hashed, compared, and stored without any allocation.
+ *
+ * Cells are numbered row by row, so the cell at row i and column j of a board with
+ * columns columns is cell i * columns + j. Bit n of a packed position is set if a toad
+ * sits in cell n. The number of the empty cell is stored in the bits above the toads.
+ * Any cell which is neither a toad nor the empty cell holds a frog. This means boards of
+ * up to MAX_CELLS cells can be packed, which covers every board up to 7x7 (and narrower
+ * boards with more rows, such as 3x19).
+ *
+ * Moves are packed as the number of the cell whose frog or toad moves into the empty
+ * cell, since the destination of every move is always the empty cell. Unmoves, which
+ * take back a move, are packed the same way: as the number of the cell whose frog or
+ * toad moves back into the empty cell it came from.
+ *
+ * @author Tyler Kenney
+ */
+public final class PackedPosition {
+
+    // The number of cells which fit below the empty cell number, and the mask of them.
+    public static final int MAX_CELLS = 57;
+    private static final int EMPTY_CELL_SHIFT = MAX_CELLS;
+    private static final long TOADS_MASK = (1L << EMPTY_CELL_SHIFT) - 1;
+
+    // The sentinel returned in place of a position when there is none (for example,
+    // when a board is too large to be packed). Packed positions are never negative.
+    public static final long NONE = -1;
+
+    // The most moves (or unmoves) which can ever be legal at once: one from each
+    // direction.
+    public static final int MAX_MOVES = 4;
+
+    private PackedPosition() {
+    }
+
+    /**
+     * Checks if boards of the given size can be packed into a long.
+     *
+     * @param rows the number of rows of the board.
+     * @param columns the number of columns of the board.
+     * @return true if the board has at least one and no more than MAX_CELLS cells.
+     */
+    public static boolean fits(int rows, int columns) {
+        return rows > 0 && columns > 0 && rows * columns <= MAX_CELLS;
+    }
+
+    /**
+     * Packs the given toads and empty cell into a position.
+     *
+     * @param toads a mask with bit n set if a toad sits in cell n.
+     * @param emptyCell the number of the empty cell.
+     * @return the packed position.
+     */
+    public static long of(long toads, int emptyCell) {
+        return ((long) emptyCell << EMPTY_CELL_SHIFT) | (toads & TOADS_MASK);
+    }
+
+    /**
+     * @param position a packed position.
+     * @return the number of the empty cell of the position.
+     */
+    public static int emptyCell(long position) {
+        return (int) (position >>> EMPTY_CELL_SHIFT);
+    }
+
+    /**
+     * @param position a packed position.
+     * @return a mask with bit n set if a toad sits in cell n of the position.
+     */
+    public static long toads(long position) {
+        return position & TOADS_MASK;
+    }
+
+    public static boolean toadAt(long position, int cell) {
+        return ((position >>> cell) & 1) != 0;
+    }
+
+    public static boolean frogAt(long position, int cell) {
+        return !toadAt(position, cell) && cell != emptyCell(position);
+    }
+
+    /**
+     * Builds the position every game of the given size starts from: frogs in the top
+     * half and the first half of the middle row, the empty cell in the very middle, and
+     * toads everywhere else.
+     *
+     * @param rows the (odd) number of rows of the board.
+     * @param columns the (odd) number of columns of the board.
+     * @return the packed starting position.
+     */
+    public static long start(int rows, int columns) {
+        int middle = (rows / 2) * columns + columns / 2;
+        long toads = 0;
+        for (int cell = middle + 1; cell < rows * columns; cell++) {
+            toads |= 1L << cell;
+        }
+        return of(toads, middle);
+    }
+
+    /**
+     * Builds the winning position of the given size, which is the mirror image of the
+     * starting position: toads in the top half and the first half of the middle row.
+     *
+     * @param rows the (odd) number of rows of the board.
+     * @param columns the (odd) number of columns of the board.
+     * @return the packed winning position.
+     */
+    public static long goal(int rows, int columns) {
+        int middle = (rows / 2) * columns + columns / 2;
+        long toads = 0;
+        for (int cell = 0; cell < middle; cell++) {
+            toads |= 1L << cell;
+        }
+        return of(toads, middle);
+    }
+
+    /**
+     * Finds every legal move of a position, in the same order as
+     * FrogsAndToads.getLegalMoves(), without allocating anything.
+     *
+     * @param position the packed position.
+     * @param rows the number of rows of the board.
+     * @param columns the number of columns of the board.
+     * @param moves an array of at least MAX_MOVES elements which the packed moves are
+     *              written into.
+     * @return the number of legal moves written into moves.
+     */
+    public static int legalMoves(long position, int rows, int columns, int[] moves) {
+        return legalMoves(position, rows, columns, moves, 0);
+    }
+
+    /**
+     * Finds every legal move of a position, writing them into a shared array starting at
+     * the given offset. This lets recursive searches keep the moves of every depth in
+     * one array.
+     *
+     * @param position the packed position.
+     * @param rows the number of rows of the board.
+     * @param columns the number of columns of the board.
+     * @param moves an array with at least MAX_MOVES elements after offset.
+     * @param offset the index of moves at which to write the first legal move.
+     * @return the number of legal moves written into moves.
+     */
+    public static int legalMoves(long position, int rows, int columns, int[] moves,
+                                 int offset) {
+        int empty = emptyCell(position);
+        int row = empty / columns;
+        int column = empty - row * columns;
+        int count = offset;
+
+        // Frogs come from above and from the left, toads from below and from the right.
+        // Frogs can jump over a toad, and toads can jump over a frog.
+        if (row >= 1) {
+            int above = empty - columns;
+            if (frogAt(position, above)) {
+                moves[count++] = above;
+            } else if (row >= 2 && frogAt(position, above - columns)) {
+                moves[count++] = above - columns;
+            }
+        }
+        if (row + 1 < rows) {
+            int below = empty + columns;
+            if (toadAt(position, below)) {
+                moves[count++] = below;
+            } else if (row + 2 < rows && toadAt(position, below + columns)) {
+                moves[count++] = below + columns;
+            }
+        }
+        if (column >= 1) {
+            int left = empty - 1;
+            if (frogAt(position, left)) {
+                moves[count++] = left;
+            } else if (column >= 2 && frogAt(position, left - 1)) {
+                moves[count++] = left - 1;
+            }
+        }
+        if (column + 1 < columns) {
+            int right = empty + 1;
+            if (toadAt(position, right)) {
+                moves[count++] = right;
+            } else if (column + 2 < columns && toadAt(position, right + 1)) {
+                moves[count++] = right + 1;
+            }
+        }
+        return count - offset;
+    }
+
+    /**
+     * Finds every legal unmove of a position: every move which could have just been
+     * made to reach it, without allocating anything. Taking back each of them gives
+     * every position from which the given one can be reached in a single move.
+     *
+     * @param position the packed position.
+     * @param rows the number of rows of the board.
+     * @param columns the number of columns of the board.
+     * @param unmoves an array of at least MAX_MOVES elements which the packed unmoves
+     *                are written into.
+     * @return the number of legal unmoves written into unmoves.
+     */
+    public static int legalUnmoves(long position, int rows, int columns, int[] unmoves) {
+        return legalUnmoves(position, rows, columns, unmoves, 0);
+    }
+
+    /**
+     * Finds every legal unmove of a position, writing them into a shared array starting
+     * at the given offset. This lets recursive searches keep the unmoves of every depth
+     * in one array.
+     *
+     * @param position the packed position.
+     * @param rows the number of rows of the board.
+     * @param columns the number of columns of the board.
+     * @param unmoves an array with at least MAX_MOVES elements after offset.
+     * @param offset the index of unmoves at which to write the first legal unmove.
+     * @return the number of legal unmoves written into unmoves.
+     */
+    public static int legalUnmoves(long position, int rows, int columns, int[] unmoves,
+                                   int offset) {
+        int empty = emptyCell(position);
+        int row = empty / columns;
+        int column = empty - row * columns;
+        int count = offset;
+
+        // The piece which just moved out of the empty cell is now below it or right of it
+        // if it is a frog, and above it or left of it if it is a toad. If it jumped, it
+        // must have jumped over a piece of the other kind, which is still there.
+        if (row + 1 < rows) {
+            int below = empty + columns;
+            if (frogAt(position, below)) {
+                unmoves[count++] = below;
+            } else if (row + 2 < rows && frogAt(position, below + columns)) {
+                unmoves[count++] = below + columns;
+            }
+        }
+        if (row >= 1) {
+            int above = empty - columns;
+            if (toadAt(position, above)) {
+                unmoves[count++] = above;
+            } else if (row >= 2 && toadAt(position, above - columns)) {
+                unmoves[count++] = above - columns;
+            }
+        }
+        if (column + 1 < columns) {
+            int right = empty + 1;
+            if (frogAt(position, right)) {
+                unmoves[count++] = right;
+            } else if (column + 2 < columns && frogAt(position, right + 1)) {
+                unmoves[count++] = right + 1;
+            }
+        }
+        if (column >= 1) {
+            int left = empty - 1;
+            if (toadAt(position, left)) {
+                unmoves[count++] = left;
+            } else if (column >= 2 && toadAt(position, left - 1)) {
+                unmoves[count++] = left - 1;
+            }
+        }
+        return count - offset;
+    }
+
+    /**
+     * Moves the frog or toad in the given cell into the empty cell. The move is assumed
+     * to be legal.
+     *
+     * @param position the packed position before the move.
+     * @param cell the packed move: the cell of the piece to move.
+     * @return the packed position after the move.
+     */
+    public static long move(long position, int cell) {
+        int empty = emptyCell(position);
+        long toads = toads(position);
+        if (toadAt(position, cell)) {
+            toads = (toads & ~(1L << cell)) | (1L << empty);
+        }
+        return of(toads, cell);
+    }
+
+    /**
+     * Moves the frog or toad in the given cell back into the empty cell, taking back the
+     * move which put it there. The unmove is assumed to be legal. Either way a piece
+     * simply swaps places with the empty cell, so this is the same as move().
+     *
+     * @param position the packed position before the unmove.
+     * @param cell the packed unmove: the cell of the piece to move back.
+     * @return the packed position the move was made from.
+     */
+    public static long unmove(long position, int cell) {
+        return move(position, cell);
+    }
+}
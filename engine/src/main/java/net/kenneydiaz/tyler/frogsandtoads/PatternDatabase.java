@@ -0,0 +1,270 @@
+package net.kenneydiaz.tyler.frogsandtoads;
+
+import java.util.Arrays;
+
+/**
+ * A pattern database for one band of neighbouring columns of a board: a table of the
+ * fewest slides (moves of a single cell, as opposed to jumps) which must end inside the
+ * band before the game can be won, for every way the band's cells could be filled.
+ *
+ * The table is worked out for an abstract version of the game which only looks at the
+ * cells of the band. Anything outside the band is assumed to be whatever suits the band
+ * best: a piece may leave the band whenever it has somewhere to go, any frog or toad
+ * may enter the band whenever the direction allows it, and a jump over a cell outside
+ * the band is always allowed. Every real game played out inside the band is also a
+ * game of the abstract version, so the real number of slides ending in the band can
+ * never be fewer than the table says. Since every slide ends in exactly one band, the
+ * entries of a set of bands covering the board can be added together, which is what
+ * PatternHeuristic does.
+ *
+ * The table is filled in by a retrograde breadth first search, starting from the band's
+ * share of the winning position and working backwards through the abstract moves which
+ * could have led to each state. Jumps and pieces leaving the band cost nothing, so each
+ * distance is finished (including everything reachable at no extra cost) before the
+ * next one is started.
+ *
+ * States are indexed by the toads of the band (one bit per cell, row by row) and the
+ * position of the empty cell within the band, or the number of cells in the band if the
+ * empty cell is outside it. The distances are stored one byte per state.
+ *
+ * @author Tyler Kenney
+ */
+public class PatternDatabase {
+
+    // The entry of states from which the band can never be filled as it is in the
+    // winning position.
+    public static final int UNREACHABLE = 0xFF;
+
+    // The dimensions of the board, and the band of columns the table covers.
+    private final int rows;
+    private final int columns;
+    private final int firstColumn;
+    private final int width;
+
+    // The number of cells in the band, and a mask of the bits of one row of the band.
+    private final int cells;
+    private final long rowMask;
+
+    // The fewest slides ending in the band, indexed by state.
+    private final byte[] slides;
+
+    /**
+     * Builds the pattern database of a band of columns. The table has (cells + 1) *
+     * 2^cells entries, where cells is rows * width, so bands should be kept small.
+     *
+     * @param rows the number of rows of the board.
+     * @param columns the number of columns of the board.
+     * @param firstColumn the leftmost column of the band.
+     * @param width the number of columns in the band.
+     */
+    public PatternDatabase(int rows, int columns, int firstColumn, int width) {
+        this.rows = rows;
+        this.columns = columns;
+        this.firstColumn = firstColumn;
+        this.width = width;
+        this.cells = rows * width;
+        this.rowMask = (1L << width) - 1;
+
+        int states = (cells + 1) << cells;
+        slides = new byte[states];
+        Arrays.fill(slides, (byte) UNREACHABLE);
+        search(index(PackedPosition.goal(rows, columns)));
+    }
+
+    /**
+     * Looks up the fewest slides which must end inside the band before the game can be
+     * won from the given position.
+     *
+     * @param position the packed position.
+     * @return the fewest slides, or UNREACHABLE if the game can no longer be won.
+     */
+    public int lookup(long position) {
+        return slides[index(position)] & 0xFF;
+    }
+
+    /**
+     * @return the number of bytes the table takes up.
+     */
+    public int sizeInBytes() {
+        return slides.length;
+    }
+
+    /**
+     * Finds the state of the band in a packed position.
+     */
+    private int index(long position) {
+        long toads = PackedPosition.toads(position);
+        int pattern = 0;
+        for (int row = 0; row < rows; row++) {
+            pattern |= ((toads >>> (row * columns + firstColumn)) & rowMask) << (row * width);
+        }
+        int empty = PackedPosition.emptyCell(position);
+        int emptyColumn = empty % columns - firstColumn;
+        int emptyCell = (emptyColumn >= 0 && emptyColumn < width) ?
+                (empty / columns) * width + emptyColumn : cells;
+        return (emptyCell << cells) | pattern;
+    }
+
+    /**
+     * Fills in the table by searching backwards from the winning state, one distance at
+     * a time.
+     */
+    private void search(int goal) {
+        int[] layer = new int[64];
+        int[] nextLayer = new int[64];
+        int layerSize = 0;
+        int nextLayerSize;
+        int[] predecessors = new int[8 * cells + 8];
+
+        slides[goal] = 0;
+        layer[layerSize++] = goal;
+        for (int distance = 0; layerSize > 0 && distance < UNREACHABLE - 1; distance++) {
+            nextLayerSize = 0;
+            for (int i = 0; i < layerSize; i++) {
+                int state = layer[i];
+
+                // States which were reached more cheaply after being queued are skipped.
+                if ((slides[state] & 0xFF) != distance) {
+                    continue;
+                }
+                int count = predecessors(state, predecessors);
+                for (int j = 0; j < count; j++) {
+                    int predecessor = predecessors[j] >>> 1;
+                    int cost = distance + (predecessors[j] & 1);
+                    if ((slides[predecessor] & 0xFF) <= cost) {
+                        continue;
+                    }
+                    slides[predecessor] = (byte) cost;
+                    if (cost == distance) {
+                        if (layerSize == layer.length) {
+                            layer = Arrays.copyOf(layer, layer.length * 2);
+                        }
+                        layer[layerSize++] = predecessor;
+                    } else {
+                        if (nextLayerSize == nextLayer.length) {
+                            nextLayer = Arrays.copyOf(nextLayer, nextLayer.length * 2);
+                        }
+                        nextLayer[nextLayerSize++] = predecessor;
+                    }
+                }
+            }
+            int[] swap = layer;
+            layer = nextLayer;
+            nextLayer = swap;
+            layerSize = nextLayerSize;
+        }
+    }
+
+    /**
+     * Finds every abstract state from which a single abstract move leads to the given
+     * state. Each is written as (state << 1) | cost, where the cost is 1 if the move was
+     * a slide ending in the band and 0 otherwise.
+     *
+     * @return the number of predecessors written.
+     */
+    private int predecessors(int state, int[] out) {
+        int emptyCell = state >>> cells;
+        int toads = state & ((1 << cells) - 1);
+        int count = 0;
+
+        if (emptyCell < cells) {
+            int row = emptyCell / width;
+            int column = emptyCell % width;
+
+            // The piece which left the empty cell may have left the band (for free), or
+            // moved to another cell of the band.
+            for (int piece = 0; piece < 2; piece++) {
+                boolean toad = piece == 1;
+                for (int direction = 0; direction < 2; direction++) {
+                    for (int distance = 1; distance <= 2; distance++) {
+                        int rowStep = (direction == 0) ? distance : 0;
+                        int columnStep = (direction == 0) ? 0 : distance;
+                        if (toad) {
+                            rowStep = -rowStep;
+                            columnStep = -columnStep;
+                        }
+                        int toRow = row + rowStep;
+                        int toColumn = column + columnStep;
+                        if (!onBoard(toRow, toColumn) || !canJump(toads, emptyCell, row,
+                                column, rowStep, columnStep, distance, toad)) {
+                            continue;
+                        }
+                        if (!inBand(toColumn)) {
+                            int before = toad ? toads | (1 << emptyCell) : toads;
+                            out[count++] = ((cells << cells) | before) << 1;
+                        } else {
+                            int to = toRow * width + toColumn;
+                            if (isToad(toads, to) != toad) {
+                                continue;
+                            }
+                            int before = (toads & ~(1 << to)) |
+                                    (toad ? 1 << emptyCell : 0);
+                            out[count++] = (((to << cells) | before) << 1) |
+                                    ((distance == 1) ? 1 : 0);
+                        }
+                    }
+                }
+            }
+        } else {
+
+            // A piece must have just entered the band from outside it.
+            for (int cell = 0; cell < cells; cell++) {
+                boolean toad = isToad(toads, cell);
+                int row = cell / width;
+                int column = cell % width;
+                for (int direction = 0; direction < 2; direction++) {
+                    for (int distance = 1; distance <= 2; distance++) {
+                        int rowStep = (direction == 0) ? distance : 0;
+                        int columnStep = (direction == 0) ? 0 : distance;
+                        if (!toad) {
+                            rowStep = -rowStep;
+                            columnStep = -columnStep;
+                        }
+                        int fromRow = row + rowStep;
+                        int fromColumn = column + columnStep;
+                        if (!onBoard(fromRow, fromColumn) || inBand(fromColumn) ||
+                                !canJump(toads, cell, row, column, rowStep, columnStep,
+                                        distance, toad)) {
+                            continue;
+                        }
+                        int before = toads & ~(1 << cell);
+                        out[count++] = (((cell << cells) | before) << 1) |
+                                ((distance == 1) ? 1 : 0);
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Checks the middle cell of a jump between the given cell of the band and the cell
+     * the given steps away. Slides are always allowed, as are jumps over cells outside
+     * the band. Jumps over cells of the band need a piece of the other kind in between.
+     */
+    private boolean canJump(int toads, int emptyCell, int row, int column, int rowStep,
+                            int columnStep, int distance, boolean toad) {
+        if (distance == 1) {
+            return true;
+        }
+        int middleColumn = column + columnStep / 2;
+        if (!inBand(middleColumn)) {
+            return true;
+        }
+        int middle = (row + rowStep / 2) * width + middleColumn;
+        return middle != emptyCell && isToad(toads, middle) != toad;
+    }
+
+    private boolean onBoard(int row, int column) {
+        return row >= 0 && row < rows &&
+                column + firstColumn >= 0 && column + firstColumn < columns;
+    }
+
+    private boolean inBand(int column) {
+        return column >= 0 && column < width;
+    }
+
+    private static boolean isToad(int toads, int cell) {
+        return ((toads >>> cell) & 1) != 0;
+    }
+}
@@ -0,0 +1,166 @@
+package net.kenneydiaz.tyler.frogsandtoads;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An admissible estimate of the fewest moves needed to win the game from a position,
+ * used by FrogsAndToadsSolver to skip positions which cannot be on a short enough path.
+ *
+ * Every move carries a frog down or right, or a toad up or left, by one cell (a slide)
+ * or two cells (a jump). Measuring the progress of each piece as the sum of its row and
+ * column (counted backwards for toads), the progress still needed to reach the winning
+ * position is therefore exactly slides + 2 * jumps, and the number of moves is
+ * (progress + slides) / 2. The progress needed is known exactly, so the estimate only
+ * has to bound the number of slides, which is what the pattern databases are for.
+ *
+ * The board is split into bands of neighbouring columns, each with its own
+ * PatternDatabase, and since every slide ends in exactly one band their entries add up
+ * to a bound on every slide left in the game. The split is made several times, with the
+ * bands shifted by one column each time, and the largest of the sums is used. Bands are
+ * as wide as possible while keeping each table to at most MAX_BAND_CELLS cells, which
+ * is no more than half a megabyte per table.
+ *
+ * Building the tables takes a fraction of a second, so heuristics are shared between
+ * every solver of the same board size through forBoard().
+ *
+ * @author Tyler Kenney
+ */
+public class PatternHeuristic {
+
+    // The estimate returned for positions from which the game can no longer be won.
+    public static final int UNSOLVABLE = -1;
+
+    // The most cells a band may have.
+    private static final int MAX_BAND_CELLS = 15;
+
+    // Heuristics which have already been built, by board size.
+    private static final Map<Long, PatternHeuristic> heuristics = new HashMap<>();
+
+    // The cells of each diagonal of the board (the cells whose row and column add up to
+    // the index of the diagonal), and the progress of the winning position.
+    private final long[] diagonals;
+    private final long allCells;
+    private final int goalProgress;
+
+    // The pattern databases of each way of splitting the board into bands, in order
+    // from the leftmost band.
+    private final PatternDatabase[][] splits;
+
+    /**
+     * Finds or builds the heuristic for boards of the given size.
+     *
+     * @param rows the number of rows of the board.
+     * @param columns the number of columns of the board.
+     * @return the heuristic, shared with every other caller for the same board size.
+     */
+    public static synchronized PatternHeuristic forBoard(int rows, int columns) {
+        long key = ((long) rows << Integer.SIZE) | columns;
+        PatternHeuristic heuristic = heuristics.get(key);
+        if (heuristic == null) {
+            heuristic = new PatternHeuristic(rows, columns);
+            heuristics.put(key, heuristic);
+        }
+        return heuristic;
+    }
+
+    /**
+     * Builds the pattern databases for boards of the given size, which must be small
+     * enough to be packed.
+     *
+     * @param rows the number of rows of the board.
+     * @param columns the number of columns of the board.
+     */
+    public PatternHeuristic(int rows, int columns) {
+        int cells = rows * columns;
+        allCells = (1L << cells) - 1;
+        diagonals = new long[rows + columns - 1];
+        for (int cell = 0; cell < cells; cell++) {
+            diagonals[cell / columns + cell % columns] |= 1L << cell;
+        }
+        goalProgress = progress(PackedPosition.goal(rows, columns));
+
+        // Boards too tall for even single columns to fit get no pattern databases, and
+        // fall back on the progress alone. Bands which appear in more than one split
+        // share their table.
+        int width = Math.min(columns, MAX_BAND_CELLS / rows);
+        Map<Integer, PatternDatabase> tables = new HashMap<>();
+        splits = new PatternDatabase[width][];
+        for (int shift = 0; shift < width; shift++) {
+            int bands = (shift == 0 ? 0 : 1) + (columns - shift + width - 1) / width;
+            splits[shift] = new PatternDatabase[bands];
+            int firstColumn = 0;
+            for (int band = 0; band < bands; band++) {
+                int bandWidth = (band == 0 && shift > 0) ?
+                        shift : Math.min(width, columns - firstColumn);
+                int key = firstColumn * columns + bandWidth;
+                PatternDatabase table = tables.get(key);
+                if (table == null) {
+                    table = new PatternDatabase(rows, columns, firstColumn, bandWidth);
+                    tables.put(key, table);
+                }
+                splits[shift][band] = table;
+                firstColumn += bandWidth;
+            }
+        }
+    }
+
+    /**
+     * Estimates the fewest moves needed to win the game from the given position. The
+     * estimate is never more than the real number.
+     *
+     * @param position the packed position.
+     * @return the estimate, or UNSOLVABLE if one of the pattern databases shows that the
+     *         game can no longer be won.
+     */
+    public int estimate(long position) {
+        int progress = goalProgress - progress(position);
+
+        int slides = 0;
+        for (PatternDatabase[] split : splits) {
+            int splitSlides = 0;
+            for (PatternDatabase band : split) {
+                int bandSlides = band.lookup(position);
+                if (bandSlides == PatternDatabase.UNREACHABLE) {
+                    return UNSOLVABLE;
+                }
+                splitSlides += bandSlides;
+            }
+            slides = Math.max(slides, splitSlides);
+        }
+        return (progress + slides + 1) / 2;
+    }
+
+    /**
+     * @return the number of bytes the pattern databases take up.
+     */
+    public long sizeInBytes() {
+        Set<PatternDatabase> tables = new HashSet<>();
+        for (PatternDatabase[] split : splits) {
+            tables.addAll(Arrays.asList(split));
+        }
+        long bytes = 0;
+        for (PatternDatabase table : tables) {
+            bytes += table.sizeInBytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * Measures how far along a position is: the sum of the rows and columns of every
+     * frog, minus the sum of the rows and columns of every toad.
+     */
+    private int progress(long position) {
+        long toads = PackedPosition.toads(position);
+        long frogs = allCells & ~toads & ~(1L << PackedPosition.emptyCell(position));
+        int progress = 0;
+        for (int diagonal = 1; diagonal < diagonals.length; diagonal++) {
+            progress += diagonal * (Long.bitCount(frogs & diagonals[diagonal]) -
+                    Long.bitCount(toads & diagonals[diagonal]));
+        }
+        return progress;
+    }
+}
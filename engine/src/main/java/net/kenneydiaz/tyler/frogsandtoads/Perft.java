@@ -0,0 +1,308 @@
+package net.kenneydiaz.tyler.frogsandtoads;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Counts every line of play to a given depth, the way chess engines test their move
+ * generators ("perft", for performance test). The counts are exact, so comparing them
+ * against KNOWN_COUNTS, or against countPacked(), which counts with PackedPosition's
+ * independent move generator, shows whether getLegalMoves(), move(), and undo() of
+ * FrogsAndToads still agree with the rules after any change to them. The time taken
+ * shows whether the change made them any faster.
+ *
+ * Each count is the number of leaves (positions reached by exactly depth moves) and the
+ * number of games which ended sooner, either won or stalled with no legal moves left.
+ * Leaves are counted in bulk: one move short of the depth, the legal moves are counted
+ * rather than made, so the last ply costs nothing more than generating moves.
+ *
+ * @author Tyler Kenney
+ */
+public final class Perft {
+
+    /**
+     * The counts of a single perft run, and the time it took.
+     */
+    public static class Result {
+
+        // The counters, updated as positions are visited.
+        long leaves;
+        long wins;
+        long stalls;
+        long nodes;
+        long elapsedNanos;
+
+        /**
+         * @return the number of positions reached by exactly depth moves.
+         */
+        public long getLeaves() {
+            return leaves;
+        }
+
+        /**
+         * @return the number of games won in fewer than depth moves.
+         */
+        public long getWins() {
+            return wins;
+        }
+
+        /**
+         * @return the number of games which had no legal moves left, without being won,
+         *         in fewer than depth moves.
+         */
+        public long getStalls() {
+            return stalls;
+        }
+
+        /**
+         * @return the number of positions visited or counted, including the leaves.
+         */
+        public long getNodes() {
+            return nodes;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /**
+         * @return the number of positions visited or counted per second.
+         */
+        public double getNodesPerSecond() {
+            return (elapsedNanos > 0) ? nodes * 1e9 / elapsedNanos : 0;
+        }
+
+        /**
+         * @param other the result to compare with.
+         * @return true if both results counted exactly the same leaves, wins, and
+         *         stalls.
+         */
+        public boolean sameCounts(Result other) {
+            return leaves == other.leaves && wins == other.wins && stalls == other.stalls;
+        }
+
+        private void add(Result other) {
+            leaves += other.leaves;
+            wins += other.wins;
+            stalls += other.stalls;
+            nodes += other.nodes;
+        }
+
+        @Override
+        public String toString() {
+            return "leaves=" + leaves + " wins=" + wins + " stalls=" + stalls + " (" +
+                    Math.round(getNodesPerSecond()) + " nodes/s)";
+        }
+    }
+
+    // Counts worked out ahead of time, as rows, columns, depth, leaves, wins, and
+    // stalls, from the starting position of each board. Every count was found to agree
+    // between count(), countParallel(), and countPacked(). The 3x3 board's whole game
+    // tree is over within 16 moves.
+    public static final long[][] KNOWN_COUNTS = {
+            {3, 3, 4, 30, 0, 0},
+            {3, 3, 8, 240, 0, 24},
+            {3, 3, 16, 0, 50, 816},
+            {3, 5, 10, 4680, 0, 136},
+            {3, 5, 23, 3391618, 4, 1093000},
+            {5, 3, 10, 3872, 0, 178},
+            {5, 3, 28, 2299042, 130, 3148916},
+            {5, 5, 8, 3058, 0, 140},
+            {5, 5, 12, 94922, 0, 3170},
+            {5, 5, 16, 2640324, 0, 70964},
+            {5, 5, 20, 65399894, 0, 1488998},
+            {7, 7, 10, 33998, 0, 572},
+            {7, 7, 14, 1427722, 0, 24714},
+            {7, 7, 18, 59052142, 0, 1014252},
+    };
+
+    // The number of tasks a parallel count aims to split its work into, per thread.
+    private static final int TASKS_PER_THREAD = 8;
+
+    private Perft() {
+    }
+
+    /**
+     * Counts every line of play from a game's current position, on the calling thread,
+     * using the game's own moves. The game is returned to its position afterwards.
+     *
+     * @param game the game to count from.
+     * @param depth the number of moves to look ahead.
+     * @return the counts.
+     */
+    public static Result count(FrogsAndToads game, int depth) {
+        Result result = new Result();
+        long start = System.nanoTime();
+        walk(game, depth, result);
+        result.elapsedNanos = System.nanoTime() - start;
+        return result;
+    }
+
+    /**
+     * Counts every line of play from a game's current position, split between the given
+     * number of threads. The first few plies are played out on the calling thread until
+     * there are enough positions to keep every thread busy, and each of those positions
+     * is then counted on a copy of the game.
+     *
+     * @param game the game to count from.
+     * @param depth the number of moves to look ahead.
+     * @param threads the number of threads to count on.
+     * @return the counts.
+     */
+    public static Result countParallel(FrogsAndToads game, int depth, int threads) {
+        long start = System.nanoTime();
+        Result result = new Result();
+
+        // Play out plies until there are enough positions to share out, snapshotting
+        // each in binary form so every task can make its own copy of the game.
+        List<byte[]> frontier = new ArrayList<>();
+        byte[] snapshot = new byte[PositionCodec.binarySize(game.countRows(),
+                game.countColumns())];
+        PositionCodec.writeBinary(game, snapshot, 0);
+        frontier.add(snapshot);
+        int splitDepth = 0;
+        while (splitDepth < depth - 1 && frontier.size() < threads * TASKS_PER_THREAD &&
+                !frontier.isEmpty()) {
+            List<byte[]> next = new ArrayList<>();
+            for (byte[] position : frontier) {
+                FrogsAndToads copy = new FrogsAndToads(position, 0);
+                List<int[]> moves = copy.getLegalMoves();
+                result.nodes++;
+                if (moves.isEmpty()) {
+                    countEnding(copy, result);
+                }
+                for (int[] move : moves) {
+                    copy.move(move[0], move[1]);
+                    byte[] child = new byte[position.length];
+                    PositionCodec.writeBinary(copy, child, 0);
+                    next.add(child);
+                    copy.undo();
+                }
+            }
+            frontier = next;
+            splitDepth++;
+        }
+
+        List<Callable<Result>> tasks = new ArrayList<>();
+        int remaining = depth - splitDepth;
+        for (byte[] position : frontier) {
+            tasks.add(() -> count(new FrogsAndToads(position, 0), remaining));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
+        try {
+            for (Future<Result> task : executor.invokeAll(tasks)) {
+                result.add(task.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Perft failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        result.elapsedNanos = System.nanoTime() - start;
+        return result;
+    }
+
+    /**
+     * Counts every line of play from a packed position, using PackedPosition's moves
+     * rather than the game's. Since the two move generators were written separately,
+     * agreeing counts are good evidence that both are right.
+     *
+     * @param position the packed position to count from.
+     * @param rows the number of rows of the board.
+     * @param columns the number of columns of the board.
+     * @param depth the number of moves to look ahead.
+     * @return the counts.
+     */
+    public static Result countPacked(long position, int rows, int columns, int depth) {
+        Result result = new Result();
+        long start = System.nanoTime();
+        int[] moves = new int[PackedPosition.MAX_MOVES * Math.max(1, depth)];
+        walkPacked(position, rows, columns, PackedPosition.goal(rows, columns), depth,
+                moves, result);
+        result.elapsedNanos = System.nanoTime() - start;
+        return result;
+    }
+
+    /**
+     * Looks up the known counts from the starting position of a board.
+     *
+     * @param rows the number of rows of the board.
+     * @param columns the number of columns of the board.
+     * @param depth the number of moves looked ahead.
+     * @return the counts, or null if they are not known.
+     */
+    public static Result knownCounts(int rows, int columns, int depth) {
+        for (long[] known : KNOWN_COUNTS) {
+            if (known[0] == rows && known[1] == columns && known[2] == depth) {
+                Result result = new Result();
+                result.leaves = known[3];
+                result.wins = known[4];
+                result.stalls = known[5];
+                return result;
+            }
+        }
+        return null;
+    }
+
+    private static void walk(FrogsAndToads game, int depth, Result result) {
+        result.nodes++;
+        if (depth == 0) {
+            result.leaves++;
+            return;
+        }
+        List<int[]> moves = game.getLegalMoves();
+        if (moves.isEmpty()) {
+            countEnding(game, result);
+        } else if (depth == 1) {
+            result.leaves += moves.size();
+            result.nodes += moves.size();
+        } else {
+            for (int[] move : moves) {
+                game.move(move[0], move[1]);
+                walk(game, depth - 1, result);
+                game.undo();
+            }
+        }
+    }
+
+    private static void walkPacked(long position, int rows, int columns, long goal,
+                                   int depth, int[] moves, Result result) {
+        result.nodes++;
+        if (depth == 0) {
+            result.leaves++;
+            return;
+        }
+        int offset = (depth - 1) * PackedPosition.MAX_MOVES;
+        int count = PackedPosition.legalMoves(position, rows, columns, moves, offset);
+        if (count == 0) {
+            if (position == goal) {
+                result.wins++;
+            } else {
+                result.stalls++;
+            }
+        } else if (depth == 1) {
+            result.leaves += count;
+            result.nodes += count;
+        } else {
+            for (int i = offset; i < offset + count; i++) {
+                walkPacked(PackedPosition.move(position, moves[i]), rows, columns, goal,
+                        depth - 1, moves, result);
+            }
+        }
+    }
+
+    private static void countEnding(FrogsAndToads game, Result result) {
+        if (game.over()) {
+            result.wins++;
+        } else {
+            result.stalls++;
+        }
+    }
+}
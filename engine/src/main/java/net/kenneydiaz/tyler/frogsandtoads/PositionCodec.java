@@ -0,0 +1,426 @@
+package net.kenneydiaz.tyler.frogsandtoads;
+
+/**
+ * Static helpers for writing positions of the game of Frogs and Toads down, as text or
+ * as bytes, and reading them back, so that analysis and test positions can be loaded
+ * directly rather than by replaying moves.
+ *
+ * The text form is modelled on chess's FEN: the rows from top to bottom, separated by
+ * ROW_SEPARATOR, each listing its cells from left to right as FROG, TOAD, or EMPTY.
+ * A piece may be preceded by a count to repeat it, so the 5x5 starting position is
+ * "5F/5F/2F.2T/5T/5T", although "FFFFF/FFFFF/FF.TT/TTTTT/TTTTT" is read just the same.
+ *
+ * The binary form works for boards of any size: the number of rows and of columns as
+ * two byte numbers, the number of the empty cell as a four byte number (all big
+ * endian), and then a bitmap of the toads, with cell n in bit n % 8 of byte n / 8.
+ * Every other cell holds a frog. A 5x5 position takes twelve bytes.
+ *
+ * Every method which reads or writes a packed position (see PackedPosition) works on
+ * caller supplied arrays and allocates nothing, so bulk tools can convert millions of
+ * positions a second without the garbage collector noticing.
+ *
+ * @author Tyler Kenney
+ */
+public final class PositionCodec {
+
+    // The characters of the text form.
+    public static final char FROG = 'F';
+    public static final char TOAD = 'T';
+    public static final char EMPTY = '.';
+    public static final char ROW_SEPARATOR = '/';
+
+    // The bytes of the binary form before the bitmap of toads.
+    public static final int BINARY_HEADER_BYTES = 8;
+
+    // The largest number of rows or columns the binary form can hold.
+    private static final int MAX_DIMENSION = 0xFFFF;
+
+    private PositionCodec() {
+    }
+
+    /**
+     * Counts the rows of a position in text form, without checking anything else.
+     *
+     * @param text the position in text form.
+     * @return the number of rows, or 0 if the text is empty.
+     */
+    public static int countRows(CharSequence text) {
+        if (text.length() == 0) {
+            return 0;
+        }
+        int rows = 1;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == ROW_SEPARATOR) {
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Counts the cells of the first row of a position in text form, without checking
+     * anything else.
+     *
+     * @param text the position in text form.
+     * @return the number of columns.
+     */
+    public static int countColumns(CharSequence text) {
+        int columns = 0;
+        int run = 0;
+        for (int i = 0; i < text.length() && text.charAt(i) != ROW_SEPARATOR; i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                run = Math.min(run * 10 + (c - '0'), MAX_DIMENSION);
+            } else {
+                columns += Math.max(1, run);
+                run = 0;
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * Reads a position in text form into a packed position.
+     *
+     * @param text the position in text form.
+     * @param rows the number of rows the position must have.
+     * @param columns the number of columns the position must have.
+     * @return the packed position, or PackedPosition.NONE if the text is not a position
+     *         of exactly that size with exactly one empty cell, or the board is too large
+     *         to be packed.
+     */
+    public static long parse(CharSequence text, int rows, int columns) {
+        if (!PackedPosition.fits(rows, columns)) {
+            return PackedPosition.NONE;
+        }
+        return scan(text, rows, columns, null);
+    }
+
+    /**
+     * Reads a position in text form for a board of any size.
+     *
+     * @param text the position in text form.
+     * @param rows the number of rows the position must have.
+     * @param columns the number of columns the position must have.
+     * @param toadBits set to a bitmap of the toads, with cell n in bit n % 64 of element
+     *                 n / 64. Must be long enough and cleared beforehand.
+     * @return the number of the empty cell, or -1 if the text is not a position of
+     *         exactly that size with exactly one empty cell.
+     */
+    public static int parseCells(CharSequence text, int rows, int columns,
+                                 long[] toadBits) {
+        return (int) scan(text, rows, columns, toadBits);
+    }
+
+    /**
+     * Writes a packed position down in text form.
+     *
+     * @param position the packed position.
+     * @param rows the number of rows of the board.
+     * @param columns the number of columns of the board.
+     * @param out where to append the text.
+     */
+    public static void format(long position, int rows, int columns, StringBuilder out) {
+        int emptyCell = PackedPosition.emptyCell(position);
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                out.append(ROW_SEPARATOR);
+            }
+            int run = 0;
+            char previous = 0;
+            for (int j = 0; j < columns; j++) {
+                int cell = i * columns + j;
+                char piece = (cell == emptyCell) ? EMPTY :
+                        PackedPosition.toadAt(position, cell) ? TOAD : FROG;
+                if (piece != previous && run > 0) {
+                    appendRun(out, previous, run);
+                    run = 0;
+                }
+                previous = piece;
+                run++;
+            }
+            appendRun(out, previous, run);
+        }
+    }
+
+    /**
+     * Writes a packed position down in text form.
+     *
+     * @param position the packed position.
+     * @param rows the number of rows of the board.
+     * @param columns the number of columns of the board.
+     * @return the text.
+     */
+    public static String format(long position, int rows, int columns) {
+        StringBuilder out = new StringBuilder(rows * (columns + 1));
+        format(position, rows, columns, out);
+        return out.toString();
+    }
+
+    /**
+     * Writes the position of a game's board, of any size, down in text form.
+     *
+     * @param game the game whose position should be written down.
+     * @return the text.
+     */
+    public static String format(GameEngine game) {
+        int rows = game.countRows();
+        int columns = game.countColumns();
+        StringBuilder out = new StringBuilder(rows * (columns + 1));
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                out.append(ROW_SEPARATOR);
+            }
+            int run = 0;
+            char previous = 0;
+            for (int j = 0; j < columns; j++) {
+                char piece = game.emptyAt(i, j) ? EMPTY : game.toadAt(i, j) ? TOAD : FROG;
+                if (piece != previous && run > 0) {
+                    appendRun(out, previous, run);
+                    run = 0;
+                }
+                previous = piece;
+                run++;
+            }
+            appendRun(out, previous, run);
+        }
+        return out.toString();
+    }
+
+    /**
+     * @param rows the number of rows of the board.
+     * @param columns the number of columns of the board.
+     * @return the number of bytes the binary form of a position of the board takes up.
+     */
+    public static int binarySize(int rows, int columns) {
+        return BINARY_HEADER_BYTES + (rows * columns + Byte.SIZE - 1) / Byte.SIZE;
+    }
+
+    /**
+     * Writes a packed position down in binary form.
+     *
+     * @param position the packed position.
+     * @param rows the number of rows of the board.
+     * @param columns the number of columns of the board.
+     * @param out the array to write to, which must have binarySize() bytes free from
+     *            offset on.
+     * @param offset where in the array to start writing.
+     * @return the offset just past what was written.
+     */
+    public static int writeBinary(long position, int rows, int columns, byte[] out,
+                                  int offset) {
+        int emptyCell = PackedPosition.emptyCell(position);
+        offset = writeHeader(rows, columns, emptyCell, out, offset);
+        long toads = PackedPosition.toads(position);
+        int bytes = (rows * columns + Byte.SIZE - 1) / Byte.SIZE;
+        for (int i = 0; i < bytes; i++) {
+            out[offset++] = (byte) (toads >>> (i * Byte.SIZE));
+        }
+        return offset;
+    }
+
+    /**
+     * Writes the position of a game's board, of any size, down in binary form.
+     *
+     * @param game the game whose position should be written down.
+     * @param out the array to write to, which must have binarySize() bytes free from
+     *            offset on.
+     * @param offset where in the array to start writing.
+     * @return the offset just past what was written.
+     */
+    public static int writeBinary(GameEngine game, byte[] out, int offset) {
+        int rows = game.countRows();
+        int columns = game.countColumns();
+        int emptyCell = 0;
+        int start = offset + BINARY_HEADER_BYTES;
+        int end = start + (rows * columns + Byte.SIZE - 1) / Byte.SIZE;
+        for (int i = start; i < end; i++) {
+            out[i] = 0;
+        }
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < columns; j++) {
+                int cell = i * columns + j;
+                if (game.emptyAt(i, j)) {
+                    emptyCell = cell;
+                } else if (game.toadAt(i, j)) {
+                    out[start + cell / Byte.SIZE] |= (byte) (1 << (cell % Byte.SIZE));
+                }
+            }
+        }
+        writeHeader(rows, columns, emptyCell, out, offset);
+        return end;
+    }
+
+    /**
+     * Reads a position in binary form into a packed position.
+     *
+     * @param data the array holding the position.
+     * @param offset where in the array the position starts.
+     * @return the packed position, or PackedPosition.NONE if the data is not a valid
+     *         position or the board is too large to be packed.
+     */
+    public static long readBinary(byte[] data, int offset) {
+        int rows = binaryRows(data, offset);
+        int columns = binaryColumns(data, offset);
+        if (!PackedPosition.fits(rows, columns) || !isValidBinary(data, offset)) {
+            return PackedPosition.NONE;
+        }
+        long toads = 0;
+        int bytes = (rows * columns + Byte.SIZE - 1) / Byte.SIZE;
+        for (int i = 0; i < bytes; i++) {
+            toads |= (data[offset + BINARY_HEADER_BYTES + i] & 0xFFL) << (i * Byte.SIZE);
+        }
+        return PackedPosition.of(toads, binaryEmptyCell(data, offset));
+    }
+
+    /**
+     * Checks that a position in binary form is complete and consistent: the array holds
+     * all of it, the empty cell is on the board and is not also a toad, and no cells
+     * beyond the board are toads.
+     *
+     * @param data the array holding the position.
+     * @param offset where in the array the position starts.
+     * @return true if the position can be read. False otherwise.
+     */
+    public static boolean isValidBinary(byte[] data, int offset) {
+        if (offset < 0 || data.length - offset < BINARY_HEADER_BYTES) {
+            return false;
+        }
+        long cells = (long) binaryRows(data, offset) * binaryColumns(data, offset);
+        long emptyCell = binaryEmptyCell(data, offset) & 0xFFFFFFFFL;
+        if (cells == 0 || emptyCell >= cells ||
+                data.length - offset - BINARY_HEADER_BYTES < (cells + Byte.SIZE - 1) /
+                        Byte.SIZE) {
+            return false;
+        }
+        int bitmap = offset + BINARY_HEADER_BYTES;
+        int lastByte = bitmap + (int) ((cells - 1) / Byte.SIZE);
+        int usedBits = (int) ((cells - 1) % Byte.SIZE) + 1;
+        return !binaryToadAt(data, offset, (int) emptyCell) &&
+                (data[lastByte] & 0xFF) >>> usedBits == 0;
+    }
+
+    /**
+     * @return the number of rows of a position in binary form, or 0 if the array is too
+     *         short to hold a position.
+     */
+    public static int binaryRows(byte[] data, int offset) {
+        if (offset < 0 || data.length - offset < BINARY_HEADER_BYTES) {
+            return 0;
+        }
+        return ((data[offset] & 0xFF) << 8) | (data[offset + 1] & 0xFF);
+    }
+
+    /**
+     * @return the number of columns of a position in binary form, or 0 if the array is
+     *         too short to hold a position.
+     */
+    public static int binaryColumns(byte[] data, int offset) {
+        if (offset < 0 || data.length - offset < BINARY_HEADER_BYTES) {
+            return 0;
+        }
+        return ((data[offset + 2] & 0xFF) << 8) | (data[offset + 3] & 0xFF);
+    }
+
+    /**
+     * @return the number of the empty cell of a position in binary form.
+     */
+    public static int binaryEmptyCell(byte[] data, int offset) {
+        return ((data[offset + 4] & 0xFF) << 24) | ((data[offset + 5] & 0xFF) << 16) |
+                ((data[offset + 6] & 0xFF) << 8) | (data[offset + 7] & 0xFF);
+    }
+
+    /**
+     * @return true if a toad sits in the given cell of a position in binary form.
+     */
+    public static boolean binaryToadAt(byte[] data, int offset, int cell) {
+        int bits = data[offset + BINARY_HEADER_BYTES + cell / Byte.SIZE];
+        return ((bits >> (cell % Byte.SIZE)) & 1) != 0;
+    }
+
+    /**
+     * Reads a position in text form, one cell at a time. Toads are collected in a
+     * single long if toadBits is null, which requires the board to fit in a packed
+     * position.
+     *
+     * @return the packed position (or the empty cell, if toadBits is given), or
+     *         PackedPosition.NONE if the text is not a valid position of the given size.
+     */
+    private static long scan(CharSequence text, int rows, int columns, long[] toadBits) {
+        if (rows <= 0 || columns <= 0) {
+            return PackedPosition.NONE;
+        }
+        long toads = 0;
+        int emptyCell = -1;
+        int cell = 0;
+        int row = 0;
+        int column = 0;
+        int run = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                run = run * 10 + (c - '0');
+                if (run > columns) {
+                    return PackedPosition.NONE;
+                }
+                continue;
+            }
+            if (c == ROW_SEPARATOR) {
+                if (run != 0 || column != columns || ++row >= rows) {
+                    return PackedPosition.NONE;
+                }
+                column = 0;
+                continue;
+            }
+
+            int count = Math.max(1, run);
+            run = 0;
+            if (column + count > columns) {
+                return PackedPosition.NONE;
+            }
+            if (c == TOAD) {
+                for (int k = cell; k < cell + count; k++) {
+                    if (toadBits == null) {
+                        toads |= 1L << k;
+                    } else {
+                        toadBits[k >>> 6] |= 1L << k;
+                    }
+                }
+            } else if (c == EMPTY) {
+                if (count != 1 || emptyCell >= 0) {
+                    return PackedPosition.NONE;
+                }
+                emptyCell = cell;
+            } else if (c != FROG) {
+                return PackedPosition.NONE;
+            }
+            cell += count;
+            column += count;
+        }
+
+        if (run != 0 || row != rows - 1 || column != columns || emptyCell < 0) {
+            return PackedPosition.NONE;
+        }
+        return (toadBits == null) ? PackedPosition.of(toads, emptyCell) : emptyCell;
+    }
+
+    private static int writeHeader(int rows, int columns, int emptyCell, byte[] out,
+                                   int offset) {
+        out[offset] = (byte) (rows >>> 8);
+        out[offset + 1] = (byte) rows;
+        out[offset + 2] = (byte) (columns >>> 8);
+        out[offset + 3] = (byte) columns;
+        out[offset + 4] = (byte) (emptyCell >>> 24);
+        out[offset + 5] = (byte) (emptyCell >>> 16);
+        out[offset + 6] = (byte) (emptyCell >>> 8);
+        out[offset + 7] = (byte) emptyCell;
+        return offset + BINARY_HEADER_BYTES;
+    }
+
+    private static void appendRun(StringBuilder out, char piece, int run) {
+        if (run > 1) {
+            out.append(run);
+        }
+        out.append(piece);
+    }
+}
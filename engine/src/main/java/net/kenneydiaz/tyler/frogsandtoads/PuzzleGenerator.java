@@ -0,0 +1,304 @@
+package net.kenneydiaz.tyler.frogsandtoads;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Generates puzzles: positions from which the game can still be won, graded by how many
+ * moves an optimal solution takes, and gathered into a PuzzlePack.
+ *
+ * Each puzzle is made by scrambling backwards from the winning position with random
+ * unmoves (see PackedPosition.legalUnmoves()), so every puzzle is solvable by
+ * construction. Since the scramble may stumble onto shortcuts, each puzzle is then
+ * solved with a FrogsAndToadsSolver to find its real distance, and kept if its bin is
+ * not full yet. The scramble is aimed a little past a distance whose bin still needs
+ * puzzles, so the bins fill up roughly evenly.
+ *
+ * Flipping the board upside down and back to front while swapping every frog for a
+ * toad turns a position into one exactly as hard (the frogs' moves become the toads'
+ * moves, and the winning position becomes itself). Only one of each such pair is kept,
+ * by comparing their canonical forms (see canonical()).
+ *
+ * Generation runs on every core: each worker has its own random numbers and its own
+ * solver, and they only share the bins and the set of positions seen so far.
+ *
+ * @author Tyler Kenney
+ */
+public class PuzzleGenerator {
+
+    // The default for the most positions the solver may visit for each puzzle before
+    // the puzzle is thrown away, and the memory each worker's solver may use.
+    private static final long DEFAULT_POSITIONS_PER_PUZZLE = 1_000_000;
+    private static final long SOLVER_MEMORY_BUDGET = 16L << 20;
+
+    // The dimensions of the board.
+    private final int rows;
+    private final int columns;
+
+    // How generation is carried out.
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private long seed = System.nanoTime();
+    private long positionsPerPuzzle = DEFAULT_POSITIONS_PER_PUZZLE;
+
+    // The bins being filled by the current run, indexed by distance - minDistance, and
+    // every canonical position scrambled so far. Guarded by lock.
+    private final Object lock = new Object();
+    private long[][] bins;
+    private int[] binSizes;
+    private int openBins;
+    private Set<Long> seen;
+
+    // Statistics of the most recent run.
+    private long attempts;
+    private long duplicates;
+    private long rejected;
+    private int generated;
+    private long elapsedNanos;
+
+    /**
+     * Creates a generator for boards of the given size, which must be small enough to
+     * be packed.
+     *
+     * @param rows the number of rows of the board.
+     * @param columns the number of columns of the board.
+     */
+    public PuzzleGenerator(int rows, int columns) {
+        this.rows = rows;
+        this.columns = columns;
+    }
+
+    /**
+     * @param threads the number of worker threads to generate puzzles on. Defaults to
+     *                the number of cores.
+     */
+    public void setThreads(int threads) {
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * @param seed the seed of the random numbers of the first worker. Each further
+     *             worker uses the next seed along.
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * @param maxPositions the most positions the solver may visit for a single puzzle
+     *                     before the puzzle is thrown away.
+     */
+    public void setPositionsPerPuzzle(long maxPositions) {
+        this.positionsPerPuzzle = maxPositions;
+    }
+
+    /**
+     * Generates up to the given number of puzzles for every distance in a range. Bins
+     * which can not be filled before the time limit (for example, distances longer than
+     * the board allows) end up with fewer puzzles, or none at all.
+     *
+     * @param minDistance the fewest moves a puzzle may take.
+     * @param maxDistance the most moves a puzzle may take.
+     * @param perDistance the number of puzzles wanted for each distance.
+     * @param timeLimitMillis the longest generation may take, in milliseconds.
+     * @return the puzzles generated, in a pack. Bins with no puzzles are left out.
+     */
+    public PuzzlePack generate(int minDistance, int maxDistance, int perDistance,
+                               long timeLimitMillis) {
+        long startNanos = System.nanoTime();
+        long deadline = startNanos + timeLimitMillis * 1_000_000;
+        minDistance = Math.max(1, minDistance);
+        int binCount = Math.max(0, maxDistance - minDistance + 1);
+        bins = new long[binCount][perDistance];
+        binSizes = new int[binCount];
+        openBins = (perDistance > 0) ? binCount : 0;
+        seen = new HashSet<>();
+        attempts = duplicates = rejected = 0;
+
+        List<Callable<Void>> workers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            long workerSeed = seed + i;
+            int first = minDistance;
+            workers.add(() -> {
+                work(new Random(workerSeed), first, deadline);
+                return null;
+            });
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (Future<Void> worker : executor.invokeAll(workers)) {
+                worker.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Puzzle generation failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Gather the bins which got any puzzles into a pack.
+        synchronized (lock) {
+            List<Integer> distances = new ArrayList<>();
+            List<long[]> puzzles = new ArrayList<>();
+            generated = 0;
+            for (int bin = 0; bin < binCount; bin++) {
+                if (binSizes[bin] > 0) {
+                    distances.add(minDistance + bin);
+                    puzzles.add(Arrays.copyOf(bins[bin], binSizes[bin]));
+                    generated += binSizes[bin];
+                }
+            }
+            elapsedNanos = System.nanoTime() - startNanos;
+            bins = null;
+            seen = null;
+
+            int[] distanceArray = new int[distances.size()];
+            for (int i = 0; i < distanceArray.length; i++) {
+                distanceArray[i] = distances.get(i);
+            }
+            return new PuzzlePack(rows, columns, distanceArray,
+                    puzzles.toArray(new long[0][]));
+        }
+    }
+
+    /**
+     * @return the number of puzzles the most recent run generated.
+     */
+    public int getGenerated() {
+        return generated;
+    }
+
+    /**
+     * @return the number of positions the most recent run scrambled, whether they were
+     *         kept or not.
+     */
+    public long getAttempts() {
+        return attempts;
+    }
+
+    /**
+     * @return the number of scrambled positions which had already been seen, or whose
+     *         mirror image had.
+     */
+    public long getDuplicates() {
+        return duplicates;
+    }
+
+    /**
+     * @return the number of scrambled positions thrown away because their bin was full,
+     *         their distance was out of range, or they took too long to solve.
+     */
+    public long getRejected() {
+        return rejected;
+    }
+
+    /**
+     * @return the number of puzzles the most recent run generated per second.
+     */
+    public double getPuzzlesPerSecond() {
+        return (elapsedNanos > 0) ? generated * 1e9 / elapsedNanos : 0;
+    }
+
+    /**
+     * Finds the canonical form of a position: the smaller of the packed position and its
+     * mirror image, which is the position turned upside down and back to front with
+     * every frog swapped for a toad. A position and its mirror image take exactly the
+     * same number of moves to solve.
+     *
+     * @param position the packed position.
+     * @param rows the number of rows of the board.
+     * @param columns the number of columns of the board.
+     * @return the canonical packed position.
+     */
+    public static long canonical(long position, int rows, int columns) {
+        int cells = rows * columns;
+        int emptyCell = PackedPosition.emptyCell(position);
+        long toads = PackedPosition.toads(position);
+        long frogs = ((1L << cells) - 1) & ~toads & ~(1L << emptyCell);
+
+        // Cell n becomes cell cells - 1 - n, which reverses the order of the bits.
+        long mirroredToads = Long.reverse(frogs) >>> (Long.SIZE - cells);
+        long mirror = PackedPosition.of(mirroredToads, cells - 1 - emptyCell);
+        return Math.min(position, mirror);
+    }
+
+    /**
+     * Scrambles and solves positions on a worker thread until every bin is full or time
+     * runs out.
+     */
+    private void work(Random random, int minDistance, long deadline) {
+        FrogsAndToadsSolver solver = new FrogsAndToadsSolver(rows, columns);
+        solver.setMemoryBudget(SOLVER_MEMORY_BUDGET);
+        long goal = PackedPosition.goal(rows, columns);
+        int[] unmoves = new int[PackedPosition.MAX_MOVES];
+
+        while (System.nanoTime() < deadline && !Thread.currentThread().isInterrupted()) {
+            int target = pickOpenBin(random);
+            if (target < 0) {
+                return;
+            }
+
+            // Aim a little past the distance wanted, since scrambles often find
+            // shortcuts.
+            int distance = minDistance + target;
+            int steps = distance + random.nextInt(distance / 2 + 1);
+            long position = goal;
+            for (int i = 0; i < steps; i++) {
+                int count = PackedPosition.legalUnmoves(position, rows, columns, unmoves);
+                if (count == 0) {
+                    break;
+                }
+                position = PackedPosition.unmove(position, unmoves[random.nextInt(count)]);
+            }
+
+            synchronized (lock) {
+                attempts++;
+                if (!seen.add(canonical(position, rows, columns))) {
+                    duplicates++;
+                    continue;
+                }
+            }
+
+            int solved = solver.distanceToGoal(position, positionsPerPuzzle);
+            int bin = solved - minDistance;
+            synchronized (lock) {
+                if (bin < 0 || bin >= bins.length || binSizes[bin] == bins[bin].length) {
+                    rejected++;
+                    continue;
+                }
+                bins[bin][binSizes[bin]++] = position;
+                if (binSizes[bin] == bins[bin].length) {
+                    openBins--;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the index of a random bin which still needs puzzles, or -1 if they are all
+     *         full.
+     */
+    private int pickOpenBin(Random random) {
+        synchronized (lock) {
+            if (openBins == 0) {
+                return -1;
+            }
+            int skip = random.nextInt(openBins);
+            for (int bin = 0; bin < binSizes.length; bin++) {
+                if (binSizes[bin] < bins[bin].length && skip-- == 0) {
+                    return bin;
+                }
+            }
+            return -1;
+        }
+    }
+}
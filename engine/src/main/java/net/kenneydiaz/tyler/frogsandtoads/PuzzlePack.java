@@ -0,0 +1,327 @@
+package net.kenneydiaz.tyler.frogsandtoads;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * A collection of puzzles (solvable positions) for a single board size, grouped by the
+ * number of moves an optimal solution takes, which is how difficult each puzzle is.
+ * Packs are produced by PuzzleGenerator and stored in a compact binary format:
+ *
+ *   magic       int    MAGIC
+ *   version     byte   VERSION
+ *   rows        byte
+ *   columns     byte
+ *   recordBytes byte   the bytes of each puzzle (see recordBytes())
+ *   binCount    int
+ *   bins        binCount times: distance int, puzzle count int, offset int, in
+ *               increasing distance, where offset is the byte offset of the bin's first
+ *               record from the start of the pack
+ *   records     every puzzle, bin by bin
+ *
+ * Every number is big endian. Each record holds the toads of a packed position in its
+ * low rows * columns bits and the empty cell in the bits above them, which takes only
+ * four bytes per puzzle on a 5x5 board.
+ *
+ * A pack is never decoded as a whole. It is kept as the ByteBuffer it was loaded into,
+ * ideally a file mapped straight into memory (see map()) or a raw resource read into a
+ * direct buffer (see readFrom()), and only the small bin table is read when it is
+ * opened. Since every record is the same size, any puzzle is then found in constant
+ * time, straight from the bin table, and decoded on its own.
+ *
+ * @author Tyler Kenney
+ */
+public class PuzzlePack {
+
+    // The first four bytes of every pack ("FTPK"), and the version of the format.
+    public static final int MAGIC = 0x4654504B;
+    public static final int VERSION = 1;
+
+    // The bits each record needs for the number of the empty cell, which is always less
+    // than PackedPosition.MAX_CELLS.
+    private static final int EMPTY_CELL_BITS = 6;
+
+    // The longest distance a bin may have. No board which can be packed needs anywhere
+    // near this many moves.
+    private static final int MAX_DISTANCE = 1 << 16;
+
+    // The bytes of the fixed part of the header, and of each entry of the bin table.
+    private static final int HEADER_BYTES = 12;
+    private static final int BIN_BYTES = 12;
+
+    // The pack itself, in its binary format.
+    private final ByteBuffer data;
+
+    // The dimensions of the board every puzzle is played on, and the size of a record.
+    private final int rows;
+    private final int columns;
+    private final int recordBytes;
+
+    // The bin table: the optimal distance of each bin in increasing order, the number
+    // of puzzles in it, and the offset of its first record. binOfDistance maps each
+    // distance from the first bin's on to its bin, or -1 if it has none.
+    private final int[] distances;
+    private final int[] counts;
+    private final int[] offsets;
+    private final int[] binOfDistance;
+    private final int puzzleCount;
+
+    /**
+     * Creates a pack from puzzles which have already been grouped by distance, encoding
+     * them into a buffer on the heap.
+     *
+     * @param rows the number of rows of the board.
+     * @param columns the number of columns of the board.
+     * @param distances the optimal distance of each bin, in increasing order.
+     * @param puzzles the packed positions of each bin's puzzles.
+     */
+    public PuzzlePack(int rows, int columns, int[] distances, long[][] puzzles) {
+        this(encode(rows, columns, distances, puzzles));
+    }
+
+    /**
+     * Opens a pack held in a buffer, reading only its header and bin table.
+     */
+    private PuzzlePack(ByteBuffer data) {
+        this.data = data;
+        rows = data.get(5) & 0xFF;
+        columns = data.get(6) & 0xFF;
+        recordBytes = data.get(7) & 0xFF;
+        int binCount = data.getInt(8);
+        distances = new int[binCount];
+        counts = new int[binCount];
+        offsets = new int[binCount];
+        int total = 0;
+        for (int bin = 0; bin < binCount; bin++) {
+            int entry = HEADER_BYTES + bin * BIN_BYTES;
+            distances[bin] = data.getInt(entry);
+            counts[bin] = data.getInt(entry + 4);
+            offsets[bin] = data.getInt(entry + 8);
+            total += counts[bin];
+        }
+        puzzleCount = total;
+
+        int span = (binCount == 0) ? 0 : distances[binCount - 1] - distances[0] + 1;
+        binOfDistance = new int[span];
+        Arrays.fill(binOfDistance, -1);
+        for (int bin = 0; bin < binCount; bin++) {
+            binOfDistance[distances[bin] - distances[0]] = bin;
+        }
+    }
+
+    /**
+     * Opens a pack held in a buffer, such as one read from a raw resource. The buffer's
+     * contents must not change while the pack is in use.
+     *
+     * @param buffer the buffer, whose contents from its current position on are the
+     *               pack.
+     * @return the pack.
+     * @throws IOException if the buffer does not hold a valid pack.
+     */
+    public static PuzzlePack wrap(ByteBuffer buffer) throws IOException {
+        ByteBuffer data = buffer.slice().order(ByteOrder.BIG_ENDIAN);
+        validate(data);
+        return new PuzzlePack(data);
+    }
+
+    /**
+     * Opens a pack stored in a file by mapping the file into memory, so that pages of
+     * the pack are only read from storage once a puzzle on them is needed.
+     *
+     * @param file the file holding the pack.
+     * @return the pack.
+     * @throws IOException if the file could not be mapped or does not hold a valid pack.
+     */
+    public static PuzzlePack map(File file) throws IOException {
+        try (RandomAccessFile input = new RandomAccessFile(file, "r");
+             FileChannel channel = input.getChannel()) {
+
+            // The mapping stays valid once the channel is closed.
+            return wrap(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Reads a pack from a stream, such as a raw resource, into a direct buffer outside
+     * the Java heap. The stream is not closed.
+     *
+     * @param stream the stream to read from.
+     * @return the pack.
+     * @throws IOException if the stream could not be read or does not hold a pack.
+     */
+    public static PuzzlePack readFrom(InputStream stream) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] chunk = new byte[8192];
+        for (int read; (read = stream.read(chunk)) != -1; ) {
+            bytes.write(chunk, 0, read);
+        }
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.size());
+        buffer.put(bytes.toByteArray()).flip();
+        return wrap(buffer);
+    }
+
+    /**
+     * Writes the pack in its binary format. The stream is not closed.
+     *
+     * @param stream the stream to write to.
+     * @throws IOException if the stream could not be written.
+     */
+    public void writeTo(OutputStream stream) throws IOException {
+        ByteBuffer source = data.duplicate();
+        source.clear();
+        byte[] chunk = new byte[8192];
+        while (source.hasRemaining()) {
+            int length = Math.min(chunk.length, source.remaining());
+            source.get(chunk, 0, length);
+            stream.write(chunk, 0, length);
+        }
+        stream.flush();
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    /**
+     * @return the optimal distance of every bin which holds at least one puzzle, in
+     *         increasing order.
+     */
+    public int[] getDistances() {
+        return distances.clone();
+    }
+
+    /**
+     * @return the number of puzzles in the whole pack.
+     */
+    public int countPuzzles() {
+        return puzzleCount;
+    }
+
+    /**
+     * @param distance the optimal distance of the puzzles to count.
+     * @return the number of puzzles which take exactly that many moves to solve.
+     */
+    public int countPuzzles(int distance) {
+        int bin = binOf(distance);
+        return (bin < 0) ? 0 : counts[bin];
+    }
+
+    /**
+     * Decodes a single puzzle, in constant time.
+     *
+     * @param distance the optimal distance of the puzzle.
+     * @param index the index of the puzzle among those with the same distance.
+     * @return the packed position of the puzzle, or PackedPosition.NONE if there is no
+     *         such puzzle.
+     */
+    public long getPuzzle(int distance, int index) {
+        int bin = binOf(distance);
+        if (bin < 0 || index < 0 || index >= counts[bin]) {
+            return PackedPosition.NONE;
+        }
+
+        int offset = offsets[bin] + index * recordBytes;
+        long record = 0;
+        for (int i = 0; i < recordBytes; i++) {
+            record = (record << Byte.SIZE) | (data.get(offset + i) & 0xFF);
+        }
+        long toads = record & ((1L << (rows * columns)) - 1);
+        return PackedPosition.of(toads, (int) (record >>> (rows * columns)));
+    }
+
+    /**
+     * @param rows the number of rows of the board.
+     * @param columns the number of columns of the board.
+     * @return the number of bytes each puzzle of a pack for the board takes up.
+     */
+    public static int recordBytes(int rows, int columns) {
+        return (rows * columns + EMPTY_CELL_BITS + Byte.SIZE - 1) / Byte.SIZE;
+    }
+
+    /**
+     * Lays puzzles out in the binary format.
+     */
+    private static ByteBuffer encode(int rows, int columns, int[] distances,
+                                     long[][] puzzles) {
+        int cells = rows * columns;
+        int recordBytes = recordBytes(rows, columns);
+        int size = HEADER_BYTES + BIN_BYTES * distances.length;
+        for (long[] bin : puzzles) {
+            size += bin.length * recordBytes;
+        }
+
+        ByteBuffer data = ByteBuffer.allocate(size);
+        data.putInt(MAGIC).put((byte) VERSION).put((byte) rows).put((byte) columns)
+                .put((byte) recordBytes).putInt(distances.length);
+        int offset = HEADER_BYTES + BIN_BYTES * distances.length;
+        for (int bin = 0; bin < distances.length; bin++) {
+            data.putInt(distances[bin]).putInt(puzzles[bin].length).putInt(offset);
+            offset += puzzles[bin].length * recordBytes;
+        }
+        for (long[] bin : puzzles) {
+            for (long position : bin) {
+
+                // Squeeze the empty cell down to just above the toads.
+                long record = PackedPosition.toads(position) |
+                        ((long) PackedPosition.emptyCell(position) << cells);
+                for (int i = recordBytes - 1; i >= 0; i--) {
+                    data.put((byte) (record >>> (i * Byte.SIZE)));
+                }
+            }
+        }
+        data.flip();
+        return data;
+    }
+
+    /**
+     * Checks that a buffer holds a well formed pack, so that lookups never have to.
+     */
+    private static void validate(ByteBuffer data) throws IOException {
+        if (data.limit() < HEADER_BYTES || data.getInt(0) != MAGIC) {
+            throw new IOException("Not a puzzle pack");
+        }
+        int version = data.get(4) & 0xFF;
+        if (version != VERSION) {
+            throw new IOException("Unsupported puzzle pack version " + version);
+        }
+        int rows = data.get(5) & 0xFF;
+        int columns = data.get(6) & 0xFF;
+        int recordBytes = data.get(7) & 0xFF;
+        int binCount = data.getInt(8);
+        if (!PackedPosition.fits(rows, columns) ||
+                recordBytes != recordBytes(rows, columns) || binCount < 0 ||
+                HEADER_BYTES + (long) BIN_BYTES * binCount > data.limit()) {
+            throw new IOException("Corrupt puzzle pack header");
+        }
+
+        int previous = -1;
+        for (int bin = 0; bin < binCount; bin++) {
+            int entry = HEADER_BYTES + bin * BIN_BYTES;
+            int distance = data.getInt(entry);
+            int count = data.getInt(entry + 4);
+            int offset = data.getInt(entry + 8);
+            if (distance <= previous || distance > MAX_DISTANCE || count < 0 ||
+                    offset < 0 || offset + (long) count * recordBytes > data.limit()) {
+                throw new IOException("Corrupt puzzle pack bin table");
+            }
+            previous = distance;
+        }
+    }
+
+    private int binOf(int distance) {
+        int index = (distances.length == 0) ? -1 : distance - distances[0];
+        return (index < 0 || index >= binOfDistance.length) ? -1 : binOfDistance[index];
+    }
+}
@@ -0,0 +1,684 @@
+package net.kenneydiaz.tyler.frogsandtoads;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Keeps what the solver has worked out about positions (how far each is from winning,
+ * its best move, or even a whole optimal path) in files, so that answers outlive the
+ * process. A hint asked for twice, or a game played twice, then costs a file lookup
+ * rather than a search.
+ *
+ * An answer is an array of ints, keyed by the dimensions of the board (of at most
+ * MAX_DIMENSION rows and columns) and the packed position. Answers live in two files
+ * in the cache's directory:
+ *
+ *   solutions.log   an append-only log of records, each one answer:
+ *                     header   magic int MAGIC, version int VERSION, generation long
+ *                     records  rows byte, columns byte, count short, position long,
+ *                              count ints, then the CRC-32 of all of that as an int
+ *   solutions.idx   a compact index of the live records, least recently used first:
+ *                     header   magic int INDEX_MAGIC, version int VERSION, generation
+ *                              long, the length of the log it covers long, count int
+ *                     entries  rows byte, columns byte, count short, position long,
+ *                              the offset of the record in the log long
+ *                     the CRC-32 of everything before it, as an int
+ *
+ * Every number is big endian. Only the index is held in memory (around a hundred bytes
+ * an answer), and an answer is read from the log when it is asked for.
+ *
+ * Writes are made to survive the process, or the device, dying at any moment. A
+ * record is appended in a single write and carries its own checksum, so a record torn
+ * in half is found when the log is next opened, and cut off along with anything after
+ * it. The index is only ever replaced whole, by writing a new one beside it and
+ * renaming it over the old one. If the index is missing, damaged, or was written for a
+ * different generation of the log, the log is simply read through again; if it is
+ * shorter than the log, only the records after the part it covers are read.
+ *
+ * The answers kept are limited by their total size in bytes: once they take more than
+ * the budget, the least recently used are forgotten. Forgotten and replaced answers
+ * stay in the log until it has grown to twice the budget, when the live records are
+ * copied to a new log (with a new generation), which replaces the old one.
+ *
+ * Nothing is read from storage until an answer is first asked for or stored, so a
+ * cache costs nothing to create. Storage failing is not fatal: the cache simply stops
+ * answering (every lookup is a miss) and storing, and getFailure() says why.
+ *
+ * @author Tyler Kenney
+ */
+public class SolutionCache implements AutoCloseable {
+
+    // The first four bytes of the log ("FTSL") and of the index ("FTSI"), and the
+    // version of their formats.
+    public static final int MAGIC = 0x4654534C;
+    public static final int INDEX_MAGIC = 0x46545349;
+    public static final int VERSION = 1;
+
+    // The names of the files kept in the cache's directory.
+    public static final String LOG_NAME = "solutions.log";
+    public static final String INDEX_NAME = "solutions.idx";
+
+    // The most bytes of answers a cache keeps by default.
+    public static final long DEFAULT_MAX_BYTES = 1L << 20;
+
+    // The most ints a single answer may hold, and the most rows or columns its board
+    // may have.
+    public static final int MAX_VALUES = Short.MAX_VALUE;
+    public static final int MAX_DIMENSION = 255;
+
+    // The bytes of the headers of the log and the index, of the fixed part of each
+    // record (besides its values), and of each entry of the index.
+    private static final int LOG_HEADER_BYTES = 16;
+    private static final int INDEX_HEADER_BYTES = 28;
+    private static final int RECORD_OVERHEAD_BYTES = 16;
+    private static final int INDEX_ENTRY_BYTES = 20;
+
+    /**
+     * The dimensions of a board and a position on it.
+     */
+    private static final class Key {
+        final int rows;
+        final int columns;
+        final long position;
+
+        Key(int rows, int columns, long position) {
+            this.rows = rows;
+            this.columns = columns;
+            this.position = position;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) other;
+            return key.position == position && key.rows == rows &&
+                    key.columns == columns;
+        }
+
+        @Override
+        public int hashCode() {
+
+            // Mixes the bits of the position, since positions close together differ
+            // in only a few bits, then folds in the board.
+            long hash = position * 0x9E3779B97F4A7C15L;
+            return (int) (hash ^ (hash >>> 32)) * 31 + rows * 101 + columns;
+        }
+    }
+
+    /**
+     * Where the record of a live answer is in the log.
+     */
+    private static final class Location {
+        final long offset;
+        final int count;
+
+        Location(long offset, int count) {
+            this.offset = offset;
+            this.count = count;
+        }
+
+        int bytes() {
+            return recordBytes(count);
+        }
+    }
+
+    private final File directory;
+    private final File logFile;
+    private final File indexFile;
+    private final long maxBytes;
+
+    // The live answers, least recently used first, and the bytes of their records.
+    private final LinkedHashMap<Key, Location> index =
+            new LinkedHashMap<>(16, 0.75f, true);
+    private long liveBytes;
+
+    // The open log, its length and its generation, or null before the cache is loaded
+    // and once it has been closed or has failed.
+    private RandomAccessFile log;
+    private long logLength;
+    private long generation;
+    private boolean loaded;
+    private String failure;
+
+    // The buffer records are read and written through, grown as needed.
+    private ByteBuffer buffer = ByteBuffer.allocate(256);
+    private final CRC32 crc = new CRC32();
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long writes;
+
+    /**
+     * Creates a cache keeping up to DEFAULT_MAX_BYTES of answers in the given directory.
+     *
+     * @param directory the directory to keep the cache's files in, which is created if
+     *                  need be.
+     */
+    public SolutionCache(File directory) {
+        this(directory, DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * Creates a cache. Nothing is read or written until the cache is first used.
+     *
+     * @param directory the directory to keep the cache's files in, which is created if
+     *                  need be.
+     * @param maxBytes the most bytes of records to keep.
+     */
+    public SolutionCache(File directory, long maxBytes) {
+        this.directory = directory;
+        this.logFile = new File(directory, LOG_NAME);
+        this.indexFile = new File(directory, INDEX_NAME);
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Looks up the answer for a position.
+     *
+     * @param rows the number of rows of the board.
+     * @param columns the number of columns of the board.
+     * @param position the packed position.
+     * @return the answer stored for the position, or null if there is none.
+     */
+    public synchronized int[] get(int rows, int columns, long position) {
+        Key key = new Key(rows, columns, position);
+        Location location = ensureLoaded() ? index.get(key) : null;
+        int[] values = (location != null) ? read(key, location) : null;
+        if (values == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return values;
+    }
+
+    /**
+     * Stores the answer for a position, replacing any answer stored before. The least
+     * recently used answers are forgotten if this takes the cache over its budget.
+     *
+     * @param rows the number of rows of the board.
+     * @param columns the number of columns of the board.
+     * @param position the packed position.
+     * @param values the answer, of at most MAX_VALUES ints.
+     * @return true if the answer was stored. False if it or its board is too large, or
+     *         the cache has been closed or failed.
+     */
+    public synchronized boolean put(int rows, int columns, long position, int[] values) {
+        if (values.length > MAX_VALUES || recordBytes(values.length) > maxBytes ||
+                rows > MAX_DIMENSION || columns > MAX_DIMENSION || !ensureLoaded()) {
+            return false;
+        }
+        Key key = new Key(rows, columns, position);
+        try {
+            long offset = logLength;
+            encode(key, values);
+            log.seek(offset);
+            log.write(buffer.array(), 0, buffer.limit());
+            logLength += buffer.limit();
+            writes++;
+            place(key, new Location(offset, values.length));
+            evict();
+            if (logLength - LOG_HEADER_BYTES > 2 * maxBytes) {
+                compact();
+            }
+            return true;
+        } catch (IOException e) {
+            fail(e);
+            return false;
+        }
+    }
+
+    /**
+     * Forces every answer stored so far out to storage, and writes the index, so the
+     * next process to open the cache need not read through the log.
+     *
+     * @return true if everything was written. False if the cache has failed.
+     */
+    public synchronized boolean flush() {
+        if (!loaded || log == null) {
+            return failure == null;
+        }
+        try {
+            log.getFD().sync();
+            writeIndex();
+            return true;
+        } catch (IOException e) {
+            fail(e);
+            return false;
+        }
+    }
+
+    /**
+     * Flushes the cache and closes its files. Every lookup afterwards is a miss. Any
+     * failure is recorded rather than thrown (see getFailure()).
+     */
+    @Override
+    public synchronized void close() {
+        flush();
+        closeLog();
+        if (failure == null) {
+            failure = "closed";
+        }
+    }
+
+    /**
+     * @return the number of lookups which found an answer.
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return the number of lookups which did not.
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return the fraction of lookups which found an answer, or 0 if there have been
+     *         none.
+     */
+    public synchronized double getHitRate() {
+        long lookups = hits + misses;
+        return (lookups == 0) ? 0 : (double) hits / lookups;
+    }
+
+    /**
+     * @return the number of answers forgotten to keep within the budget.
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * @return the number of answers kept, once loaded.
+     */
+    public synchronized int countEntries() {
+        return index.size();
+    }
+
+    /**
+     * @return the bytes of the records of the answers kept.
+     */
+    public synchronized long getBytes() {
+        return liveBytes;
+    }
+
+    /**
+     * @return why the cache stopped working, or null if it has not.
+     */
+    public synchronized String getFailure() {
+        return failure;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format(Locale.ROOT, "%d hits, %d misses (%.1f%% hit rate), " +
+                        "%d entries, %d bytes, %d writes, %d evictions%s",
+                hits, misses, 100 * getHitRate(), index.size(), liveBytes, writes,
+                evictions, (failure != null) ? ", " + failure : "");
+    }
+
+    /**
+     * @param count the number of values of an answer.
+     * @return the bytes of the record holding the answer.
+     */
+    static int recordBytes(int count) {
+        return RECORD_OVERHEAD_BYTES + 4 * count;
+    }
+
+    /**
+     * Opens the log and reads the index (or the log itself), the first time the cache
+     * is used.
+     *
+     * @return true if the cache can be used. False if it has been closed or failed.
+     */
+    private boolean ensureLoaded() {
+        if (loaded || failure != null) {
+            return log != null;
+        }
+        loaded = true;
+        try {
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                throw new IOException("Could not create " + directory);
+            }
+            log = new RandomAccessFile(logFile, "rw");
+            if (!readLogHeader()) {
+                generation = System.nanoTime();
+                startLog(log, generation);
+                log.setLength(LOG_HEADER_BYTES);
+                logLength = LOG_HEADER_BYTES;
+                return true;
+            }
+            logLength = log.length();
+            long covered = readIndex();
+            scanLog(covered);
+            evict();
+            return true;
+        } catch (IOException e) {
+            fail(e);
+            return false;
+        }
+    }
+
+    /**
+     * Reads the header of the log, if it has a valid one.
+     *
+     * @return true if it does, in which case the generation has been read.
+     */
+    private boolean readLogHeader() throws IOException {
+        if (log.length() < LOG_HEADER_BYTES) {
+            return false;
+        }
+        log.seek(0);
+        if (log.readInt() != MAGIC || log.readInt() != VERSION) {
+            return false;
+        }
+        generation = log.readLong();
+        return true;
+    }
+
+    /**
+     * Writes the header of a new, empty log.
+     */
+    private static void startLog(RandomAccessFile file, long generation)
+            throws IOException {
+        file.seek(0);
+        file.writeInt(MAGIC);
+        file.writeInt(VERSION);
+        file.writeLong(generation);
+    }
+
+    /**
+     * Reads the index into memory, if it is valid and matches the log.
+     *
+     * @return the length of the log the index covers, or the length of the log's
+     *         header if there is no usable index.
+     */
+    private long readIndex() {
+        if (!indexFile.isFile()) {
+            return LOG_HEADER_BYTES;
+        }
+        List<Key> keys = new ArrayList<>();
+        List<Location> locations = new ArrayList<>();
+        long covered;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new FileInputStream(indexFile)))) {
+            CRC32 checksum = new CRC32();
+            byte[] header = new byte[INDEX_HEADER_BYTES];
+            in.readFully(header);
+            checksum.update(header, 0, header.length);
+            ByteBuffer fields = ByteBuffer.wrap(header);
+            if (fields.getInt() != INDEX_MAGIC || fields.getInt() != VERSION ||
+                    fields.getLong() != generation) {
+                return LOG_HEADER_BYTES;
+            }
+            covered = fields.getLong();
+            int count = fields.getInt();
+            if (covered < LOG_HEADER_BYTES || covered > logLength || count < 0) {
+                return LOG_HEADER_BYTES;
+            }
+            byte[] entry = new byte[INDEX_ENTRY_BYTES];
+            for (int i = 0; i < count; i++) {
+                in.readFully(entry);
+                checksum.update(entry, 0, entry.length);
+                ByteBuffer entryFields = ByteBuffer.wrap(entry);
+                int rows = entryFields.get() & 0xFF;
+                int columns = entryFields.get() & 0xFF;
+                int values = entryFields.getShort() & 0xFFFF;
+                long position = entryFields.getLong();
+                long offset = entryFields.getLong();
+                if (offset < LOG_HEADER_BYTES || offset + recordBytes(values) > covered) {
+                    return LOG_HEADER_BYTES;
+                }
+                keys.add(new Key(rows, columns, position));
+                locations.add(new Location(offset, values));
+            }
+            if (in.readInt() != (int) checksum.getValue()) {
+                return LOG_HEADER_BYTES;
+            }
+        } catch (IOException e) {
+
+            // A damaged index, or one cut short, is no worse than none.
+            return LOG_HEADER_BYTES;
+        }
+        for (int i = 0; i < keys.size(); i++) {
+            place(keys.get(i), locations.get(i));
+        }
+        return covered;
+    }
+
+    /**
+     * Reads through the log from the given offset, indexing every record, and cuts it
+     * off at the first record which is torn or damaged.
+     */
+    private void scanLog(long offset) throws IOException {
+        byte[] head = new byte[2];
+        while (offset + RECORD_OVERHEAD_BYTES <= logLength) {
+            log.seek(offset + 2);
+            log.readFully(head, 0, 2);
+            int count = ((head[0] & 0xFF) << 8) | (head[1] & 0xFF);
+            int bytes = recordBytes(count);
+            if (offset + bytes > logLength || !readRecord(offset, count)) {
+                break;
+            }
+            buffer.position(4);
+            long position = buffer.getLong();
+            Key key = new Key(buffer.get(0) & 0xFF, buffer.get(1) & 0xFF, position);
+            place(key, new Location(offset, count));
+            offset += bytes;
+        }
+        if (offset < logLength) {
+            log.setLength(offset);
+            logLength = offset;
+        }
+    }
+
+    /**
+     * Reads a record into the buffer and checks it is intact.
+     *
+     * @return true if the record's checksum matches.
+     */
+    private boolean readRecord(long offset, int count) throws IOException {
+        int bytes = recordBytes(count);
+        ensureBuffer(bytes);
+        log.seek(offset);
+        log.readFully(buffer.array(), 0, bytes);
+        buffer.clear().limit(bytes);
+        crc.reset();
+        crc.update(buffer.array(), 0, bytes - 4);
+        return buffer.getInt(bytes - 4) == (int) crc.getValue();
+    }
+
+    /**
+     * Reads the answer of a live record.
+     *
+     * @return the answer, or null if it could not be read or was damaged, in which
+     *         case it is forgotten.
+     */
+    private int[] read(Key key, Location location) {
+        try {
+            if (!readRecord(location.offset, location.count) ||
+                    buffer.getLong(4) != key.position) {
+                forget(key);
+                return null;
+            }
+            int[] values = new int[location.count];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = buffer.getInt(12 + 4 * i);
+            }
+            return values;
+        } catch (IOException e) {
+            fail(e);
+            return null;
+        }
+    }
+
+    /**
+     * Encodes a record into the buffer, ready to be written.
+     */
+    private void encode(Key key, int[] values) {
+        int bytes = recordBytes(values.length);
+        ensureBuffer(bytes);
+        buffer.clear();
+        buffer.put((byte) key.rows).put((byte) key.columns)
+                .putShort((short) values.length).putLong(key.position);
+        for (int value : values) {
+            buffer.putInt(value);
+        }
+        crc.reset();
+        crc.update(buffer.array(), 0, bytes - 4);
+        buffer.putInt((int) crc.getValue());
+        buffer.flip();
+    }
+
+    private void ensureBuffer(int bytes) {
+        if (buffer.capacity() < bytes) {
+            buffer = ByteBuffer.allocate(Math.max(bytes, 2 * buffer.capacity()));
+        }
+    }
+
+    /**
+     * Makes a record the live answer for its key, replacing any before it.
+     */
+    private void place(Key key, Location location) {
+        Location replaced = index.put(key, location);
+        if (replaced != null) {
+            liveBytes -= replaced.bytes();
+        }
+        liveBytes += location.bytes();
+    }
+
+    private void forget(Key key) {
+        Location removed = index.remove(key);
+        if (removed != null) {
+            liveBytes -= removed.bytes();
+        }
+    }
+
+    /**
+     * Forgets the least recently used answers until the rest are within the budget.
+     */
+    private void evict() {
+        Iterator<Map.Entry<Key, Location>> eldest = index.entrySet().iterator();
+        while (liveBytes > maxBytes && eldest.hasNext()) {
+            liveBytes -= eldest.next().getValue().bytes();
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * Copies the live records to a new log, least recently used first, and replaces the
+     * old log with it. The new log has a new generation, so an index written for the
+     * old one is never mistaken for the new one's, whenever the process dies.
+     */
+    private void compact() throws IOException {
+        File compacted = new File(directory, LOG_NAME + ".tmp");
+        long newGeneration = generation + 1;
+        LinkedHashMap<Key, Location> moved = new LinkedHashMap<>(16, 0.75f, true);
+        long offset = LOG_HEADER_BYTES;
+        try (RandomAccessFile out = new RandomAccessFile(compacted, "rw")) {
+            out.setLength(0);
+            startLog(out, newGeneration);
+            for (Map.Entry<Key, Location> entry : index.entrySet()) {
+                Location location = entry.getValue();
+                if (!readRecord(location.offset, location.count)) {
+                    continue;
+                }
+                out.write(buffer.array(), 0, location.bytes());
+                moved.put(entry.getKey(), new Location(offset, location.count));
+                offset += location.bytes();
+            }
+            out.getFD().sync();
+        }
+        closeLog();
+        if (!compacted.renameTo(logFile)) {
+            throw new IOException("Could not replace " + logFile);
+        }
+        log = new RandomAccessFile(logFile, "rw");
+        generation = newGeneration;
+        logLength = offset;
+        index.clear();
+        liveBytes = 0;
+        for (Map.Entry<Key, Location> entry : moved.entrySet()) {
+            place(entry.getKey(), entry.getValue());
+        }
+        writeIndex();
+    }
+
+    /**
+     * Writes the index beside the old one, then renames it over the old one.
+     */
+    private void writeIndex() throws IOException {
+        File written = new File(directory, INDEX_NAME + ".tmp");
+        CRC32 checksum = new CRC32();
+        try (FileOutputStream file = new FileOutputStream(written);
+             DataOutputStream out = new DataOutputStream(
+                     new BufferedOutputStream(file))) {
+            ByteBuffer header = ByteBuffer.allocate(INDEX_HEADER_BYTES);
+            header.putInt(INDEX_MAGIC).putInt(VERSION).putLong(generation)
+                    .putLong(logLength).putInt(index.size());
+            out.write(header.array());
+            checksum.update(header.array(), 0, header.capacity());
+            ByteBuffer entry = ByteBuffer.allocate(INDEX_ENTRY_BYTES);
+            for (Map.Entry<Key, Location> live : index.entrySet()) {
+                Key key = live.getKey();
+                entry.clear();
+                entry.put((byte) key.rows).put((byte) key.columns)
+                        .putShort((short) live.getValue().count).putLong(key.position)
+                        .putLong(live.getValue().offset);
+                out.write(entry.array());
+                checksum.update(entry.array(), 0, INDEX_ENTRY_BYTES);
+            }
+            out.writeInt((int) checksum.getValue());
+            out.flush();
+            file.getFD().sync();
+        }
+        if (!written.renameTo(indexFile)) {
+            throw new IOException("Could not replace " + indexFile);
+        }
+    }
+
+    private void closeLog() {
+        if (log != null) {
+            try {
+                log.close();
+            } catch (IOException e) {
+                // Everything written has already been handed to the file system.
+            }
+            log = null;
+        }
+    }
+
+    /**
+     * Stops the cache working after storage has failed, forgetting every answer.
+     */
+    private void fail(IOException e) {
+        failure = (e instanceof EOFException) ? "log cut short" : String.valueOf(
+                e.getMessage());
+        closeLog();
+        index.clear();
+        liveBytes = 0;
+    }
+}
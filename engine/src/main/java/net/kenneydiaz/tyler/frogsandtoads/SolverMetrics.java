@@ -0,0 +1,194 @@
+package net.kenneydiaz.tyler.frogsandtoads;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * An immutable snapshot of the work a FrogsAndToadsSolver has done on its current (or
+ * most recent) search: how many positions it expanded and how quickly, how deep it is
+ * and against what bound, how often its transposition table already knew the answer,
+ * and how many positions it skipped, and why.
+ *
+ * Snapshots are taken with FrogsAndToadsSolver.getMetrics(), or handed to a Listener
+ * every so often while a search runs. They can be logged with toString(), or collected
+ * and exported with toCsv() for tuning the solver in a spreadsheet.
+ *
+ * @author Tyler Kenney
+ */
+public class SolverMetrics {
+
+    /**
+     * A listener which is notified periodically on the solver's thread while a search
+     * runs, and once more when it finishes.
+     */
+    public interface Listener {
+        void onSearchProgress(SolverMetrics metrics);
+    }
+
+    // The reasons a position can be skipped without being expanded: a move which leaves
+    // the game in a deadlock, a pattern database showing the game can not be won, the
+    // heuristic estimate being beyond the bound, or the transposition table already
+    // holding a lower bound beyond it.
+    public static final int PRUNED_DEADLOCK = 0;
+    public static final int PRUNED_UNWINNABLE = 1;
+    public static final int PRUNED_HEURISTIC = 2;
+    public static final int PRUNED_TABLE = 3;
+    static final int PRUNE_REASONS = 4;
+
+    // The first line of the CSV written by toCsv(), naming each column of a row.
+    public static final String CSV_HEADER = "elapsed_ms,nodes_expanded,nodes_per_second," +
+            "depth,bound,branching_factor,table_probes,table_hit_rate,table_size," +
+            "table_evictions,pruned_deadlock,pruned_unwinnable,pruned_heuristic," +
+            "pruned_table";
+
+    private final long elapsedNanos;
+    private final long nodesExpanded;
+    private final long successorsSearched;
+    private final int depth;
+    private final int bound;
+    private final long tableProbes;
+    private final long tableHits;
+    private final int tableSize;
+    private final long tableEvictions;
+    private final long[] pruned;
+
+    SolverMetrics(long elapsedNanos, long nodesExpanded, long successorsSearched, int depth,
+                  int bound, long tableProbes, long tableHits, int tableSize,
+                  long tableEvictions, long[] pruned) {
+        this.elapsedNanos = elapsedNanos;
+        this.nodesExpanded = nodesExpanded;
+        this.successorsSearched = successorsSearched;
+        this.depth = depth;
+        this.bound = bound;
+        this.tableProbes = tableProbes;
+        this.tableHits = tableHits;
+        this.tableSize = tableSize;
+        this.tableEvictions = tableEvictions;
+        this.pruned = pruned.clone();
+    }
+
+    /**
+     * @return the time since the search started, in nanoseconds.
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * @return the number of positions whose moves have been generated and searched.
+     */
+    public long getNodesExpanded() {
+        return nodesExpanded;
+    }
+
+    /**
+     * @return the mean number of positions expanded per second so far.
+     */
+    public double getNodesPerSecond() {
+        return (elapsedNanos > 0) ? nodesExpanded * 1e9 / elapsedNanos : 0;
+    }
+
+    /**
+     * @return the depth of the position the search was at when the snapshot was taken.
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * @return the bound of the current iterative deepening pass, or Integer.MAX_VALUE
+     *         if the search has no bound.
+     */
+    public int getBound() {
+        return bound;
+    }
+
+    /**
+     * @return the mean number of successors actually searched per position expanded,
+     *         after moves into deadlocks were skipped.
+     */
+    public double getBranchingFactor() {
+        return (nodesExpanded > 0) ? (double) successorsSearched / nodesExpanded : 0;
+    }
+
+    /**
+     * @return the number of times the transposition table was looked in.
+     */
+    public long getTableProbes() {
+        return tableProbes;
+    }
+
+    /**
+     * @return the fraction of transposition table lookups which found the position.
+     */
+    public double getTableHitRate() {
+        return (tableProbes > 0) ? (double) tableHits / tableProbes : 0;
+    }
+
+    /**
+     * @return the number of positions in the transposition table.
+     */
+    public int getTableSize() {
+        return tableSize;
+    }
+
+    /**
+     * @return the number of positions the transposition table has forgotten to stay
+     *         within the solver's memory budget.
+     */
+    public long getTableEvictions() {
+        return tableEvictions;
+    }
+
+    /**
+     * @param reason one of the PRUNED_ constants.
+     * @return the number of positions skipped for that reason.
+     */
+    public long getPruned(int reason) {
+        return pruned[reason];
+    }
+
+    /**
+     * Formats the snapshot as a single row of CSV, with the columns named by CSV_HEADER.
+     *
+     * @return the row, without a line separator.
+     */
+    public String toCsvRow() {
+        return String.format(Locale.US, "%.3f,%d,%.0f,%d,%d,%.4f,%d,%.4f,%d,%d,%d,%d,%d,%d",
+                elapsedNanos / 1e6, nodesExpanded, getNodesPerSecond(), depth, bound,
+                getBranchingFactor(), tableProbes, getTableHitRate(), tableSize,
+                tableEvictions, pruned[PRUNED_DEADLOCK], pruned[PRUNED_UNWINNABLE],
+                pruned[PRUNED_HEURISTIC], pruned[PRUNED_TABLE]);
+    }
+
+    /**
+     * Formats a series of snapshots (such as those handed to a Listener during a
+     * search) as CSV, starting with CSV_HEADER.
+     *
+     * @param series the snapshots, one per row.
+     * @return the CSV, with a line separator after every line.
+     */
+    public static String toCsv(List<SolverMetrics> series) {
+        StringBuilder csv = new StringBuilder(CSV_HEADER).append('\n');
+        for (SolverMetrics metrics : series) {
+            csv.append(metrics.toCsvRow()).append('\n');
+        }
+        return csv.toString();
+    }
+
+    /**
+     * Summarizes the snapshot on a single line, which is convenient for logging.
+     *
+     * @return a formatted summary of the snapshot.
+     */
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "%.2fms nodes=%d (%.0f/s) depth=%d bound=%d " +
+                        "branching=%.2f table=%d hits=%.1f%% evicted=%d " +
+                        "pruned=[deadlock %d, unwinnable %d, heuristic %d, table %d]",
+                elapsedNanos / 1e6, nodesExpanded, getNodesPerSecond(), depth, bound,
+                getBranchingFactor(), tableSize, getTableHitRate() * 100, tableEvictions,
+                pruned[PRUNED_DEADLOCK], pruned[PRUNED_UNWINNABLE],
+                pruned[PRUNED_HEURISTIC], pruned[PRUNED_TABLE]);
+    }
+}
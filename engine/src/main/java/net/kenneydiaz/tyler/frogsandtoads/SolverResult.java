@@ -0,0 +1,64 @@
+package net.kenneydiaz.tyler.frogsandtoads;
+
+/**
+ * The outcome of FrogsAndToadsSolver.findPath(): the path found, which kind of search
+ * found it, and the most memory the search was measured to hold at once.
+ *
+ * @author Tyler Kenney
+ */
+public class SolverResult {
+
+    // The kinds of search a path can come from, from the most memory hungry to the
+    // least. Only the last is not guaranteed to be optimal.
+    public static final int MODE_BREADTH_FIRST = 0;
+    public static final int MODE_ITERATIVE_DEEPENING = 1;
+    public static final int MODE_BEST_EFFORT = 2;
+
+    private final int[] path;
+    private final int mode;
+    private final long peakBytes;
+
+    SolverResult(int[] path, int mode, long peakBytes) {
+        this.path = path;
+        this.mode = mode;
+        this.peakBytes = peakBytes;
+    }
+
+    /**
+     * @return the packed moves of the path, in order. Empty if the position was already
+     *         won, or no path was found.
+     */
+    public int[] getPath() {
+        return path;
+    }
+
+    /**
+     * @return the kind of search which produced the path: MODE_BREADTH_FIRST,
+     *         MODE_ITERATIVE_DEEPENING, or MODE_BEST_EFFORT.
+     */
+    public int getMode() {
+        return mode;
+    }
+
+    /**
+     * @return true if the path is known to be as short as possible.
+     */
+    public boolean isOptimal() {
+        return mode != MODE_BEST_EFFORT;
+    }
+
+    /**
+     * @return the most bytes of transposition tables, frontiers, and path storage held
+     *         at once while searching.
+     */
+    public long getPeakBytes() {
+        return peakBytes;
+    }
+
+    @Override
+    public String toString() {
+        String[] modes = {"breadth first", "iterative deepening", "best effort"};
+        return path.length + " moves by " + modes[mode] + " search, peak " + peakBytes +
+                " bytes";
+    }
+}
@@ -0,0 +1,234 @@
+package net.kenneydiaz.tyler.frogsandtoads;
+
+import java.util.Arrays;
+
+/**
+ * A hash table from packed positions to integers, used by the solver to remember what it
+ * has already worked out about a position. Keys and values are held in two flat
+ * primitive arrays with open addressing and linear probing, so that neither lookups nor
+ * insertions ever allocate or box anything.
+ *
+ * A table can be given a limit on the bytes it may take up. Once it can no longer grow
+ * without passing the limit, it turns into a lossy cache: new positions replace old ones
+ * near where they belong, rather than the table growing. Callers which only use the
+ * table to avoid repeating work (such as the solver) still get correct answers, they
+ * just may have to work some of them out again.
+ *
+ * @author Tyler Kenney
+ */
+public class TranspositionTable {
+
+    // The value returned by get() for positions which are not in the table.
+    public static final int MISSING = Integer.MIN_VALUE;
+
+    // The number of bytes each slot takes up.
+    public static final int BYTES_PER_SLOT = Long.BYTES + Integer.BYTES;
+
+    // The initial number of slots, and the fraction of slots which may be filled before
+    // the table doubles in size.
+    private static final int DEFAULT_CAPACITY = 1 << 10;
+    private static final float MAX_LOAD = 0.5f;
+
+    // The most slots an insertion looks through for a free slot once the table is full,
+    // before replacing a position.
+    private static final int MAX_LOSSY_PROBES = 8;
+
+    private long[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+
+    // The furthest any position has been placed from its first slot, so lookups know
+    // when to stop probing even when the table has no free slots left.
+    private int maxProbes;
+
+    // The most bytes the table may take up, and how many positions it has had to
+    // forget to stay within them.
+    private long maxBytes = Long.MAX_VALUE;
+    private long evictions;
+
+    public TranspositionTable() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity the number of slots to start with. Rounded up to a power of two.
+     */
+    public TranspositionTable(int capacity) {
+        allocate(Integer.highestOneBit(Math.max(2, capacity - 1)) << 1);
+    }
+
+    /**
+     * Looks up the value stored for a position.
+     *
+     * @param position the packed position to look up.
+     * @return the value stored for the position, or MISSING if there is none.
+     */
+    public int get(long position) {
+        int slot = slotOf(position);
+        for (int probe = 0; probe <= maxProbes; probe++, slot = (slot + 1) & mask) {
+            long key = keys[slot];
+            if (key == position) {
+                return values[slot];
+            } else if (key == PackedPosition.NONE) {
+                return MISSING;
+            }
+        }
+        return MISSING;
+    }
+
+    /**
+     * Stores a value for a position, replacing any value already stored for it. If the
+     * table is full, another position may be forgotten to make room.
+     *
+     * @param position the packed position to store a value for.
+     * @param value the value to store.
+     */
+    public void put(long position, int value) {
+        if (size + 1 > keys.length * MAX_LOAD) {
+            if (canGrow()) {
+                resize(keys.length << 1);
+            } else {
+                insertLossy(position, value);
+                return;
+            }
+        }
+        insert(position, value);
+    }
+
+    /**
+     * Limits the bytes the table may take up from now on, shrinking it (and forgetting
+     * positions) right away if it already takes up more.
+     *
+     * @param maxBytes the most bytes the table may take up. At least two slots are
+     *                 always kept.
+     */
+    public void setMaxBytes(long maxBytes) {
+        this.maxBytes = maxBytes;
+        if (sizeInBytes() > maxBytes) {
+            long slots = Math.max(2, Math.min(maxBytes / BYTES_PER_SLOT, 1 << 30));
+            resize((int) Long.highestOneBit(slots));
+        }
+    }
+
+    /**
+     * @return true if the table can not grow any more, so that storing another position
+     *         may forget an old one.
+     */
+    public boolean isFull() {
+        return size + 1 > keys.length * MAX_LOAD && !canGrow();
+    }
+
+    /**
+     * @return the number of positions stored in the table.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the number of positions which have been forgotten to keep the table
+     *         within its limit.
+     */
+    public long evictions() {
+        return evictions;
+    }
+
+    /**
+     * @return the number of bytes taken up by the table's slots.
+     */
+    public long sizeInBytes() {
+        return (long) keys.length * BYTES_PER_SLOT;
+    }
+
+    /**
+     * Removes every position from the table, keeping its current capacity.
+     */
+    public void clear() {
+        Arrays.fill(keys, PackedPosition.NONE);
+        size = 0;
+        maxProbes = 0;
+    }
+
+    private boolean canGrow() {
+        return keys.length < (1 << 30) &&
+                (long) keys.length * 2 * BYTES_PER_SLOT <= maxBytes;
+    }
+
+    private void insert(long position, int value) {
+        int slot = slotOf(position);
+        for (int probe = 0; ; probe++, slot = (slot + 1) & mask) {
+            long key = keys[slot];
+            if (key == PackedPosition.NONE) {
+                keys[slot] = position;
+                values[slot] = value;
+                size++;
+                maxProbes = Math.max(maxProbes, probe);
+                return;
+            } else if (key == position) {
+                values[slot] = value;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Stores a position in a table which can not grow, looking through only a few slots
+     * for it or a free slot, and replacing whatever is in its first slot otherwise.
+     */
+    private void insertLossy(long position, int value) {
+        int first = slotOf(position);
+        int slot = first;
+        for (int probe = 0; probe < MAX_LOSSY_PROBES; probe++, slot = (slot + 1) & mask) {
+            long key = keys[slot];
+            if (key == position) {
+                values[slot] = value;
+                return;
+            } else if (key == PackedPosition.NONE) {
+                keys[slot] = position;
+                values[slot] = value;
+                size++;
+                maxProbes = Math.max(maxProbes, probe);
+                return;
+            }
+        }
+        keys[first] = position;
+        values[first] = value;
+        evictions++;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != PackedPosition.NONE) {
+                if (size + 1 > keys.length * MAX_LOAD) {
+                    insertLossy(oldKeys[i], oldValues[i]);
+                } else {
+                    insert(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, PackedPosition.NONE);
+        mask = capacity - 1;
+        size = 0;
+        maxProbes = 0;
+    }
+
+    /**
+     * Mixes the bits of a position so that similar positions land in distant slots.
+     *
+     * @param position the packed position to hash.
+     * @return the slot in which to start probing for the position.
+     */
+    private int slotOf(long position) {
+        long hash = position * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
@@ -0,0 +1,87 @@
+package net.kenneydiaz.tyler.frogsandtoads;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that Autoplay paces a solution at each speed, and times playing out the
+ * solutions of large boards as fast as possible, the way the front end does.
+ */
+public class AutoplayTest {
+
+    // The time between frames at 60 frames per second, in nanoseconds.
+    private static final long FRAME_NANOS = 16_666_667;
+
+    @Test
+    public void movesArePacedByTime() {
+        Autoplay autoplay = new Autoplay(IntStream.range(0, 10_000).iterator(), 64);
+        int moves = 0;
+        for (int frame = 0; frame <= 60; frame++) {
+            moves += autoplay.movesDue(1_000_000_000L + frame * FRAME_NANOS, false);
+        }
+        assertEquals(65, moves, 1);
+
+        // At half the frame rate the same time makes the same moves.
+        autoplay = new Autoplay(IntStream.range(0, 10_000).iterator(), 64);
+        moves = 0;
+        for (int frame = 0; frame <= 30; frame++) {
+            moves += autoplay.movesDue(frame * 2 * FRAME_NANOS, false);
+        }
+        assertEquals(65, moves, 1);
+
+        // A long stall is not made up for all at once.
+        assertTrue(autoplay.movesDue(60_000_000_000L, false) <= 64 * 0.1 + 1);
+    }
+
+    @Test
+    public void slowestSpeedWaitsForEachJump() {
+        Autoplay autoplay = new Autoplay(IntStream.range(0, 2).iterator(),
+                Autoplay.ONE_MOVE_PER_JUMP);
+        assertEquals(1, autoplay.movesDue(0, false));
+        autoplay.nextMove();
+        assertEquals(0, autoplay.movesDue(FRAME_NANOS, true));
+        assertEquals(1, autoplay.movesDue(2 * FRAME_NANOS, false));
+        autoplay.nextMove();
+        assertEquals(0, autoplay.movesDue(3 * FRAME_NANOS, false));
+        assertFalse(autoplay.hasNext());
+    }
+
+    @Test
+    @Category(Benchmark.class)
+    public void largeBoardsArePlayedOutInFrames() {
+        int[][] boards = {{9, 9}, {21, 21}, {41, 41}};
+        for (int[] board : boards) {
+            FrogsAndToads game = new FrogsAndToads(board[0], board[1]);
+            Autoplay autoplay = new Autoplay(game.getOptimalPath(),
+                    Autoplay.AS_FAST_AS_POSSIBLE);
+            MoveResult result = new MoveResult();
+
+            // Each frame makes moves until it has used up its budget, as MainActivity
+            // does, drawing only the position the last leaves.
+            long budgetNanos = 8_000_000;
+            int frames = 0;
+            int moves = 0;
+            long start = System.nanoTime();
+            while (autoplay.hasNext()) {
+                long frameStart = System.nanoTime();
+                int due = autoplay.movesDue(frameStart, false);
+                for (int i = 0; i < due && autoplay.hasNext() &&
+                        System.nanoTime() - frameStart < budgetNanos; i++) {
+                    int cell = autoplay.nextMove();
+                    game.tryMove(cell / board[1], cell % board[1], result);
+                    assertTrue(result.toString(), result.moved());
+                    moves++;
+                }
+                frames++;
+            }
+            long elapsed = System.nanoTime() - start;
+            assertEquals(MoveResult.WON, result.getStatus());
+            System.out.println(board[0] + "x" + board[1] + ": " + moves + " moves in " +
+                    frames + " frames, " + elapsed / 1_000_000 + "ms");
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package net.kenneydiaz.tyler.frogsandtoads;
+
+/**
+ * Marks the tests which time the engine rather than check it. Their numbers depend on
+ * the machine and on whatever else it is doing, so they are left out of the test task
+ * and run, with their output shown, by the benchmark task instead:
+ *
+ * ./gradlew :engine:benchmark
+ *
+ * Tests in this category print what they measure and assert only what is true however
+ * fast the machine is; anything a benchmark checks about the results is also checked by
+ * a test in the default suite.
+ *
+ * @author Tyler Kenney
+ */
+public interface Benchmark {
+}
@@ -0,0 +1,79 @@
+package net.kenneydiaz.tyler.frogsandtoads;
+
+import org.junit.Test;
+
+import java.util.PrimitiveIterator;
+
+import static org.junit.Assert.*;
+
+/**
+ * Cross-checks the constructive solution against the rules of the game engine and the
+ * exact solver.
+ */
+public class ConstructiveSolutionTest {
+
+    /**
+     * Plays a constructive solution on a fresh game, checking every move is legal.
+     *
+     * @return the number of moves played.
+     */
+    private static long play(int rows, int columns) {
+        FrogsAndToads game = new FrogsAndToads(rows, columns);
+        PrimitiveIterator.OfInt moves = new ConstructiveSolution(rows, columns);
+        long played = 0;
+        while (moves.hasNext()) {
+            int move = moves.nextInt();
+            assertTrue(game.moveIsValid(move / columns, move % columns));
+            game.move(move / columns, move % columns);
+            played++;
+        }
+        assertTrue(game.over());
+        return played;
+    }
+
+    @Test
+    public void solutionWinsEveryBoardShape() {
+        for (int rows = 3; rows <= 11; rows += 2) {
+            for (int columns = 3; columns <= 11; columns += 2) {
+                assertEquals(ConstructiveSolution.length(rows, columns), play(rows, columns));
+            }
+        }
+    }
+
+    @Test
+    public void solutionIsNoShorterThanOptimalOnSmallBoards() {
+        int[][] sizes = {{3, 3}, {3, 5}, {5, 3}, {3, 7}, {7, 3}};
+        for (int[] size : sizes) {
+            FrogsAndToadsSolver solver = new FrogsAndToadsSolver(size[0], size[1]);
+            int optimal = solver.distanceToGoal(PackedPosition.start(size[0], size[1]));
+            long constructive = play(size[0], size[1]);
+            assertTrue(constructive >= optimal);
+        }
+    }
+
+    @Test
+    public void largeBoardSolutionStreamsImmediately() {
+        PrimitiveIterator.OfInt moves = new ConstructiveSolution(1001, 1001);
+        assertTrue(moves.hasNext());
+        FrogsAndToads game = new FrogsAndToads(1001, 1001);
+        for (int i = 0; i < 10_000; i++) {
+            int move = moves.nextInt();
+            assertTrue(game.moveIsValid(move / 1001, move % 1001));
+            game.move(move / 1001, move % 1001);
+        }
+    }
+
+    @Test
+    public void optimalPathUsesSolverWhenCheap() {
+        FrogsAndToads game = new FrogsAndToads(3, 5);
+        PrimitiveIterator.OfInt path = game.getOptimalPath();
+        int length = 0;
+        while (path.hasNext()) {
+            int move = path.nextInt();
+            game.move(move / 5, move % 5);
+            length++;
+        }
+        assertTrue(game.over());
+        assertEquals(22, length);
+    }
+}
@@ -0,0 +1,54 @@
+package net.kenneydiaz.tyler.frogsandtoads;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Fuzzes PackedGame against FrogsAndToads, and checks that the fuzzer catches and
+ * shrinks a deliberately broken engine.
+ */
+public class EngineFuzzerTest {
+
+    @Test
+    public void packedGameMatchesTheReference() {
+        EngineFuzzer fuzzer = new EngineFuzzer(PackedGame::new);
+        EngineFuzzer.Report report = fuzzer.fuzz(20_000, 60, 1);
+        assertTrue(report.toString(), report.passed());
+        assertEquals(1_200_000, report.getSteps());
+    }
+
+    @Test
+    public void everyShapeIsChecked() {
+        for (int[] shape : EngineFuzzer.SHAPES) {
+            EngineFuzzer fuzzer = new EngineFuzzer(PackedGame::new);
+            fuzzer.setShapes(new int[][] {shape});
+            assertTrue(Arrays.toString(shape), fuzzer.fuzz(50, 40, shape[0]).passed());
+        }
+    }
+
+    @Test
+    public void failuresAreShrunk() {
+
+        // This engine wrongly claims that a stalled game has been won.
+        EngineFuzzer fuzzer = new EngineFuzzer((rows, columns) ->
+                new PackedGame(rows, columns) {
+                    @Override
+                    public boolean over() {
+                        return super.over() || !canMove();
+                    }
+                });
+        EngineFuzzer.Report report = fuzzer.fuzz(1000, 200, 2);
+        assertFalse(report.passed());
+
+        // Every step left is needed: without the last one, the engines agree.
+        int[] steps = report.getFailureSteps();
+        int rows = report.getFailureRows();
+        int columns = report.getFailureColumns();
+        assertTrue(steps.length < 20);
+        assertNotNull(fuzzer.compare(rows, columns, steps));
+        assertNull(fuzzer.compare(rows, columns, Arrays.copyOf(steps, steps.length - 1)));
+    }
+}
@@ -0,0 +1,138 @@
+package net.kenneydiaz.tyler.frogsandtoads;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that seek() can jump to any move of a game's history, for any checkpoint
+ * interval, and times it against stepping there one move at a time.
+ */
+public class FrogsAndToadsSeekTest {
+
+    @Test
+    public void seekReachesEveryMove() {
+        int[] intervals = {1, 2, 3, 7, 32};
+        for (int interval : intervals) {
+            FrogsAndToads game = new FrogsAndToads(7, 7);
+            game.setCheckpointInterval(interval);
+            long[] positions = playRandomGame(game, new Random(interval));
+            int moves = positions.length - 1;
+            assertEquals(moves, game.countRecordedMoves());
+
+            Random random = new Random(interval * 31);
+            for (int i = 0; i < 500; i++) {
+                int target = random.nextInt(moves + 1);
+                assertTrue(game.seek(target));
+                assertEquals(target, game.getMoveIndex());
+                assertEquals(positions[target], game.pack());
+                assertEquals(target > 0, game.hasPreviousMove());
+            }
+            assertFalse(game.seek(-1));
+            assertFalse(game.seek(moves + 1));
+        }
+    }
+
+    @Test
+    public void newMovesReplaceTheMovesSeekedBackOver() {
+        FrogsAndToads game = new FrogsAndToads(5, 5);
+        game.setCheckpointInterval(2);
+        long[] positions = playRandomGame(game, new Random(1));
+        int moves = positions.length - 1;
+        assertTrue(moves >= 6);
+
+        // Seeking back keeps the history, but a different move replaces it.
+        game.seek(3);
+        assertEquals(moves, game.countRecordedMoves());
+        int[] other = null;
+        for (int[] move : game.getLegalMoves()) {
+            if (PackedPosition.move(positions[3], move[0] * 5 + move[1]) != positions[4]) {
+                other = move;
+            }
+        }
+        assertNotNull(other);
+        game.move(other[0], other[1]);
+        assertEquals(4, game.countRecordedMoves());
+        assertTrue(game.seek(0));
+        assertEquals(positions[0], game.pack());
+        assertTrue(game.seek(4));
+        assertNotEquals(positions[4], game.pack());
+        assertFalse(game.seek(5));
+
+        // Undoing after seeking back forgets the moves after the current one.
+        game.seek(2);
+        game.undo();
+        assertEquals(1, game.getMoveIndex());
+        assertEquals(1, game.countRecordedMoves());
+        assertEquals(positions[1], game.pack());
+    }
+
+    @Test
+    public void changingTheIntervalKeepsThePosition() {
+        FrogsAndToads game = new FrogsAndToads(7, 7);
+        long[] positions = playRandomGame(game, new Random(5));
+        int middle = positions.length / 2;
+        game.seek(middle);
+        game.setCheckpointInterval(3);
+        assertEquals(middle, game.getMoveIndex());
+        assertEquals(positions[middle], game.pack());
+        game.seek(0);
+        assertEquals(positions[0], game.pack());
+    }
+
+    @Test
+    @Category(Benchmark.class)
+    public void seekingALongGameIsFast() {
+        int size = 25;
+        FrogsAndToads game = new FrogsAndToads(size, size);
+        ConstructiveSolution path = new ConstructiveSolution(size, size);
+        while (path.hasNext()) {
+            int cell = path.nextInt();
+            game.move(cell / size, cell % size);
+        }
+        int moves = game.countRecordedMoves();
+        assertTrue(game.over());
+
+        Random random = new Random(3);
+        int seeks = 20_000;
+        long time = System.nanoTime();
+        for (int i = 0; i < seeks; i++) {
+            game.seek(random.nextInt(moves + 1));
+        }
+        long seekNanos = (System.nanoTime() - time) / seeks;
+
+        // Stepping one move at a time, as undo() and replaying would have to.
+        game.setCheckpointInterval(Integer.MAX_VALUE);
+        time = System.nanoTime();
+        for (int i = 0; i < seeks / 20; i++) {
+            game.seek(random.nextInt(moves + 1));
+        }
+        long stepNanos = (System.nanoTime() - time) / (seeks / 20);
+
+        System.out.printf("%dx%d, %d moves: seek %.1fus, stepping %.1fus%n", size, size,
+                moves, seekNanos / 1e3, stepNanos / 1e3);
+        game.seek(moves);
+        assertTrue(game.over());
+    }
+
+    /**
+     * Plays random moves until the game ends, and returns the position after each
+     * number of moves.
+     */
+    private static long[] playRandomGame(FrogsAndToads game, Random random) {
+        long[] positions = new long[1];
+        positions[0] = game.pack();
+        for (List<int[]> moves; !(moves = game.getLegalMoves()).isEmpty(); ) {
+            int[] move = moves.get(random.nextInt(moves.size()));
+            game.move(move[0], move[1]);
+            positions = Arrays.copyOf(positions, positions.length + 1);
+            positions[positions.length - 1] = game.pack();
+        }
+        return positions;
+    }
+}
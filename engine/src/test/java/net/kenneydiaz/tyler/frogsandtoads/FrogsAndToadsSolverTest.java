@@ -0,0 +1,125 @@
+package net.kenneydiaz.tyler.frogsandtoads;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that the solvers agree on how far each board's starting position is from the
+ * goal, that the heuristic and bidirectional searches save what they are meant to, and
+ * that a solver kept within a budget still finds a legal path.
+ */
+public class FrogsAndToadsSolverTest {
+
+    // Boards small enough for the exhaustive search to be quick.
+    private static final int[][] BOARDS = {{3, 3}, {3, 5}, {5, 3}, {5, 5}};
+
+    @Test
+    public void heuristicSearchAgreesWithExhaustiveSearch() {
+        for (int[] board : BOARDS) {
+            int rows = board[0];
+            int columns = board[1];
+            long start = PackedPosition.start(rows, columns);
+            FrogsAndToadsSolver exhaustive =
+                    new FrogsAndToadsSolver(rows, columns, false);
+            FrogsAndToadsSolver heuristic = new FrogsAndToadsSolver(rows, columns);
+            assertEquals(exhaustive.distanceToGoal(start),
+                    heuristic.distanceToGoal(start));
+            if (rows * columns > 15) {
+                assertTrue(heuristic.positionsSolved() * 10 <
+                        exhaustive.positionsSolved());
+            }
+        }
+    }
+
+    @Test
+    public void bidirectionalSearchAgreesWithOneSidedSearch() {
+        for (int[] board : BOARDS) {
+            int rows = board[0];
+            int columns = board[1];
+            long start = PackedPosition.start(rows, columns);
+            BidirectionalSearch search = new BidirectionalSearch(rows, columns);
+            int oneSidedLength = search.solveOneSided(start).length;
+            long oneSidedPeak = search.peakPositions();
+            assertEquals(oneSidedLength, search.solve(start).length);
+            if (rows * columns > 15) {
+                assertTrue(search.peakPositions() < oneSidedPeak);
+            }
+        }
+    }
+
+    @Test
+    public void smallerBudgetsStillFindOptimalPaths() {
+        long[] budgets = {Long.MAX_VALUE, 1 << 20, 64 << 10};
+        for (int[] board : BOARDS) {
+            int rows = board[0];
+            int columns = board[1];
+            long start = PackedPosition.start(rows, columns);
+            int optimum = new FrogsAndToadsSolver(rows, columns).distanceToGoal(start);
+            for (long budget : budgets) {
+                FrogsAndToadsSolver solver = new FrogsAndToadsSolver(rows, columns);
+                solver.setMemoryBudget(budget);
+                SolverResult result = solver.findPath(start, Long.MAX_VALUE);
+                assertEquals(optimum, result.getPath().length);
+                assertTrue(result.getPeakBytes() <= budget);
+            }
+
+            // With no memory or positions to spare, the constructive solution is all that
+            // is left.
+            FrogsAndToadsSolver solver = new FrogsAndToadsSolver(rows, columns);
+            solver.setMemoryBudget(0);
+            SolverResult result = solver.findPath(start, 0);
+            assertEquals(SolverResult.MODE_BEST_EFFORT, result.getMode());
+            assertEquals(ConstructiveSolution.length(rows, columns),
+                    result.getPath().length);
+        }
+    }
+
+    @Test
+    public void pathsAreRebuiltWithinThePositionBudget() {
+        long start = PackedPosition.start(5, 5);
+        int optimum = new FrogsAndToadsSolver(5, 5).distanceToGoal(start);
+
+        // A solver which forgets most of what it finds has to search again to rebuild
+        // the path, which must not run past the budget; if it would, the best effort
+        // search takes over.
+        long[] maxPositions = {0, 1_000, 100_000, 10_000_000};
+        for (long max : maxPositions) {
+            FrogsAndToadsSolver solver = new FrogsAndToadsSolver(5, 5);
+            solver.setMemoryBudget(64 << 10);
+            SolverResult result = solver.findPath(start, max);
+            FrogsAndToads game = new FrogsAndToads(5, 5);
+            for (int move : result.getPath()) {
+                assertTrue(game.moveIsValid(move / 5, move % 5));
+                game.move(move / 5, move % 5);
+            }
+            assertTrue(game.over());
+            if (result.isOptimal()) {
+                assertEquals(optimum, result.getPath().length);
+            }
+        }
+        assertNull(new FrogsAndToadsSolver(5, 5).solve(start, 0));
+    }
+
+    @Test
+    public void metricsAreReportedWhileSearching() {
+        FrogsAndToadsSolver solver = new FrogsAndToadsSolver(5, 5);
+        List<SolverMetrics> series = new ArrayList<>();
+        solver.setMetricsListener(series::add, 0);
+        int distance = solver.distanceToGoal(PackedPosition.start(5, 5));
+
+        // Every report is followed by a final one, which matches getMetrics().
+        assertTrue(series.size() > 1);
+        SolverMetrics last = series.get(series.size() - 1);
+        assertEquals(solver.getMetrics().getNodesExpanded(), last.getNodesExpanded());
+        assertEquals(distance, last.getBound());
+        for (int i = 1; i < series.size(); i++) {
+            assertTrue(series.get(i).getNodesExpanded() >=
+                    series.get(i - 1).getNodesExpanded());
+        }
+        assertEquals(series.size() + 1, SolverMetrics.toCsv(series).split("\n").length);
+    }
+}
@@ -0,0 +1,131 @@
+package net.kenneydiaz.tyler.frogsandtoads;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that a batch of games follows the same rules as FrogsAndToads and
+ * PackedPosition, and times stepping a batch against stepping one FrogsAndToads object
+ * per game.
+ */
+public class GameBatchTest {
+
+    @Test
+    public void batchAgreesWithPackedPositions() {
+        int[][] boards = {{3, 3}, {3, 5}, {5, 3}, {5, 5}, {7, 7}};
+        int[] moves = new int[PackedPosition.MAX_MOVES];
+        for (int[] board : boards) {
+            int rows = board[0];
+            int columns = board[1];
+            GameBatch batch = new GameBatch(64, rows, columns);
+            batch.seed(rows * 31 + columns);
+            do {
+                for (int game = 0; game < batch.countGames(); game++) {
+                    long position = batch.getPosition(game);
+                    int count = PackedPosition.legalMoves(position, rows, columns, moves);
+                    assertEquals(count, Integer.bitCount(batch.getLegalMask(game)));
+
+                    // The kth set bit of the mask must be the kth legal move.
+                    int k = 0;
+                    for (int direction = 0; direction < GameBatch.DIRECTIONS; direction++) {
+                        int cell = batch.moveCell(game, direction);
+                        if (cell != GameBatch.NO_MOVE) {
+                            assertEquals(moves[k++], cell);
+                        }
+                    }
+
+                    int expected = (count > 0) ? GameBatch.PLAYING :
+                            (position == PackedPosition.goal(rows, columns)) ?
+                                    GameBatch.WON : GameBatch.STALLED;
+                    assertEquals(expected, batch.getStatus(game));
+                }
+            } while (batch.stepRandom() > 0);
+            assertEquals(0, batch.countPlaying());
+        }
+    }
+
+    @Test
+    public void chosenMovesMatchTheGame() {
+        GameBatch batch = new GameBatch(2, 5, 5);
+        FrogsAndToads game = new FrogsAndToads(5, 5);
+        byte[] directions = new byte[2];
+        Random random = new Random(7);
+        while (batch.getStatus(0) == GameBatch.PLAYING) {
+            int mask = batch.getLegalMask(0);
+            int direction;
+            do {
+                direction = random.nextInt(GameBatch.DIRECTIONS);
+            } while ((mask & (1 << direction)) == 0);
+            int cell = batch.moveCell(0, direction);
+
+            // Game 1 is given a move it cannot make, and so never moves.
+            directions[0] = (byte) direction;
+            directions[1] = GameBatch.NO_MOVE;
+            assertEquals(1, batch.step(directions));
+            game.move(cell / 5, cell % 5);
+            assertEquals(game.pack(), batch.getPosition(0));
+        }
+        assertEquals(game.over(), batch.getStatus(0) == GameBatch.WON);
+        assertEquals(PackedPosition.start(5, 5), batch.getPosition(1));
+        assertEquals(0, batch.countMovesMade(1));
+    }
+
+    @Test
+    @Category(Benchmark.class)
+    public void timeBatchAgainstGameObjects() {
+        int games = 4096;
+        int rounds = 20;
+        GameBatch batch = new GameBatch(games, 5, 5);
+        FrogsAndToads[] objects = new FrogsAndToads[games];
+        Random random = new Random(1);
+
+        // Only the second half of the rounds are timed, so that both are warmed up.
+        long batchSteps = 0;
+        long objectSteps = 0;
+        long batchNanos = 0;
+        long objectNanos = 0;
+        for (int round = 0; round < rounds; round++) {
+            batch.reset(PackedPosition.start(5, 5));
+            batch.seed(round);
+            long time = System.nanoTime();
+            long steps = batch.playOutRandom(Integer.MAX_VALUE);
+            if (round >= rounds / 2) {
+                batchNanos += System.nanoTime() - time;
+                batchSteps += steps;
+            }
+
+            for (int game = 0; game < games; game++) {
+                objects[game] = new FrogsAndToads(5, 5);
+            }
+            time = System.nanoTime();
+            steps = 0;
+            for (boolean moved = true; moved; ) {
+                moved = false;
+                for (FrogsAndToads object : objects) {
+                    List<int[]> moves = object.getLegalMoves();
+                    if (!moves.isEmpty()) {
+                        int[] move = moves.get(random.nextInt(moves.size()));
+                        object.move(move[0], move[1]);
+                        steps++;
+                        moved = true;
+                    }
+                }
+            }
+            if (round >= rounds / 2) {
+                objectNanos += System.nanoTime() - time;
+                objectSteps += steps;
+            }
+        }
+
+        double batchRate = batchSteps * 1e9 / batchNanos;
+        double objectRate = objectSteps * 1e9 / objectNanos;
+        System.out.printf("5x5, %d games: batch %.0f steps/s, objects %.0f steps/s " +
+                "(%.1fx)%n", games, batchRate, objectRate, batchRate / objectRate);
+        assertTrue(batchSteps > 0 && objectSteps > 0);
+    }
+}
@@ -0,0 +1,174 @@
+package net.kenneydiaz.tyler.frogsandtoads;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that a GameHost plays its sessions by the rules, in process, over a socket and
+ * from many threads at once, and times its moves with thousands of games being played
+ * at once.
+ */
+public class GameHostTest {
+
+    @Test
+    public void sessionsFollowTheRules() {
+        GameHost host = new GameHost();
+        long session = host.open(3, 3);
+        assertEquals(GameHost.NO_SESSION, host.open(4, 3));
+        assertEquals(GameHost.NO_SESSION, host.open(3, GameHost.MAX_DIMENSION + 2));
+
+        assertEquals(GameHost.ILLEGAL, host.undo(session));
+        assertEquals(GameHost.ILLEGAL, host.move(session, 2, 2));
+        assertEquals(GameHost.ILLEGAL, host.move(session, 1, 1));
+        assertEquals(GameHost.MOVED, host.move(session, 1, 0));
+        assertEquals("3F/.FT/3T", host.show(session));
+        assertEquals(GameHost.MOVED, host.undo(session));
+        assertEquals("3F/F.T/3T", host.show(session));
+
+        // Play a whole game out.
+        ConstructiveSolution path = new ConstructiveSolution(3, 3);
+        while (path.hasNext()) {
+            int cell = path.nextInt();
+            assertEquals(GameHost.MOVED, host.move(session, cell / 3, cell % 3));
+        }
+        assertEquals(GameHost.WON, host.getStatus(session));
+
+        // Boards too large to pack are played on the reference engine.
+        long large = host.open(9, 9);
+        assertEquals(GameHost.MOVED, host.move(large, 4, 3));
+        assertEquals(GameHost.PLAYING, host.getStatus(large));
+
+        assertTrue(host.close(session));
+        assertFalse(host.close(session));
+        assertEquals(GameHost.NO_SUCH_SESSION, host.move(session, 1, 0));
+        assertEquals(GameHost.NO_SUCH_SESSION, host.getStatus(session));
+        assertNull(host.show(session));
+        assertEquals(1, host.countSessions());
+    }
+
+    @Test
+    public void concurrentMovesLeaveRealPositions() throws Exception {
+        GameHost host = new GameHost();
+        long moves = playUnderLoad(host, 256, 4, 20_000);
+        assertEquals(moves, host.getMoveLatency().count());
+    }
+
+    @Test
+    @Category(Benchmark.class)
+    public void thousandsOfSessionsUnderLoad() throws Exception {
+        int sessionCount = 4096;
+        int threads = 8;
+        GameHost host = new GameHost();
+        playUnderLoad(host, sessionCount, threads, 200_000);
+        LatencyRecorder latency = host.getMoveLatency();
+        System.out.println(sessionCount + " sessions, " + threads + " threads: " +
+                latency);
+        assertTrue(latency.getPercentileNanos(50) <= latency.getPercentileNanos(99));
+    }
+
+    @Test
+    public void gamesCanBePlayedOverASocket() throws Exception {
+        GameHost host = new GameHost();
+        try (GameServer server = new GameServer(host, 0);
+             Socket socket = new Socket(InetAddress.getLoopbackAddress(),
+                     server.getPort());
+             PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
+             BufferedReader in = new BufferedReader(new InputStreamReader(
+                     socket.getInputStream(), StandardCharsets.UTF_8))) {
+            out.println("OPEN 3 3");
+            assertEquals("OK 0", in.readLine());
+            out.println("MOVE 0 1 0");
+            assertEquals("OK", in.readLine());
+            out.println("MOVE 0 1 0");
+            assertEquals("ILLEGAL", in.readLine());
+            out.println("SHOW 0");
+            assertEquals("OK 3F/.FT/3T", in.readLine());
+            out.println("STATUS 0");
+            assertEquals("PLAYING", in.readLine());
+            out.println("MOVE 0 one 0");
+            assertEquals("ERR malformed command", in.readLine());
+            out.println("STATS");
+            assertTrue(in.readLine().startsWith("OK sessions=1 moves=2 "));
+            out.println("CLOSE 0");
+            assertEquals("OK", in.readLine());
+            out.println("STATUS 0");
+            assertEquals("ERR no such session", in.readLine());
+        }
+    }
+
+    @Test
+    public void percentilesAreWithinABucket() {
+        LatencyRecorder latency = new LatencyRecorder();
+        for (int i = 1; i <= 100_000; i++) {
+            latency.record(i);
+        }
+        assertEquals(100_000, latency.getMaxNanos());
+        assertEquals(50_000, latency.getPercentileNanos(50), 50_000 / 32.0);
+        assertEquals(99_000, latency.getPercentileNanos(99), 99_000 / 32.0);
+        latency.reset();
+        assertEquals(0, latency.getPercentileNanos(50));
+    }
+
+    /**
+     * Opens sessionCount 5x5 games on the host, and has each thread make steps random
+     * moves and undos on them, checking afterwards that every game is still a real
+     * position. Returns how many moves (not undos) were made.
+     */
+    private static long playUnderLoad(GameHost host, int sessionCount, int threads,
+                                      int steps) throws Exception {
+        long[] sessions = new long[sessionCount];
+        for (int i = 0; i < sessionCount; i++) {
+            sessions[i] = host.open(5, 5);
+        }
+
+        // Every thread plays random cells of random sessions, which all the others may
+        // be playing at the same time, so games are often moved by two threads at once.
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<Long>> tasks = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            long seed = t;
+            tasks.add(executor.submit(() -> {
+                Random random = new Random(seed);
+                long moves = 0;
+                for (int i = 0; i < steps; i++) {
+                    long session = sessions[random.nextInt(sessionCount)];
+                    if (random.nextInt(8) == 0) {
+                        host.undo(session);
+                    } else {
+                        host.move(session, random.nextInt(5), random.nextInt(5));
+                        moves++;
+                    }
+                }
+                return moves;
+            }));
+        }
+        long moves = 0;
+        for (Future<Long> task : tasks) {
+            moves += task.get();
+        }
+        executor.shutdown();
+
+        // However the moves interleaved, every game must still be a real position.
+        for (long session : sessions) {
+            String position = host.show(session);
+            long packed = PositionCodec.parse(position, 5, 5);
+            assertTrue(position, packed != PackedPosition.NONE);
+        }
+        return moves;
+    }
+}
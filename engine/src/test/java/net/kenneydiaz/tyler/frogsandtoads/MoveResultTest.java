@@ -0,0 +1,226 @@
+package net.kenneydiaz.tyler.frogsandtoads;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that tryMove() agrees with move(), getLegalMoves(), over(), canMove() and
+ * DeadlockDetector on every cell of random games, including undos and seeks, and times
+ * a tap handled by tryMove() against the calls it replaces.
+ */
+public class MoveResultTest {
+
+    @Test
+    public void tryMoveAgreesWithTheReference() {
+        int[][] shapes = {{1, 3}, {3, 1}, {3, 3}, {3, 5}, {5, 5}, {7, 3}, {9, 9},
+                {11, 7}};
+        Random random = new Random(45);
+        for (int[] shape : shapes) {
+            int rows = shape[0];
+            int columns = shape[1];
+            for (int game = 0; game < 50; game++) {
+                FrogsAndToads tried = new FrogsAndToads(rows, columns);
+                FrogsAndToads reference = new FrogsAndToads(rows, columns);
+                for (int step = 0; step < 200; step++) {
+                    if (random.nextInt(10) == 0) {
+                        tried.undo();
+                        reference.undo();
+                        assertEquals(DeadlockDetector.isDead(reference),
+                                tried.isDeadlocked());
+                        continue;
+                    }
+                    if (random.nextInt(20) == 0 && tried.getMoveIndex() > 0) {
+                        int target = random.nextInt(tried.getMoveIndex());
+                        tried.seek(target);
+                        reference.seek(target);
+                        assertEquals(DeadlockDetector.isDead(reference),
+                                tried.isDeadlocked());
+                        continue;
+                    }
+
+                    // Sometimes tap a legal move, so games get somewhere, and otherwise
+                    // any cell, on the board or just off it.
+                    List<int[]> legal = reference.getLegalMoves();
+                    int i = random.nextInt(rows + 2) - 1;
+                    int j = random.nextInt(columns + 2) - 1;
+                    if (!legal.isEmpty() && random.nextBoolean()) {
+                        int[] move = legal.get(random.nextInt(legal.size()));
+                        i = move[0];
+                        j = move[1];
+                    }
+                    check(tried, reference, i, j);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void resultsDescribeTheMove() {
+        FrogsAndToads game = new FrogsAndToads(3, 3);
+        MoveResult result = game.tryMove(1, 1);
+        assertEquals(MoveResult.ILLEGAL, result.getOutcome());
+        assertEquals(MoveResult.NOTHING, result.getPiece());
+
+        result = game.tryMove(1, 0);
+        assertTrue(result.moved());
+        assertEquals(MoveResult.FROG, result.getPiece());
+        assertEquals(MoveResult.RIGHT, result.getDirection());
+        assertFalse(result.isJump());
+        assertEquals(1, result.getToRow());
+        assertEquals(1, result.getToColumn());
+        assertEquals(MoveResult.PLAYING, result.getStatus());
+
+        result = game.tryMove(1, 2);
+        assertTrue(result.moved());
+        assertEquals(MoveResult.TOAD, result.getPiece());
+        assertEquals(MoveResult.LEFT, result.getDirection());
+        assertTrue(result.isJump());
+        assertEquals(0, result.getToColumn());
+
+        // Playing a whole game out ends with the game won, and nothing moves after.
+        game = new FrogsAndToads(3, 3);
+        ConstructiveSolution path = new ConstructiveSolution(3, 3);
+        while (path.hasNext()) {
+            int cell = path.nextInt();
+            result = game.tryMove(cell / 3, cell % 3);
+            assertTrue(result.moved());
+        }
+        assertEquals(MoveResult.WON, result.getStatus());
+        assertEquals(MoveResult.GAME_FINISHED, game.tryMove(0, 0).getOutcome());
+    }
+
+    @Test
+    @Category(Benchmark.class)
+    public void timeTryMoveAgainstTheCallsItReplaces() {
+        int games = 2_000;
+        long[] times = new long[2];
+        for (int round = 0; round < 3; round++) {
+            Random random = new Random(round);
+            long start = System.nanoTime();
+            for (int g = 0; g < games; g++) {
+                FrogsAndToads game = new FrogsAndToads(9, 9);
+                for (int tap = 0; tap < 100; tap++) {
+
+                    // What MainActivity used to ask on every tap.
+                    int i = random.nextInt(9);
+                    int j = random.nextInt(9);
+                    if (game.over() || !game.canMove()) {
+                        break;
+                    }
+                    boolean legal = false;
+                    for (int[] move : game.getLegalMoves()) {
+                        legal |= move[0] == i && move[1] == j;
+                    }
+                    if (legal) {
+                        game.move(i, j);
+                        if (game.over() || !game.canMove()) {
+                            break;
+                        }
+                        DeadlockDetector.isDead(game);
+                    }
+                }
+            }
+            long old = System.nanoTime() - start;
+
+            random = new Random(round);
+            start = System.nanoTime();
+            for (int g = 0; g < games; g++) {
+                FrogsAndToads game = new FrogsAndToads(9, 9);
+                for (int tap = 0; tap < 100; tap++) {
+                    int i = random.nextInt(9);
+                    int j = random.nextInt(9);
+                    MoveResult result = game.tryMove(i, j);
+                    if (result.getOutcome() == MoveResult.GAME_FINISHED ||
+                            result.getStatus() != MoveResult.PLAYING) {
+                        break;
+                    }
+                }
+            }
+            long single = System.nanoTime() - start;
+            times[0] = old;
+            times[1] = single;
+        }
+        System.out.println("9x9 taps: separate calls " + times[0] / 1_000_000 +
+                "ms, tryMove " + times[1] / 1_000_000 + "ms");
+    }
+
+    /**
+     * Taps a cell of both games, through tryMove() on one and the reference calls on the
+     * other, and checks they agree.
+     */
+    private static void check(FrogsAndToads tried, FrogsAndToads reference, int i,
+                              int j) {
+        String where = PositionCodec.format(reference) + " at (" + i + ", " + j + ")";
+        boolean finished = reference.over() || !reference.canMove();
+        List<int[]> legalMoves = reference.getLegalMoves();
+        boolean legal = false;
+        for (int[] move : legalMoves) {
+            legal |= move[0] == i && move[1] == j;
+        }
+        int[] moves = new int[PackedPosition.MAX_MOVES];
+        assertEquals(where, legalMoves.size(), tried.legalMoves(moves));
+        for (int k = 0; k < legalMoves.size(); k++) {
+            assertEquals(where, legalMoves.get(k)[0] * reference.countColumns() +
+                    legalMoves.get(k)[1], moves[k]);
+        }
+        int piece = reference.frogAt(i, j) ? MoveResult.FROG :
+                reference.toadAt(i, j) ? MoveResult.TOAD : MoveResult.NOTHING;
+        int emptyRow = -1;
+        int emptyColumn = -1;
+        for (int r = 0; r < reference.countRows(); r++) {
+            for (int c = 0; c < reference.countColumns(); c++) {
+                if (reference.emptyAt(r, c)) {
+                    emptyRow = r;
+                    emptyColumn = c;
+                }
+            }
+        }
+        boolean jump = Math.abs(emptyRow - i) + Math.abs(emptyColumn - j) == 2;
+        reference.move(i, j);
+
+        MoveResult result = tried.tryMove(i, j);
+        assertEquals(where, piece, result.getPiece());
+        assertEquals(where, packFromBoard(reference), tried.pack());
+        assertEquals(where, DeadlockDetector.isDead(reference), result.isDeadlocked());
+        if (finished) {
+            assertEquals(where, MoveResult.GAME_FINISHED, result.getOutcome());
+        } else if (!legal) {
+            assertEquals(where, MoveResult.ILLEGAL, result.getOutcome());
+        } else {
+            assertEquals(where, MoveResult.MOVED, result.getOutcome());
+            assertEquals(where, jump, result.isJump());
+            assertEquals(where, emptyRow, result.getToRow());
+            assertEquals(where, emptyColumn, result.getToColumn());
+            assertEquals(where, i, result.getFromRow());
+            assertEquals(where, j, result.getFromColumn());
+        }
+        int status = reference.over() ? MoveResult.WON :
+                reference.canMove() ? MoveResult.PLAYING : MoveResult.STALLED;
+        assertEquals(where, status, result.getStatus());
+    }
+
+    /**
+     * Packs a game's board by looking at every cell, rather than trusting what the game
+     * keeps track of.
+     */
+    private static long packFromBoard(FrogsAndToads game) {
+        if (!PackedPosition.fits(game.countRows(), game.countColumns())) {
+            return PackedPosition.NONE;
+        }
+        long toads = 0;
+        int empty = 0;
+        for (int i = 0; i < game.countRows(); i++) {
+            for (int j = 0; j < game.countColumns(); j++) {
+                int cell = i * game.countColumns() + j;
+                if (game.toadAt(i, j)) toads |= 1L << cell;
+                if (game.emptyAt(i, j)) empty = cell;
+            }
+        }
+        return PackedPosition.of(toads, empty);
+    }
+}
@@ -0,0 +1,81 @@
+package net.kenneydiaz.tyler.frogsandtoads;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the packed unmove generator against the forward move generator.
+ */
+public class PackedPositionTest {
+
+    private static final int[][] BOARDS = {{1, 3}, {3, 1}, {3, 3}, {3, 5}, {5, 5}, {7, 7}};
+
+    /**
+     * Finds every position which reaches the given one in a single move by trying every
+     * cell the last piece to move could possibly be in.
+     */
+    private static Set<Long> predecessorsByBruteForce(long position, int rows,
+                                                      int columns) {
+        Set<Long> predecessors = new HashSet<>();
+        int empty = PackedPosition.emptyCell(position);
+        int[] moves = new int[PackedPosition.MAX_MOVES];
+        for (int cell = 0; cell < rows * columns; cell++) {
+            if (cell == empty) continue;
+            long before = PackedPosition.move(position, cell);
+            int count = PackedPosition.legalMoves(before, rows, columns, moves);
+            for (int i = 0; i < count; i++) {
+                if (PackedPosition.move(before, moves[i]) == position) {
+                    predecessors.add(before);
+                }
+            }
+        }
+        return predecessors;
+    }
+
+    @Test
+    public void unmovesFindEveryPredecessor() {
+        Random random = new Random(33);
+        int[] unmoves = new int[PackedPosition.MAX_MOVES];
+        for (int[] board : BOARDS) {
+            int rows = board[0];
+            int columns = board[1];
+            for (int trial = 0; trial < 2000; trial++) {
+                int empty = random.nextInt(rows * columns);
+                long toads = random.nextLong() & ((1L << (rows * columns)) - 1);
+                long position = PackedPosition.of(toads & ~(1L << empty), empty);
+
+                Set<Long> predecessors = new HashSet<>();
+                int count = PackedPosition.legalUnmoves(position, rows, columns, unmoves);
+                for (int i = 0; i < count; i++) {
+                    assertTrue(predecessors.add(
+                            PackedPosition.unmove(position, unmoves[i])));
+                }
+                assertEquals(predecessorsByBruteForce(position, rows, columns),
+                        predecessors);
+            }
+        }
+    }
+
+    @Test
+    public void scramblingBackwardFromTheGoalStaysSolvable() {
+        Random random = new Random(34);
+        int[] unmoves = new int[PackedPosition.MAX_MOVES];
+        FrogsAndToadsSolver solver = new FrogsAndToadsSolver(5, 5);
+        for (int trial = 0; trial < 50; trial++) {
+            long position = PackedPosition.goal(5, 5);
+            int steps = random.nextInt(20);
+            for (int step = 0; step < steps; step++) {
+                int count = PackedPosition.legalUnmoves(position, 5, 5, unmoves);
+                if (count == 0) break;
+                position = PackedPosition.unmove(position, unmoves[random.nextInt(count)]);
+            }
+            int distance = solver.distanceToGoal(position);
+            assertTrue(distance >= 0 && distance <= steps);
+        }
+    }
+}
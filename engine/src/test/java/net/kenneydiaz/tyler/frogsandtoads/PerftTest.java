@@ -0,0 +1,91 @@
+package net.kenneydiaz.tyler.frogsandtoads;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks both move generators against the known perft counts, and times each way of
+ * counting.
+ */
+public class PerftTest {
+
+    // The most leaves a count may have to be checked in the default suite, where each
+    // is counted in every way; the deeper counts are left to the benchmark.
+    private static final long MAX_CHECKED_LEAVES = 100_000;
+
+    // The most leaves a count may have to be repeated with the game's own (much slower)
+    // moves.
+    private static final long MAX_GAME_LEAVES = 3_000_000;
+
+    @Test
+    public void countsMatchKnownCounts() {
+        int threads = Runtime.getRuntime().availableProcessors();
+        for (long[] known : Perft.KNOWN_COUNTS) {
+            if (known[3] > MAX_CHECKED_LEAVES) {
+                continue;
+            }
+            int rows = (int) known[0];
+            int columns = (int) known[1];
+            int depth = (int) known[2];
+            Perft.Result expected = Perft.knownCounts(rows, columns, depth);
+
+            Perft.Result packed = Perft.countPacked(PackedPosition.start(rows, columns),
+                    rows, columns, depth);
+            assertTrue(packed.toString(), packed.sameCounts(expected));
+
+            FrogsAndToads game = new FrogsAndToads(rows, columns);
+            Perft.Result single = Perft.count(game, depth);
+            Perft.Result parallel = Perft.countParallel(game, depth, threads);
+            assertTrue(single.toString(), single.sameCounts(expected));
+            assertTrue(parallel.toString(), parallel.sameCounts(expected));
+            assertEquals(single.getNodes(), parallel.getNodes());
+            assertTrue(game.isStartPosition());
+        }
+    }
+
+    @Test
+    public void countsFromAnyPosition() {
+        FrogsAndToads game = new FrogsAndToads("2F.2T/5F/5F/5T/5T");
+        long position = game.pack();
+        for (int depth = 0; depth <= 8; depth++) {
+            assertTrue(Perft.count(game, depth).sameCounts(
+                    Perft.countPacked(position, 5, 5, depth)));
+        }
+        assertEquals(1, Perft.count(game, 0).getLeaves());
+    }
+
+    @Test
+    @Category(Benchmark.class)
+    public void timeEveryKnownCount() {
+        int threads = Runtime.getRuntime().availableProcessors();
+        System.out.println("board  depth  packed nodes/s  game nodes/s  " +
+                "parallel nodes/s");
+        for (long[] known : Perft.KNOWN_COUNTS) {
+            int rows = (int) known[0];
+            int columns = (int) known[1];
+            int depth = (int) known[2];
+            Perft.Result expected = Perft.knownCounts(rows, columns, depth);
+
+            Perft.Result packed = Perft.countPacked(PackedPosition.start(rows, columns),
+                    rows, columns, depth);
+            assertTrue(packed.toString(), packed.sameCounts(expected));
+            if (known[3] > MAX_GAME_LEAVES) {
+                System.out.printf("%dx%d  %5d  %14.0f%n", rows, columns, depth,
+                        packed.getNodesPerSecond());
+                continue;
+            }
+
+            FrogsAndToads game = new FrogsAndToads(rows, columns);
+            Perft.Result single = Perft.count(game, depth);
+            Perft.Result parallel = Perft.countParallel(game, depth, threads);
+            assertTrue(single.toString(), single.sameCounts(expected));
+            assertTrue(parallel.toString(), parallel.sameCounts(expected));
+
+            System.out.printf("%dx%d  %5d  %14.0f  %12.0f  %16.0f%n", rows, columns,
+                    depth, packed.getNodesPerSecond(), single.getNodesPerSecond(),
+                    parallel.getNodesPerSecond());
+        }
+    }
+}
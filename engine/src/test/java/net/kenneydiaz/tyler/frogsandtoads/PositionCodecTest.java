@@ -0,0 +1,110 @@
+package net.kenneydiaz.tyler.frogsandtoads;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class PositionCodecTest {
+
+    @Test
+    public void textAndBinaryFormsRoundTrip() {
+        Random random = new Random(39);
+        int[] moves = new int[PackedPosition.MAX_MOVES];
+        byte[] bytes = new byte[PositionCodec.binarySize(7, 5)];
+        for (int game = 0; game < 1000; game++) {
+            int rows = 1 + 2 * random.nextInt(4);
+            int columns = 1 + 2 * random.nextInt(3);
+            long position = PackedPosition.start(rows, columns);
+            int length = random.nextInt(20);
+            for (int i = 0; i < length; i++) {
+                int count = PackedPosition.legalMoves(position, rows, columns, moves);
+                if (count == 0) {
+                    break;
+                }
+                position = PackedPosition.move(position, moves[random.nextInt(count)]);
+            }
+
+            String text = PositionCodec.format(position, rows, columns);
+            assertEquals(rows, PositionCodec.countRows(text));
+            assertEquals(columns, PositionCodec.countColumns(text));
+            assertEquals(position, PositionCodec.parse(text, rows, columns));
+
+            FrogsAndToads fromText = new FrogsAndToads(text);
+            assertEquals(position, fromText.pack());
+            assertEquals(text, PositionCodec.format(fromText));
+
+            int end = PositionCodec.writeBinary(position, rows, columns, bytes, 0);
+            assertEquals(PositionCodec.binarySize(rows, columns), end);
+            assertEquals(position, PositionCodec.readBinary(bytes, 0));
+            assertEquals(position, new FrogsAndToads(bytes, 0).pack());
+            assertEquals(end, PositionCodec.writeBinary(fromText, bytes, 0));
+            assertEquals(position, PositionCodec.readBinary(bytes, 0));
+        }
+    }
+
+    @Test
+    public void textFormIsCompact() {
+        assertEquals("5F/5F/2F.2T/5T/5T",
+                PositionCodec.format(PackedPosition.start(5, 5), 5, 5));
+        assertEquals(PackedPosition.start(5, 5),
+                PositionCodec.parse("FFFFF/FFFFF/FF.TT/TTTTT/TTTTT", 5, 5));
+        assertTrue(new FrogsAndToads("3T/T.F/3F").over());
+    }
+
+    @Test
+    public void malformedPositionsAreRejected() {
+        String[] malformed = {"", "3F/F.F/3T/", "3F/F.F/2T", "3F/F.F/4T", "3F/F.F/3X",
+                "3F/3F/3T", "3F/..F/3T", "3F/F2./3T", "F.FF/4F/4F"};
+        for (String text : malformed) {
+            assertEquals(text, PackedPosition.NONE, PositionCodec.parse(text, 3, 3));
+        }
+        for (String text : new String[]{"3F/3F/3T", "F.FF/4F/4F/4F/4F", "F.F/FFF"}) {
+            try {
+                new FrogsAndToads(text);
+                fail(text);
+            } catch (IllegalArgumentException expected) {
+                // Exactly one empty cell and odd dimensions are required.
+            }
+        }
+
+        byte[] bytes = new byte[PositionCodec.binarySize(3, 3)];
+        PositionCodec.writeBinary(PackedPosition.start(3, 3), 3, 3, bytes, 0);
+        bytes[PositionCodec.BINARY_HEADER_BYTES] |= 1 << 4;
+        assertEquals(PackedPosition.NONE, PositionCodec.readBinary(bytes, 0));
+        assertEquals(PackedPosition.NONE, PositionCodec.readBinary(new byte[9], 0));
+    }
+
+    @Test
+    @Category(Benchmark.class)
+    public void bulkParsingIsFast() {
+        String[] texts = new String[1024];
+        long[] positions = new long[texts.length];
+        Random random = new Random(1);
+        for (int i = 0; i < texts.length; i++) {
+            positions[i] = PackedPosition.of(random.nextLong() & ((1L << 25) - 1) &
+                    ~(1L << (i % 25)), i % 25);
+            texts[i] = PositionCodec.format(positions[i], 5, 5);
+        }
+
+        byte[] bytes = new byte[PositionCodec.binarySize(5, 5)];
+        long checksum = 0;
+        long time = System.nanoTime();
+        for (int i = 0; i < 4_000_000; i++) {
+            checksum += PositionCodec.parse(texts[i & 1023], 5, 5);
+        }
+        long textNanos = System.nanoTime() - time;
+        time = System.nanoTime();
+        for (int i = 0; i < 4_000_000; i++) {
+            PositionCodec.writeBinary(positions[i & 1023], 5, 5, bytes, 0);
+            checksum -= PositionCodec.readBinary(bytes, 0);
+        }
+        long binaryNanos = System.nanoTime() - time;
+
+        System.out.printf("text: %.1fM positions/s, binary: %.1fM positions/s%n",
+                4e9 / textNanos, 4e9 / binaryNanos);
+        assertEquals(0, checksum);
+    }
+}
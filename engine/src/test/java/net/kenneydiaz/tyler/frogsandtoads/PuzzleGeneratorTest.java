@@ -0,0 +1,92 @@
+package net.kenneydiaz.tyler.frogsandtoads;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class PuzzleGeneratorTest {
+
+    @Test
+    public void puzzlesAreGradedByOptimalDistance() throws IOException {
+        int rows = 5;
+        int columns = 5;
+        PuzzleGenerator generator = new PuzzleGenerator(rows, columns);
+        generator.setSeed(1);
+        PuzzlePack pack = generator.generate(10, 40, 8, 60_000);
+        assertEquals(31 * 8, pack.countPuzzles());
+
+        // Every puzzle takes exactly as many moves as its bin says, and no two puzzles
+        // are the same up to mirror images.
+        FrogsAndToadsSolver solver = new FrogsAndToadsSolver(rows, columns);
+        Set<Long> canonical = new HashSet<>();
+        for (int distance : pack.getDistances()) {
+            for (int i = 0; i < pack.countPuzzles(distance); i++) {
+                long position = pack.getPuzzle(distance, i);
+                assertEquals(distance, solver.distanceToGoal(position));
+                long key = PuzzleGenerator.canonical(position, rows, columns);
+                assertTrue(canonical.add(key));
+            }
+        }
+
+        // The pack survives being written, then mapped or read back, and every puzzle
+        // can be played as a game.
+        File file = File.createTempFile("puzzles", ".pack");
+        file.deleteOnExit();
+        try (OutputStream output = new FileOutputStream(file)) {
+            pack.writeTo(output);
+        }
+        assertEquals(12 + 12 * 31 + 4 * 31 * 8, file.length());
+        PuzzlePack mapped = PuzzlePack.map(file);
+        PuzzlePack read;
+        try (InputStream input = new FileInputStream(file)) {
+            read = PuzzlePack.readFrom(input);
+        }
+        for (int distance : pack.getDistances()) {
+            for (int i = 0; i < pack.countPuzzles(distance); i++) {
+                assertEquals(pack.getPuzzle(distance, i), mapped.getPuzzle(distance, i));
+                assertEquals(pack.getPuzzle(distance, i), read.getPuzzle(distance, i));
+                FrogsAndToads game = FrogsAndToads.fromPuzzle(mapped, distance, i);
+                assertEquals(pack.getPuzzle(distance, i), game.pack());
+            }
+        }
+        assertEquals(PackedPosition.NONE, mapped.getPuzzle(41, 0));
+        assertNull(FrogsAndToads.fromPuzzle(mapped, 10, 8));
+    }
+
+    @Test(expected = IOException.class)
+    public void corruptPacksAreRejected() throws IOException {
+        PuzzlePack pack = new PuzzlePack(3, 3, new int[]{2}, new long[][]{{
+                PackedPosition.start(3, 3)}});
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        pack.writeTo(bytes);
+        byte[] truncated = Arrays.copyOf(bytes.toByteArray(), bytes.size() - 1);
+        PuzzlePack.wrap(ByteBuffer.wrap(truncated));
+    }
+
+    @Test
+    public void mirrorImagesAreEquallyHard() {
+        FrogsAndToadsSolver solver = new FrogsAndToadsSolver(3, 5);
+        long position = PackedPosition.start(3, 5);
+        int[] moves = new int[PackedPosition.MAX_MOVES];
+        for (int i = 0; i < 10; i++) {
+            position = PackedPosition.move(position, moves[
+                    PackedPosition.legalMoves(position, 3, 5, moves) - 1]);
+            long canonical = PuzzleGenerator.canonical(position, 3, 5);
+            assertEquals(solver.distanceToGoal(position), solver.distanceToGoal(canonical));
+        }
+        long goal = PackedPosition.goal(3, 5);
+        assertEquals(goal, PuzzleGenerator.canonical(goal, 3, 5));
+    }
+}
@@ -0,0 +1,200 @@
+package net.kenneydiaz.tyler.frogsandtoads;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that a SolutionCache keeps its answers across processes, survives its files
+ * being cut short or damaged, and stays within its budget, and times a lookup against
+ * solving the position again.
+ */
+public class SolutionCacheTest {
+
+    @Test
+    public void answersOutliveTheCache() throws IOException {
+        File directory = Files.createTempDirectory("solutions").toFile();
+        SolutionCache cache = new SolutionCache(directory);
+        assertFalse(new File(directory, SolutionCache.LOG_NAME).exists());
+        assertNull(cache.get(5, 5, 42));
+        assertTrue(cache.put(5, 5, 42, new int[] {7, 3}));
+        assertTrue(cache.put(3, 3, 42, new int[] {1, 2, 3}));
+        assertTrue(cache.put(5, 5, 42, new int[] {6, 4}));
+        assertArrayEquals(new int[] {6, 4}, cache.get(5, 5, 42));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        cache.close();
+        assertNull(cache.get(5, 5, 42));
+
+        // Reopened from the index.
+        cache = new SolutionCache(directory);
+        assertArrayEquals(new int[] {6, 4}, cache.get(5, 5, 42));
+        assertArrayEquals(new int[] {1, 2, 3}, cache.get(3, 3, 42));
+        assertTrue(cache.put(3, 3, 43, new int[] {9}));
+
+        // Reopened without closing, as if the process died: the index covers only the
+        // first part of the log, and the rest is read from the log itself.
+        cache = new SolutionCache(directory);
+        assertArrayEquals(new int[] {9}, cache.get(3, 3, 43));
+        assertEquals(3, cache.countEntries());
+
+        // Reopened without any index.
+        assertTrue(new File(directory, SolutionCache.INDEX_NAME).delete());
+        cache = new SolutionCache(directory);
+        assertArrayEquals(new int[] {6, 4}, cache.get(5, 5, 42));
+        assertEquals(3, cache.countEntries());
+        cache.close();
+        delete(directory);
+    }
+
+    @Test
+    public void tornAndDamagedRecordsAreDropped() throws IOException {
+        File directory = Files.createTempDirectory("solutions").toFile();
+        SolutionCache cache = new SolutionCache(directory);
+        for (int i = 0; i < 10; i++) {
+            cache.put(5, 5, i, new int[] {i, i + 1});
+        }
+        cache.flush();
+        for (int i = 10; i < 20; i++) {
+            cache.put(5, 5, i, new int[] {i, i + 1});
+        }
+
+        // Tear the last record in half, as if the device died while writing it.
+        File logFile = new File(directory, SolutionCache.LOG_NAME);
+        try (RandomAccessFile log = new RandomAccessFile(logFile, "rw")) {
+            log.setLength(log.length() - 5);
+        }
+        cache = new SolutionCache(directory);
+        assertNull(cache.get(5, 5, 19));
+        assertEquals(19, cache.countEntries());
+        assertArrayEquals(new int[] {18, 19}, cache.get(5, 5, 18));
+        assertTrue(cache.put(5, 5, 19, new int[] {19, 20}));
+        assertArrayEquals(new int[] {19, 20}, cache.get(5, 5, 19));
+
+        // Damage a value of a record the index points to.
+        int recordBytes = SolutionCache.recordBytes(2);
+        try (RandomAccessFile log = new RandomAccessFile(logFile, "rw")) {
+            log.seek(16 + 3 * recordBytes + 13);
+            log.write(0x55);
+        }
+        cache = new SolutionCache(directory);
+        assertNull(cache.get(5, 5, 3));
+        assertArrayEquals(new int[] {4, 5}, cache.get(5, 5, 4));
+
+        // A damaged index is ignored, and the log read through instead.
+        File indexFile = new File(directory, SolutionCache.INDEX_NAME);
+        try (RandomAccessFile index = new RandomAccessFile(indexFile, "rw")) {
+            index.seek(40);
+            index.write(0x55);
+        }
+        cache = new SolutionCache(directory);
+        assertArrayEquals(new int[] {0, 1}, cache.get(5, 5, 0));
+        assertNull(cache.getFailure());
+        delete(directory);
+    }
+
+    @Test
+    public void leastRecentlyUsedAnswersAreEvicted() throws IOException {
+        File directory = Files.createTempDirectory("solutions").toFile();
+        int recordBytes = SolutionCache.recordBytes(2);
+        SolutionCache cache = new SolutionCache(directory, 100 * recordBytes);
+        for (int i = 0; i < 100; i++) {
+            cache.put(5, 5, i, new int[] {i, -i});
+        }
+        cache.get(5, 5, 0);
+        cache.put(5, 5, 100, new int[] {100, -100});
+        assertEquals(100, cache.countEntries());
+        assertEquals(100 * recordBytes, cache.getBytes());
+        assertNotNull(cache.get(5, 5, 0));
+        assertNull(cache.get(5, 5, 1));
+        assertEquals(1, cache.getEvictions());
+
+        // Write enough to compact the log several times over, touching the first answer
+        // all along so it is never the least recently used.
+        for (int i = 101; i < 2000; i++) {
+            cache.put(5, 5, i, new int[] {i, -i});
+            assertArrayEquals(new int[] {0, 0}, cache.get(5, 5, 0));
+        }
+        File logFile = new File(directory, SolutionCache.LOG_NAME);
+        assertTrue(logFile.length() <= 16 + 2 * 100 * recordBytes + recordBytes);
+        assertArrayEquals(new int[] {1999, -1999}, cache.get(5, 5, 1999));
+        assertNull(cache.get(5, 5, 1899));
+        cache.close();
+
+        // Least recently used order survives reopening.
+        cache = new SolutionCache(directory, 100 * recordBytes);
+        assertArrayEquals(new int[] {0, 0}, cache.get(5, 5, 0));
+        assertEquals(100, cache.countEntries());
+        cache.put(5, 5, 2000, new int[] {2000, -2000});
+        assertNull(cache.get(5, 5, 1901));
+        assertNotNull(cache.get(5, 5, 1902));
+        assertNotNull(cache.get(5, 5, 0));
+        cache.close();
+        delete(directory);
+    }
+
+    @Test
+    @Category(Benchmark.class)
+    public void timeALookupAgainstSolving() throws IOException {
+        File directory = Files.createTempDirectory("solutions").toFile();
+        FrogsAndToadsSolver solver = new FrogsAndToadsSolver(5, 5);
+        SolutionCache cache = new SolutionCache(directory);
+
+        // Solve positions along random games, as the hint engine would.
+        Random random = new Random(46);
+        long[] positions = new long[200];
+        int[] moves = new int[PackedPosition.MAX_MOVES];
+        long position = PackedPosition.start(5, 5);
+        for (int i = 0; i < positions.length; i++) {
+            int count = PackedPosition.legalMoves(position, 5, 5, moves);
+            if (count == 0) {
+                position = PackedPosition.start(5, 5);
+                count = PackedPosition.legalMoves(position, 5, 5, moves);
+            }
+            position = PackedPosition.move(position, moves[random.nextInt(count)]);
+            positions[i] = position;
+        }
+
+        long start = System.nanoTime();
+        for (long solved : positions) {
+            FrogsAndToadsSolver fresh = new FrogsAndToadsSolver(5, 5);
+            int distance = fresh.distanceToGoal(solved);
+            cache.put(5, 5, solved, new int[] {distance, fresh.bestMove(solved)});
+        }
+        long solving = System.nanoTime() - start;
+        cache.close();
+
+        cache = new SolutionCache(directory);
+        int[][] verdicts = new int[positions.length][];
+        start = System.nanoTime();
+        for (int i = 0; i < positions.length; i++) {
+            verdicts[i] = cache.get(5, 5, positions[i]);
+        }
+        long lookups = System.nanoTime() - start;
+        for (int i = 0; i < positions.length; i++) {
+            assertEquals(solver.distanceToGoal(positions[i]), verdicts[i][0]);
+        }
+        System.out.println("5x5 verdicts: solving " + solving / positions.length / 1000 +
+                "us each, loading and looking up " + lookups / positions.length / 1000 +
+                "us each; " + cache);
+        cache.close();
+        delete(directory);
+    }
+
+    private static void delete(File directory) {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                assertTrue(file.delete());
+            }
+        }
+        assertTrue(directory.delete());
+    }
+}
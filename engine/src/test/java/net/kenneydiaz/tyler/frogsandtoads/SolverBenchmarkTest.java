@@ -0,0 +1,129 @@
+package net.kenneydiaz.tyler.frogsandtoads;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import static org.junit.Assert.*;
+
+/**
+ * Benchmarks the solvers against each other, by solving the starting position of each
+ * board size and printing how many positions each had to remember and how long each
+ * took. The same comparisons are checked, on boards small enough to be quick, by
+ * FrogsAndToadsSolverTest.
+ */
+@Category(Benchmark.class)
+public class SolverBenchmarkTest {
+
+    private static final int[][] BOARDS = {{3, 3}, {3, 5}, {5, 3}, {3, 7}, {7, 3}, {5, 5}};
+
+    @Test
+    public void heuristicSearchesFarFewerPositions() {
+        System.out.println("board  distance  exhaustive positions (ms)  heuristic positions (ms)");
+        for (int[] board : BOARDS) {
+            int rows = board[0];
+            int columns = board[1];
+            long start = PackedPosition.start(rows, columns);
+
+            // Build the pattern databases first, so only the search itself is timed.
+            PatternHeuristic.forBoard(rows, columns);
+
+            FrogsAndToadsSolver exhaustive = new FrogsAndToadsSolver(rows, columns, false);
+            long time = System.nanoTime();
+            int exhaustiveDistance = exhaustive.distanceToGoal(start);
+            long exhaustiveMillis = (System.nanoTime() - time) / 1_000_000;
+
+            FrogsAndToadsSolver heuristic = new FrogsAndToadsSolver(rows, columns);
+            time = System.nanoTime();
+            int heuristicDistance = heuristic.distanceToGoal(start);
+            long heuristicMillis = (System.nanoTime() - time) / 1_000_000;
+
+            System.out.printf("%dx%d    %8d  %20d (%d)  %19d (%d)%n", rows, columns,
+                    heuristicDistance, exhaustive.positionsSolved(), exhaustiveMillis,
+                    heuristic.positionsSolved(), heuristicMillis);
+            assertEquals(exhaustiveDistance, heuristicDistance);
+            if (rows * columns > 15) {
+                assertTrue(heuristic.positionsSolved() * 10 < exhaustive.positionsSolved());
+            }
+        }
+    }
+
+    @Test
+    public void heuristicSolvesBoardsOutOfExhaustiveReach() {
+
+        // The exhaustive search cannot remember enough positions to solve 7x5, so only
+        // the heuristic search is timed there.
+        int rows = 7;
+        int columns = 5;
+        long start = PackedPosition.start(rows, columns);
+        PatternHeuristic.forBoard(rows, columns);
+        FrogsAndToadsSolver heuristic = new FrogsAndToadsSolver(rows, columns);
+        long time = System.nanoTime();
+        int distance = heuristic.distanceToGoal(start);
+        long millis = (System.nanoTime() - time) / 1_000_000;
+        System.out.printf("%dx%d    %8d  %19d (%d)%n", rows, columns, distance,
+                heuristic.positionsSolved(), millis);
+        assertEquals(82, distance);
+    }
+
+    @Test
+    public void bidirectionalSearchHoldsFewerPositions() {
+        System.out.println("board  distance  one-sided peak positions (ms)  bidirectional peak positions (ms)");
+        for (int[] board : BOARDS) {
+            int rows = board[0];
+            int columns = board[1];
+            long start = PackedPosition.start(rows, columns);
+            BidirectionalSearch search = new BidirectionalSearch(rows, columns);
+
+            long time = System.nanoTime();
+            int oneSidedLength = search.solveOneSided(start).length;
+            long oneSidedMillis = (System.nanoTime() - time) / 1_000_000;
+            long oneSidedPeak = search.peakPositions();
+
+            time = System.nanoTime();
+            int bidirectionalLength = search.solve(start).length;
+            long bidirectionalMillis = (System.nanoTime() - time) / 1_000_000;
+            long bidirectionalPeak = search.peakPositions();
+
+            System.out.printf("%dx%d    %8d  %24d (%d)  %28d (%d)%n", rows, columns,
+                    bidirectionalLength, oneSidedPeak, oneSidedMillis, bidirectionalPeak,
+                    bidirectionalMillis);
+            assertEquals(oneSidedLength, bidirectionalLength);
+            if (rows * columns > 15) {
+                assertTrue(bidirectionalPeak < oneSidedPeak);
+            }
+        }
+    }
+
+    @Test
+    public void smallerBudgetsDegradeGracefully() {
+        System.out.println("board  budget (bytes)  result (ms)");
+        long[] budgets = {Long.MAX_VALUE, 1 << 20, 64 << 10};
+        for (int[] board : BOARDS) {
+            int rows = board[0];
+            int columns = board[1];
+            long start = PackedPosition.start(rows, columns);
+            int optimum = new FrogsAndToadsSolver(rows, columns).distanceToGoal(start);
+
+            for (long budget : budgets) {
+                FrogsAndToadsSolver solver = new FrogsAndToadsSolver(rows, columns);
+                solver.setMemoryBudget(budget);
+                long time = System.nanoTime();
+                SolverResult result = solver.findPath(start, Long.MAX_VALUE);
+                long millis = (System.nanoTime() - time) / 1_000_000;
+
+                System.out.printf("%dx%d    %14d  %s (%d)%n", rows, columns, budget, result,
+                        millis);
+                assertEquals(optimum, result.getPath().length);
+                assertTrue(result.getPeakBytes() <= budget);
+            }
+
+            // With no memory or positions to spare, the constructive solution is all that
+            // is left.
+            FrogsAndToadsSolver solver = new FrogsAndToadsSolver(rows, columns);
+            solver.setMemoryBudget(0);
+            SolverResult result = solver.findPath(start, 0);
+            assertEquals(SolverResult.MODE_BEST_EFFORT, result.getMode());
+            assertEquals(ConstructiveSolution.length(rows, columns), result.getPath().length);
+        }
+    }
+}
@@ -15,4 +15,5 @@ dependencyResolutionManagement {
 
 rootProject.name = "FrogsAndToads"
 include(":app")
+include(":engine")
  
\ No newline at end of file